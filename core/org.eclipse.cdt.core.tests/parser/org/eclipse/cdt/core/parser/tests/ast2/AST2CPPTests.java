@@ -141,8 +141,12 @@ import org.eclipse.cdt.core.dom.ast.cpp.ICPPUsingDeclaration;
 import org.eclipse.cdt.core.dom.ast.cpp.ICPPVariable;
 import org.eclipse.cdt.core.dom.ast.cpp.SemanticQueries;
 import org.eclipse.cdt.core.dom.ast.gnu.cpp.IGPPASTArrayRangeDesignator;
+import org.eclipse.cdt.core.dom.parser.cpp.GPPParserExtensionConfiguration;
+import org.eclipse.cdt.core.parser.FileContent;
 import org.eclipse.cdt.core.parser.IProblem;
+import org.eclipse.cdt.core.parser.IScanner;
 import org.eclipse.cdt.core.parser.ParserLanguage;
+import org.eclipse.cdt.core.parser.ParserMode;
 import org.eclipse.cdt.core.parser.util.CharArrayUtils;
 import org.eclipse.cdt.internal.core.dom.parser.SizeofCalculator;
 import org.eclipse.cdt.internal.core.dom.parser.cpp.CPPASTNameBase;
@@ -152,6 +156,7 @@ import org.eclipse.cdt.internal.core.dom.parser.cpp.CPPFunctionType;
 import org.eclipse.cdt.internal.core.dom.parser.cpp.CPPMethod;
 import org.eclipse.cdt.internal.core.dom.parser.cpp.CPPPointerType;
 import org.eclipse.cdt.internal.core.dom.parser.cpp.ClassTypeHelper;
+import org.eclipse.cdt.internal.core.dom.parser.cpp.GNUCPPSourceParser;
 import org.eclipse.cdt.internal.core.dom.parser.cpp.ICPPInternalBinding;
 import org.eclipse.cdt.internal.core.dom.parser.cpp.OverloadableOperator;
 import org.eclipse.cdt.internal.core.dom.parser.cpp.semantics.CPPSemantics;
@@ -11764,4 +11769,28 @@ public class AST2CPPTests extends AST2TestBase {
 	public void testShadowingAliasDeclaration_484200() throws Exception {
 		parseAndCheckBindings();
 	}
+
+	//	int f() { return 1; }
+	//	int g() { int x= f(); return x; }
+	//	int h() { return 2; }
+	public void testRegionOfInterest() throws Exception {
+		final String code= getAboveComment();
+		IScanner scanner= createScanner(FileContent.create(TEST_CODE, code.toCharArray()), CPP,
+				ParserMode.COMPLETE_PARSE, createScannerInfo(true));
+		GNUCPPSourceParser parser= new GNUCPPSourceParser(scanner, ParserMode.COMPLETE_PARSE, NULL_LOG,
+				new GPPParserExtensionConfiguration(), null);
+		parser.setRegionOfInterest(code.indexOf("x= f()"), 1);
+		IASTTranslationUnit tu= parser.parse();
+		assertTrue(tu.hasNodesOmitted());
+
+		IASTDeclaration[] decls= tu.getDeclarations();
+		assertEquals(3, decls.length);
+		IASTCompoundStatement body= (IASTCompoundStatement) ((IASTFunctionDefinition) decls[0]).getBody();
+		assertEquals(0, body.getStatements().length);
+		assertEquals(code.indexOf("{ return 1; }"), body.getFileLocation().getNodeOffset());
+		body= (IASTCompoundStatement) ((IASTFunctionDefinition) decls[1]).getBody();
+		assertEquals(2, body.getStatements().length);
+		body= (IASTCompoundStatement) ((IASTFunctionDefinition) decls[2]).getBody();
+		assertEquals(0, body.getStatements().length);
+	}
 }
@@ -84,6 +84,32 @@ public class FileCharArrayTests extends BaseTestCase {
 
 	}
 
+	public void testAccessAcrossChunks() throws IOException {
+		final int charSize= LazyCharArray.CHUNK_SIZE * 3;
+		createFile(true, charSize);
+
+		AbstractCharArray charArray;
+		final FileInputStream inputStream = new FileInputStream(fFile);
+		try {
+			charArray = FileCharArray.create(fFile.getPath(), "utf-8", inputStream);
+		} finally {
+			inputStream.close();
+		}
+
+		// Reading ahead must not affect the access to the current chunk.
+		assertEquals(1, charArray.get(1));
+		assertTrue(charArray.isValidOffset(charSize - 1));
+		assertEquals(2, charArray.get(2));
+		assertEquals((charSize - 1) % 127, charArray.get(charSize - 1));
+		char[] dest= new char[4];
+		charArray.arraycopy(LazyCharArray.CHUNK_SIZE - 2, dest, 0, 4);
+		for (int j = 0; j < dest.length; j++) {
+			assertEquals((LazyCharArray.CHUNK_SIZE - 2 + j) % 127, dest[j]);
+		}
+		assertEquals(3, charArray.get(3));
+		assertFalse(charArray.isValidOffset(charSize));
+	}
+
 	public void checkContent(AbstractCharArray charArray, int from, int to) {
 		for (int i = from; i < to; i++) {
 			assertEquals(i % 127, charArray.get(i));
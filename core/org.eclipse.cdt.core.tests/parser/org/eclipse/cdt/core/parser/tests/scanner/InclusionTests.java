@@ -12,20 +12,37 @@
  *******************************************************************************/
 package org.eclipse.cdt.core.parser.tests.scanner;
 
+import java.io.File;
 import java.util.Collections;
 
 import junit.framework.TestSuite;
 
+import org.eclipse.cdt.core.dom.ast.ASTVisitor;
+import org.eclipse.cdt.core.dom.ast.IASTComment;
+import org.eclipse.cdt.core.dom.ast.IASTFileLocation;
+import org.eclipse.cdt.core.dom.ast.IASTName;
+import org.eclipse.cdt.core.dom.ast.IASTNode;
+import org.eclipse.cdt.core.dom.ast.IASTPreprocessorMacroExpansion;
+import org.eclipse.cdt.core.dom.ast.IASTPreprocessorStatement;
+import org.eclipse.cdt.core.dom.ast.IASTProblem;
+import org.eclipse.cdt.core.dom.ast.IASTTranslationUnit;
+import org.eclipse.cdt.core.dom.ast.gnu.cpp.GPPLanguage;
+import org.eclipse.cdt.core.index.IIndexFileLocation;
 import org.eclipse.cdt.core.model.ICProject;
 import org.eclipse.cdt.core.parser.ExtendedScannerInfo;
 import org.eclipse.cdt.core.parser.FileContent;
 import org.eclipse.cdt.core.parser.IScannerInfo;
 import org.eclipse.cdt.core.parser.IToken;
+import org.eclipse.cdt.core.parser.NullLogService;
 import org.eclipse.cdt.core.parser.ParserLanguage;
 import org.eclipse.cdt.core.parser.ParserMode;
 import org.eclipse.cdt.core.parser.ScannerInfo;
 import org.eclipse.cdt.core.testplugin.CProjectHelper;
 import org.eclipse.cdt.core.testplugin.util.TestSourceReader;
+import org.eclipse.cdt.internal.core.parser.IMacroDictionary;
+import org.eclipse.cdt.internal.core.parser.scanner.InternalFileContent;
+import org.eclipse.cdt.internal.core.parser.scanner.InternalFileContentProvider;
+import org.eclipse.cdt.internal.core.parser.scanner.LexerTokenCache;
 import org.eclipse.cdt.internal.core.pdom.indexer.PDOMNullIndexer;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IFolder;
@@ -305,4 +322,110 @@ public class InclusionTests extends PreprocessorTestsBase {
     	validateInteger("2");
     	validateEOF();
     }
+
+    // // comment
+    // /* block
+    //    comment */
+    // #ifndef V
+    // #define V 0
+    // #endif
+    // #define M(x) ((x) + V)
+    // int h0 = M(1);
+    // #if V == 1
+    // const char* h1 = "unterminated;
+    // #elif V == 2
+    // int h2 = M(2); /* trailing */
+    // #else
+    // int h3;
+    // #endif
+    // struct S { int m; };
+
+    // #define V 1
+    // #include "cached.h"
+    // int s1 = h0 + S().m;
+
+    // #define V 2
+    // #include "cached.h"
+    // int s2 = h2;
+    public void testLexerTokenCache() throws Exception {
+    	StringBuilder[] contents= getTestContent(3);
+    	importFile("cached.h", contents[0].toString());
+    	IFile source1= importFile("source1.cpp", contents[1].toString());
+    	IFile source2= importFile("source2.cpp", contents[2].toString());
+
+    	// The header is recorded when it is lexed for the second time and replayed afterwards,
+    	// also when other parts of it are inactive.
+    	LexerTokenCache cache= new LexerTokenCache(LexerTokenCache.getTokenLimitForHeap());
+    	parse(source1, cache);
+    	assertEquals(parse(source2, null), parse(source2, cache));
+    	assertEquals(0, cache.getHits());
+    	assertEquals(parse(source1, null), parse(source1, cache));
+    	assertEquals(parse(source2, null), parse(source2, cache));
+    	assertEquals(2, cache.getHits());
+    }
+
+    /**
+     * Parses the file and returns the nodes of the AST with their locations.
+     */
+    private String parse(IFile file, LexerTokenCache cache) throws Exception {
+    	InternalFileContentProvider provider= new InternalFileContentProvider() {
+    		@Override
+    		public InternalFileContent getContentForInclusion(String path, IMacroDictionary macroDictionary) {
+    			return (InternalFileContent) FileContent.createForExternalFileLocation(path);
+    		}
+
+    		@Override
+    		public InternalFileContent getContentForInclusion(IIndexFileLocation ifl, String astPath) {
+    			return null;
+    		}
+    	};
+    	provider.setLexerTokenCache(cache);
+    	IASTTranslationUnit ast= GPPLanguage.getDefault().getASTTranslationUnit(FileContent.create(file),
+    			new ScannerInfo(), provider, null, 0, new NullLogService());
+
+    	final StringBuilder buf= new StringBuilder();
+    	for (IASTPreprocessorStatement statement : ast.getAllPreprocessorStatements()) {
+    		appendNode(buf, statement);
+    	}
+    	for (IASTComment comment : ast.getComments()) {
+    		appendNode(buf, comment);
+    	}
+    	for (IASTProblem problem : ast.getPreprocessorProblems()) {
+    		appendNode(buf, problem);
+    		buf.append(problem.getID()).append('\n');
+    	}
+    	for (IASTPreprocessorMacroExpansion expansion : ast.getMacroExpansions()) {
+    		appendNode(buf, expansion);
+    	}
+    	ast.accept(new ASTVisitor() {
+    		{
+    			shouldVisitNames= true;
+    			shouldVisitProblems= true;
+    		}
+
+    		@Override
+    		public int visit(IASTName name) {
+    			appendNode(buf, name);
+    			buf.append(name.resolveBinding()).append('\n');
+    			return PROCESS_CONTINUE;
+    		}
+
+    		@Override
+    		public int visit(IASTProblem problem) {
+    			appendNode(buf, problem);
+    			return PROCESS_CONTINUE;
+    		}
+    	});
+    	return buf.toString();
+    }
+
+    private static void appendNode(StringBuilder buf, IASTNode node) {
+    	buf.append(node.getClass().getSimpleName()).append(' ').append(node.getRawSignature());
+    	IASTFileLocation location= node.getFileLocation();
+    	if (location != null) {
+    		buf.append(" at ").append(new File(location.getFileName()).getName()).append(':')
+    				.append(location.getNodeOffset()).append(',').append(location.getNodeLength());
+    	}
+    	buf.append('\n');
+    }
 }
@@ -20,6 +20,8 @@ import org.eclipse.cdt.core.parser.tests.ast2.TestLexerLog;
 import org.eclipse.cdt.core.testplugin.util.BaseTestCase;
 import org.eclipse.cdt.internal.core.parser.scanner.Lexer;
 import org.eclipse.cdt.internal.core.parser.scanner.Lexer.LexerOptions;
+import org.eclipse.cdt.internal.core.parser.scanner.LexerTokenCache;
+import org.eclipse.cdt.internal.core.parser.scanner.StreamHasher;
 import org.eclipse.cdt.internal.core.parser.scanner.Token;
 
 
@@ -60,8 +62,15 @@ public class LexerTests extends BaseTestCase {
 	}
 
 	private void init(String input, LexerOptions options) throws Exception {
+		init(input, options, null);
+	}
+
+	private void init(String input, LexerOptions options, LexerTokenCache cache) throws Exception {
 		fLog.clear();
 		fLexer= new Lexer(input.toCharArray(), options, fLog, null);
+		if (cache != null) {
+			fLexer.setTokenCache(cache, StreamHasher.hash(input));
+		}
 		fLog.setInput(input);
 		fLexer.nextToken();
 		fLastEndOffset= 0;
@@ -353,6 +362,21 @@ public class LexerTests extends BaseTestCase {
 		eof();
 	}
 
+	public void testRunsOfCharacters() throws Exception {
+		init("a \t \f b  // comment ??/\n continued \\\n too\nc\t\t\"str \\\\ ing \\\" x\\\ny\"  /* block * / */d");
+		id("a");
+		ws();
+		id("b");
+		comment("// comment ??/\n continued \\\n too");
+		nl();
+		id("c");
+		ws();
+		str("str \\\\ ing \\\" xy");
+		comment("/* block * / */");
+		id("d");
+		eof();
+	}
+
 	public void testSlashPercentComments() throws Exception {
 		init("// /%\na", SLASH_PERCENT);
 		comment("// /%");
@@ -836,4 +860,53 @@ public class LexerTests extends BaseTestCase {
 		token(IToken.tPOUND);
 		eof();
 	}
+
+	public void testTokenCache() throws Exception {
+		final String input= "/* c */ a\n#include <x>\n\"s\n#if 0\n#include <y>\n#endif\n";
+		LexerTokenCache cache= new LexerTokenCache(1000);
+		for (int i = 0; i < 4; i++) {
+			init(input, DEFAULT_OPTIONS, cache);
+			comment("/* c */");
+			id("a");
+			nl();
+			token(IToken.tPOUND);
+			fLexer.setInsideIncludeDirective(true);
+			id("include");
+			ws();
+			token(Lexer.tSYSTEM_HEADER_NAME, "<x>");
+			nl();
+			token(IToken.tSTRING, "\"s");
+			problem(IProblem.SCANNER_UNBOUNDED_STRING, "\"s");
+			nl();
+			token(IToken.tPOUND);
+			id("if");
+			ws();
+			integer("0");
+			if (i < 3) {
+				// Skip the inactive code, the header-name is lexed as ordinary tokens.
+				fLexer.nextDirective();
+				ws();
+				token(IToken.tPOUND);
+				id("include");
+				ws();
+				fLexer.consumeLine(0);
+				fLexer.nextDirective();
+				ws();
+			} else {
+				nl();
+				token(IToken.tPOUND);
+				fLexer.setInsideIncludeDirective(true);
+				id("include");
+				ws();
+				token(Lexer.tSYSTEM_HEADER_NAME, "<y>");
+				nl();
+			}
+			token(IToken.tPOUND);
+			id("endif");
+			nl();
+			eof();
+		}
+		// The tokens are recorded during the second pass and replayed afterwards.
+		assertEquals(2, cache.getHits());
+	}
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2009 Wind River Systems, Inc. and others.
+ * Copyright (c) 2007, 2015 Wind River Systems, Inc. and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -525,6 +525,39 @@ public class LocationMapTests extends BaseTestCase {
 		checkName(refs[0], macro2, "n2", refs[0].getParent(), IASTPreprocessorMacroExpansion.NESTED_EXPANSION_NAME, ROLE_REFERENCE, FN, 110, 15, 2, 2, new String(LONGDIGITS, 110, 15));
 	}
 	
+	public void testManyChildren() {
+		final int count= 20;
+		IMacroBinding macro= new TestMacro("n", "exp", null);
+		init(LONGDIGITS);
+		// More children than the initial capacity of the array of children.
+		for (int i = 0; i < count; i++) {
+			int offset= 100 + 10 * i;
+			fLocationMap.popContext(fLocationMap.pushMacroExpansion(offset, offset + 2, offset + 5, 3, macro,
+					IASTName.EMPTY_NAME_ARRAY, new ImageLocationInfo[0]));
+		}
+		// An inclusion with a single child, trimmed when the inclusion is popped.
+		ILocationCtx i1= fLocationMap.pushInclusion(400, 402, 404, 406, new CharArray("b1b2b3b4b5"), "inc", "inc".toCharArray(), false, false, false);
+		fLocationMap.popContext(fLocationMap.pushMacroExpansion(2, 4, 7, 3, macro,
+				IASTName.EMPTY_NAME_ARRAY, new ImageLocationInfo[0]));
+		fLocationMap.popContext(i1);
+		fLocationMap.popContext(fLocationMap.pushMacroExpansion(500, 502, 505, 3, macro,
+				IASTName.EMPTY_NAME_ARRAY, new ImageLocationInfo[0]));
+
+		IASTName[] refs= fLocationMap.getReferences(macro);
+		assertEquals(count + 2, refs.length);
+		for (int i = 0; i < count; i++) {
+			checkLocation(refs[i].getFileLocation(), FN, 100 + 10 * i, 2, 2, 2);
+		}
+		checkLocation(refs[count].getFileLocation(), "inc", 2, 2, 1, 1);
+		checkLocation(refs[count + 1].getFileLocation(), FN, 500, 2, 2, 2);
+		assertEquals(count, fLocationMap.getMacroExpansions(new Loc(FN, 100, 10 * count)).length);
+		assertEquals(1, fLocationMap.getMacroExpansions(new Loc("inc", 0, 10)).length);
+
+		IASTInclusionNode[] inclusions= fLocationMap.getDependencyTree().getInclusions();
+		assertEquals(1, inclusions.length);
+		assertEquals(0, inclusions[0].getNestedInclusions().length);
+	}
+
 	public void testContexts() {
 		init(DIGITS);
 		assertEquals(FN, fLocationMap.getTranslationUnitPath());
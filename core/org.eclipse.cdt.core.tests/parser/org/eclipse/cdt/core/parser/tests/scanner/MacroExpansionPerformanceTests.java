@@ -0,0 +1,65 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Wind River Systems, Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Wind River Systems - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.core.parser.tests.scanner;
+
+import junit.framework.TestSuite;
+
+import org.eclipse.cdt.core.parser.EndOfFileException;
+
+/**
+ * Benchmark of the expansion of function-style macros, which is too expensive to run as part
+ * of normal testing, but should be run after changes to the macro expander. The results are
+ * printed to the console.
+ */
+public class MacroExpansionPerformanceTests extends PreprocessorTestsBase {
+	private static final int EXPANSIONS = 50000;
+	private static final int ROUNDS = 10;
+
+	public static TestSuite suite() {
+		return suite(MacroExpansionPerformanceTests.class);
+	}
+
+	private static String createCode() {
+		StringBuilder code= new StringBuilder();
+		code.append("#define MAX(a, b) ((a) > (b) ? (a) : (b))\n");
+		code.append("#define MIN(a, b) ((a) < (b) ? (a) : (b))\n");
+		code.append("#define CLAMP(x, lo, hi) MIN(MAX(x, lo), hi)\n");
+		code.append("#define SQ(x) ((x) * (x))\n");
+		code.append("#define CAT(a, b) a##b\n");
+		code.append("#define STR(x) #x\n");
+		for (int i = 0; i < EXPANSIONS; i++) {
+			code.append("CLAMP(SQ(value + 1), limits.low, limits.high) MAX(MIN(a, b), SQ(c))");
+			code.append(" CAT(foo, bar) STR(x + y)\n");
+		}
+		return code.toString();
+	}
+
+	public void testFunctionStyleMacros() throws Exception {
+		String code= createCode();
+		long best= Long.MAX_VALUE;
+		int tokens= 0;
+		for (int round = 0; round < ROUNDS; round++) {
+			initializeScanner(code);
+			long start= System.currentTimeMillis();
+			tokens= 0;
+			try {
+				for (;;) {
+					fScanner.nextToken();
+					tokens++;
+				}
+			} catch (EndOfFileException e) {
+			}
+			best= Math.min(best, System.currentTimeMillis() - start);
+		}
+		System.out.println("Expansion of " + EXPANSIONS * 4 + " function-style macros: " //$NON-NLS-1$ //$NON-NLS-2$
+				+ best + "ms for " + tokens + " tokens"); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+}
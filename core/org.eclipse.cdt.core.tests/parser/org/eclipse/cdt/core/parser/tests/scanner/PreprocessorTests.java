@@ -1381,4 +1381,20 @@ public class PreprocessorTests extends PreprocessorTestsBase {
 		validateProblem(0, IProblem.SCANNER_CONSTANT_WITH_BAD_SUFFIX, "ASDF");
 		validateProblem(1, IProblem.SCANNER_CONSTANT_WITH_BAD_SUFFIX, "xU");
 	}
+
+	// #define TWICE(x) x x
+	// #define ID(x) x
+	// #define OBJ 1
+	// TWICE(TWICE(a)) TWICE(ID(OBJ))
+	public void testArgumentUsedTwice() throws Exception {
+		initializeScanner();
+		validateIdentifier("a");
+		validateIdentifier("a");
+		validateIdentifier("a");
+		validateIdentifier("a");
+		validateInteger("1");
+		validateInteger("1");
+		validateEOF();
+		validateProblemCount(0);
+	}
 }
@@ -17,7 +17,10 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Properties;
 import java.util.Set;
 import java.util.regex.Pattern;
@@ -89,6 +92,8 @@ import org.eclipse.cdt.core.testplugin.util.TestSourceReader;
 import org.eclipse.cdt.internal.core.dom.parser.ASTNode;
 import org.eclipse.cdt.internal.core.pdom.CModelListener;
 import org.eclipse.cdt.internal.core.pdom.indexer.IndexerPreferences;
+import org.eclipse.cdt.internal.core.pdom.indexer.PDOMFastIndexer;
+import org.eclipse.cdt.internal.core.pdom.indexer.PDOMIndexerTask;
 import org.eclipse.core.resources.IContainer;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IFolder;
@@ -2615,4 +2620,161 @@ public class IndexBugsTests extends BaseTestCase {
 		}
 	}
 
+	//	int shared(int);
+	//	struct S { int member; };
+	public void testParallelParsing() throws Exception {
+		final int sourceCount= 12;
+		final IProject project = fCProject.getProject();
+		IndexerPreferences.set(project, IndexerPreferences.KEY_INDEXER_PARSER_THREADS, "4");
+		try {
+			String[] contents= getContentsForTest(1);
+			IFile header= TestSourceReader.createFile(project, "shared.h", contents[0]);
+			for (int i = 0; i < sourceCount; i++) {
+				TestSourceReader.createFile(project, "source" + i + ".cpp", "#include \"shared.h\"\n" +
+						"int func" + i + "(S& s) { return shared(s.member + " + i + "); }\n");
+			}
+			CCorePlugin.getIndexManager().reindex(fCProject);
+			waitForIndexer();
+			fIndex.acquireReadLock();
+			try {
+				assertEquals(1, fIndex.getFiles(IndexLocationFactory.getWorkspaceIFL(header)).length);
+				IIndexBinding[] bindings= fIndex.findBindings("shared".toCharArray(), IndexFilter.ALL, npm());
+				assertEquals(1, bindings.length);
+				assertEquals(sourceCount, fIndex.findReferences(bindings[0]).length);
+				for (int i = 0; i < sourceCount; i++) {
+					bindings= fIndex.findBindings(("func" + i).toCharArray(), IndexFilter.ALL, npm());
+					assertEquals(1, bindings.length);
+					assertEquals(1, fIndex.findDefinitions(bindings[0]).length);
+				}
+			} finally {
+				fIndex.releaseReadLock();
+			}
+		} finally {
+			IndexerPreferences.set(project, IndexerPreferences.KEY_INDEXER_PARSER_THREADS,
+					String.valueOf(IndexerPreferences.DEFAULT_INDEXER_PARSER_THREADS));
+		}
+	}
+
+	//	#ifndef BASE_H
+	//	#define BASE_H
+	//	struct Base { int member; };
+	//	#endif
+
+	//	#ifndef SHARED_H
+	//	#define SHARED_H
+	//	#include "base.h"
+	//	int shared(Base&);
+	//	#endif
+
+	//	#ifndef OTHER_H
+	//	#define OTHER_H
+	//	#include "base.h"
+	//	int other(Base&);
+	//	#endif
+	public void testParallelParsingMatchesSequential() throws Exception {
+		final int sourceCount= 10;
+		final IProject project = fCProject.getProject();
+		String[] contents= getContentsForTest(3);
+		TestSourceReader.createFile(project, "base.h", contents[0]);
+		TestSourceReader.createFile(project, "shared.h", contents[1]);
+		TestSourceReader.createFile(project, "other.h", contents[2]);
+		for (int i = 0; i < sourceCount; i++) {
+			String includes= i % 3 == 0 ? "#include \"other.h\"\n#include \"shared.h\"\n" :
+					i % 3 == 1 ? "#include \"shared.h\"\n" : "#include \"other.h\"\n#include \"base.h\"\n";
+			TestSourceReader.createFile(project, "source" + i + ".cpp", includes +
+					"int func" + i + "(Base& b) { return b.member + " + i + "; }\n");
+		}
+		CCorePlugin.getIndexManager().reindex(fCProject);
+		waitForIndexer();
+		List<String> sequential= getFilesAndContexts();
+
+		IndexerPreferences.set(project, IndexerPreferences.KEY_INDEXER_PARSER_THREADS, "4");
+		try {
+			CCorePlugin.getIndexManager().reindex(fCProject);
+			waitForIndexer();
+			assertEquals(sequential, getFilesAndContexts());
+		} finally {
+			IndexerPreferences.set(project, IndexerPreferences.KEY_INDEXER_PARSER_THREADS,
+					String.valueOf(IndexerPreferences.DEFAULT_INDEXER_PARSER_THREADS));
+		}
+	}
+
+	/**
+	 * Returns the files of the index with their significant macros, the file they were parsed
+	 * in the context of and the files including them, sorted.
+	 */
+	private List<String> getFilesAndContexts() throws Exception {
+		List<String> result= new ArrayList<>();
+		fIndex.acquireReadLock();
+		try {
+			for (IIndexFile file : fIndex.getAllFiles()) {
+				IIndexInclude context= file.getParsedInContext();
+				List<String> includedBy= new ArrayList<>();
+				for (IIndexInclude include : fIndex.findIncludedBy(file)) {
+					includedBy.add(new File(include.getIncludedByLocation().getURI().getPath()).getName());
+				}
+				Collections.sort(includedBy);
+				result.add(new File(file.getLocation().getURI().getPath()).getName() + " " +
+						file.getSignificantMacros() + " in " +
+						(context == null ? null : new File(context.getIncludedByLocation().getURI().getPath()).getName()) +
+						" included by " + includedBy);
+			}
+		} finally {
+			fIndex.releaseReadLock();
+		}
+		Collections.sort(result);
+		return result;
+	}
+
+	//	int shared(int);
+	//	struct S { int member; };
+	public void testPrefetchFiles() throws Exception {
+		final int sourceCount= 8;
+		final IProject project = fCProject.getProject();
+		IndexerPreferences.set(project, IndexerPreferences.KEY_INDEXER_PREFETCH_TRANSLATION_UNITS, "4");
+		try {
+			String[] contents= getContentsForTest(1);
+			IFile header= TestSourceReader.createFile(project, "shared.h", contents[0]);
+			ITranslationUnit[] tus= new ITranslationUnit[sourceCount + 1];
+			tus[sourceCount]= (ITranslationUnit) CoreModel.getDefault().create(header);
+			for (int i = 0; i < sourceCount; i++) {
+				IFile source= TestSourceReader.createFile(project, "source" + i + ".cpp", "#include \"shared.h\"\n" +
+						"int func" + i + "(S& s) { return shared(s.member + " + i + "); }\n");
+				tus[i]= (ITranslationUnit) CoreModel.getDefault().create(source);
+			}
+			CCorePlugin.getIndexManager().reindex(fCProject);
+			waitForIndexer();
+			// The update reads the files recorded in the index ahead of parsing.
+			CCorePlugin.getIndexManager().update(new ICElement[] {fCProject}, IIndexManager.UPDATE_ALL);
+			waitForIndexer();
+
+			// Run the update in this thread to find out whether the parser used the contents read ahead.
+			PDOMFastIndexer indexer= new PDOMFastIndexer();
+			indexer.setProject(fCProject);
+			indexer.getProperties().setProperty(IndexerPreferences.KEY_INDEXER_PREFETCH_TRANSLATION_UNITS, "4");
+			PDOMIndexerTask task= (PDOMIndexerTask) indexer.createTask(new ITranslationUnit[0], tus,
+					new ITranslationUnit[0]);
+			task.setUpdateFlags(IIndexManager.UPDATE_ALL);
+			task.run(npm());
+			// All sources and the header they include were served from the prefetched contents.
+			assertEquals(sourceCount + 1, task.getPrefetchedFileCount());
+			fIndex.acquireReadLock();
+			try {
+				assertEquals(1, fIndex.getFiles(IndexLocationFactory.getWorkspaceIFL(header)).length);
+				IIndexBinding[] bindings= fIndex.findBindings("shared".toCharArray(), IndexFilter.ALL, npm());
+				assertEquals(1, bindings.length);
+				assertEquals(sourceCount, fIndex.findReferences(bindings[0]).length);
+				for (int i = 0; i < sourceCount; i++) {
+					bindings= fIndex.findBindings(("func" + i).toCharArray(), IndexFilter.ALL, npm());
+					assertEquals(1, bindings.length);
+					assertEquals(1, fIndex.findDefinitions(bindings[0]).length);
+				}
+			} finally {
+				fIndex.releaseReadLock();
+			}
+		} finally {
+			IndexerPreferences.set(project, IndexerPreferences.KEY_INDEXER_PREFETCH_TRANSLATION_UNITS,
+					String.valueOf(IndexerPreferences.DEFAULT_INDEXER_PREFETCH_TRANSLATION_UNITS));
+		}
+	}
 }
@@ -60,6 +60,7 @@ import org.eclipse.cdt.core.index.IndexFilter;
 import org.eclipse.cdt.core.model.IBuffer;
 import org.eclipse.cdt.core.model.ITranslationUnit;
 import org.eclipse.cdt.core.model.IWorkingCopy;
+import org.eclipse.cdt.internal.core.dom.parser.cpp.CPPASTTranslationUnit;
 import org.eclipse.cdt.internal.core.dom.parser.cpp.CPPTemplateTypeArgument;
 import org.eclipse.cdt.internal.core.dom.parser.cpp.ClassTypeHelper;
 import org.eclipse.cdt.internal.core.dom.parser.cpp.ICPPInstanceCache;
@@ -1367,4 +1368,20 @@ public class IndexCPPBindingResolutionBugs extends IndexBindingResolutionTestBas
 		ast = workingCopy.getAST(strategy.getIndex(), ITranslationUnit.AST_SKIP_INDEXED_HEADERS);
 		checkBindings(ast);
 	}
+
+	//	void waldo(int);
+
+	//	void f() {
+	//	  waldo(1);
+	//	}
+	//	void g() {
+	//	  waldo(2);
+	//	}
+	public void testGlobalIndexBindingsCache() throws Exception {
+		IFunction f1= getBindingFromASTName("waldo(1)", 5, IFunction.class);
+		IFunction f2= getBindingFromASTName("waldo(2)", 5, IFunction.class);
+		assertSame(f1, f2);
+		CPPASTTranslationUnit ast= (CPPASTTranslationUnit) strategy.getAst(0);
+		assertTrue(ast.getGlobalIndexBindingsHits() > 0);
+	}
 }
@@ -2870,4 +2870,22 @@ public class IndexCPPTemplateResolutionTest extends IndexBindingResolutionTestBa
 		// (e.g. because the author omitted a base case) doesn't cause a stack overflow.
 		checkBindings();
 	}
+
+	//	template<typename T> struct A {};
+	//	template<typename T> void f(T t) {}
+	//	A<int> a;
+	//	void g() { f(1); }
+
+	//	void test() {
+	//	  A<int> b;
+	//	  f(2);
+	//	}
+	public void testInstancesFromIndex() throws Exception {
+		ICPPClassType a= getBindingFromASTName("A<int> b", 6, ICPPClassType.class);
+		assertTrue(a instanceof ICPPTemplateInstance);
+		assertTrue(a instanceof IIndexBinding);
+		ICPPFunction f= getBindingFromASTName("f(2)", 1, ICPPFunction.class);
+		assertTrue(f instanceof ICPPTemplateInstance);
+		assertTrue(f instanceof IIndexBinding);
+	}
 }
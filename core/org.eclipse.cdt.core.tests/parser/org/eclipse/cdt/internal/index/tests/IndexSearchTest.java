@@ -268,7 +268,34 @@ public class IndexSearchTest extends IndexTestBase {
 		assertEquals(1, bindings.length);
 	}
 
-	
+	public void testSubstringPatternSearch() throws CoreException {
+		// The patterns are evaluated with the help of the trigram index.
+		Pattern pAny= Pattern.compile(".*160913");
+		Pattern pns= Pattern.compile("ns160913");
+		IIndexBinding[] bindings;
+
+		bindings= fIndex.findBindings(pAny, false, INDEX_FILTER, npm());
+		assertEquals(6, bindings.length);
+		bindings= fIndex.findBindings(pAny, true, INDEX_FILTER, npm());
+		assertEquals(3, bindings.length);
+
+		bindings= fIndex.findBindings(new Pattern[]{pns, Pattern.compile(".*913")}, true, INDEX_FILTER, npm());
+		assertEquals(2, bindings.length);
+		bindings= fIndex.findBindings(new Pattern[]{pns, Pattern.compile(".*913")}, false, INDEX_FILTER, npm());
+		assertEquals(3, bindings.length);
+
+		bindings= fIndex.findBindings(Pattern.compile("C[iI]n[uU]nnamed.*"), true, INDEX_FILTER, npm());
+		assertEquals(1, bindings.length);
+		checkIsClass(bindings[0]);
+
+		bindings= fIndex.findBindings(Pattern.compile("e200610.7", Pattern.CASE_INSENSITIVE), true, INDEX_FILTER, npm());
+		assertEquals(2, bindings.length);
+		bindings= fIndex.findBindings(Pattern.compile(".*Func2006.*"), false, INDEX_FILTER, npm());
+		assertEquals(2, bindings.length);
+		checkIsFunction(bindings[0]);
+		checkIsFunction(bindings[1]);
+	}
+
 	public void testFindStatic_161216() throws CoreException {
 		Pattern pFunc= Pattern.compile("staticFunc20061017");
 		Pattern pVar= Pattern.compile("staticVar20061017");
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2010 Wind River Systems, Inc. and others.
+ * Copyright (c) 2007, 2015 Wind River Systems, Inc. and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,10 +12,18 @@
 package org.eclipse.cdt.internal.index.tests;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 import junit.framework.TestSuite;
 
@@ -30,6 +38,8 @@ import org.eclipse.cdt.core.model.CoreModel;
 import org.eclipse.cdt.core.model.ICProject;
 import org.eclipse.cdt.core.testplugin.CProjectHelper;
 import org.eclipse.cdt.core.testplugin.util.TestSourceReader;
+import org.eclipse.cdt.internal.core.pdom.TeamPDOMExportOperation;
+import org.eclipse.cdt.internal.core.pdom.TeamPDOMImportOperation;
 import org.eclipse.cdt.internal.core.pdom.indexer.IndexerPreferences;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
@@ -375,4 +385,99 @@ public class TeamSharedIndexTest extends IndexTestBase {
 		checkVariable(prj, "b", 1);
 		checkVariable(prj, "c", 1);
 	}
+
+	public void testExportDelta() throws Exception {
+		String prjName= "__testExportDelta__";
+		ICProject prj= createProject(prjName);
+		File archive= prj.getProject().getLocation().append("cdt-index.zip").toFile();
+		File delta= new File(archive.getPath() + ".delta");
+		File base= CCorePlugin.getDefault().getStateLocation().append(prjName + ".teampdom").toFile();
+		checkVariable(prj, "a", 1);
+		checkVariable(prj, "d", 0);
+
+		// export and import the base version, no delta can be computed for the first export.
+		fPDOMManager.export(prj, archive.getAbsolutePath(), TeamPDOMExportOperation.EXPORT_OPTION_DELTA, npm());
+		assertFalse(delta.exists());
+		File firstArchive= new File(archive.getPath() + ".first");
+		Files.copy(archive.toPath(), firstArchive.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		importIndex(prj);
+		assertTrue(base.isFile());
+
+		// change the index and export the delta.
+		TestSourceReader.createFile(prj.getProject(), "d.cpp", "int d;");
+		waitForIndexer(prj);
+		checkVariable(prj, "d", 1);
+		fPDOMManager.export(prj, archive.getAbsolutePath(), TeamPDOMExportOperation.EXPORT_OPTION_DELTA, npm());
+		assertTrue(delta.isFile());
+		byte[] expected= readIndex(archive);
+
+		// the full archive is replaced by the base version, such that only the delta can provide the change.
+		Files.copy(firstArchive.toPath(), archive.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		firstArchive.delete();
+		importIndex(prj);
+		assertTrue(Arrays.equals(expected, Files.readAllBytes(base.toPath())));
+		checkVariable(prj, "a", 1);
+		checkVariable(prj, "d", 1);
+
+		// the copy of the base version is removed with the project.
+		deleteAndWait(prj);
+		unregisterProject(prj);
+		assertFalse(base.exists());
+	}
+
+	public void testExportDeltaModifiedCopy() throws Exception {
+		String prjName= "__testExportDeltaModifiedCopy__";
+		ICProject prj= createProject(prjName);
+		File archive= prj.getProject().getLocation().append("cdt-index.zip").toFile();
+		File base= CCorePlugin.getDefault().getStateLocation().append(prjName + ".teampdom").toFile();
+
+		fPDOMManager.export(prj, archive.getAbsolutePath(), TeamPDOMExportOperation.EXPORT_OPTION_DELTA, npm());
+		importIndex(prj);
+		TestSourceReader.createFile(prj.getProject(), "d.cpp", "int d;");
+		waitForIndexer(prj);
+		fPDOMManager.export(prj, archive.getAbsolutePath(), TeamPDOMExportOperation.EXPORT_OPTION_DELTA, npm());
+		byte[] expected= readIndex(archive);
+		importIndex(prj);
+		assertTrue(Arrays.equals(expected, Files.readAllBytes(base.toPath())));
+
+		// modify the copy of the index, the delta no longer yields the exported index.
+		byte[] modified= expected.clone();
+		modified[modified.length - 1]^= 1;
+		Files.write(base.toPath(), modified);
+
+		// the entire index is imported instead of the modified copy.
+		importIndex(prj);
+		assertTrue(Arrays.equals(expected, Files.readAllBytes(base.toPath())));
+		checkVariable(prj, "a", 1);
+		checkVariable(prj, "d", 1);
+	}
+
+	private void importIndex(ICProject prj) throws Exception {
+		TeamPDOMImportOperation operation= new TeamPDOMImportOperation(prj);
+		operation.run(npm());
+		assertTrue(operation.wasSuccessful());
+		waitForIndexer(prj);
+	}
+
+	private byte[] readIndex(File archive) throws IOException {
+		ZipFile zip= new ZipFile(archive);
+		try {
+			ZipEntry entry= zip.getEntry("cdt-index.pdom");
+			assertNotNull(entry);
+			InputStream in= zip.getInputStream(entry);
+			try {
+				ByteArrayOutputStream out= new ByteArrayOutputStream();
+				byte[] buffer= new byte[4096];
+				int read;
+				while ((read= in.read(buffer)) >= 0) {
+					out.write(buffer, 0, read);
+				}
+				return out.toByteArray();
+			} finally {
+				in.close();
+			}
+		} finally {
+			zip.close();
+		}
+	}
 }
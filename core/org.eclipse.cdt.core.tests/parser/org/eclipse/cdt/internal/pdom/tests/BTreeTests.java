@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2009 Symbian Software Systems and others.
+ * Copyright (c) 2006, 2015 Symbian Software Systems and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -117,6 +117,104 @@ public class BTreeTests extends BaseTestCase {
 		}
 	}
 
+	public void testBulkInsert() throws Exception {
+		Random random = new Random(4711);
+		for (int degree = 2; degree <= 10; degree += 4) {
+			init(degree);
+			try {
+				SortedSet expected = new TreeSet();
+				for (int round = 0; round < 3; round++) {
+					int n = random.nextInt(5000);
+					long[] records = new long[n];
+					for (int i = 0; i < n; i++) {
+						records[i] = new BTMockRecord(db, random.nextInt(10000)).getRecord();
+					}
+					int expectedCount = 0;
+					for (int i = 0; i < n; i++) {
+						if (expected.add(new Integer(db.getInt(records[i]))))
+							expectedCount++;
+					}
+					int inserted = btree.bulkInsert(records, n);
+					assertEquals(expectedCount, inserted);
+					for (int i = 1; i < inserted; i++) {
+						assertTrue(db.getInt(records[i - 1]) < db.getInt(records[i]));
+					}
+					assertBTreeMatchesSortedSet("[round " + round + "] ", btree, expected);
+					assertBTreeInvariantsHold("[round " + round + "] ");
+				}
+
+				// The tree remains usable for single insertions and deletions.
+				for (int i = 0; i < 1000; i++) {
+					int value = random.nextInt(20000);
+					if (expected.add(new Integer(value))) {
+						btree.insert(new BTMockRecord(db, value).getRecord());
+					}
+				}
+				assertBTreeMatchesSortedSet("[insert] ", btree, expected);
+				assertBTreeInvariantsHold("[insert] ");
+			} finally {
+				finish();
+			}
+		}
+	}
+
+	public void testCompact() throws Exception {
+		init(8);
+		try {
+			Random random = new Random(90210);
+			SortedSet expected = new TreeSet();
+			List history = new ArrayList();
+			for (int i = 0; i < 20000; i++) {
+				Integer value = new Integer(random.nextInt(Integer.MAX_VALUE));
+				if (expected.add(value)) {
+					BTMockRecord btValue = new BTMockRecord(db, value.intValue());
+					history.add(btValue);
+					btree.insert(btValue.getRecord());
+				}
+			}
+			for (int i = 0; i < 5000; i++) {
+				BTMockRecord btValue = (BTMockRecord) history.remove(random.nextInt(history.size()));
+				expected.remove(new Integer(btValue.intValue()));
+				btree.delete(btValue.getRecord());
+			}
+			btree.compact();
+			assertBTreeMatchesSortedSet("[compacted] ", btree, expected);
+			assertBTreeInvariantsHold("[compacted] ");
+			for (int i = 0; i < history.size(); i += 2) {
+				BTMockRecord btValue = (BTMockRecord) history.get(i);
+				expected.remove(new Integer(btValue.intValue()));
+				btree.delete(btValue.getRecord());
+			}
+			assertBTreeMatchesSortedSet("[delete] ", btree, expected);
+			assertBTreeInvariantsHold("[delete] ");
+		} finally {
+			finish();
+		}
+	}
+
+	public void testBuilder() throws Exception {
+		// Covers the sizes at which the last nodes of the levels have too few records.
+		for (int degree = 2; degree <= 4; degree++) {
+			for (int n = 0; n < 300; n++) {
+				init(degree);
+				try {
+					SortedSet expected = new TreeSet();
+					BTree.Builder builder = btree.new Builder();
+					for (int i = 0; i < n; i++) {
+						expected.add(new Integer(i));
+						builder.add(new BTMockRecord(db, i).getRecord());
+					}
+					builder.finish();
+					String msg = "[degree " + degree + ", n " + n + "] ";
+					assertBTreeMatchesSortedSet(msg, btree, expected);
+					assertBTreeInvariantsHold(msg);
+				} finally {
+					finish();
+				}
+			}
+		}
+	}
+
 	/**
 	 * Insert/Delete a random number of records into/from the B-tree
 	 * @param seed the seed for obtaining the deterministic random testing
@@ -28,6 +28,7 @@ import org.eclipse.cdt.core.dom.ast.cpp.ICPPClassTemplate;
 import org.eclipse.cdt.core.dom.ast.cpp.ICPPClassType;
 import org.eclipse.cdt.core.dom.ast.cpp.ICPPSpecialization;
 import org.eclipse.cdt.core.dom.ast.cpp.ICPPTemplateArgument;
+import org.eclipse.cdt.core.dom.ast.cpp.ICPPTemplateInstance;
 import org.eclipse.cdt.core.dom.ast.cpp.ICPPTemplateNonTypeParameter;
 import org.eclipse.cdt.core.dom.ast.cpp.ICPPTemplateParameter;
 import org.eclipse.cdt.core.dom.ast.cpp.ICPPTemplateTemplateParameter;
@@ -36,9 +37,15 @@ import org.eclipse.cdt.core.dom.ast.cpp.ICPPVariable;
 import org.eclipse.cdt.core.index.IndexFilter;
 import org.eclipse.cdt.core.parser.util.ObjectMap;
 import org.eclipse.cdt.internal.core.dom.parser.cpp.CPPBasicType;
+import org.eclipse.cdt.internal.core.dom.parser.cpp.CPPTemplateTypeArgument;
 import org.eclipse.cdt.internal.core.dom.parser.cpp.ClassTypeHelper;
 import org.eclipse.cdt.internal.core.dom.parser.cpp.ICPPDeferredClassInstance;
 import org.eclipse.cdt.internal.core.index.IIndexFragmentBinding;
+import org.eclipse.cdt.internal.core.index.IndexCPPSignatureUtil;
+import org.eclipse.cdt.internal.core.pdom.dom.PDOMBinding;
+import org.eclipse.cdt.internal.core.pdom.dom.cpp.PDOMCPPLinkage;
+import org.eclipse.cdt.internal.core.pdom.dom.cpp.PDOMInstanceCache;
+import org.eclipse.cdt.internal.core.pdom.dom.cpp.PDOMInstanceIndex;
 
 /**
  * Tests PDOM class template related bindings
@@ -57,6 +64,35 @@ public class CPPClassTemplateTests extends PDOMInlineCodeTestBase {
 	
 	/*************************************************************************/
 	
+	//	template<typename T>
+	//	class Foo {};
+	//
+	//	Foo<int> a;
+	//	Foo<char> b;
+	public void testInstanceLookupThroughIndex() throws Exception {
+		// The caches of the index are cleared when the last read lock is released.
+		pdom.releaseReadLock();
+		pdom.acquireReadLock();
+		IIndexFragmentBinding[] b= pdom.findBindings(new char[][] {"Foo".toCharArray()}, IndexFilter.ALL_DECLARED, npm());
+		assertEquals(1, b.length);
+		assertInstance(b[0], ICPPClassTemplate.class);
+		PDOMBinding template= (PDOMBinding) b[0];
+
+		PDOMInstanceCache cache= PDOMInstanceCache.getCache(template);
+		ICPPTemplateArgument[] args= { new CPPTemplateTypeArgument(CPPBasicType.INT) };
+		ICPPTemplateInstance instance= cache.getInstance(args);
+		assertInstance(instance, PDOMBinding.class);
+		assertNull(cache.getInstance(new ICPPTemplateArgument[] { new CPPTemplateTypeArgument(CPPBasicType.LONG) }));
+		// The instance is found without loading all instances of the template.
+		assertFalse(cache.isPopulated());
+
+		PDOMInstanceIndex index= ((PDOMCPPLinkage) template.getLinkage()).getInstanceIndex();
+		String signature= IndexCPPSignatureUtil.getTemplateArgString(args, true);
+		assertEquals(((PDOMBinding) instance).getRecord(), index.findInstance(template.getRecord(), signature));
+		assertEquals(2, cache.getAllInstances().length);
+		assertTrue(cache.isPopulated());
+	}
+
 	//	template<typename T>
 	//	class Foo {};
 	//
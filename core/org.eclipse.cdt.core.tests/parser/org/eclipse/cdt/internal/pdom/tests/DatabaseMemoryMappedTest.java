@@ -0,0 +1,64 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Wind River Systems, Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Wind River Systems - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.pdom.tests;
+
+import junit.framework.Test;
+
+import org.eclipse.cdt.internal.core.pdom.db.Database;
+
+/**
+ * Runs the {@link Database} tests with memory mapped I/O.
+ * @see DatabasePerformanceTests#testMemoryMappedReads()
+ */
+public class DatabaseMemoryMappedTest extends DatabaseTest {
+	public static Test suite() {
+		return suite(DatabaseMemoryMappedTest.class);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		db.setMemoryMapped(true);
+	}
+
+	public void testReadAfterFlushAndEviction() throws Exception {
+		final int n= 100;
+		long[] records= new long[n];
+		for (int i = 0; i < n; i++) {
+			records[i]= db.malloc(Database.MAX_MALLOC_SIZE);
+			db.putInt(records[i], i);
+		}
+		db.flush();
+		db.getChunkCache().setMaxSize(Database.CHUNK_SIZE);  // Force chunks to be read again.
+		db.giveUpExclusiveLock(true);
+		db.setLocked(true);
+		for (int i = 0; i < n; i++) {
+			assertEquals(i, db.getInt(records[i]));
+		}
+		db.setExclusiveLock();
+	}
+
+	public void testClearAndCloseUnmapFile() throws Exception {
+		final long rec= db.malloc(Database.MAX_MALLOC_SIZE);
+		db.putInt(rec, 4711);
+		db.flush();
+		db.getChunkCache().setMaxSize(Database.CHUNK_SIZE);  // Force chunks to be read again.
+		assertEquals(4711, db.getInt(rec));
+		// The mappings must be released for truncating the file.
+		db.clear(0);
+		assertEquals(Database.CHUNK_SIZE, db.getLocation().length());
+		final long rec2= db.malloc(Database.MAX_MALLOC_SIZE);
+		db.putInt(rec2, 815);
+		db.flush();
+		db.getChunkCache().setMaxSize(Database.CHUNK_SIZE);
+		assertEquals(815, db.getInt(rec2));
+	}
+}
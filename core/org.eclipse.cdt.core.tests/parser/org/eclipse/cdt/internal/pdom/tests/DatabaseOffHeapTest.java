@@ -0,0 +1,51 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Wind River Systems, Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Wind River Systems - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.pdom.tests;
+
+import junit.framework.Test;
+
+import org.eclipse.cdt.internal.core.pdom.db.Database;
+
+/**
+ * Runs the {@link Database} tests with the content of the cached chunks stored off-heap.
+ * @see DatabasePerformanceTests#testOffHeapReads()
+ */
+public class DatabaseOffHeapTest extends DatabaseTest {
+	public static Test suite() {
+		return suite(DatabaseOffHeapTest.class);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		db.getChunkCache().setOffHeap(true);
+	}
+
+	public void testReadAfterEviction() throws Exception {
+		final int n= 100;
+		long[] records= new long[n];
+		for (int i = 0; i < n; i++) {
+			records[i]= db.malloc(Database.MAX_MALLOC_SIZE);
+			db.putInt(records[i], i);
+		}
+		db.flush();
+		db.giveUpExclusiveLock(true);
+		db.getChunkCache().setMaxSize(16 * Database.CHUNK_SIZE);  // Force buffers to be reused.
+		for (int round = 0; round < 3; round++) {
+			db.setLocked(true);
+			for (int i = 0; i < n; i++) {
+				assertEquals(i, db.getInt(records[i]));
+			}
+			db.setLocked(false);
+		}
+		db.setExclusiveLock();
+	}
+}
@@ -0,0 +1,149 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Wind River Systems, Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Wind River Systems - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.pdom.tests;
+
+import java.io.File;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+import junit.framework.Test;
+
+import org.eclipse.cdt.core.testplugin.CTestPlugin;
+import org.eclipse.cdt.core.testplugin.util.BaseTestCase;
+import org.eclipse.cdt.internal.core.pdom.db.ChunkCache;
+import org.eclipse.cdt.internal.core.pdom.db.Database;
+import org.eclipse.core.runtime.IPath;
+
+/**
+ * Benchmarks of the {@link Database} which are too expensive to run as part of normal testing,
+ * but should be run after changes to the way the database is read. The results are printed
+ * to the console.
+ */
+public class DatabasePerformanceTests extends BaseTestCase {
+	// Size of the database and of its cache used for the benchmarks. Can be increased to run
+	// the benchmarks on a large database, e.g. 2L * 1024 * 1024 * 1024.
+	private static final long BENCHMARK_DB_SIZE = 64L * 1024 * 1024;
+	private static final int BENCHMARK_READS = 200000;
+
+	private Database db;
+
+	public static Test suite() {
+		return suite(DatabasePerformanceTests.class);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		IPath path = CTestPlugin.getDefault().getStateLocation().append("tests/");
+		File dir = path.toFile();
+		if (!dir.exists())
+			dir.mkdir();
+		db = createDatabase(path.append(getName() + System.currentTimeMillis() + ".dat").toFile());
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		db.setExclusiveLock();
+		db.close();
+		if (!db.getLocation().delete()) {
+			db.getLocation().deleteOnExit();
+		}
+		db = null;
+		super.tearDown();
+	}
+
+	/**
+	 * Creates a database of {@link #BENCHMARK_DB_SIZE} bytes, where each chunk starts with
+	 * a record holding its own address.
+	 */
+	private static Database createDatabase(File file) throws Exception {
+		Database bdb = new Database(file, new ChunkCache(BENCHMARK_DB_SIZE), 0, false);
+		bdb.setExclusiveLock();
+		int count = 0;
+		while (bdb.getSizeBytes() < BENCHMARK_DB_SIZE) {
+			long rec = bdb.malloc(Database.MAX_MALLOC_SIZE);
+			bdb.putLong(rec, rec);
+			if (++count % 1000 == 0) {
+				bdb.flush();
+			}
+		}
+		bdb.flush();
+		bdb.giveUpExclusiveLock(true);
+		return bdb;
+	}
+
+	/**
+	 * Reads random chunks and returns the time it took in milliseconds.
+	 */
+	private long readRandomChunks() throws Exception {
+		db.setLocked(true);
+		try {
+			final int chunks = (int) (db.getSizeBytes() / Database.CHUNK_SIZE);
+			Random random = new Random(4711);
+			long start = System.currentTimeMillis();
+			for (int i = 0; i < BENCHMARK_READS; i++) {
+				long rec = (1 + random.nextInt(chunks - 1)) * (long) Database.CHUNK_SIZE + Database.BLOCK_HEADER_SIZE;
+				assertEquals(rec, db.getLong(rec));
+			}
+			return System.currentTimeMillis() - start;
+		} finally {
+			db.setLocked(false);
+		}
+	}
+
+	public void testMemoryMappedReads() throws Exception {
+		// A small cache makes almost every access a cache miss.
+		db.getChunkCache().setMaxSize(64 * Database.CHUNK_SIZE);
+		db.setMemoryMapped(false);
+		long tChannel = readRandomChunks();
+		db.setMemoryMapped(true);
+		long tMapped = readRandomChunks();
+		System.out.println("Random reads from " + db.getSizeBytes() / 1024 / 1024 + "MB database: " //$NON-NLS-1$ //$NON-NLS-2$
+				+ tChannel + "ms via file channel, " + tMapped + "ms memory mapped"); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	/**
+	 * Compares the heap usage and garbage collection time of a chunk cache holding the entire
+	 * database, with and without off-heap storage.
+	 */
+	public void testOffHeapReads() throws Exception {
+		String onHeap= readWithFullCache(false);
+		String offHeap= readWithFullCache(true);
+		System.out.println("Random reads from " + db.getSizeBytes() / 1024 / 1024 + "MB database: " //$NON-NLS-1$ //$NON-NLS-2$
+				+ onHeap + " on-heap, " + offHeap + " off-heap"); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	private String readWithFullCache(boolean offHeap) throws Exception {
+		ChunkCache cache= db.getChunkCache();
+		long maxSize= cache.getMaxSize();
+		cache.setMaxSize(0);  // Evict the chunks.
+		cache.setOffHeap(offHeap);
+		cache.setMaxSize(maxSize);
+		System.gc();
+		final Runtime runtime= Runtime.getRuntime();
+		final long heapBefore= runtime.totalMemory() - runtime.freeMemory();
+		final long gcBefore= getGarbageCollectionTime();
+		long time= readRandomChunks();
+		System.gc();
+		long heap= runtime.totalMemory() - runtime.freeMemory() - heapBefore;
+		long gc= getGarbageCollectionTime() - gcBefore;
+		return time + "ms (" + heap / 1024 / 1024 + "MB heap, " + gc + "ms gc)"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+	}
+
+	private static long getGarbageCollectionTime() {
+		long time= 0;
+		for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+			time+= Math.max(0, bean.getCollectionTime());
+		}
+		return time;
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2014 QNX Software Systems
+ * Copyright (c) 2005, 2015 QNX Software Systems
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -13,6 +13,8 @@
 package org.eclipse.cdt.internal.pdom.tests;
 
 import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
 import java.util.Random;
 
 import junit.framework.Test;
@@ -87,13 +89,37 @@ public class DatabaseTest extends BaseTestCase {
 		final int freeDeltas= Database.CHUNK_SIZE / Database.BLOCK_SIZE_DELTA - deltas;
 
 		long mem = db.malloc(realsize);
-		assertEquals(-blocksize, db.getShort(mem - Database.BLOCK_HEADER_SIZE));
+		assertEquals(-deltas, db.getShort(mem - Database.BLOCK_HEADER_SIZE));
 		db.free(mem);
-		assertEquals(blocksize, db.getShort(mem - Database.BLOCK_HEADER_SIZE));
+		assertEquals(deltas, db.getShort(mem - Database.BLOCK_HEADER_SIZE));
 		assertEquals(mem, db.getRecPtr((deltas - Database.MIN_BLOCK_DELTAS +1 ) * Database.INT_SIZE));
 		assertEquals(mem + blocksize, db.getRecPtr((freeDeltas - Database.MIN_BLOCK_DELTAS + 1) * Database.INT_SIZE));
 	}
 
+	public void testRecPtrBeyond32GB() throws Exception {
+		assertEquals(64L * 1024 * 1024 * 1024, Database.MAX_DB_SIZE);
+		byte[] buffer= new byte[Database.PTR_SIZE];
+		long[] records= { (1L << 35) + Database.BLOCK_HEADER_SIZE,
+				Database.MAX_DB_SIZE - Database.BLOCK_SIZE_DELTA + Database.BLOCK_HEADER_SIZE };
+		for (long rec : records) {
+			Database.putRecPtr(rec, buffer, 0);
+			assertEquals(rec, Database.getRecPtr(buffer, 0));
+		}
+	}
+
+	public void testVersionOfDatabaseSmallerThanChunk() throws Exception {
+		// Databases of older formats may be smaller than a chunk, their version must be read
+		// such that they are not taken for empty databases.
+		File tmp= File.createTempFile("oldFormat", ".db");
+		try {
+			Files.write(tmp.toPath(), ByteBuffer.allocate(4096).putInt(7).array());
+			Database old= new Database(tmp, new ChunkCache(), 0, true);
+			assertEquals(7, old.getVersion());
+		} finally {
+			tmp.delete();
+		}
+	}
+
 	public void testBug192437() throws Exception {
 		File tmp= File.createTempFile("readOnlyEmpty", ".db");
 		try {
@@ -142,6 +168,87 @@ public class DatabaseTest extends BaseTestCase {
 		assertEquals(mem2, mem1);
 	}
 
+	public void testCacheCounters() throws Exception {
+		final int n= 100;
+		long[] records= new long[n];
+		for (int i = 0; i < n; i++) {
+			records[i]= db.malloc(Database.MAX_MALLOC_SIZE);
+		}
+		db.flush();
+		ChunkCache cache= db.getChunkCache();
+		cache.setMaxSize(n / 4 * Database.CHUNK_SIZE);
+		db.resetCacheCounters();
+		long evictions= cache.getEvictions();
+		// Read backwards, such that no chunks are read ahead.
+		for (int i = n; --i >= 0;) {
+			db.getInt(records[i]);
+		}
+		assertEquals(n, db.getCacheHits() + db.getCacheMisses());
+		assertTrue(db.getCacheMisses() >= n - cache.getMaxSize() / Database.CHUNK_SIZE);
+		assertTrue(db.getCacheEvictions() > 0);
+		assertEquals(db.getCacheEvictions(), cache.getEvictions() - evictions);
+	}
+
+	public void testSequentialReadAhead() throws Exception {
+		final int n= 64;
+		long[] records= new long[n];
+		for (int i = 0; i < n; i++) {
+			records[i]= db.malloc(Database.MAX_MALLOC_SIZE);
+			db.putInt(records[i], i);
+		}
+		db.flush();
+		db.giveUpExclusiveLock(true);
+		ChunkCache cache= db.getChunkCache();
+		long maxSize= cache.getMaxSize();
+		cache.setMaxSize(0);  // Evict the chunks.
+		cache.setMaxSize(maxSize);
+		db.resetCacheCounters();
+		for (int i = 0; i < n; i++) {
+			assertEquals(i, db.getInt(records[i]));
+		}
+		if (!db.isMemoryMapped()) {
+			// Memory mapped databases do not read ahead, the mapping already makes the misses cheap.
+			assertTrue(db.getCacheMisses() < n / 2);
+		}
+		db.setExclusiveLock();
+	}
+
+	public void testRecoveryFromJournal() throws Exception {
+		final int n= 50;
+		db.setJournaled(true);
+		db.setVersion(7);
+		long[] records= new long[n];
+		for (int i = 0; i < n; i++) {
+			records[i]= db.malloc(Database.MAX_MALLOC_SIZE);
+			db.putInt(records[i], i);
+		}
+		db.flush();
+		for (int i = 0; i < n; i++) {
+			db.putInt(records[i], -1);  // Not committed.
+		}
+
+		// Simulate a crash by opening a copy of the database and its journal.
+		File location= db.getLocation();
+		File copy= new File(location.getPath() + ".copy");
+		Files.copy(location.toPath(), copy.toPath());
+		Files.copy(new File(location.getPath() + ".journal").toPath(), new File(copy.getPath() + ".journal").toPath());
+		Database recovered= new Database(copy, new ChunkCache(), 0, false);
+		try {
+			assertEquals(7, recovered.getVersion());
+			assertFalse(new File(copy.getPath() + ".journal").exists());
+			recovered.setLocked(true);
+			for (int i = 0; i < n; i++) {
+				assertEquals(i, recovered.getInt(records[i]));
+			}
+		} finally {
+			recovered.setExclusiveLock();
+			recovered.close();
+			if (!copy.delete()) {
+				copy.deleteOnExit();
+			}
+		}
+	}
+
 	private static class FindVisitor implements IBTreeVisitor {
 		private Database db;
 		private String key;
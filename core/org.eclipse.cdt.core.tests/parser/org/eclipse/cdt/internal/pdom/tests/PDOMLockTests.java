@@ -0,0 +1,132 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Wind River Systems, Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Wind River Systems - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.pdom.tests;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.Test;
+
+import org.eclipse.cdt.core.index.IIndexFileLocation;
+import org.eclipse.cdt.core.index.IIndexLocationConverter;
+import org.eclipse.cdt.core.model.LanguageManager;
+import org.eclipse.cdt.core.testplugin.util.BaseTestCase;
+import org.eclipse.cdt.internal.core.index.WritableCIndex;
+import org.eclipse.cdt.internal.core.pdom.WritablePDOM;
+import org.eclipse.cdt.internal.core.pdom.YieldableIndexLock;
+
+/**
+ * Tests the times readers wait for the lock of the index while a writer is active.
+ */
+public class PDOMLockTests extends BaseTestCase {
+	private static final int READS = 50;
+	// Read latency goal for editor features.
+	private static final long MAX_READ_WAIT_MILLIS = 50;
+
+	private File pdomFile;
+	private WritablePDOM pdom;
+
+	public static Test suite() {
+		return suite(PDOMLockTests.class);
+	}
+
+	private static class MockIndexLocationConverter implements IIndexLocationConverter {
+		@Override
+		public IIndexFileLocation fromInternalFormat(String raw) {
+			return null;
+		}
+
+		@Override
+		public String toInternalFormat(IIndexFileLocation location) {
+			return null;
+		}
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		pdomFile = File.createTempFile(getClass().getSimpleName(), null);
+		pdom = new WritablePDOM(pdomFile, new MockIndexLocationConverter(),
+				LanguageManager.getInstance().getPDOMLinkageFactoryMappings());
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		pdom.acquireWriteLock(null);
+		pdom.close();
+		pdomFile.delete();
+		super.tearDown();
+	}
+
+	/**
+	 * A writer that holds the lock and yields it between units of work, like the indexer does.
+	 */
+	private class Writer extends Thread {
+		final CountDownLatch fLocked = new CountDownLatch(1);
+		volatile boolean fDone;
+		volatile Throwable fError;
+
+		Writer() {
+			super("Index writer");
+		}
+
+		@Override
+		public void run() {
+			YieldableIndexLock lock = new YieldableIndexLock(new WritableCIndex(pdom), false, null);
+			try {
+				lock.acquire();
+				fLocked.countDown();
+				try {
+					while (!fDone) {
+						// A unit of work, e.g. adding a name to the index.
+						Thread.sleep(1);
+						lock.yield();
+					}
+				} finally {
+					lock.release();
+				}
+			} catch (Throwable e) {
+				fError = e;
+			}
+		}
+	}
+
+	public void testReadLockWaitWhileWriting() throws Exception {
+		Writer writer = new Writer();
+		writer.start();
+		long[] waits = new long[READS];
+		try {
+			assertTrue(writer.fLocked.await(10, TimeUnit.SECONDS));
+			for (int i = 0; i < READS; i++) {
+				long start = System.nanoTime();
+				pdom.acquireReadLock();
+				waits[i] = (System.nanoTime() - start) / 1000000;
+				pdom.releaseReadLock();
+				// Give the writer a chance to get the lock again.
+				Thread.sleep(5);
+			}
+		} finally {
+			writer.fDone = true;
+			writer.join();
+		}
+		assertNull(writer.fError);
+
+		Arrays.sort(waits);
+		long median = waits[READS / 2];
+		long percentile90 = waits[READS * 9 / 10];
+		System.out.println("Read lock wait while writing: median " + median + " ms, 90th percentile "
+				+ percentile90 + " ms, max " + waits[READS - 1] + " ms");
+		assertTrue("90th percentile of read lock waits is " + percentile90 + " ms",
+				percentile90 < MAX_READ_WAIT_MILLIS);
+	}
+}
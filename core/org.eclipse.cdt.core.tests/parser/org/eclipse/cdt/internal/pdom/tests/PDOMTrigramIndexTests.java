@@ -0,0 +1,114 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Wind River Systems, Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Wind River Systems - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.pdom.tests;
+
+import java.util.Arrays;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+
+import junit.framework.Test;
+
+import org.eclipse.cdt.core.testplugin.util.BaseTestCase;
+import org.eclipse.cdt.internal.core.pdom.dom.PDOMTrigramIndex;
+
+/**
+ * Tests the analysis of regular expressions for the trigrams a matching name has to contain.
+ */
+public class PDOMTrigramIndexTests extends BaseTestCase {
+
+	public static Test suite() {
+		return suite(PDOMTrigramIndexTests.class);
+	}
+
+	/**
+	 * Checks that the trigrams required by the pattern are exactly the ones of the given runs
+	 * of literal text. Without runs, no trigrams must be derived from the pattern.
+	 */
+	private void assertTrigrams(String pattern, String... runs) {
+		TreeSet<Integer> expected= new TreeSet<>();
+		for (String run : runs) {
+			for (int trigram : PDOMTrigramIndex.getTrigrams(run.toCharArray())) {
+				expected.add(trigram);
+			}
+		}
+		int[] actual= PDOMTrigramIndex.getRequiredTrigrams(Pattern.compile(pattern));
+		if (expected.isEmpty()) {
+			assertNull(pattern, actual);
+		} else {
+			assertNotNull(pattern, actual);
+			Integer[] sorted= new Integer[actual.length];
+			for (int i = 0; i < actual.length; i++) {
+				sorted[i]= actual[i];
+			}
+			Arrays.sort(sorted);
+			assertEquals(pattern, expected.toString(), Arrays.toString(sorted));
+		}
+	}
+
+	public void testLiterals() throws Exception {
+		assertTrigrams("foobar", "foobar");
+		assertTrigrams(".*foo.*bar", "foo", "bar");
+		assertTrigrams("fo");
+		assertTrigrams("foo|bar");
+		assertTrigrams("[fF]oo[bB]ar", "foobar");
+		assertTrigrams("foox?bar", "foo", "bar");
+		assertTrigrams("\\Qfoo.bar\\E", "foo.bar");
+	}
+
+	public void testEscapedPunctuation() throws Exception {
+		assertTrigrams("foo\\.bar", "foo.bar");
+		assertTrigrams("foo\\(\\)", "foo()");
+	}
+
+	public void testPredefinedClasses() throws Exception {
+		assertTrigrams("foo\\dbar", "foo", "bar");
+		assertTrigrams("foo\\wbar\\s", "foo", "bar");
+		assertTrigrams("\\bfoo\\b", "foo");
+	}
+
+	public void testHexEscapes() throws Exception {
+		assertTrigrams("foo\\x41bar", "foo", "bar");
+		assertTrigrams("\\x41\\x42\\x43");
+		assertTrigrams("foo\\x{1F600}bar", "foo", "bar");
+	}
+
+	public void testUnicodeEscapes() throws Exception {
+		assertTrigrams("foo\\u0041bar", "foo", "bar");
+		assertTrigrams("\\u0041\\u0042\\u0043");
+	}
+
+	public void testOctalEscapes() throws Exception {
+		assertTrigrams("foo\\0101bar", "foo", "bar");
+		assertTrigrams("foo\\07bar", "foo", "bar");
+		assertTrigrams("foo\\0477", "foo", "7");
+	}
+
+	public void testPropertyEscapes() throws Exception {
+		assertTrigrams("foo\\p{Lu}bar", "foo", "bar");
+		assertTrigrams("foo\\P{Alpha}bar", "foo", "bar");
+		assertTrigrams("foo\\pLbar", "foo", "bar");
+	}
+
+	public void testControlEscapes() throws Exception {
+		assertTrigrams("foo\\cAbar", "foo", "bar");
+		assertTrigrams("foo\\cJ\\cKbar", "foo", "bar");
+	}
+
+	public void testBackReferences() throws Exception {
+		assertTrigrams("(?<x>a)foo\\k<x>bar", "foo", "bar");
+		assertTrigrams("(a)foo\\1bar");
+	}
+
+	public void testQuotesInClassesAndGroups() throws Exception {
+		assertTrigrams("[\\Q]\\E]foobar");
+		assertTrigrams("(\\Q)\\E)foobar");
+	}
+}
@@ -26,6 +26,7 @@ import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.Platform;
 import org.eclipse.core.runtime.SafeRunner;
 import org.eclipse.core.runtime.Status;
+import org.eclipse.jface.text.IRegion;
 
 /**
  * Provides a shared AST of a single translation unit at a time.
@@ -324,6 +325,23 @@ public class ASTCache {
 	 * @return an AST for the translation unit, or <code>null</code> if the operation was cancelled
 	 */
 	public IASTTranslationUnit createAST(final ITranslationUnit tUnit, final IIndex index, final IProgressMonitor progressMonitor) {
+		return createAST(tUnit, index, null, progressMonitor);
+	}
+
+	/**
+	 * Creates a new translation unit AST for which only the bodies of functions overlapping with
+	 * the given region are parsed. Suitable for operations that need the declarations of the
+	 * translation unit, but not the contents of most function bodies. The AST is not cached.
+	 *
+	 * @param tUnit  the translation unit for which to create the AST
+	 * @param index  the index for AST generation, needs to be read-locked.
+	 * @param regionOfInterest  the region of the translation unit for which function bodies are
+	 *     parsed, or <code>null</code> to parse all function bodies
+	 * @param progressMonitor  a progress monitor, may be <code>null</code>
+	 * @return an AST for the translation unit, or <code>null</code> if the operation was cancelled
+	 */
+	public IASTTranslationUnit createAST(final ITranslationUnit tUnit, final IIndex index,
+			final IRegion regionOfInterest, final IProgressMonitor progressMonitor) {
 		if (progressMonitor != null && progressMonitor.isCanceled())
 			return null;
 
@@ -336,7 +354,11 @@ public class ASTCache {
 					if (progressMonitor != null && progressMonitor.isCanceled()) {
 						root[0]= null;
 					} else {
-						root[0]= tUnit.getAST(index, fParseMode);
+						if (regionOfInterest != null && tUnit instanceof TranslationUnit) {
+							root[0]= ((TranslationUnit) tUnit).getAST(index, fParseMode, regionOfInterest, null);
+						} else {
+							root[0]= tUnit.getAST(index, fParseMode);
+						}
 					}
 				} catch (OperationCanceledException ex) {
 					root[0]= null;
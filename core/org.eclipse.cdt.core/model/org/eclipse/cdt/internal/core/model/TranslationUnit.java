@@ -31,6 +31,7 @@ import org.eclipse.cdt.core.CCorePlugin;
 import org.eclipse.cdt.core.dom.ILinkage;
 import org.eclipse.cdt.core.dom.ast.IASTCompletionNode;
 import org.eclipse.cdt.core.dom.ast.IASTTranslationUnit;
+import org.eclipse.cdt.core.dom.parser.AbstractCLikeLanguage;
 import org.eclipse.cdt.core.index.IIndex;
 import org.eclipse.cdt.core.index.IIndexFile;
 import org.eclipse.cdt.core.index.IIndexFileLocation;
@@ -91,6 +92,7 @@ import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.Path;
 import org.eclipse.core.runtime.content.IContentType;
+import org.eclipse.jface.text.IRegion;
 import org.eclipse.osgi.util.NLS;
 
 /**
@@ -832,6 +834,17 @@ public class TranslationUnit extends Openable implements ITranslationUnit {
 	}
 
 	public IASTTranslationUnit getAST(IIndex index, int style, IProgressMonitor monitor) throws CoreException {
+		return getAST(index, style, null, monitor);
+	}
+
+	/**
+	 * Creates an AST for which only the bodies of the functions overlapping with the given region
+	 * are parsed.
+	 * @param regionOfInterest a region of this translation unit, or <code>null</code> to parse all
+	 *     function bodies.
+	 */
+	public IASTTranslationUnit getAST(IIndex index, int style, IRegion regionOfInterest,
+			IProgressMonitor monitor) throws CoreException {
 		boolean incompleteIndex = index != null && !index.isFullyInitialized();
 		IIndexFile[] contextToHeader = getContextToHeader(index, style);
 		ITranslationUnit configureWith = getConfigureWith(contextToHeader);
@@ -873,8 +886,14 @@ public class TranslationUnit extends Openable implements ITranslationUnit {
 		} else {
 			log= ParserUtil.getParserLogService();
 		}
-		ASTTranslationUnit ast = (ASTTranslationUnit) ((AbstractLanguage) language).getASTTranslationUnit(
-				fileContent, scanInfo, crf, index, options, log);
+		ASTTranslationUnit ast;
+		if (regionOfInterest != null && language instanceof AbstractCLikeLanguage) {
+			ast= (ASTTranslationUnit) ((AbstractCLikeLanguage) language).getASTTranslationUnit(
+					fileContent, scanInfo, crf, index, options, log, regionOfInterest);
+		} else {
+			ast= (ASTTranslationUnit) ((AbstractLanguage) language).getASTTranslationUnit(
+					fileContent, scanInfo, crf, index, options, log);
+		}
 		if (ast == null)
 			return null;
 		ast.setOriginatingTranslationUnit(this);
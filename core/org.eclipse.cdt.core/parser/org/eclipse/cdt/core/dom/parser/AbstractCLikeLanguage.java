@@ -39,10 +39,12 @@ import org.eclipse.cdt.core.parser.ParseError;
 import org.eclipse.cdt.core.parser.ParseError.ParseErrorKind;
 import org.eclipse.cdt.core.parser.ParserLanguage;
 import org.eclipse.cdt.core.parser.ParserMode;
+import org.eclipse.cdt.internal.core.dom.parser.AbstractGNUSourceCodeParser;
 import org.eclipse.cdt.internal.core.parser.scanner.CPreprocessor;
 import org.eclipse.cdt.internal.core.util.ICancelable;
 import org.eclipse.cdt.internal.core.util.ICanceler;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.jface.text.IRegion;
 
 /**
  * This class provides a skeletal implementation of the ILanguage interface
@@ -139,6 +141,21 @@ public abstract class AbstractCLikeLanguage extends AbstractLanguage implements
 	public IASTTranslationUnit getASTTranslationUnit(FileContent reader, IScannerInfo scanInfo,
 			IncludeFileContentProvider fileCreator, IIndex index, int options, IParserLogService log)
 			throws CoreException {
+		return getASTTranslationUnit(reader, scanInfo, fileCreator, index, options, log, null);
+	}
+
+	/**
+	 * Constructs an AST for the source code provided by <code>reader</code>, for which the bodies
+	 * of functions are parsed only if they overlap with the given region of the source code. Other
+	 * function bodies are skipped as with {@link #OPTION_SKIP_FUNCTION_BODIES}.
+	 * @param regionOfInterest the region of the source code, or <code>null</code> to parse all
+	 *     function bodies.
+	 * @see #getASTTranslationUnit(FileContent, IScannerInfo, IncludeFileContentProvider, IIndex, int, IParserLogService)
+	 * @since 5.12
+	 */
+	public IASTTranslationUnit getASTTranslationUnit(FileContent reader, IScannerInfo scanInfo,
+			IncludeFileContentProvider fileCreator, IIndex index, int options, IParserLogService log,
+			IRegion regionOfInterest) throws CoreException {
 		final IScanner scanner= createScanner(reader, scanInfo, fileCreator, log);
 		scanner.setComputeImageLocations((options & OPTION_NO_IMAGE_LOCATIONS) == 0);
 		scanner.setProcessInactiveCode((options & OPTION_PARSE_INACTIVE_CODE) != 0);
@@ -149,6 +166,10 @@ public abstract class AbstractCLikeLanguage extends AbstractLanguage implements
 			parserSettings = extendedScannerInfo.getParserSettings();
 		}
 		final ISourceCodeParser parser= createParser(scanner, log, index, false, options, parserSettings);
+		if (regionOfInterest != null && parser instanceof AbstractGNUSourceCodeParser) {
+			((AbstractGNUSourceCodeParser) parser).setRegionOfInterest(regionOfInterest.getOffset(),
+					regionOfInterest.getLength());
+		}
 
 		// Make it possible to cancel parser by reconciler - http://bugs.eclipse.org/226682
 		ICanceler canceler= null;
@@ -196,6 +196,8 @@ public abstract class AbstractGNUSourceCodeParser implements ISourceCodeParser {
 
     protected boolean functionCallCanBeLValue= false;
 	protected int maximumTrivialExpressionsInAggregateInitializers= Integer.MAX_VALUE;
+	private int fRegionOfInterestOffset= -1;
+	private int fRegionOfInterestEndOffset= -1;
 
     /**
      *  Marks the beginning of the current declaration. It is important to clear the mark whenever we
@@ -245,6 +247,18 @@ public abstract class AbstractGNUSourceCodeParser implements ISourceCodeParser {
 		maximumTrivialExpressionsInAggregateInitializers= limit;
 	}
 
+	/**
+	 * Instructs the parser to skip the bodies of functions that do not overlap with the given
+	 * region of the file of the translation unit. The bodies of functions defined in headers are
+	 * skipped, too. Skipped bodies are represented by empty compound statements.
+	 * @param offset the file offset where the region starts
+	 * @param length the length of the region
+	 */
+	public void setRegionOfInterest(int offset, int length) {
+		fRegionOfInterestOffset= offset;
+		fRegionOfInterestEndOffset= offset + length;
+	}
+
     private AbstractParserLogService wrapLogService(IParserLogService logService) {
 		if (logService instanceof AbstractParserLogService) {
 			return (AbstractParserLogService) logService;
@@ -1462,10 +1476,50 @@ public abstract class AbstractGNUSourceCodeParser implements ISourceCodeParser {
             return cs;
         }
 
+        if (fRegionOfInterestOffset >= 0) {
+        	return functionBodyInRegionOfInterest();
+        }
+
         // full parse
         return functionBody();
     }
 
+	/**
+	 * Skips the function body unless it overlaps with the region of interest. Parsing the body
+	 * requires to skip over it first, such that the end of the body is known.
+	 */
+	private IASTStatement functionBodyInRegionOfInterest() throws EndOfFileException, BacktrackException {
+		final IToken mark= mark();
+		final int offset= mark.getOffset();
+		final IToken last;
+		try {
+			last= skipOverCompoundStatement(false);
+		} catch (EndOfFileException e) {
+			// Let the parser deal with the incomplete body.
+			backup(mark);
+			return functionBody();
+		}
+		if (isInRegionOfInterest(offset, last.getEndOffset())) {
+			backup(mark);
+			return functionBody();
+		}
+		getTranslationUnit().setHasNodesOmitted(true);
+		IASTCompoundStatement cs = nodeFactory.newCompoundStatement();
+		setRange(cs, offset, last.getEndOffset());
+		return cs;
+	}
+
+	private boolean isInRegionOfInterest(int offset, int endOffset) {
+		final ILocationResolver resolver= scanner.getLocationResolver();
+		if (resolver == null)
+			return true;
+		final IASTFileLocation loc= resolver.getMappedFileLocation(offset, endOffset - offset);
+		if (loc == null || !loc.getFileName().equals(resolver.getTranslationUnitPath()))
+			return false;
+		return loc.getNodeOffset() <= fRegionOfInterestEndOffset
+				&& fRegionOfInterestOffset <= loc.getNodeOffset() + loc.getNodeLength();
+	}
+
     /**
      * Parses a function body.
      *
@@ -31,8 +31,11 @@ import org.eclipse.cdt.core.dom.ast.cpp.ICPPFunctionType;
 import org.eclipse.cdt.core.dom.ast.cpp.ICPPNamespace;
 import org.eclipse.cdt.core.dom.ast.cpp.ICPPNamespaceScope;
 import org.eclipse.cdt.core.dom.ast.cpp.ICPPParameter;
+import org.eclipse.cdt.core.index.IIndexFileSet;
+import org.eclipse.cdt.core.index.IndexFilter;
 import org.eclipse.cdt.core.parser.ParserLanguage;
 import org.eclipse.cdt.core.parser.util.ArrayUtil;
+import org.eclipse.cdt.core.parser.util.CharArrayObjectMap;
 import org.eclipse.cdt.internal.core.dom.Linkage;
 import org.eclipse.cdt.internal.core.dom.parser.ASTTranslationUnit;
 import org.eclipse.cdt.internal.core.dom.parser.IASTAmbiguityParent;
@@ -40,6 +43,7 @@ import org.eclipse.cdt.internal.core.dom.parser.cpp.semantics.CPPInheritance.Fin
 import org.eclipse.cdt.internal.core.dom.parser.cpp.semantics.CPPVisitor;
 import org.eclipse.cdt.internal.core.index.IIndexScope;
 import org.eclipse.cdt.internal.core.parser.scanner.InternalFileContent;
+import org.eclipse.core.runtime.CoreException;
 
 /**
  * C++-specific implementation of a translation-unit.
@@ -52,6 +56,9 @@ public class CPPASTTranslationUnit extends ASTTranslationUnit implements ICPPAST
 	
 	// Caches
 	private Map<ICPPClassType, FinalOverriderMap> fFinalOverriderMapCache = new HashMap<>();
+	private CharArrayObjectMap<IBinding[]> fGlobalIndexBindingsCache;
+	private int fGlobalIndexBindingsHits;
+	private int fGlobalIndexBindingsMisses;
 	
 	public CPPASTTranslationUnit() {
 	}
@@ -171,6 +178,8 @@ public class CPPASTTranslationUnit extends ASTTranslationUnit implements ICPPAST
 	public void skippedFile(int offset, InternalFileContent fileContent) {
 		super.skippedFile(offset, fileContent);
 		fScopeMapper.registerAdditionalDirectives(offset, fileContent.getUsingDirectives());
+		// The file-local bindings visible in the translation unit have changed.
+		fGlobalIndexBindingsCache= null;
 	}	
 
 	@Override
@@ -222,4 +231,44 @@ public class CPPASTTranslationUnit extends ASTTranslationUnit implements ICPPAST
 	public Map<ICPPClassType, FinalOverriderMap> getFinalOverriderMapCache() {
 		return fFinalOverriderMapCache;
 	}
+
+	/**
+	 * Returns the bindings of the global scope of the index with the given name that are visible
+	 * in this translation unit. The result depends on the name and the index file set only and
+	 * is cached, because the same global names are looked up over and over again while the
+	 * translation unit is resolved.
+	 */
+	public IBinding[] findGlobalIndexBindings(char[] name) throws CoreException {
+		if (fGlobalIndexBindingsCache == null) {
+			fGlobalIndexBindingsCache= new CharArrayObjectMap<>(64);
+		}
+		IBinding[] bindings= fGlobalIndexBindingsCache.get(name);
+		if (bindings != null) {
+			fGlobalIndexBindingsHits++;
+			return bindings;
+		}
+		fGlobalIndexBindingsMisses++;
+		bindings= getIndex().findBindings(name, IndexFilter.CPP_DECLARED_OR_IMPLICIT_NO_INSTANCE, null);
+		IIndexFileSet fileSet= getIndexFileSet();
+		if (fileSet != null) {
+			bindings= fileSet.filterFileLocalBindings(bindings);
+		}
+		fGlobalIndexBindingsCache.put(name, bindings);
+		return bindings;
+	}
+
+	/**
+	 * Returns the number of lookups in the global scope of the index that were answered from
+	 * the cache.
+	 */
+	public int getGlobalIndexBindingsHits() {
+		return fGlobalIndexBindingsHits;
+	}
+
+	/**
+	 * Returns the number of lookups in the global scope of the index that had to query the index.
+	 */
+	public int getGlobalIndexBindingsMisses() {
+		return fGlobalIndexBindingsMisses;
+	}
 }
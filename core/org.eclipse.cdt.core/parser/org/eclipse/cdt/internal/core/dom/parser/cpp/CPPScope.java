@@ -32,7 +32,6 @@ import org.eclipse.cdt.core.dom.ast.cpp.ICPPNamespaceScope;
 import org.eclipse.cdt.core.dom.ast.cpp.ICPPScope;
 import org.eclipse.cdt.core.dom.ast.cpp.ICPPUsingDeclaration;
 import org.eclipse.cdt.core.index.IIndex;
-import org.eclipse.cdt.core.index.IIndexBinding;
 import org.eclipse.cdt.core.index.IIndexFileSet;
 import org.eclipse.cdt.core.index.IndexFilter;
 import org.eclipse.cdt.core.parser.util.ArrayUtil;
@@ -193,27 +192,27 @@ abstract public class CPPScope implements ICPPASTInternalScope {
 					try {
 						IndexFilter filter = IndexFilter.CPP_DECLARED_OR_IMPLICIT_NO_INSTANCE;
 						final char[] nchars = lookup.getLookupKey();
-						IBinding[] bindings = lookup.isPrefixLookup() ?
-								index.findBindingsForContentAssist(nchars, true, filter, null) :
-								index.findBindings(nchars, filter, null);
-						if (fileSet != null) {
-							bindings= fileSet.filterFileLocalBindings(bindings);
+						IBinding[] bindings;
+						if (!lookup.isPrefixLookup() && tu == physicalNode && tu instanceof CPPASTTranslationUnit) {
+							bindings = ((CPPASTTranslationUnit) tu).findGlobalIndexBindings(nchars);
+						} else {
+							bindings = lookup.isPrefixLookup() ?
+									index.findBindingsForContentAssist(nchars, true, filter, null) :
+									index.findBindings(nchars, filter, null);
+							if (fileSet != null) {
+								bindings= fileSet.filterFileLocalBindings(bindings);
+							}
 						}
 						result = ArrayUtil.addAll(IBinding.class, result, bindings);
 					} catch (CoreException e) {
 						CCorePlugin.log(e);
 					}
 				} else if (physicalNode instanceof ICPPASTNamespaceDefinition) {
-					ICPPASTNamespaceDefinition ns = (ICPPASTNamespaceDefinition) physicalNode;
-					try {
-						IIndexBinding binding = index.findBinding(ns.getName());
-						if (binding instanceof ICPPNamespace) {
-							ICPPNamespaceScope indexNs = ((ICPPNamespace) binding).getNamespaceScope();
-							IBinding[] bindings = indexNs.getBindings(lookup);
-							result = ArrayUtil.addAll(IBinding.class, result, bindings);
-						}
-					} catch (CoreException e) {
-						CCorePlugin.log(e);
+					ICPPNamespace binding = getNamespaceIndexBinding(index);
+					if (binding != null) {
+						ICPPNamespaceScope indexNs = binding.getNamespaceScope();
+						IBinding[] bindings = indexNs.getBindings(lookup);
+						result = ArrayUtil.addAll(IBinding.class, result, bindings);
 					}
 				}
 			}
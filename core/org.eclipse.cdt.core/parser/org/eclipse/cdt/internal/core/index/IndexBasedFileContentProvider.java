@@ -183,6 +183,11 @@ public final class IndexBasedFileContentProvider extends InternalFileContentProv
 
 	@Override
 	public InternalFileContent getContentForInclusion(IIndexFileLocation ifl, String astPath) {
+		if (fRelatedIndexerTask != null) {
+			InternalFileContent ifc= fRelatedIndexerTask.getPrefetchedContent(ifl);
+			if (ifc != null)
+				return ifc;
+		}
 		if (fFallBackFactory != null) {
 			return fFallBackFactory.getContentForInclusion(ifl, astPath);
 		}
@@ -34,15 +34,19 @@ public class CompositeInstanceCache {
 			return (CompositeInstanceCache) cache;
 		}
 		
-		CompositeInstanceCache newCache= new CompositeInstanceCache();
-		newCache.populate(cf, fb);
+		CompositeInstanceCache newCache= new CompositeInstanceCache(cf, fb);
 		return (CompositeInstanceCache) frag.putCachedResult(key, newCache, false);
 	}
 	
+	private final ICompositesFactory fFactory;
+	private final IIndexFragmentBinding fTemplate;
 	private final HashMap<String, ICPPTemplateInstance> fMap;
+	private boolean fPopulated;
 	private ICPPDeferredClassInstance fDeferredInstance;
 
-	public CompositeInstanceCache() {
+	private CompositeInstanceCache(ICompositesFactory cf, IIndexFragmentBinding template) {
+		fFactory= cf;
+		fTemplate= template;
 		fMap= new HashMap<String, ICPPTemplateInstance>();
 	}
 	
@@ -59,7 +63,17 @@ public class CompositeInstanceCache {
 	synchronized public final ICPPTemplateInstance getInstance(ICPPTemplateArgument[] arguments) {
 		try {
 			String key= IndexCPPSignatureUtil.getTemplateArgString(arguments, true);
-			return fMap.get(key);
+			ICPPTemplateInstance instance= fMap.get(key);
+			if (instance == null && !fPopulated && fTemplate instanceof ICPPInstanceCache) {
+				// The fragment finds the instance stored for the arguments without loading
+				// all instances of the template.
+				ICPPTemplateInstance ti= ((ICPPInstanceCache) fTemplate).getInstance(arguments);
+				if (ti instanceof IIndexFragmentBinding) {
+					instance= (ICPPTemplateInstance) fFactory.getCompositeBinding((IIndexFragmentBinding) ti);
+					fMap.put(key, instance);
+				}
+			}
+			return instance;
 		} catch (CoreException e) {
 			CCorePlugin.log(e);
 		} catch (DOMException e) {
@@ -74,13 +88,26 @@ public class CompositeInstanceCache {
 				if (ti instanceof IIndexFragmentBinding) {
 					ICPPTemplateInstance comp= (ICPPTemplateInstance) cf.getCompositeBinding((IIndexFragmentBinding) ti);
 					ICPPTemplateArgument[] args= comp.getTemplateArguments();
-					addInstance(args, comp);
+					try {
+						String key= IndexCPPSignatureUtil.getTemplateArgString(args, true);
+						// Instances added while resolving an AST take precedence.
+						if (!fMap.containsKey(key)) {
+							fMap.put(key, comp);
+						}
+					} catch (CoreException e) {
+						CCorePlugin.log(e);
+					} catch (DOMException e) {
+					}
 				}
 			}
 		}
 	}
 
 	synchronized public ICPPTemplateInstance[] getAllInstances() {
+		if (!fPopulated) {
+			fPopulated= true;
+			populate(fFactory, fTemplate);
+		}
 		return fMap.values().toArray(new ICPPTemplateInstance[fMap.size()]);
 	}
 
@@ -53,6 +53,20 @@ public abstract class AbstractCharArray {
 	 */
 	public abstract void arraycopy(int offset, char[] destination, int destinationPos, int length);
 
+	/**
+	 * Returns the offset of the first stop character at or after the given offset and before
+	 * the end offset. The table of stop characters has an entry for each ASCII character and
+	 * a last entry for all other characters. Subclasses may return an offset before the first
+	 * stop character, e.g. at the end of a buffer, the default implementation returns the
+	 * offset passed in.
+	 * @param offset the offset to start the search at
+	 * @param endOffset the offset to end the search at, may be beyond the end of the array
+	 * @param stopCharacters table of stop characters
+	 */
+	public int skipToStopCharacter(int offset, int endOffset, boolean[] stopCharacters) {
+		return offset;
+	}
+
 	/**
 	 * Returns the {@link CharSequence} representing a range in the character array.
 	 */
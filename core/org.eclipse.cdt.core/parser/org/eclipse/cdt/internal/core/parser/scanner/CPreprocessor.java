@@ -1621,8 +1621,12 @@ public class CPreprocessor implements ILexerLog, IScanner, IAdaptable {
 			if (source != null) {
 				ILocationCtx ctx= fLocationMap.pushInclusion(poundOffset, nameOffsets[0], nameOffsets[1],
 						condEndOffset, source, path, headerName, userInclude, isHeuristic, fi.isSource());
-				ScannerContext fctx= new ScannerContext(ctx, fCurrentContext,
-						new Lexer(source, fLexOptions, this, this));
+				Lexer lexer= new Lexer(source, fLexOptions, this, this);
+				LexerTokenCache tokenCache= fFileContentProvider.getLexerTokenCache();
+				if (tokenCache != null) {
+					lexer.setTokenCache(tokenCache, source.getContentsHash());
+				}
+				ScannerContext fctx= new ScannerContext(ctx, fCurrentContext, lexer);
 				fctx.setFoundOnPath(fi.getFoundOnPath(), includeDirective);
 				detectIncludeGuard(path, source, fctx);
 				fCurrentContext= fctx;
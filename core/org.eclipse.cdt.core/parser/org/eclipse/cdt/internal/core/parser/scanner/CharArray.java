@@ -50,6 +50,20 @@ public final class CharArray extends AbstractCharArray {
 		System.arraycopy(fArray, offset, destination, destPos, length);
 	}
 
+	@Override
+	public int skipToStopCharacter(int offset, int endOffset, boolean[] stopCharacters) {
+		final char[] array= fArray;
+		final int end= Math.min(endOffset, array.length);
+		final int other= stopCharacters.length - 1;
+		while (offset < end) {
+			final char c= array[offset];
+			if (stopCharacters[c < other ? c : other])
+				break;
+			offset++;
+		}
+		return offset;
+	}
+
 	@Override
 	public boolean isValidOffset(int offset) {
 		return offset < fArray.length;
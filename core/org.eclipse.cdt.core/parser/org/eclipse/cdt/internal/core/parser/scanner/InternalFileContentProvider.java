@@ -51,6 +51,7 @@ public abstract class InternalFileContentProvider extends IncludeFileContentProv
 	private IIncludeFileResolutionHeuristics fIncludeResolutionHeuristics;
     private final Map<String, IFileNomination> fPragmaOnce= new HashMap<>();
     private final Map<String, List<ISignificantMacros>> fLoadedVersions= new HashMap<>();
+    private LexerTokenCache fLexerTokenCache;
 
 	/**
 	 * Checks whether the specified inclusion exists.
@@ -131,6 +132,18 @@ public abstract class InternalFileContentProvider extends IncludeFileContentProv
 		fIncludeResolutionHeuristics= heuristics;
 	}
 
+	/**
+	 * Returns the cache for the tokens of included files, or {@code null} if the tokens
+	 * shall not be cached.
+	 */
+	public final LexerTokenCache getLexerTokenCache() {
+		return fLexerTokenCache;
+	}
+
+	public final void setLexerTokenCache(LexerTokenCache cache) {
+		fLexerTokenCache= cache;
+	}
+
 	public List<ISignificantMacros> getLoadedVersions(String path) {
 		List<ISignificantMacros> result = fLoadedVersions.get(path);
 		return result == null ? Collections.<ISignificantMacros>emptyList() : result;
@@ -45,6 +45,9 @@ public abstract class LazyCharArray extends AbstractCharArray {
 	private long fHash64;
 	// Make a reference to the currently used char[], such that it is not collected.
 	private char[] fCurrentChars;
+	// The range of characters in fCurrentChars, for fast sequential access.
+	private int fCurrentCharOffset;
+	private int fCurrentCharEndOffset;
 
 	protected LazyCharArray() {
 		fHasher = new StreamHasher();
@@ -66,6 +69,9 @@ public abstract class LazyCharArray extends AbstractCharArray {
 		if (offset < 0)
 			return false;
 
+		if (offset < fCurrentCharEndOffset)
+			return true;
+
 		if (fLength >= 0)
 			return offset < fLength;
 
@@ -84,6 +90,9 @@ public abstract class LazyCharArray extends AbstractCharArray {
 
 	@Override
 	public final char get(int offset) {
+		if (offset < fCurrentCharEndOffset && offset >= fCurrentCharOffset)
+			return fCurrentChars[offset - fCurrentCharOffset];
+
 		Chunk chunk= getChunkForOffset(offset);
 		if (chunk != null) {
 			return getChunkData(chunk)[offset - chunk.fCharOffset];
@@ -91,8 +100,34 @@ public abstract class LazyCharArray extends AbstractCharArray {
 		return 0;
 	}
 
+	/**
+	 * Searches the chunk that was accessed last, only.
+	 */
+	@Override
+	public final int skipToStopCharacter(int offset, int endOffset, boolean[] stopCharacters) {
+		if (offset < fCurrentCharOffset || offset >= fCurrentCharEndOffset)
+			return offset;
+
+		final char[] chars= fCurrentChars;
+		final int delta= fCurrentCharOffset;
+		final int end= Math.min(endOffset, fCurrentCharEndOffset) - delta;
+		final int other= stopCharacters.length - 1;
+		int i= offset - delta;
+		while (i < end) {
+			final char c= chars[i];
+			if (stopCharacters[c < other ? c : other])
+				break;
+			i++;
+		}
+		return i + delta;
+	}
+
 	@Override
 	public final void arraycopy(int offset, char[] destination, int destinationPos, int length) {
+		if (offset >= fCurrentCharOffset && offset + length <= fCurrentCharEndOffset) {
+			System.arraycopy(fCurrentChars, offset - fCurrentCharOffset, destination, destinationPos, length);
+			return;
+		}
 		final Chunk chunk= getChunkForOffset(offset);
 		final int offsetInChunk= offset - chunk.fCharOffset;
 		final char[] data= getChunkData(chunk);
@@ -165,8 +200,9 @@ public abstract class LazyCharArray extends AbstractCharArray {
 	 * Creates a new chunk.
 	 */
 	protected Chunk newChunk(long sourceOffset, long sourceEndOffset, int charOffset, char[] chars) {
-		fCurrentChars= chars;
-		return new Chunk(sourceOffset, sourceEndOffset, charOffset, chars);
+		Chunk chunk= new Chunk(sourceOffset, sourceEndOffset, charOffset, chars);
+		setCurrentChars(chunk, chars);
+		return chunk;
 	}
 
 	/**
@@ -181,7 +217,14 @@ public abstract class LazyCharArray extends AbstractCharArray {
 			rereadChunkData(chunk, data);
 			chunk.fCharsReference= new SoftReference<char[]>(data);
 		}
-		return fCurrentChars= data;
+		setCurrentChars(chunk, data);
+		return data;
+	}
+
+	private void setCurrentChars(Chunk chunk, char[] data) {
+		fCurrentChars= data;
+		fCurrentCharOffset= chunk.fCharOffset;
+		fCurrentCharEndOffset= chunk.fCharEndOffset;
 	}
 
 	/**
@@ -199,5 +242,6 @@ public abstract class LazyCharArray extends AbstractCharArray {
 		}
 		if (fCurrentChars != null)
 			fCurrentChars= null;
+		fCurrentCharOffset= fCurrentCharEndOffset= 0;
 	}
 }
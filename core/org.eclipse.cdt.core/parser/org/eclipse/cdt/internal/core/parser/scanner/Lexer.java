@@ -13,6 +13,8 @@
  *******************************************************************************/ 
 package org.eclipse.cdt.internal.core.parser.scanner;
 
+import java.util.Arrays;
+
 import org.eclipse.cdt.core.parser.IGCCToken;
 import org.eclipse.cdt.core.parser.IProblem;
 import org.eclipse.cdt.core.parser.IToken;
@@ -49,6 +51,14 @@ final public class Lexer implements ITokenSequence {
 	
 	private static final int END_OF_INPUT = -1;
 	private static final int ORIGIN_LEXER = OffsetLimitReachedException.ORIGIN_LEXER;
+
+	// Stop characters for skipping runs of characters, see AbstractCharArray.skipToStopCharacter().
+	// Characters that are subject to phase 1-3 processing have to stop a run.
+	private static final boolean[] STOP_BLANKS= createStopCharacters(" \t\013\f", false); //$NON-NLS-1$
+	private static final boolean[] STOP_LINE_COMMENT= createStopCharacters("\n\r?\\", true); //$NON-NLS-1$
+	private static final boolean[] STOP_STRING= createStopCharacters("\n\r?\\\"", true); //$NON-NLS-1$
+	private static final boolean[] STOP_STAR= createStopCharacters("*", true); //$NON-NLS-1$
+	private static final boolean[] STOP_PERCENT= createStopCharacters("%", true); //$NON-NLS-1$
 	
 	public final static class LexerOptions implements Cloneable {
 		public boolean fSupportDollarInIdentifiers= true;
@@ -106,6 +116,11 @@ final public class Lexer implements ITokenSequence {
 	private boolean fMarkInsideIncludeDirective;
 	private Token fMarkToken;
 	private Token fMarkLastToken;
+
+	// Tokens computed by a previous lexer for the same input, or the recorder for them.
+	private LexerTokenCache.Entry fReplay;
+	private int fReplayIndex;
+	private LexerTokenCache.Recorder fRecorder;
 	
 	public Lexer(char[] input, LexerOptions options, ILexerLog log, Object source) {
 		this(new CharArray(input), 0, input.length, options, log, source);
@@ -153,6 +168,24 @@ final public class Lexer implements ITokenSequence {
 		nextCharPhase3();
 	}
 	
+	/**
+	 * Makes the lexer reuse the tokens computed by a previous lexer for the same input, or
+	 * record the tokens for subsequent lexers. Must be called before the first token is fetched.
+	 * @param cache the cache for the tokens.
+	 * @param contentsHash the hash of the input of the lexer.
+	 */
+	public void setTokenCache(LexerTokenCache cache, long contentsHash) {
+		if (fStart != 0)
+			return;
+
+		final int length= fLimit < 0 ? fInput.getLength() : fLimit;
+		LexerTokenCache.Key key= new LexerTokenCache.Key(contentsHash, length, fOptions);
+		fReplay= cache.get(key);
+		if (fReplay == null && cache.shouldRecord(key)) {
+			fRecorder= cache.new Recorder(key);
+		}
+	}
+
 	public boolean isContentAssistMode() {
 		return fSupportContentAssist;
 	}
@@ -257,9 +290,59 @@ final public class Lexer implements ITokenSequence {
 	}
 	
 	/**
-	 * Computes the next token.
+	 * Computes the next token or takes it from the token cache.
 	 */
 	private Token fetchToken() throws OffsetLimitReachedException {
+		if (fInsideIncludeDirective || fSupportContentAssist) {
+			if (fRecorder != null) {
+				fRecorder.beginToken();
+			}
+			return computeToken();
+		}
+		if (fReplay != null) {
+			Token t= replayToken();
+			if (t != null)
+				return t;
+		}
+		if (fRecorder == null)
+			return computeToken();
+
+		final int start= fOffset;
+		fRecorder.beginToken();
+		Token t= computeToken();
+		fRecorder.token(start, t, fOffset, fEndOffset, fCharPhase3);
+		if (t.getType() == IToken.tEND_OF_INPUT) {
+			fRecorder.finish();
+			fRecorder= null;
+		}
+		return t;
+	}
+
+	/**
+	 * Returns a copy of the cached token that starts at the current offset, or {@code null}.
+	 */
+	private Token replayToken() {
+		final LexerTokenCache.Entry replay= fReplay;
+		int idx= fReplayIndex;
+		if (idx >= replay.fCount || replay.fStart[idx] != fOffset) {
+			idx= replay.find(fOffset);
+			if (idx < 0)
+				return null;
+		}
+		fReplayIndex= idx + 1;
+		replay.replayEvents(idx, fLog, fInput);
+		fOffset= replay.fOffset[idx];
+		fEndOffset= replay.fEndOffset[idx];
+		fCharPhase3= replay.fCharPhase3[idx];
+		Token t= replay.fTokens[idx].clone();
+		t.fSource= fSource;
+		return t;
+	}
+
+	/**
+	 * Computes the next token.
+	 */
+	private Token computeToken() throws OffsetLimitReachedException {
 		while (true) {
 			final int start= fOffset;
 			final int c= fCharPhase3;
@@ -275,6 +358,9 @@ final public class Lexer implements ITokenSequence {
 			case 0xb:  // vertical tab
 			case '\f': 
 			case '\r':
+				if (d == ' ' || d == '\t') {
+					skipToCharPhase3(STOP_BLANKS);
+				}
 				continue;
 
 			case 'L':
@@ -672,9 +758,19 @@ final public class Lexer implements ITokenSequence {
     }
 
     private void handleProblem(int problemID, char[] arg, int offset) {
+    	if (fRecorder != null) {
+    		fRecorder.problem(problemID, arg, offset, fOffset);
+    	}
     	fLog.handleProblem(problemID, arg, offset, fOffset);
     }
 
+    private void handleComment(boolean isBlockComment, int offset, int endOffset) {
+    	if (fRecorder != null) {
+    		fRecorder.comment(isBlockComment, offset, endOffset);
+    	}
+    	fLog.handleComment(isBlockComment, offset, endOffset, fInput);
+    }
+
 	private Token headerName(final int start, final boolean expectQuotes) throws OffsetLimitReachedException {
     	int length= 1;
 		boolean done = false;
@@ -706,20 +802,21 @@ final public class Lexer implements ITokenSequence {
 
 	private void blockComment(final int start, final char trigger) {
 		// We can ignore line-splices, trigraphs and windows newlines when searching for the '*'
+		final boolean[] stopCharacters= trigger == '*' ? STOP_STAR : STOP_PERCENT;
 		int pos= fEndOffset;
-		while (isValidOffset(pos)) {
+		while (isValidOffset(pos= skipToStopCharacter(pos, stopCharacters))) {
 			if (fInput.get(pos++) == trigger) {
 				fEndOffset= pos;
 				if (nextCharPhase3() == '/') {
 					nextCharPhase3();
-					fLog.handleComment(true, start, fOffset, fInput);
+					handleComment(true, start, fOffset);
 					return;
 				}
 			}
 		}
 		fCharPhase3= END_OF_INPUT;
 		fOffset= fEndOffset= pos;
-		fLog.handleComment(true, start, pos, fInput);
+		handleComment(true, start, pos);
 	}
 
 	private void lineComment(final int start) {
@@ -728,10 +825,10 @@ final public class Lexer implements ITokenSequence {
 			switch (c) {
 			case END_OF_INPUT:
 			case '\n':
-				fLog.handleComment(false, start, fOffset, fInput);
+				handleComment(false, start, fOffset);
 				return;
 			}
-			c= nextCharPhase3();
+			c= skipToCharPhase3(STOP_LINE_COMMENT);
 		}
 	}
 	
@@ -772,6 +869,9 @@ final public class Lexer implements ITokenSequence {
 				break;
 			default:
 				escaped= false;
+				final int offset= fEndOffset;
+				fEndOffset= skipToStopCharacter(offset, STOP_STRING);
+				length+= fEndOffset - offset;
 				break;
 			}
 			length++;
@@ -1077,6 +1177,32 @@ final public class Lexer implements ITokenSequence {
 		fCharPhase3= fMarkPhase3PrefetchedChar;
 	}
 	
+	private static boolean[] createStopCharacters(String characters, boolean stop) {
+		boolean[] result= new boolean[129];
+		Arrays.fill(result, !stop);
+		for (int i = 0; i < characters.length(); i++) {
+			result[characters.charAt(i)]= stop;
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the offset of the first stop character at or after the given offset, or an offset
+	 * before it. The characters skipped must not be subject to phase 1-3 processing.
+	 */
+	private int skipToStopCharacter(int offset, boolean[] stopCharacters) {
+		return fInput.skipToStopCharacter(offset, fLimit < 0 ? Integer.MAX_VALUE : fLimit, stopCharacters);
+	}
+
+	/**
+	 * Skips the characters following the current one up to the next stop character, then
+	 * performs phase 1-3 like {@link #nextCharPhase3()}.
+	 */
+	private int skipToCharPhase3(boolean[] stopCharacters) {
+		fEndOffset= skipToStopCharacter(fEndOffset, stopCharacters);
+		return nextCharPhase3();
+	}
+
 	/**
 	 * Perform phase 1-3: Replace \r\n with \n, handle trigraphs, detect line-splicing.
 	 * Changes fOffset, fEndOffset and fCharPhase3, state-less otherwise.
@@ -0,0 +1,327 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Wind River Systems, Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Wind River Systems - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.core.parser.scanner;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.cdt.internal.core.parser.scanner.Lexer.LexerOptions;
+
+/**
+ * Cache for the tokens computed by the lexer for the contents of included files, such that
+ * a header included by many translation units is lexed only twice during an indexer run.
+ * <p>
+ * The lexer is context free, the tokens depend on the contents of the file and the lexer
+ * options, only. Therefore the cache is keyed by the hash of the contents rather than by
+ * the macros that are significant for a header. The tokens are recorded together with the
+ * offset at which the lexer started to compute them, such that they can be replayed no matter
+ * which parts of the file are skipped as inactive code by the preprocessor. Tokens that depend
+ * on the state of the lexer (header-names and content assist) are always computed.
+ * <p>
+ * A file is recorded when it is lexed for the second time, files that are lexed only once
+ * do not cost any memory. The cache is thread-safe and evicts the least recently used files
+ * when the total number of tokens exceeds the limit.
+ */
+public final class LexerTokenCache {
+	private static final int COMMENT = 0;
+	private static final int BLOCK_COMMENT = 1;
+	private static final int PROBLEM = 2;
+	/** Estimated memory used by a recorded token, including its share of the arrays of the entry. */
+	private static final int BYTES_PER_TOKEN = 80;
+	/** Fraction of the maximum heap size that may be used for recorded tokens. */
+	private static final int HEAP_FRACTION = 16;
+
+	private final int fTokenLimit;
+	private final Map<Key, Entry> fEntries= new LinkedHashMap<>(16, 0.75f, true);
+	private final Set<Key> fLexedOnce= new HashSet<>();
+	private int fTokenCount;
+	private int fHits;
+	private int fMisses;
+
+	/**
+	 * @param tokenLimit the maximum number of tokens kept in the cache.
+	 */
+	public LexerTokenCache(int tokenLimit) {
+		fTokenLimit= tokenLimit;
+	}
+
+	/**
+	 * Returns a limit for the number of tokens, such that the cache uses a small fraction of
+	 * the maximum heap size.
+	 */
+	public static int getTokenLimitForHeap() {
+		long bytes= Runtime.getRuntime().maxMemory() / HEAP_FRACTION;
+		return (int) Math.min(bytes / BYTES_PER_TOKEN, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Returns the recorded tokens for the given key, or {@code null}.
+	 */
+	synchronized Entry get(Key key) {
+		Entry entry= fEntries.get(key);
+		if (entry != null) {
+			fHits++;
+		} else {
+			fMisses++;
+		}
+		return entry;
+	}
+
+	/**
+	 * Returns whether the tokens for the given key shall be recorded.
+	 */
+	synchronized boolean shouldRecord(Key key) {
+		return !fLexedOnce.add(key);
+	}
+
+	synchronized void put(Key key, Entry entry) {
+		final int size= entry.getSize();
+		if (size > fTokenLimit || fEntries.containsKey(key))
+			return;
+
+		fEntries.put(key, entry);
+		fTokenCount+= size;
+		for (Iterator<Entry> it= fEntries.values().iterator(); fTokenCount > fTokenLimit && it.hasNext();) {
+			fTokenCount-= it.next().getSize();
+			it.remove();
+		}
+	}
+
+	public synchronized void clear() {
+		fEntries.clear();
+		fLexedOnce.clear();
+		fTokenCount= 0;
+	}
+
+	/**
+	 * Returns the number of lookups that found recorded tokens.
+	 */
+	public synchronized int getHits() {
+		return fHits;
+	}
+
+	/**
+	 * Returns the number of lookups that did not find recorded tokens.
+	 */
+	public synchronized int getMisses() {
+		return fMisses;
+	}
+
+	/**
+	 * Returns the number of tokens and comments that are kept in the cache.
+	 */
+	public synchronized int getTokenCount() {
+		return fTokenCount;
+	}
+
+	/**
+	 * Identifies the input of a lexer.
+	 */
+	static final class Key {
+		private final long fContentsHash;
+		private final int fLength;
+		private final int fOptions;
+
+		Key(long contentsHash, int length, LexerOptions options) {
+			fContentsHash= contentsHash;
+			fLength= length;
+			int bits= 0;
+			if (options.fSupportDollarInIdentifiers)
+				bits |= 0x01;
+			if (options.fSupportAtSignInIdentifiers)
+				bits |= 0x02;
+			if (options.fSupportMinAndMax)
+				bits |= 0x04;
+			if (options.fSupportSlashPercentComments)
+				bits |= 0x08;
+			if (options.fSupportUTFLiterals)
+				bits |= 0x10;
+			if (options.fSupportRawStringLiterals)
+				bits |= 0x20;
+			if (options.fSupportUserDefinedLiterals)
+				bits |= 0x40;
+			fOptions= bits;
+		}
+
+		@Override
+		public int hashCode() {
+			return (int) (fContentsHash ^ (fContentsHash >>> 32)) + 31 * fLength + fOptions;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key))
+				return false;
+			Key other= (Key) obj;
+			return fContentsHash == other.fContentsHash && fLength == other.fLength
+					&& fOptions == other.fOptions;
+		}
+	}
+
+	/**
+	 * A comment or a problem reported by the lexer while computing a token.
+	 */
+	private static final class Event {
+		final int fKind;
+		final int fProblemID;
+		final char[] fInfo;
+		final int fOffset;
+		final int fEndOffset;
+
+		Event(int kind, int problemID, char[] info, int offset, int endOffset) {
+			fKind= kind;
+			fProblemID= problemID;
+			fInfo= info;
+			fOffset= offset;
+			fEndOffset= endOffset;
+		}
+
+		void replay(ILexerLog log, AbstractCharArray input) {
+			if (fKind == PROBLEM) {
+				log.handleProblem(fProblemID, fInfo, fOffset, fEndOffset);
+			} else {
+				log.handleComment(fKind == BLOCK_COMMENT, fOffset, fEndOffset, input);
+			}
+		}
+	}
+
+	/**
+	 * The tokens of a file, sorted by the offset at which the lexer started to compute them.
+	 * Along with each token the state of the lexer after computing it is stored.
+	 */
+	static final class Entry {
+		final int fCount;
+		final int[] fStart;
+		final Token[] fTokens;
+		final int[] fOffset;
+		final int[] fEndOffset;
+		final int[] fCharPhase3;
+		private final int[] fFirstEvent;
+		private final Event[] fEvents;
+
+		Entry(Recorder r) {
+			fCount= r.fCount;
+			fStart= Arrays.copyOf(r.fStart, fCount);
+			fTokens= Arrays.copyOf(r.fTokens, fCount);
+			fOffset= Arrays.copyOf(r.fOffset, fCount);
+			fEndOffset= Arrays.copyOf(r.fEndOffset, fCount);
+			fCharPhase3= Arrays.copyOf(r.fCharPhase3, fCount);
+			fFirstEvent= Arrays.copyOf(r.fFirstEvent, fCount + 1);
+			fFirstEvent[fCount]= r.fEventCount;
+			fEvents= Arrays.copyOf(r.fEvents, r.fEventCount);
+		}
+
+		int getSize() {
+			return fCount + fEvents.length;
+		}
+
+		/**
+		 * Returns the index of the token computed starting at the given offset, or -1.
+		 */
+		int find(int start) {
+			int idx= Arrays.binarySearch(fStart, 0, fCount, start);
+			return idx < 0 ? -1 : idx;
+		}
+
+		/**
+		 * Reports the comments and problems that were found while computing a token.
+		 */
+		void replayEvents(int idx, ILexerLog log, AbstractCharArray input) {
+			for (int i= fFirstEvent[idx]; i < fFirstEvent[idx + 1]; i++) {
+				fEvents[i].replay(log, input);
+			}
+		}
+	}
+
+	/**
+	 * Collects the tokens of a lexer, the entry is added to the cache when the lexer reaches
+	 * the end of the input.
+	 */
+	final class Recorder {
+		private final Key fKey;
+		int fCount;
+		int[] fStart= new int[256];
+		Token[] fTokens= new Token[256];
+		int[] fOffset= new int[256];
+		int[] fEndOffset= new int[256];
+		int[] fCharPhase3= new int[256];
+		int[] fFirstEvent= new int[256];
+		int fEventCount;
+		Event[] fEvents= new Event[16];
+		private int fPendingEvents;
+
+		Recorder(Key key) {
+			fKey= key;
+		}
+
+		/**
+		 * Discards the events of a token that is not recorded.
+		 */
+		void beginToken() {
+			fEventCount-= fPendingEvents;
+			fPendingEvents= 0;
+		}
+
+		void comment(boolean isBlockComment, int offset, int endOffset) {
+			addEvent(new Event(isBlockComment ? BLOCK_COMMENT : COMMENT, 0, null, offset, endOffset));
+		}
+
+		void problem(int problemID, char[] info, int offset, int endOffset) {
+			addEvent(new Event(PROBLEM, problemID, info, offset, endOffset));
+		}
+
+		private void addEvent(Event event) {
+			if (fEventCount == fEvents.length) {
+				fEvents= Arrays.copyOf(fEvents, fEventCount * 2);
+			}
+			fEvents[fEventCount++]= event;
+			fPendingEvents++;
+		}
+
+		/**
+		 * Records a token computed starting at the given offset, tokens that have already been
+		 * computed before (because the lexer has been reset) are ignored.
+		 */
+		void token(int start, Token token, int offset, int endOffset, int charPhase3) {
+			if (fCount > 0 && start <= fStart[fCount - 1]) {
+				beginToken();
+				return;
+			}
+			if (fCount == fStart.length) {
+				final int newLength= fCount * 2;
+				fStart= Arrays.copyOf(fStart, newLength);
+				fTokens= Arrays.copyOf(fTokens, newLength);
+				fOffset= Arrays.copyOf(fOffset, newLength);
+				fEndOffset= Arrays.copyOf(fEndOffset, newLength);
+				fCharPhase3= Arrays.copyOf(fCharPhase3, newLength);
+				fFirstEvent= Arrays.copyOf(fFirstEvent, newLength);
+			}
+			Token prototype= token.clone();
+			prototype.fSource= null;
+			fStart[fCount]= start;
+			fTokens[fCount]= prototype;
+			fOffset[fCount]= offset;
+			fEndOffset[fCount]= endOffset;
+			fCharPhase3[fCount]= charPhase3;
+			fFirstEvent[fCount]= fEventCount - fPendingEvents;
+			fCount++;
+			fPendingEvents= 0;
+		}
+
+		void finish() {
+			put(fKey, new Entry(this));
+		}
+	}
+}
@@ -152,6 +152,13 @@ abstract class LocationCtx implements ILocationCtx {
 		return Collections.emptySet();
 	}
 
+	/**
+	 * Returns the location map this context belongs to.
+	 */
+	public LocationMap getLocationMap() {
+		return fParent.getLocationMap();
+	}
+
 	public boolean isSourceFile() {
 		if (fParent == null)
 			return false;
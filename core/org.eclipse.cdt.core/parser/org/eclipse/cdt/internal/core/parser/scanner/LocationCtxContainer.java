@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2009 Wind River Systems, Inc. and others.
+ * Copyright (c) 2007, 2015 Wind River Systems, Inc. and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -33,7 +33,11 @@ class LocationCtxContainer extends LocationCtx {
 	 */
 	private int fChildSequenceLength;
 
-	private ArrayList<LocationCtx> fChildren;
+	/**
+	 * The children sorted by sequence number, the array is trimmed when the context is finished.
+	 */
+	private LocationCtx[] fChildren;
+	private int fChildCount;
 	private final AbstractCharArray fSource;
 	private int[] fLineOffsets;
 	
@@ -48,14 +52,26 @@ class LocationCtxContainer extends LocationCtx {
 		if (fChildren == null) {
 			return Collections.emptyList();
 		}
-		return fChildren;
+		return Arrays.asList(fChildren).subList(0, fChildCount);
 	}
 
 	public void addChild(LocationCtx locationCtx) {
 		if (fChildren == null) {
-			fChildren= new ArrayList<>();
+			fChildren= new LocationCtx[4];
+		} else if (fChildCount == fChildren.length) {
+			fChildren= Arrays.copyOf(fChildren, Math.max(fChildCount + 1, fChildCount + (fChildCount >> 1)));
+		}
+		fChildren[fChildCount++]= locationCtx;
+	}
+
+	/**
+	 * Releases the unused capacity of the array of children, called when no more children are
+	 * added to this context.
+	 */
+	public void trimChildren() {
+		if (fChildren != null && fChildCount < fChildren.length) {
+			fChildren= Arrays.copyOf(fChildren, fChildCount);
 		}
-		fChildren.add(locationCtx);
 	}
 
 	public char[] getSource(int offset, int length) {
@@ -76,8 +92,8 @@ class LocationCtxContainer extends LocationCtx {
 	public final int getSequenceNumberForOffset(int offset, boolean checkChildren) {
 		int result= fSequenceNumber + fChildSequenceLength + offset;
 		if (checkChildren && fChildren != null) {
-			for (int i= fChildren.size(); --i >= 0;) {
-				final LocationCtx child= fChildren.get(i);
+			for (int i= fChildCount; --i >= 0;) {
+				final LocationCtx child= fChildren[i];
 				if (child.fEndOffsetInParent > offset) { // Child was inserted behind the offset, adjust sequence number
 					result -= child.getSequenceLength();
 				} else {
@@ -147,8 +163,8 @@ class LocationCtxContainer extends LocationCtx {
 		final int endSequenceNumber= sequenceNumber + length;
 		if (fChildren != null) {
 			int childIdx= Math.max(0, findChildIdxLessOrEqualThan(sequenceNumber, false));
-			for (; childIdx < fChildren.size(); childIdx++) {
-				final LocationCtx child= fChildren.get(childIdx);
+			for (; childIdx < fChildCount; childIdx++) {
+				final LocationCtx child= fChildren[childIdx];
 
 				// Create the location between start and the child
 				if (sequenceNumber < child.fSequenceNumber) {
@@ -207,11 +223,11 @@ class LocationCtxContainer extends LocationCtx {
 		if (fChildren == null) {
 			return -1;
 		}
-		int upper= fChildren.size();
+		int upper= fChildCount;
 		int lower= 0;
 		while (upper > lower) {
 			int middle= (upper + lower) >>> 1;
-			LocationCtx child= fChildren.get(middle);
+			LocationCtx child= fChildren[middle];
 			int childSequenceNumber= child.fSequenceNumber;
 			if (beforeReplacedChars) {
 				childSequenceNumber -= child.fEndOffsetInParent - child.fOffsetInParent; 
@@ -227,13 +243,14 @@ class LocationCtxContainer extends LocationCtx {
 
 	final LocationCtx findChildLessOrEqualThan(final int sequenceNumber, boolean beforeReplacedChars) {
 		final int idx= findChildIdxLessOrEqualThan(sequenceNumber, beforeReplacedChars);
-		return idx >= 0 ? fChildren.get(idx) : null;
+		return idx >= 0 ? fChildren[idx] : null;
 	}
 
 	@Override
 	public void getInclusions(ArrayList<IASTInclusionNode> result) {
 		if (fChildren != null) {
-			for (LocationCtx ctx : fChildren) {
+			for (int i= 0; i < fChildCount; i++) {
+				final LocationCtx ctx= fChildren[i];
 				if (ctx.getInclusionStatement() != null) {
 					result.add(new ASTInclusionNode(ctx));
 				} else {
@@ -27,6 +27,7 @@ class LocationCtxFile extends LocationCtxContainer {
 	private final boolean fIsSource;
 	private boolean fInsideIncludeExportBlock;
 	private int fOffsetOfIncludeExport = -1;
+	private LocationMap fLocationMap;
 
 	public LocationCtxFile(LocationCtxContainer parent, String filename, AbstractCharArray source,
 			int parentOffset, int parentEndOffset, int sequenceNumber,
@@ -42,6 +43,19 @@ class LocationCtxFile extends LocationCtxContainer {
 		super.addChildSequenceLength(childLength);
 	}
 
+	/**
+	 * Sets the location map for the context of the translation unit, the other contexts obtain
+	 * it from their parent.
+	 */
+	void setLocationMap(LocationMap locationMap) {
+		fLocationMap= locationMap;
+	}
+
+	@Override
+	public LocationMap getLocationMap() {
+		return fParent == null ? fLocationMap : fParent.getLocationMap();
+	}
+
 	@Override
 	public final String getFilePath() {
 		return fFilename;
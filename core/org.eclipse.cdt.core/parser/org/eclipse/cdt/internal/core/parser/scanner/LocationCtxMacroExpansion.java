@@ -22,15 +22,13 @@ import org.eclipse.cdt.core.dom.ast.IMacroBinding;
  * @since 5.0
  */
 class LocationCtxMacroExpansion extends LocationCtx {
-	private final LocationMap fLocationMap;
 	private final int fLength;
 	private final ImageLocationInfo[] fLocationInfos;
 	private final ASTMacroReferenceName fExpansionName;
 
-	public LocationCtxMacroExpansion(LocationMap map, LocationCtxContainer parent, int parentOffset, int parentEndOffset,
+	public LocationCtxMacroExpansion(LocationCtxContainer parent, int parentOffset, int parentEndOffset,
 			int sequenceNumber, int length, ImageLocationInfo[] imageLocations,	ASTMacroReferenceName expansionName) {
 		super(parent, parentOffset, parentEndOffset, sequenceNumber);
-		fLocationMap= map;
 		fLength= length;
 		fLocationInfos= imageLocations;
 		fExpansionName= expansionName;
@@ -65,7 +63,7 @@ class LocationCtxMacroExpansion extends LocationCtx {
 	}
 	
 	public IASTPreprocessorMacroDefinition getMacroDefinition() {
-		return fLocationMap.getMacroDefinition((IMacroBinding) fExpansionName.getBinding());
+		return getLocationMap().getMacroDefinition((IMacroBinding) fExpansionName.getBinding());
 	}
 	
 	@Override
@@ -91,7 +89,7 @@ class LocationCtxMacroExpansion extends LocationCtx {
 					return null;
 				}
 				if (++nextToCheck == end) {
-					return firstInfo.createLocation(fLocationMap, lastInfo);
+					return firstInfo.createLocation(getLocationMap(), lastInfo);
 				}
 			} else if (info.fTokenOffsetInExpansion > nextToCheck) {
 				return null;
@@ -101,7 +99,7 @@ class LocationCtxMacroExpansion extends LocationCtx {
 	}
 
 	public ASTPreprocessorName[] getNestedMacroReferences() {
-		return fLocationMap.getNestedMacroReferences((ASTMacroExpansion) fExpansionName.getParent());
+		return getLocationMap().getNestedMacroReferences((ASTMacroExpansion) fExpansionName.getParent());
 	}
 	
 	@Override
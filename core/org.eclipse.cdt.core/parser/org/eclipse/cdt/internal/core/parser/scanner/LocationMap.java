@@ -105,6 +105,7 @@ public class LocationMap implements ILocationResolver {
 		assert fCurrentContext == null;
 		fTranslationUnitPath= filename;
 		fCurrentContext= fRootContext= new LocationCtxFile(null, filename, buffer, 0, 0, 0, null, true);
+		fRootContext.setLocationMap(this);
 		fLastChildInsertionOffset= 0;
 		return fCurrentContext;
 	}
@@ -201,7 +202,7 @@ public class LocationMap implements ILocationResolver {
 			addMacroReference(name);
 		}
 		
-		LocationCtxMacroExpansion expansionCtx= new LocationCtxMacroExpansion(this,
+		LocationCtxMacroExpansion expansionCtx= new LocationCtxMacroExpansion(
 				(LocationCtxContainer) fCurrentContext, nameOffset, endOffset, endNumber,
 				contextLength, imageLocations, explicitRef);
 		expansion.setContext(expansionCtx);
@@ -224,6 +225,9 @@ public class LocationMap implements ILocationResolver {
 		assert fCurrentContext == locationCtx;
 		final LocationCtx child= fCurrentContext;
 		final LocationCtx parent= (LocationCtx) fCurrentContext.getParent();
+		if (child instanceof LocationCtxContainer) {
+			((LocationCtxContainer) child).trimChildren();
+		}
 		if (parent != null) {
 			fCurrentContext= parent;
 			fLastChildInsertionOffset= child.fEndOffsetInParent;
@@ -264,7 +264,9 @@ public class MacroExpander {
 		if (macro.isFunctionStyle()) {
 			final int paramCount = macro.getParameterPlaceholderList().length;
 			final TokenSource[] argInputs= new TokenSource[paramCount];
-			final BitSet paramUsage= getParamUsage(macro);
+			final MacroExpansionPlan plan= macro.getExpansionPlan(fDefinitionParser, fLexOptions, this);
+			// The tracker modifies the parameter usage.
+			final BitSet paramUsage= tracker == null ? plan.fParamUsage : (BitSet) plan.fParamUsage.clone();
 			if (tracker != null) {
 				tracker.startFunctionStyleMacro(lastConsumed.clone());
 			}
@@ -310,16 +312,17 @@ public class MacroExpander {
 				}
 			}
 			if (tracker == null) {
-				replaceArgs(macro, clonedArgs, expandedArgs, result);
+				replaceArgs(macro, plan, clonedArgs, expandedArgs, result, true);
 			} else {
+				// The tracker keeps the expanded arguments, they must not be consumed.
 				if (tracker.isRequestedStep()) {
 					TokenList replacement= new TokenList();
-					replaceArgs(macro, clonedArgs, expandedArgs, replacement);
+					replaceArgs(macro, plan, clonedArgs, expandedArgs, replacement, false);
 					tracker.storeFunctionStyleMacroReplacement(macro, replacement, result);
 				} else if (tracker.isDone()) {
 					tracker.appendFunctionStyleMacro(result);
 				} else {
-					replaceArgs(macro, clonedArgs, expandedArgs, result);
+					replaceArgs(macro, plan, clonedArgs, expandedArgs, result, false);
 				}
 				tracker.endFunctionStyleMacro();
 			}
@@ -598,7 +601,17 @@ public class MacroExpander {
 		fLog.handleProblem(problemID, arg, fStartOffset, fEndOffset);
 	}
 
-	private void replaceArgs(PreprocessorMacro macro, TokenList[] args, TokenList[] expandedArgs, TokenList result) {
+	/**
+	 * Replaces the parameters in the replacement list of the macro by the arguments.
+	 * @param consumeArgs whether the expanded arguments may be moved to the result rather than
+	 *     being copied.
+	 */
+	private void replaceArgs(PreprocessorMacro macro, MacroExpansionPlan plan, TokenList[] args,
+			TokenList[] expandedArgs, TokenList result, boolean consumeArgs) {
+		if (plan.fIsSimple) {
+			replaceArgsSimple(macro, plan, expandedArgs, result, consumeArgs);
+			return;
+		}
 		TokenList replacement= clone(macro.getTokens(fDefinitionParser, fLexOptions, this));
 
 		Token l= null;
@@ -769,50 +782,43 @@ public class MacroExpander {
 		return t != null && t.getType() == kind;
 	}
 
-	private BitSet getParamUsage(PreprocessorMacro macro) {
-		final BitSet result= new BitSet();
+	/**
+	 * Replaces the parameters of a macro without stringification and token pasting. Only the
+	 * tokens that end up in the result are copied.
+	 */
+	private void replaceArgsSimple(PreprocessorMacro macro, MacroExpansionPlan plan,
+			TokenList[] expandedArgs, TokenList result, boolean consumeArgs) {
 		final TokenList replacement= macro.getTokens(fDefinitionParser, fLexOptions, this);
-
 		Token l= null;
 		Token n;
 		for (Token t= replacement.first(); t != null; l= t, t= n) {
 			n= (Token) t.getNext();
-			switch (t.getType()) {
-			case CPreprocessor.tMACRO_PARAMETER:
-				int idx= 2 * ((TokenParameterReference) t).getIndex();
-				if (!isKind(n, IToken.tPOUNDPOUND)) {
-					idx++;
-				}
-				result.set(idx);
-				break;
-
-			case IToken.tPOUND:
-				if (isKind(n, CPreprocessor.tMACRO_PARAMETER)) {
-					idx= ((TokenParameterReference) n).getIndex();
-					result.set(2 * idx);
-					t= n; n= (Token) n.getNext();
-				}
-				break;
-
-			case IToken.tPOUNDPOUND:
-				if (isKind(n, CPreprocessor.tMACRO_PARAMETER)) {
-					idx= ((TokenParameterReference) n).getIndex();
-					// gcc-extension
-					if (isKind(l, IToken.tCOMMA) && macro.hasVarArgs() != FunctionStyleMacro.NO_VAARGS &&
-							idx == macro.getParameterPlaceholderList().length - 1 && !isKind(n.getNext(), IToken.tPOUNDPOUND)) {
-						result.set(2 * idx + 1);
+			if (t.getType() == CPreprocessor.tMACRO_PARAMETER) {
+				int idx= ((TokenParameterReference) t).getIndex();
+				if (idx < expandedArgs.length) { // be defensive
+					addSpacemarker(l, t, result); // start argument replacement
+					if (consumeArgs && plan.fLastReference[idx] == t) {
+						result.appendAll(expandedArgs[idx]);
 					} else {
-						result.set(2 * idx);
+						result.appendAll(clone(expandedArgs[idx]));
 					}
-					t= n; n= (Token) n.getNext();
+					addSpacemarker(t, n, result); // end argument replacement
 				}
-				break;
+			} else {
+				result.append(t.clone());
 			}
 		}
-		return result;
 	}
 
 	private void objStyleTokenPaste(PreprocessorMacro macro, TokenList result) {
+		if (!macro.isDynamic() && macro.getExpansionPlan(fDefinitionParser, fLexOptions, this).fIsSimple) {
+			// Without token pasting the replacement list is copied as is.
+			for (Token t= macro.getTokens(fDefinitionParser, fLexOptions, this).first(); t != null;
+					t= (Token) t.getNext()) {
+				result.append(t.clone());
+			}
+			return;
+		}
 		TokenList replacement= clone(macro.getTokens(fDefinitionParser, fLexOptions, this));
 
 		Token l= null;
@@ -948,6 +954,8 @@ public class MacroExpander {
 	}
 
 	public ImageLocationInfo[] clearImageLocationInfos() {
+		if (fImageLocationInfos.isEmpty())
+			return ImageLocationInfo.NO_LOCATION_INFOS;
 		ImageLocationInfo[] result= fImageLocationInfos.toArray(new ImageLocationInfo[fImageLocationInfos.size()]);
 		fImageLocationInfos.clear();
 		return result;
@@ -0,0 +1,102 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Wind River Systems, Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Wind River Systems - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.core.parser.scanner;
+
+import java.util.BitSet;
+
+import org.eclipse.cdt.core.parser.IToken;
+import org.eclipse.cdt.internal.core.parser.scanner.MacroDefinitionParser.TokenParameterReference;
+
+/**
+ * The properties of the replacement list of a macro that the {@link MacroExpander} needs for
+ * every expansion of the macro. Computed once per macro, see
+ * {@link PreprocessorMacro#getExpansionPlan(MacroDefinitionParser, Lexer.LexerOptions, MacroExpander)}.
+ */
+final class MacroExpansionPlan {
+	/**
+	 * For parameter {@code i}, bit {@code 2*i} is set if the argument is used without being
+	 * expanded, bit {@code 2*i+1} is set if the argument is used after expansion. Must not be
+	 * modified.
+	 */
+	final BitSet fParamUsage;
+
+	/**
+	 * Whether the replacement list contains neither stringification nor token pasting, such that
+	 * each token is either copied or replaced by the expanded argument.
+	 */
+	final boolean fIsSimple;
+
+	/**
+	 * For simple function-style macros, the last reference to each parameter. The expanded
+	 * argument does not need to be copied for the last reference, or {@code null}.
+	 */
+	final TokenParameterReference[] fLastReference;
+
+	MacroExpansionPlan(PreprocessorMacro macro, TokenList replacement) {
+		final char[][] params= macro.getParameterPlaceholderList();
+		final int paramCount= params == null ? 0 : params.length;
+		final BitSet usage= new BitSet();
+		final TokenParameterReference[] lastReference= new TokenParameterReference[paramCount];
+		boolean isSimple= true;
+
+		Token l= null;
+		Token n;
+		for (Token t= replacement == null ? null : replacement.first(); t != null; l= t, t= n) {
+			n= (Token) t.getNext();
+			switch (t.getType()) {
+			case CPreprocessor.tMACRO_PARAMETER:
+				final TokenParameterReference ref= (TokenParameterReference) t;
+				int idx= 2 * ref.getIndex();
+				if (!isKind(n, IToken.tPOUNDPOUND)) {
+					idx++;
+				}
+				usage.set(idx);
+				if (ref.getIndex() < paramCount) {
+					lastReference[ref.getIndex()]= ref;
+				}
+				break;
+
+			case IToken.tPOUND:
+				if (macro.isFunctionStyle()) {
+					isSimple= false;
+				}
+				if (isKind(n, CPreprocessor.tMACRO_PARAMETER)) {
+					idx= ((TokenParameterReference) n).getIndex();
+					usage.set(2 * idx);
+					t= n; n= (Token) n.getNext();
+				}
+				break;
+
+			case IToken.tPOUNDPOUND:
+				isSimple= false;
+				if (isKind(n, CPreprocessor.tMACRO_PARAMETER)) {
+					idx= ((TokenParameterReference) n).getIndex();
+					// gcc-extension
+					if (isKind(l, IToken.tCOMMA) && macro.hasVarArgs() != FunctionStyleMacro.NO_VAARGS &&
+							idx == paramCount - 1 && !isKind(n.getNext(), IToken.tPOUNDPOUND)) {
+						usage.set(2 * idx + 1);
+					} else {
+						usage.set(2 * idx);
+					}
+					t= n; n= (Token) n.getNext();
+				}
+				break;
+			}
+		}
+		fParamUsage= usage;
+		fIsSimple= isSimple;
+		fLastReference= isSimple ? lastReference : null;
+	}
+
+	private static boolean isKind(final IToken t, final int kind) {
+		return t != null && t.getType() == kind;
+	}
+}
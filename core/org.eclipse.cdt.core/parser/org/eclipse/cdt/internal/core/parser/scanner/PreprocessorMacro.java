@@ -108,6 +108,14 @@ abstract class PreprocessorMacro implements IMacroBinding {
 
 	public abstract TokenList getTokens(MacroDefinitionParser parser, LexerOptions lexOptions,
 			MacroExpander expander);
+
+	/**
+	 * Returns the information the macro expander needs to replace this macro.
+	 */
+	MacroExpansionPlan getExpansionPlan(MacroDefinitionParser parser, LexerOptions lexOptions,
+			MacroExpander expander) {
+		return new MacroExpansionPlan(this, getTokens(parser, lexOptions, expander));
+	}
 }
 
 class ObjectStyleMacro extends PreprocessorMacro {
@@ -115,6 +123,7 @@ class ObjectStyleMacro extends PreprocessorMacro {
 	final int fExpansionOffset;
 	final int fEndOffset;
 	private TokenList fExpansionTokens;
+	private MacroExpansionPlan fExpansionPlan;
 
 	public ObjectStyleMacro(char[] name, char[] expansion) {
 		this(name, 0, expansion.length, null, new CharArray(expansion));
@@ -177,6 +186,15 @@ class ObjectStyleMacro extends PreprocessorMacro {
 		return fExpansionTokens;
 	}
 
+	@Override
+	MacroExpansionPlan getExpansionPlan(MacroDefinitionParser mdp, LexerOptions lexOptions,
+			MacroExpander expander) {
+		if (fExpansionPlan == null) {
+			fExpansionPlan= super.getExpansionPlan(mdp, lexOptions, expander);
+		}
+		return fExpansionPlan;
+	}
+
 	@Override
 	public final boolean isDynamic() {
 		return false;
@@ -29,14 +29,22 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.eclipse.cdt.core.CCorePlugin;
 import org.eclipse.cdt.core.dom.ILinkage;
 import org.eclipse.cdt.core.dom.IPDOMIndexerTask;
+import org.eclipse.cdt.core.dom.ast.ASTVisitor;
 import org.eclipse.cdt.core.dom.ast.IASTComment;
 import org.eclipse.cdt.core.dom.ast.IASTFileLocation;
+import org.eclipse.cdt.core.dom.ast.IASTName;
 import org.eclipse.cdt.core.dom.ast.IASTPreprocessorIncludeStatement;
 import org.eclipse.cdt.core.dom.ast.IASTTranslationUnit;
 import org.eclipse.cdt.core.dom.ast.IASTTranslationUnit.IDependencyTree;
@@ -70,8 +78,10 @@ import org.eclipse.cdt.internal.core.index.IWritableIndex;
 import org.eclipse.cdt.internal.core.index.IndexBasedFileContentProvider;
 import org.eclipse.cdt.internal.core.parser.IMacroDictionary;
 import org.eclipse.cdt.internal.core.parser.ParserSettings2;
+import org.eclipse.cdt.internal.core.parser.scanner.InternalFileContent;
 import org.eclipse.cdt.internal.core.parser.scanner.InternalFileContentProvider;
 import org.eclipse.cdt.internal.core.parser.scanner.InternalFileContentProvider.DependsOnOutdatedFileException;
+import org.eclipse.cdt.internal.core.parser.scanner.LexerTokenCache;
 import org.eclipse.cdt.internal.core.parser.util.LRUCache;
 import org.eclipse.cdt.utils.EFSExtensionManager;
 import org.eclipse.core.runtime.CoreException;
@@ -310,6 +320,7 @@ public abstract class AbstractIndexerTask extends PDOMWriter {
 	private List<LinkageTask> fRequestsPerLinkage= new ArrayList<>();
 	private Map<IIndexFile, IndexFileContent> fIndexContentCache= new LRUCache<>(500);
 	private Map<IIndexFileLocation, IIndexFragmentFile[]> fIndexFilesCache= new LRUCache<>(5000);
+	private LexerTokenCache fLexerTokenCache;
 	private Map<IIndexFileLocation, LocationTask> fOneLinkageTasks= new HashMap<>();
 
 	private Object[] fFilesToUpdate;
@@ -324,6 +335,13 @@ public abstract class AbstractIndexerTask extends PDOMWriter {
 	private long fIncludedFileSizeLimit;
 	private InternalFileContentProvider fCodeReaderFactory;
 	private int fSwallowOutOfMemoryError= 5;
+	private int fParserThreads= 1;
+	private ExecutorService fParserPool;
+	private int fPrefetchTranslationUnits;
+	private FilePrefetcher fPrefetcher;
+	private InternalFileContentProvider fPrefetchReader;
+	/** File content providers not in use by any of the parser threads. */
+	private final Deque<InternalFileContentProvider> fIdleCodeReaderFactories= new ArrayDeque<>();
 	/**
 	 * A queue of urgent indexing tasks that contribute additional files to this task.
 	 * The files from the urgent tasks are indexed before all not yet processed files.
@@ -380,6 +398,33 @@ public abstract class AbstractIndexerTask extends PDOMWriter {
 		fHeadersToIndexAllVersions = headers;
 	}
 
+	/**
+	 * Sets the number of threads used for parsing translation units. With more than one thread
+	 * the sources are parsed concurrently, the results are still written to the index one
+	 * translation unit at a time by the thread running the task.
+	 */
+	public void setParserThreads(int threads) {
+		fParserThreads= Math.max(1, threads);
+	}
+
+	/**
+	 * Sets the number of translation units for which the files are read ahead of parsing. The
+	 * headers are taken from the include graph recorded in the index, only headers that are
+	 * going to be parsed are read. Zero disables reading ahead.
+	 */
+	public void setPrefetchTranslationUnits(int count) {
+		fPrefetchTranslationUnits= Math.max(0, count);
+	}
+
+	/**
+	 * Sets whether the tokens of included files are kept for subsequent translation units,
+	 * such that files parsed more than twice are lexed only twice. The number of tokens kept
+	 * is limited depending on the maximum heap size.
+	 */
+	public void setCacheLexerTokens(boolean value) {
+		fLexerTokenCache= value ? new LexerTokenCache(LexerTokenCache.getTokenLimitForHeap()) : null;
+	}
+
 	public void setPragmaPrivatePattern(Pattern pattern) {
 		fPragmaPrivatePattern = pattern;
 	}
@@ -531,6 +576,23 @@ public abstract class AbstractIndexerTask extends PDOMWriter {
 				fASTOptions |= ILanguage.OPTION_SKIP_FUNCTION_BODIES;
 			}
 
+			if (fParserThreads > 1) {
+				fParserPool= Executors.newFixedThreadPool(fParserThreads, new ThreadFactory() {
+					private int fCount;
+
+					@Override
+					public synchronized Thread newThread(Runnable r) {
+						Thread thread= new Thread(r, "Indexer Parser Thread " + ++fCount); //$NON-NLS-1$
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+			}
+			if (fPrefetchTranslationUnits > 0 && fIsFastIndexer) {
+				fPrefetcher= new FilePrefetcher();
+				fPrefetchReader= createInternalFileContentProvider();
+			}
+
 			fIndex.resetCacheCounters();
 			fIndex.acquireReadLock();
 
@@ -612,6 +674,19 @@ public abstract class AbstractIndexerTask extends PDOMWriter {
 				fIndex.releaseReadLock();
 			}
 		} finally {
+			if (fParserPool != null) {
+				fParserPool.shutdownNow();
+				fParserPool= null;
+			}
+			if (fPrefetcher != null) {
+				fStatistics.fPrefetchedFileCount+= fPrefetcher.getHitCount();
+				fPrefetcher.shutdown();
+				fPrefetcher= null;
+				fPrefetchReader= null;
+			}
+			if (fLexerTokenCache != null) {
+				fLexerTokenCache.clear();
+			}
 			synchronized (this) {
 				fTaskCompleted = true;
 			}
@@ -885,17 +960,25 @@ public abstract class AbstractIndexerTask extends PDOMWriter {
 				continue;
 
 			// First parse the required sources.
-			for (Iterator<IIndexFileLocation> it= filesAtPriority.iterator(); it.hasNext();) {
-				IIndexFileLocation ifl= it.next();
-				LocationTask locTask = map.find(ifl);
-				if (locTask == null || locTask.isCompleted()) {
-					it.remove();
-				} else if (locTask.fKind == UpdateKind.REQUIRED_SOURCE) {
-					if (monitor.isCanceled() || hasUrgentTasks())
-						return;
-					final Object tu = locTask.fTu;
-					final IScannerInfo scannerInfo = getScannerInfo(linkageID, tu);
-					parseFile(tu, getLanguage(tu, linkageID), ifl, scannerInfo, null, monitor);
+			final List<IIndexFileLocation> sources= getSourcesToPrefetch(map, filesAtPriority);
+			if (fParserPool != null) {
+				if (!parseSourcesInParallel(linkageID, map, filesAtPriority, sources, monitor))
+					return;
+			} else {
+				int parsed= 0;
+				for (Iterator<IIndexFileLocation> it= filesAtPriority.iterator(); it.hasNext();) {
+					IIndexFileLocation ifl= it.next();
+					LocationTask locTask = map.find(ifl);
+					if (locTask == null || locTask.isCompleted()) {
+						it.remove();
+					} else if (locTask.fKind == UpdateKind.REQUIRED_SOURCE) {
+						if (monitor.isCanceled() || hasUrgentTasks())
+							return;
+						prefetchFiles(linkageID, map, sources, parsed++);
+						final Object tu = locTask.fTu;
+						final IScannerInfo scannerInfo = getScannerInfo(linkageID, tu);
+						parseFile(tu, getLanguage(tu, linkageID), ifl, scannerInfo, null, monitor);
+					}
 				}
 			}
 	
@@ -966,6 +1049,186 @@ public abstract class AbstractIndexerTask extends PDOMWriter {
 		}
 	}
 
+	/**
+	 * Parses the required sources in batches of {@link #fParserThreads} translation units.
+	 * The translation units of a batch are parsed and their names resolved by the parser threads,
+	 * while the index is not modified. Afterwards the results are written to the index in the
+	 * order in which the files would have been parsed sequentially.
+	 * <p>
+	 * A translation unit cannot use the headers that another translation unit of its batch is
+	 * about to write to the index, it parses them itself. When it is written, the headers already
+	 * written for a translation unit earlier in the batch are skipped, such that the index receives
+	 * the same files and contexts as with sequential parsing. However, a sequential run reuses an
+	 * indexed version of a header whenever the macros of the includer satisfy its significant
+	 * macros, whereas the version written for a header parsed in a batch has the significant macros
+	 * found by that parse. Where the two differ, a batch adds a version of the header that
+	 * a sequential run would not have created.
+	 *
+	 * @return {@code false} if indexing has to be interrupted because the task was cancelled
+	 *     or an urgent task is waiting.
+	 */
+	private boolean parseSourcesInParallel(int linkageID, LinkageTask map, List<IIndexFileLocation> files,
+			List<IIndexFileLocation> sources, IProgressMonitor monitor) throws CoreException, InterruptedException {
+		List<ParseJob> batch= new ArrayList<>(fParserThreads);
+		int parsed= 0;
+		for (Iterator<IIndexFileLocation> it= files.iterator(); it.hasNext();) {
+			IIndexFileLocation ifl= it.next();
+			LocationTask locTask = map.find(ifl);
+			if (locTask == null || locTask.isCompleted()) {
+				it.remove();
+			} else if (locTask.fKind == UpdateKind.REQUIRED_SOURCE) {
+				prefetchFiles(linkageID, map, sources, parsed++);
+				final Object tu = locTask.fTu;
+				final IScannerInfo scannerInfo = getScannerInfo(linkageID, tu);
+				batch.add(new ParseJob(tu, getLanguage(tu, linkageID), ifl, scannerInfo, null, monitor));
+				if (batch.size() == fParserThreads && !parseBatch(map, batch, monitor))
+					return false;
+			}
+		}
+		return parseBatch(map, batch, monitor);
+	}
+
+	private boolean parseBatch(LinkageTask map, List<ParseJob> batch, IProgressMonitor monitor)
+			throws CoreException, InterruptedException {
+		if (batch.isEmpty())
+			return true;
+		if (monitor.isCanceled() || hasUrgentTasks())
+			return false;
+
+		List<Future<ParseJob>> futures= new ArrayList<>(batch.size());
+		for (ParseJob job : batch) {
+			reportParsing(job.fLocation, monitor);
+			futures.add(fParserPool.submit(job));
+		}
+		batch.clear();
+		// Wait for all parser threads before writing to the index, the writer must not modify
+		// the index while it is being read by the parsers.
+		for (Future<ParseJob> future : futures) {
+			try {
+				batch.add(future.get());
+			} catch (ExecutionException e) {
+				// Errors of the parser are captured by the job, anything else is unexpected.
+				final Throwable cause = e.getCause();
+				if (cause instanceof Error)
+					throw (Error) cause;
+				throw new IllegalStateException(cause);
+			}
+		}
+		for (ParseJob job : batch) {
+			// The source may have been parsed already as a dependency of a file written before.
+			LocationTask locTask = map.find(job.fLocation);
+			if (locTask != null && !locTask.isCompleted()) {
+				if (monitor.isCanceled() || hasUrgentTasks())
+					return false;
+				writeToIndex(job);
+			}
+		}
+		batch.clear();
+		return true;
+	}
+
+	/**
+	 * Returns the required sources in the order in which they are parsed, or {@code null} if
+	 * files are not read ahead of parsing.
+	 */
+	private List<IIndexFileLocation> getSourcesToPrefetch(LinkageTask map, List<IIndexFileLocation> files) {
+		if (fPrefetcher == null)
+			return null;
+
+		List<IIndexFileLocation> sources= new ArrayList<>();
+		for (IIndexFileLocation ifl : files) {
+			LocationTask locTask = map.find(ifl);
+			if (locTask != null && !locTask.isCompleted() && locTask.fKind == UpdateKind.REQUIRED_SOURCE)
+				sources.add(ifl);
+		}
+		return sources;
+	}
+
+	/**
+	 * Reads the files of the source that is parsed next and of the sources following it ahead
+	 * of parsing. Along with a source the headers are read that it includes according to the index
+	 * and that are going to be parsed.
+	 * @param sources the sources as returned by {@link #getSourcesToPrefetch(LinkageTask, List)}
+	 * @param next the position of the source that is parsed next
+	 */
+	private void prefetchFiles(int linkageID, LinkageTask map, List<IIndexFileLocation> sources, int next)
+			throws CoreException {
+		if (sources == null)
+			return;
+
+		final int end= Math.min(sources.size(), next + fPrefetchTranslationUnits + 1);
+		for (int i = next; i < end; i++) {
+			final IIndexFileLocation ifl= sources.get(i);
+			final LocationTask locTask = map.find(ifl);
+			if (locTask == null || locTask.isCompleted() || !fPrefetcher.visit(locTask.fTu))
+				continue;
+
+			final Object tu= locTask.fTu;
+			fPrefetcher.schedule(tu, fResolver.getFileSize(ifl), new Callable<FileContent>() {
+				@Override
+				public FileContent call() {
+					return fResolver.getCodeReader(tu);
+				}
+			});
+			prefetchIncludedHeaders(linkageID, map, ifl);
+		}
+	}
+
+	/**
+	 * Walks the include graph recorded in the index and reads the headers that are going to be
+	 * parsed. Each header is visited once per task.
+	 */
+	private void prefetchIncludedHeaders(int linkageID, LinkageTask map, IIndexFileLocation ifl)
+			throws CoreException {
+		final InternalFileContentProvider reader= fPrefetchReader;
+		Deque<IIndexFileLocation> todo= new ArrayDeque<>();
+		fPrefetcher.visit(ifl);
+		todo.add(ifl);
+		while (!todo.isEmpty()) {
+			for (IIndexFragmentFile file : getAvailableIndexFiles(linkageID, todo.poll())) {
+				for (IIndexInclude include : file.getIncludes()) {
+					if (!include.isResolved())
+						continue;
+					final IIndexFileLocation header= include.getIncludesLocation();
+					if (header == null || !fPrefetcher.visit(header))
+						continue;
+
+					todo.add(header);
+					LocationTask locTask = map.find(header);
+					if (locTask != null && !locTask.isCompleted()) {
+						final long size= fResolver.getFileSize(header);
+						if (fIncludedFileSizeLimit > 0 && size > fIncludedFileSizeLimit)
+							continue;
+						final String path= fResolver.getASTPath(header);
+						fPrefetcher.schedule(header, size, new Callable<FileContent>() {
+							@Override
+							public FileContent call() {
+								return reader.getContentForInclusion(header, path);
+							}
+						});
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of files whose contents have been read ahead of parsing and were used
+	 * by the parser. Available when the task has completed.
+	 */
+	public int getPrefetchedFileCount() {
+		return fStatistics.fPrefetchedFileCount;
+	}
+
+	/**
+	 * Returns the content of a header that has been read ahead of parsing, or {@code null}.
+	 * The content is handed out only once.
+	 */
+	public InternalFileContent getPrefetchedContent(IIndexFileLocation ifl) {
+		final FilePrefetcher prefetcher= fPrefetcher;
+		return prefetcher != null ? (InternalFileContent) prefetcher.take(ifl) : null;
+	}
+
 	private void parseVersionInContext(int linkageID, LinkageTask map, IIndexFileLocation ifl,
 			final FileVersionTask versionTask, Object tu, LinkedHashSet<IIndexFile> safeGuard,
 			IProgressMonitor monitor) throws CoreException, InterruptedException {
@@ -1070,44 +1333,54 @@ public abstract class AbstractIndexerTask extends PDOMWriter {
 	private DependsOnOutdatedFileException parseFile(Object tu, AbstractLanguage lang,
 			IIndexFileLocation ifl, IScannerInfo scanInfo, FileContext ctx, IProgressMonitor pm)
 			throws CoreException, InterruptedException {
-		boolean resultCacheCleared = false;
+		reportParsing(ifl, pm);
+		ParseJob job= new ParseJob(tu, lang, ifl, scanInfo, ctx, pm);
+		if (fCodeReaderFactory == null) {
+			fCodeReaderFactory= createCodeReaderFactory(lang.getLinkageID());
+		}
+		job.parse(fCodeReaderFactory);
+		return writeToIndex(job);
+	}
+
+	private void reportParsing(IIndexFileLocation ifl, IProgressMonitor pm) {
 		IPath path= getLabel(ifl);
-		Throwable th= null;
-		try {
-			if (fShowActivity) {
-				trace("Indexer: parsing " + path.toOSString()); //$NON-NLS-1$
-			}
-			pm.subTask(getMessage(MessageKind.parsingFileTask,
-					path.lastSegment(), path.removeLastSegments(1).toString()));
-			FileContent codeReader= fResolver.getCodeReader(tu);
-			final boolean isSource = fResolver.isSourceUnit(tu);
-
-			long start= System.currentTimeMillis();
-			IASTTranslationUnit ast= createAST(lang, codeReader, scanInfo, isSource, fASTOptions, ctx, pm);
-			fStatistics.fParsingTime += System.currentTimeMillis() - start;
-			if (ast == null) {
-				++fStatistics.fTooManyTokensCount;
-			} else {
-				// Give the new AST a chance to recognize its translation unit before it is written
-				// to the index.
-				((ASTTranslationUnit) ast).setOriginatingTranslationUnit((ITranslationUnit) tu);
-				writeToIndex(lang.getLinkageID(), ast, codeReader, ctx, pm);
-				resultCacheCleared = true;  // The cache was cleared while writing to the index.
-			}
-		} catch (RuntimeException e) {
-			final Throwable cause = e.getCause();
+		if (fShowActivity) {
+			trace("Indexer: parsing " + path.toOSString()); //$NON-NLS-1$
+		}
+		pm.subTask(getMessage(MessageKind.parsingFileTask,
+				path.lastSegment(), path.removeLastSegments(1).toString()));
+	}
+
+	private DependsOnOutdatedFileException writeToIndex(ParseJob job)
+			throws CoreException, InterruptedException {
+		boolean resultCacheCleared = false;
+		Throwable th= job.fError;
+		if (th == null) {
+			fStatistics.fParsingTime += job.fParsingTime;
+			try {
+				if (job.fAST == null) {
+					++fStatistics.fTooManyTokensCount;
+				} else {
+					writeToIndex(job.fLanguage.getLinkageID(), job.fAST, job.fCodeReader, job.fContext,
+							job.fMonitor);
+					resultCacheCleared = true;  // The cache was cleared while writing to the index.
+				}
+			} catch (RuntimeException | StackOverflowError | CoreException | AssertionError | OutOfMemoryError e) {
+				th= e;
+			} finally {
+				job.release();
+			}
+		}
+		if (th instanceof RuntimeException) {
+			final Throwable cause = th.getCause();
 			if (cause instanceof DependsOnOutdatedFileException)
 				return (DependsOnOutdatedFileException) cause;
-			th= e;
-		} catch (StackOverflowError | CoreException | AssertionError e) {
-			th= e;
-		} catch (OutOfMemoryError e) {
+		} else if (th instanceof OutOfMemoryError) {
 			if (--fSwallowOutOfMemoryError < 0)
-				throw e;
-			th= e;
+				throw (OutOfMemoryError) th;
 		}
 		if (th != null) {
-			swallowError(path, th);
+			swallowError(getLabel(job.fLocation), th);
 		}
 
 		if (!resultCacheCleared) {
@@ -1190,9 +1463,135 @@ public abstract class AbstractIndexerTask extends PDOMWriter {
 		return e;
 	}
 
-	private final IASTTranslationUnit createAST(AbstractLanguage language, FileContent codeReader,
-			IScannerInfo scanInfo, boolean isSource, int options,
-			FileContext ctx, IProgressMonitor pm) throws CoreException {
+	/**
+	 * A file to be parsed, either by a parser thread or by the thread running the task, together
+	 * with the result of parsing it.
+	 */
+	private final class ParseJob implements Callable<ParseJob> {
+		final Object fTu;
+		final AbstractLanguage fLanguage;
+		final IIndexFileLocation fLocation;
+		final IScannerInfo fScannerInfo;
+		final FileContext fContext;
+		final IProgressMonitor fMonitor;
+		FileContent fCodeReader;
+		IASTTranslationUnit fAST;
+		long fParsingTime;
+		Throwable fError;
+
+		ParseJob(Object tu, AbstractLanguage language, IIndexFileLocation ifl, IScannerInfo scannerInfo,
+				FileContext ctx, IProgressMonitor monitor) {
+			fTu= tu;
+			fLanguage= language;
+			fLocation= ifl;
+			fScannerInfo= scannerInfo;
+			fContext= ctx;
+			fMonitor= monitor;
+		}
+
+		@Override
+		public ParseJob call() {
+			InternalFileContentProvider codeReaderFactory= acquireCodeReaderFactory(fLanguage.getLinkageID());
+			try {
+				parse(codeReaderFactory);
+			} finally {
+				releaseCodeReaderFactory(codeReaderFactory);
+			}
+			if (fAST != null && fError == null && !fMonitor.isCanceled()) {
+				// Resolve the names while still on the parser thread, the index writer finds
+				// the bindings cached in the AST.
+				fAST.accept(new NameResolver());
+			}
+			return this;
+		}
+
+		void parse(InternalFileContentProvider codeReaderFactory) {
+			try {
+				fCodeReader= fPrefetcher != null ? fPrefetcher.take(fTu) : null;
+				if (fCodeReader == null) {
+					fCodeReader= fResolver.getCodeReader(fTu);
+				}
+				final boolean isSource = fResolver.isSourceUnit(fTu);
+
+				long start= System.currentTimeMillis();
+				fAST= createAST(codeReaderFactory, fLanguage, fCodeReader, fScannerInfo, isSource,
+						fASTOptions, fContext, fMonitor);
+				fParsingTime= System.currentTimeMillis() - start;
+				if (fAST != null) {
+					// Give the new AST a chance to recognize its translation unit before it is written
+					// to the index.
+					((ASTTranslationUnit) fAST).setOriginatingTranslationUnit((ITranslationUnit) fTu);
+				}
+			} catch (RuntimeException | StackOverflowError | CoreException | AssertionError | OutOfMemoryError e) {
+				fAST= null;
+				fError= e;
+			}
+		}
+
+		/**
+		 * Drops the AST once it has been written to the index. The other jobs of a batch keep
+		 * a reference to the job until the entire batch is written, without this the ASTs of
+		 * all parser threads would remain reachable until then.
+		 */
+		void release() {
+			fAST= null;
+			fCodeReader= null;
+		}
+	}
+
+	/**
+	 * Resolves all names of an AST. Problems are ignored, they are reported when the names
+	 * are resolved again while writing the AST to the index.
+	 */
+	private static final class NameResolver extends ASTVisitor {
+		NameResolver() {
+			shouldVisitNames= true;
+			shouldVisitImplicitNames= true;
+		}
+
+		@Override
+		public int visit(IASTName name) {
+			try {
+				name.resolveBinding();
+			} catch (RuntimeException | StackOverflowError e) {
+			}
+			return PROCESS_CONTINUE;
+		}
+	}
+
+	private InternalFileContentProvider acquireCodeReaderFactory(int linkageID) {
+		synchronized (fIdleCodeReaderFactories) {
+			InternalFileContentProvider result= fIdleCodeReaderFactories.poll();
+			if (result != null)
+				return result;
+		}
+		return createCodeReaderFactory(linkageID);
+	}
+
+	private void releaseCodeReaderFactory(InternalFileContentProvider codeReaderFactory) {
+		synchronized (fIdleCodeReaderFactories) {
+			fIdleCodeReaderFactories.push(codeReaderFactory);
+		}
+	}
+
+	private InternalFileContentProvider createCodeReaderFactory(int linkageID) {
+		InternalFileContentProvider codeReaderFactory = createInternalFileContentProvider();
+		if (fIsFastIndexer) {
+			IndexBasedFileContentProvider ibfcp = new IndexBasedFileContentProvider(fIndex, fResolver,
+					linkageID, codeReaderFactory, this);
+			ibfcp.setFileSizeLimit(fIncludedFileSizeLimit);
+			ibfcp.setHeadersToIndexAllVersions(fHeadersToIndexAllVersions);
+			ibfcp.setIndexAllHeaderVersions(fIndexAllHeaderVersions);
+			codeReaderFactory= ibfcp;
+		}
+		codeReaderFactory.setIncludeResolutionHeuristics(createIncludeHeuristics());
+		codeReaderFactory.setLexerTokenCache(fLexerTokenCache);
+		return codeReaderFactory;
+	}
+
+	private IASTTranslationUnit createAST(InternalFileContentProvider codeReaderFactory,
+			AbstractLanguage language, FileContent codeReader, IScannerInfo scanInfo, boolean isSource,
+			int options, FileContext ctx, IProgressMonitor pm) throws CoreException {
 		if (codeReader == null) {
 			return null;
 		}
@@ -1206,27 +1605,13 @@ public abstract class AbstractIndexerTask extends PDOMWriter {
 			return null;
 		}
 		final IIndexFile[] ctx2header = ctx == null ? null : new IIndexFile[] {ctx.fContext, ctx.fOldFile};
-		if (fCodeReaderFactory == null) {
-			InternalFileContentProvider fileContentProvider = createInternalFileContentProvider();
-			if (fIsFastIndexer) {
-				IndexBasedFileContentProvider ibfcp = new IndexBasedFileContentProvider(fIndex, fResolver,
-						language.getLinkageID(), fileContentProvider, this);
-				ibfcp.setContextToHeaderGap(ctx2header);
-				ibfcp.setFileSizeLimit(fIncludedFileSizeLimit);
-				ibfcp.setHeadersToIndexAllVersions(fHeadersToIndexAllVersions);
-				ibfcp.setIndexAllHeaderVersions(fIndexAllHeaderVersions);
-				fCodeReaderFactory= ibfcp;
-			} else {
-				fCodeReaderFactory= fileContentProvider;
-			}
-			fCodeReaderFactory.setIncludeResolutionHeuristics(createIncludeHeuristics());
-		} else if (fIsFastIndexer) {
-			final IndexBasedFileContentProvider ibfcp = (IndexBasedFileContentProvider) fCodeReaderFactory;
+		if (fIsFastIndexer) {
+			final IndexBasedFileContentProvider ibfcp = (IndexBasedFileContentProvider) codeReaderFactory;
 			ibfcp.setContextToHeaderGap(ctx2header);
 			ibfcp.setLinkage(language.getLinkageID());
 		}
 
-		IASTTranslationUnit ast= language.getASTTranslationUnit(codeReader, scanInfo, fCodeReaderFactory,
+		IASTTranslationUnit ast= language.getASTTranslationUnit(codeReader, scanInfo, codeReaderFactory,
 				fIndex, options, getLogService());
 		if (pm.isCanceled()) {
 			return null;
@@ -1429,10 +1814,15 @@ public abstract class AbstractIndexerTask extends PDOMWriter {
 					throw new DependsOnOutdatedFileException(request.fTu, task.fIndexFile);
 			}
 		}
-		IndexFileContent fc= fIndexContentCache.get(file);
+		IndexFileContent fc;
+		synchronized (fIndexContentCache) {
+			fc= fIndexContentCache.get(file);
+		}
 		if (fc == null) {
 			fc= new IndexFileContent(file);
-			fIndexContentCache.put(file, fc);
+			synchronized (fIndexContentCache) {
+				fIndexContentCache.put(file, fc);
+			}
 		}
 		return fc;
 	}
@@ -1484,7 +1874,10 @@ public abstract class AbstractIndexerTask extends PDOMWriter {
 
 	public IIndexFragmentFile[] getAvailableIndexFiles(int linkageID, IIndexFileLocation ifl)
 			throws CoreException {
-		IIndexFragmentFile[] files= fIndexFilesCache.get(ifl);
+		IIndexFragmentFile[] files;
+		synchronized (fIndexFilesCache) {
+			files= fIndexFilesCache.get(ifl);
+		}
 		if (files == null) {
 			IIndexFragmentFile[] fragFiles = fIndex.getWritableFiles(linkageID, ifl);
 			int j= 0;
@@ -1501,7 +1894,9 @@ public abstract class AbstractIndexerTask extends PDOMWriter {
 				files= new IIndexFragmentFile[j];
 				System.arraycopy(fragFiles, 0, files, 0, j);
 			}
-			fIndexFilesCache.put(ifl, files);
+			synchronized (fIndexFilesCache) {
+				fIndexFilesCache.put(ifl, files);
+			}
 		}
 		return files;
 	}
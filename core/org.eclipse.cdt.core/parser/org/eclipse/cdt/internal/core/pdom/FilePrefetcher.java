@@ -0,0 +1,170 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Wind River Systems, Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Wind River Systems - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.core.pdom;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import org.eclipse.cdt.core.parser.FileContent;
+
+/**
+ * Reads the files needed for the translation units the indexer is going to parse next on
+ * background threads, such that waiting for the file-system overlaps with parsing. The contents
+ * are hashed right after reading them. Each prefetched file content is handed out once, a file
+ * that is not prefetched or whose content has been taken already is read by the caller.
+ * <p>
+ * Files are identified by a key, the translation unit for sources and the location for headers.
+ * The total size of the pending contents is limited, the contents that have been read first are
+ * dropped when files are scheduled that the indexer does not ask for.
+ */
+final class FilePrefetcher {
+	private static final int THREADS = 2;
+	/** Maximum total size of the files read ahead, a file takes twice its size in memory. */
+	private static final long MAX_PENDING_BYTES = 32 * 1024 * 1024;
+
+	private static class Pending {
+		final Future<FileContent> fFuture;
+		final long fSize;
+
+		Pending(Future<FileContent> future, long size) {
+			fFuture= future;
+			fSize= size;
+		}
+	}
+
+	private final ExecutorService fExecutor;
+	private final Map<Object, Pending> fPending= new LinkedHashMap<>();
+	private long fPendingBytes;
+	private int fHits;
+	private final Set<Object> fVisited= new HashSet<>();
+
+	FilePrefetcher() {
+		fExecutor= Executors.newFixedThreadPool(THREADS, new ThreadFactory() {
+			private int fCount;
+
+			@Override
+			public synchronized Thread newThread(Runnable r) {
+				Thread thread= new Thread(r, "Indexer Prefetch Thread " + ++fCount); //$NON-NLS-1$
+				thread.setDaemon(true);
+				thread.setPriority(Thread.MIN_PRIORITY);
+				return thread;
+			}
+		});
+	}
+
+	/**
+	 * Marks the file with the given key as visited. Returns {@code false} if the file has
+	 * been visited before, such that it is considered for prefetching only once.
+	 */
+	boolean visit(Object key) {
+		return fVisited.add(key);
+	}
+
+	/**
+	 * Reads a file in the background.
+	 * @param key the key under which the content can be taken
+	 * @param size the size of the file in bytes
+	 * @param reader reads the file, may return {@code null}
+	 */
+	void schedule(Object key, long size, final Callable<FileContent> reader) {
+		Future<FileContent> future= fExecutor.submit(new Callable<FileContent>() {
+			@Override
+			public FileContent call() throws Exception {
+				FileContent content= reader.call();
+				if (content != null) {
+					content.getContentsHash();
+				}
+				return content;
+			}
+		});
+		final Pending pending= new Pending(future, size);
+		synchronized (fPending) {
+			Pending previous= remove(key);
+			if (previous != null) {
+				previous.fFuture.cancel(false);
+			}
+			fPending.put(key, pending);
+			fPendingBytes+= size;
+			for (Iterator<Pending> it= fPending.values().iterator(); fPendingBytes > MAX_PENDING_BYTES;) {
+				Pending eldest= it.next();
+				if (eldest == pending)
+					break;
+				eldest.fFuture.cancel(false);
+				fPendingBytes-= eldest.fSize;
+				it.remove();
+			}
+		}
+	}
+
+	/**
+	 * Returns the prefetched content of a file and forgets about it, waits if the file is
+	 * still being read. Returns {@code null} if the file was not prefetched or could not be read.
+	 */
+	FileContent take(Object key) {
+		Pending pending;
+		synchronized (fPending) {
+			pending= remove(key);
+		}
+		if (pending == null)
+			return null;
+
+		try {
+			FileContent content= pending.fFuture.get();
+			if (content != null) {
+				synchronized (fPending) {
+					fHits++;
+				}
+			}
+			return content;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException | CancellationException e) {
+			// The caller reads the file and reports the problem.
+		}
+		return null;
+	}
+
+	private Pending remove(Object key) {
+		Pending pending= fPending.remove(key);
+		if (pending != null) {
+			fPendingBytes-= pending.fSize;
+		}
+		return pending;
+	}
+
+	/**
+	 * Returns the number of prefetched contents that have been taken.
+	 */
+	int getHitCount() {
+		synchronized (fPending) {
+			return fHits;
+		}
+	}
+
+	void shutdown() {
+		fExecutor.shutdownNow();
+		synchronized (fPending) {
+			fPending.clear();
+			fPendingBytes= 0;
+		}
+		fVisited.clear();
+	}
+}
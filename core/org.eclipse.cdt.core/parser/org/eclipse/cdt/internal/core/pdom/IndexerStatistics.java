@@ -23,4 +23,5 @@ public class IndexerStatistics {
 	public int fPreprocessorProblemCount= 0;
 	public int fSyntaxProblemsCount= 0;
 	public int fTooManyTokensCount= 0;
+	public int fPrefetchedFileCount= 0;
 }
@@ -92,6 +92,7 @@ import org.eclipse.cdt.internal.core.pdom.dom.PDOMMacroReferenceName;
 import org.eclipse.cdt.internal.core.pdom.dom.PDOMName;
 import org.eclipse.cdt.internal.core.pdom.dom.PDOMNamedNode;
 import org.eclipse.cdt.internal.core.pdom.dom.PDOMNode;
+import org.eclipse.cdt.internal.core.pdom.dom.PDOMTrigramIndex;
 import org.eclipse.cdt.internal.core.pdom.tag.PDOMTagIndex;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
@@ -109,6 +110,7 @@ public class PDOM extends PlatformObject implements IPDOM {
 	private static final int LONG_WRITE_LOCK_REPORT_THRESHOLD = 1000;
 	private static final int LONG_READ_LOCK_WAIT_REPORT_THRESHOLD = 1000;
 	static boolean sDEBUG_LOCKS= false; // Initialized in the PDOMManager, because IBM needs PDOM independent of runtime plugin.
+	static PDOMLockStatistics sLockStatistics; // Initialized in the PDOMManager.
 
 	/**
 	 * Identifier for PDOM format
@@ -267,10 +269,13 @@ public class PDOM extends PlatformObject implements IPDOM {
 	 *  CDT 8.8 development (versions not supported on the 8.7.x branch)
 	 *  190.0 - Signature change for methods with ref-qualifiers, bug 470014.
 	 *  191.0 - Added EvalID.fIsPointerDeref, bug 472436.
+	 *  192.0 - Added trigram index of binding names to linkages.
+	 *  193.0 - Added index of template instances to the C++ linkage.
+	 *  194.0 - Database chunks of 64KB, record pointers in units of 16 bytes.
 	 */
-	private static final int MIN_SUPPORTED_VERSION= version(191, 0);
-	private static final int MAX_SUPPORTED_VERSION= version(191, Short.MAX_VALUE);
-	private static final int DEFAULT_VERSION = version(191, 0);
+	private static final int MIN_SUPPORTED_VERSION= version(194, 0);
+	private static final int MAX_SUPPORTED_VERSION= version(194, Short.MAX_VALUE);
+	private static final int DEFAULT_VERSION = version(194, 0);
 
 	private static int version(int major, int minor) {
 		return (major << 16) + minor;
@@ -312,6 +317,12 @@ public class PDOM extends PlatformObject implements IPDOM {
 		assert END <= Database.CHUNK_SIZE;
 	}
 
+	/**
+	 * Property that is present while the trigram indexes of the linkages are not maintained.
+	 * @see #isTrigramIndexDeferred()
+	 */
+	private static final String PROPERTY_TRIGRAM_INDEX_DEFERRED= "org.eclipse.cdt.internal.core.pdom.trigramIndexDeferred"; //$NON-NLS-1$
+
 	public static class ChangeEvent {
 		public Set<IIndexFileLocation> fClearedFiles= new HashSet<>();
 		public Set<IIndexFileLocation> fFilesWritten= new HashSet<>();
@@ -372,8 +383,11 @@ public class PDOM extends PlatformObject implements IPDOM {
 	private PDOMTagIndex tagIndex;
 	private BTree indexOfDefectiveFiles;
 	private BTree indexOfFiledWithUnresolvedIncludes;
+	private volatile Boolean fTrigramIndexDeferred;
 	private final Map<Integer, PDOMLinkage> fLinkageIDCache = new HashMap<>();
 	private File fPath;
+	private boolean fMemoryMapped;
+	private boolean fJournaled;
 	private final IIndexLocationConverter locationConverter;
 	private final Map<String, IPDOMLinkageFactory> fPDOMLinkageFactoryCache;
 	private final HashMap<Object, Object> fResultCache= new HashMap<>();
@@ -409,6 +423,10 @@ public class PDOM extends PlatformObject implements IPDOM {
 
 		clearCaches();
 		db = new Database(fPath, cache, getDefaultVersion(), isPermanentlyReadOnly());
+		db.setMemoryMapped(fMemoryMapped);
+		if (fJournaled) {
+			db.setJournaled(true);
+		}
 
 		db.setLocked(lockDB);
 		if (isSupportedVersion()) {
@@ -417,6 +435,25 @@ public class PDOM extends PlatformObject implements IPDOM {
 		db.setLocked(lockCount != 0);
 	}
 
+	/**
+	 * Selects whether the database of this PDOM is read via memory mapped I/O.
+	 * @see Database#setMemoryMapped(boolean)
+	 */
+	public void setMemoryMapped(boolean value) {
+		fMemoryMapped= value;
+		db.setMemoryMapped(value);
+	}
+
+	/**
+	 * Selects whether changes to the database of this PDOM are committed via a journal.
+	 * Has no effect for read-only PDOMs.
+	 * @see Database#setJournaled(boolean)
+	 */
+	public void setJournaled(boolean value) throws CoreException {
+		fJournaled= value && !isPermanentlyReadOnly();
+		db.setJournaled(fJournaled);
+	}
+
 	public IIndexLocationConverter getLocationConverter() {
 		return locationConverter;
 	}
@@ -455,7 +492,7 @@ public class PDOM extends PlatformObject implements IPDOM {
 		return fLinkageIDCache.get(linkageID);
 	}
 
-	private Collection<PDOMLinkage> getLinkageList() {
+	protected Collection<PDOMLinkage> getLinkageList() {
 		return fLinkageIDCache.values();
 	}
 
@@ -505,6 +542,32 @@ public class PDOM extends PlatformObject implements IPDOM {
 		return tagIndex;
 	}
 
+	/**
+	 * Returns whether the trigram indexes of the linkages are incomplete, because they are built
+	 * only after the index has been rebuilt. While the trigram indexes are deferred, bindings are
+	 * not added to them and pattern searches do not use them.
+	 */
+	public boolean isTrigramIndexDeferred() throws CoreException {
+		Boolean deferred= fTrigramIndexDeferred;
+		if (deferred == null) {
+			deferred= getProperty(PROPERTY_TRIGRAM_INDEX_DEFERRED) != null;
+			fTrigramIndexDeferred= deferred;
+		}
+		return deferred;
+	}
+
+	void setTrigramIndexDeferred(boolean deferred) throws CoreException {
+		assert lockCount < 0; // needs write-lock.
+
+		DBProperties properties= new DBProperties(db, PROPERTIES);
+		if (deferred) {
+			properties.setProperty(PROPERTY_TRIGRAM_INDEX_DEFERRED, String.valueOf(true));
+		} else {
+			properties.removeProperty(PROPERTY_TRIGRAM_INDEX_DEFERRED);
+		}
+		fTrigramIndexDeferred= deferred;
+	}
+
 	/**
 	 * Returns the index of files that were read with I/O errors.
 	 */
@@ -770,6 +833,12 @@ public class PDOM extends PlatformObject implements IPDOM {
 			}
 		}
 
+		// Use the trigram index if the pattern for the name contains enough literal text.
+		int[] trigrams= PDOMTrigramIndex.getRequiredTrigrams(patterns[patterns.length - 1]);
+		if (trigrams != null && !isTrigramIndexDeferred()) {
+			return findBindingsForTrigrams(trigrams, patterns, isFullyQualified, filter, monitor);
+		}
+
 		BindingFinder finder = new BindingFinder(patterns, isFullyQualified, filter, monitor);
 		for (PDOMLinkage linkage : getLinkageList()) {
 			if (filter.acceptLinkage(linkage)) {
@@ -785,6 +854,86 @@ public class PDOM extends PlatformObject implements IPDOM {
 		return finder.getBindings();
 	}
 
+	/**
+	 * Finds the bindings matching the patterns among the bindings whose names contain the given
+	 * trigrams. The result is the same as the one computed by the {@link BindingFinder}.
+	 */
+	private IIndexFragmentBinding[] findBindingsForTrigrams(int[] trigrams, Pattern[] patterns,
+			boolean isFullyQualified, IndexFilter filter, IProgressMonitor monitor) throws CoreException {
+		final Pattern pattern= patterns[patterns.length - 1];
+		List<IIndexFragmentBinding> result= new ArrayList<>();
+		List<PDOMNamedNode> path= new ArrayList<>();
+		for (PDOMLinkage linkage : getLinkageList()) {
+			if (filter.acceptLinkage(linkage)) {
+				for (long rec : linkage.getTrigramIndex().findCandidates(trigrams)) {
+					if (monitor.isCanceled())
+						return IIndexFragmentBinding.EMPTY_INDEX_BINDING_ARRAY;
+
+					PDOMBinding binding= linkage.getBinding(rec);
+					if (binding != null && pattern.matcher(new String(binding.getNameCharArray())).matches()
+							&& getOwnerPath(binding, path)
+							&& matchesOwners(path, 0, patterns, patterns.length - 2, isFullyQualified)
+							&& filter.acceptBinding(binding)) {
+						result.add(binding);
+					}
+				}
+			}
+		}
+		return result.toArray(new IIndexFragmentBinding[result.size()]);
+	}
+
+	/**
+	 * Computes the owners of the binding starting with the innermost one. Returns
+	 * <code>false</code> if the binding cannot be found by visiting the children of its owners.
+	 */
+	private static boolean getOwnerPath(PDOMBinding binding, List<PDOMNamedNode> path) throws CoreException {
+		path.clear();
+		for (PDOMNode node= binding.getParentNode(); node instanceof PDOMNamedNode && !(node instanceof PDOMLinkage);
+				node= node.getParentNode()) {
+			PDOMNamedNode owner= (PDOMNamedNode) node;
+			if (!owner.mayHaveChildren())
+				return false;
+			path.add(owner);
+		}
+		return true;
+	}
+
+	/**
+	 * Checks whether the owners starting at index <code>i</code> match the patterns up to index
+	 * <code>j</code>, which are matched from the innermost owner outwards.
+	 */
+	private static boolean matchesOwners(List<PDOMNamedNode> path, int i, Pattern[] patterns, int j,
+			boolean isFullyQualified) throws CoreException {
+		if (j < 0) {
+			if (isFullyQualified) {
+				for (; i < path.size(); i++) {
+					if (!isTransparentOwner(path, i))
+						return false;
+				}
+			}
+			return true;
+		}
+		if (i == path.size())
+			return false;
+		if (patterns[j].matcher(new String(path.get(i).getNameCharArray())).matches()
+				&& matchesOwners(path, i + 1, patterns, j - 1, isFullyQualified)) {
+			return true;
+		}
+		return isTransparentOwner(path, i) && matchesOwners(path, i + 1, patterns, j, isFullyQualified);
+	}
+
+	/**
+	 * Checks whether the bindings owned by the i-th owner are also children of the next owner,
+	 * which is the case for anonymous namespaces and types and for unscoped enumerations.
+	 */
+	private static boolean isTransparentOwner(List<PDOMNamedNode> path, int i) throws CoreException {
+		PDOMNamedNode owner= path.get(i);
+		if (owner.getNameCharArray().length == 0)
+			return true;
+		return i == 0 && owner instanceof IEnumeration
+				&& !(owner instanceof ICPPEnumeration && ((ICPPEnumeration) owner).isScoped());
+	}
+
 	private Boolean getCaseSensitive(Pattern[] patterns) {
 		Boolean caseSensitive= null;
 		for (Pattern p : patterns) {
@@ -953,13 +1102,27 @@ public class PDOM extends PlatformObject implements IPDOM {
 	// Writers conflict with readers, and everyone conflicts with writers.
 	private final Object mutex = new Object();
 	private int lockCount;
-	private int waitingReaders;
+	// Modified while holding the mutex, volatile to allow for polling by a writer that yields.
+	private volatile int waitingReaders;
 	private long lastWriteAccess= 0;
 	private long lastReadAccess= 0;
 	private long timeWriteLockAcquired;
+	private long nanoTimeWriteLockAcquired;
 
 	@Override
 	public void acquireReadLock() throws InterruptedException {
+		final PDOMLockStatistics statistics= sLockStatistics;
+		final long start= statistics != null ? System.nanoTime() : 0;
+		try {
+			acquireReadLockInternal();
+		} finally {
+			if (statistics != null) {
+				statistics.record(PDOMLockStatistics.READ_LOCK_WAIT, System.nanoTime() - start);
+			}
+		}
+	}
+
+	private void acquireReadLockInternal() throws InterruptedException {
 		long t = sDEBUG_LOCKS ? System.nanoTime() : 0;
 		synchronized (mutex) {
 			++waitingReaders;
@@ -1021,6 +1184,16 @@ public class PDOM extends PlatformObject implements IPDOM {
 	 * @throws IllegalStateException if this PDOM is not writable
 	 */
 	public void acquireWriteLock(int giveupReadLocks, IProgressMonitor monitor) throws InterruptedException {
+		final PDOMLockStatistics statistics= sLockStatistics;
+		final long start= statistics != null ? System.nanoTime() : 0;
+		acquireWriteLockInternal(giveupReadLocks, monitor);
+		if (statistics != null) {
+			nanoTimeWriteLockAcquired= System.nanoTime();
+			statistics.record(PDOMLockStatistics.WRITE_LOCK_WAIT, nanoTimeWriteLockAcquired - start);
+		}
+	}
+
+	private void acquireWriteLockInternal(int giveupReadLocks, IProgressMonitor monitor) throws InterruptedException {
 		assert !isPermanentlyReadOnly();
 		synchronized (mutex) {
 			if (sDEBUG_LOCKS) {
@@ -1061,6 +1234,11 @@ public class PDOM extends PlatformObject implements IPDOM {
 
 	@SuppressWarnings("nls")
 	public void releaseWriteLock(int establishReadLocks, boolean flush) {
+		final PDOMLockStatistics statistics= sLockStatistics;
+		if (statistics != null && nanoTimeWriteLockAcquired != 0) {
+			statistics.record(PDOMLockStatistics.WRITE_LOCK_HOLD, System.nanoTime() - nanoTimeWriteLockAcquired);
+			nanoTimeWriteLockAcquired= 0;
+		}
 		// When all locks are released we can clear the result cache.
 		if (establishReadLocks == 0) {
 			clearResultCache();
@@ -1094,9 +1272,7 @@ public class PDOM extends PlatformObject implements IPDOM {
 
 	@Override
 	public boolean hasWaitingReaders() {
-		synchronized (mutex) {
-			return waitingReaders > 0;
-		}
+		return waitingReaders > 0;
 	}
 
 	@Override
@@ -1446,6 +1622,7 @@ public class PDOM extends PlatformObject implements IPDOM {
 		tagIndex = null;
 		indexOfDefectiveFiles= null;
 		indexOfFiledWithUnresolvedIncludes= null;
+		fTrigramIndexDeferred= null;
 		fLinkageIDCache.clear();
 		clearResultCache();
 	}
@@ -0,0 +1,129 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Wind River Systems, Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Wind River Systems - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.core.pdom;
+
+import java.io.PrintStream;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.eclipse.cdt.internal.core.index.CIndex;
+import org.eclipse.cdt.internal.core.index.WritableCIndex;
+
+/**
+ * Histograms of the times threads wait for the locks of the index and of the times the write lock
+ * is held, per kind of lock operation. Operations taking a millisecond or longer are in addition
+ * counted for their caller. Enabled by the debug option
+ * {@code org.eclipse.cdt.core/debug/index/lockStatistics}, the statistics are written to
+ * the console on shutdown.
+ */
+public final class PDOMLockStatistics {
+	public static final String READ_LOCK_WAIT = "read lock wait"; //$NON-NLS-1$
+	public static final String WRITE_LOCK_WAIT = "write lock wait"; //$NON-NLS-1$
+	public static final String WRITE_LOCK_HOLD = "write lock hold"; //$NON-NLS-1$
+
+	// Bucket i counts the times t with 2^(i-1) ms <= t < 2^i ms, the last bucket counts all
+	// longer times.
+	private static final int BUCKETS = 14;
+	// Editor features should not wait longer than this for a read lock, the number of operations
+	// exceeding it is reported separately.
+	private static final long LATENCY_GOAL_MILLIS = 50;
+	// Determining the caller takes a stack trace, which is done only for the operations that
+	// are slow enough to matter.
+	private static final long CALLER_THRESHOLD_NANOS = 1000000;
+
+	private static final String[] LOCK_CLASSES = {
+		PDOM.class.getName(), WritablePDOM.class.getName(), PDOMProxy.class.getName(),
+		CIndex.class.getName(), WritableCIndex.class.getName(), YieldableIndexLock.class.getName(),
+		PDOMLockStatistics.class.getName(), Thread.class.getName()
+	};
+
+	private final Map<String, long[]> fHistograms= new TreeMap<>();
+
+	/**
+	 * Records the duration of a lock operation for the calling thread.
+	 * @param kind one of {@link #READ_LOCK_WAIT}, {@link #WRITE_LOCK_WAIT} or {@link #WRITE_LOCK_HOLD}.
+	 * @param nanos the duration in nanoseconds.
+	 */
+	public void record(String kind, long nanos) {
+		final long millis= nanos / 1000000;
+		final int bucket= millis == 0 ? 0 : Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(millis));
+		final String callerKey= nanos >= CALLER_THRESHOLD_NANOS ? kind + " from " + getCaller() : null; //$NON-NLS-1$
+		synchronized (fHistograms) {
+			add(kind, bucket, millis, nanos);
+			if (callerKey != null) {
+				add(callerKey, bucket, millis, nanos);
+			}
+		}
+	}
+
+	private void add(String key, int bucket, long millis, long nanos) {
+		long[] histogram= fHistograms.get(key);
+		if (histogram == null) {
+			// The last three elements hold the number of operations, the number of operations
+			// exceeding the latency goal and the total time of the operations.
+			histogram= new long[BUCKETS + 3];
+			fHistograms.put(key, histogram);
+		}
+		histogram[bucket]++;
+		histogram[BUCKETS]++;
+		if (millis > LATENCY_GOAL_MILLIS)
+			histogram[BUCKETS + 1]++;
+		histogram[BUCKETS + 2]+= nanos;
+	}
+
+	private static String getCaller() {
+		outer: for (StackTraceElement element : new Throwable().getStackTrace()) {
+			final String className= element.getClassName();
+			for (String lockClass : LOCK_CLASSES) {
+				if (className.startsWith(lockClass) && (className.length() == lockClass.length()
+						|| className.charAt(lockClass.length()) == '$')) {
+					continue outer;
+				}
+			}
+			return className.substring(className.lastIndexOf('.') + 1) + '.' + element.getMethodName();
+		}
+		return "<unknown>"; //$NON-NLS-1$
+	}
+
+	/**
+	 * Discards the statistics collected so far.
+	 */
+	public void clear() {
+		synchronized (fHistograms) {
+			fHistograms.clear();
+		}
+	}
+
+	@SuppressWarnings("nls")
+	public void dump(PrintStream out) {
+		StringBuilder header= new StringBuilder();
+		header.append(String.format("%8s %8s %10s  ", "count", ">" + LATENCY_GOAL_MILLIS + "ms", "avg ms"));
+		for (int i= 0; i < BUCKETS; i++) {
+			header.append(String.format("%6s", (i == BUCKETS - 1 ? ">=" : "<") + (1 << Math.min(i, BUCKETS - 2))));
+		}
+		out.println("---------------------  Index Lock Statistics  -------------------------");
+		out.println(header);
+		synchronized (fHistograms) {
+			for (Map.Entry<String, long[]> entry : fHistograms.entrySet()) {
+				long[] histogram= entry.getValue();
+				StringBuilder line= new StringBuilder();
+				line.append(String.format("%8d %8d %10.2f  ", histogram[BUCKETS], histogram[BUCKETS + 1],
+						histogram[BUCKETS + 2] / 1000000.0 / histogram[BUCKETS]));
+				for (int i= 0; i < BUCKETS; i++) {
+					line.append(String.format("%6d", histogram[i]));
+				}
+				line.append("  ").append(entry.getKey());
+				out.println(line);
+			}
+		}
+		out.println("------------------------------------------------------------------------");
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2014 QNX Software Systems and others.
+ * Copyright (c) 2005, 2015 QNX Software Systems and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -120,6 +120,7 @@ import com.ibm.icu.text.SimpleDateFormat;
  */
 public class PDOMManager implements IWritableIndexManager, IListener {
 	private static final String TRACE_INDEXER_SETUP = CCorePlugin.PLUGIN_ID + "/debug/indexer/setup"; //$NON-NLS-1$
+	private static final String TRACE_LOCK_STATISTICS = CCorePlugin.PLUGIN_ID + "/debug/index/lockStatistics"; //$NON-NLS-1$
 
 	private final class PCL implements IPreferenceChangeListener {
 		private ICProject fProject;
@@ -195,9 +196,14 @@ public class PDOMManager implements IWritableIndexManager, IListener {
 	private boolean fInShutDown;
 
 	boolean fTraceIndexerSetup;
+	private final boolean fTraceLockStatistics;
 
 	public PDOMManager() {
 		PDOM.sDEBUG_LOCKS= "true".equals(Platform.getDebugOption(CCorePlugin.PLUGIN_ID + "/debug/index/locks"));  //$NON-NLS-1$//$NON-NLS-2$
+		fTraceLockStatistics= String.valueOf(true).equals(Platform.getDebugOption(TRACE_LOCK_STATISTICS));
+		if (fTraceLockStatistics) {
+			PDOM.sLockStatistics= new PDOMLockStatistics();
+		}
 		addIndexerSetupParticipant(new WaitForRefreshJobs());
 		fProjectDescriptionListener= new CProjectDescriptionListener(this);
 		fJobChangeListener= new JobChangeListener(this);
@@ -283,6 +289,9 @@ public class PDOMManager implements IWritableIndexManager, IListener {
 			jobToCancel.cancelJobs(null, true);
 		}
 		Job.getJobManager().removeJobChangeListener(fJobChangeListener);
+		if (fTraceLockStatistics) {
+			PDOM.sLockStatistics.dump(System.out);
+		}
 	}
 
 	protected void onPreferenceChange(PreferenceChangeEvent event) {
@@ -382,6 +391,8 @@ public class PDOMManager implements IWritableIndexManager, IListener {
 			}
 
 			WritablePDOM pdom= new WritablePDOM(dbFile, new PDOMProjectIndexLocationConverter(rproject), getLinkageFactories());
+			pdom.setMemoryMapped(IndexerPreferences.getMemoryMappedDatabase(rproject));
+			pdom.setJournaled(IndexerPreferences.getDatabaseJournal(rproject));
 			if (!pdom.isSupportedVersion() || fromScratch) {
 				try {
 					pdom.acquireWriteLock(monitor);
@@ -396,6 +407,18 @@ public class PDOMManager implements IWritableIndexManager, IListener {
 				}
 				writeProjectPDOMProperties(pdom, rproject);
 				pdom.releaseWriteLock();
+			} else if (pdom.isTrigramIndexDeferred()) {
+				// A rebuild of the index was interrupted before it built the trigram index.
+				try {
+					pdom.acquireWriteLock(monitor);
+					try {
+						pdom.buildDeferredTrigramIndex(null);
+					} finally {
+						pdom.releaseWriteLock();
+					}
+				} catch (InterruptedException e) {
+					throw new CoreException(CCorePlugin.createStatus(Messages.PDOMManager_creationOfIndexInterrupted, e));
+				}
 			}
 			pdom.setASTFilePathResolver(new ProjectIndexerInputAdapter(project, false));
 			pdom.addListener(this);
@@ -880,6 +903,9 @@ public class PDOMManager implements IWritableIndexManager, IListener {
     		job.setSystem(true);
     		job.schedule();
     	}
+    	if (delete) {
+    		TeamPDOMImportOperation.deleteBaseCopy(rproject);
+    	}
 
 		synchronized (fUpdatePolicies) {
 			fUpdatePolicies.remove(cproject);
@@ -619,6 +619,8 @@ public abstract class PDOMWriter implements IPDOMASTProcessor {
 			file.setSourceReadTime(astFile.sourceReadTime);
 			file.setSizeAndEncodingHashcode(computeFileSizeAndEncodingHashcode(astFile.fileSize, location));
 			file.setContentsHash(astFile.contentsHash);
+			// Replacing the content of the old file cannot be interrupted, let waiting readers go first.
+			lock.yield();
 			file = index.commitUncommittedFile();
 		} finally {
 			index.clearUncommittedFile();
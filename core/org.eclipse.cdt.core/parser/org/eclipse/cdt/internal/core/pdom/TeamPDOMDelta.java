@@ -0,0 +1,240 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Wind River Systems, Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Wind River Systems - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.core.pdom;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import org.eclipse.cdt.internal.core.pdom.db.Database;
+
+/**
+ * Chunk level differences between two versions of an exported index, used to share nightly
+ * updates of an index without transferring the entire database.
+ * <p>
+ * A version of the database is described by its manifest, the hashes of the contents of its
+ * chunks. A delta contains the chunks of the new version whose hashes differ from the ones
+ * of the base version:
+ * <pre>
+ * int   magic number
+ * long  id of the manifest of the base version
+ * long  id of the manifest of the new version
+ * int   number of chunks of the new version
+ * (int chunk number, byte[CHUNK_SIZE] content)*
+ * int   -1
+ * </pre>
+ */
+public class TeamPDOMDelta {
+	private static final int MAGIC = 0x43444c54;  // "CDLT"
+	private static final int END_OF_CHUNKS = -1;
+	private static final String ALGORITHM = "MD5"; //$NON-NLS-1$
+
+	/**
+	 * Computes the manifest of a database file.
+	 */
+	public static long[] computeManifest(File database) throws IOException {
+		MessageDigest md= getDigest();
+		long chunkCount= (database.length() + Database.CHUNK_SIZE - 1) / Database.CHUNK_SIZE;
+		long[] manifest= new long[(int) chunkCount];
+		byte[] chunk= new byte[Database.CHUNK_SIZE];
+		InputStream in= new FileInputStream(database);
+		try {
+			for (int i = 0; i < manifest.length; i++) {
+				int length= readChunk(in, chunk);
+				md.update(chunk, 0, length);
+				manifest[i]= toLong(md.digest());
+			}
+		} finally {
+			in.close();
+		}
+		return manifest;
+	}
+
+	/**
+	 * Computes the id of a manifest, two databases with the same id have the same content.
+	 */
+	public static long getId(long[] manifest) {
+		MessageDigest md= getDigest();
+		byte[] bytes= new byte[8];
+		for (long hash : manifest) {
+			putLong(hash, bytes);
+			md.update(bytes);
+		}
+		putLong(manifest.length, bytes);
+		md.update(bytes);
+		return toLong(md.digest());
+	}
+
+	public static void writeManifest(long[] manifest, OutputStream out) throws IOException {
+		DataOutputStream data= new DataOutputStream(out);
+		data.writeInt(manifest.length);
+		for (long hash : manifest) {
+			data.writeLong(hash);
+		}
+		data.flush();
+	}
+
+	public static long[] readManifest(InputStream in) throws IOException {
+		DataInputStream data= new DataInputStream(in);
+		long[] manifest= new long[data.readInt()];
+		for (int i = 0; i < manifest.length; i++) {
+			manifest[i]= data.readLong();
+		}
+		return manifest;
+	}
+
+	/**
+	 * Writes the chunks of the database that differ from the base version.
+	 * @param database the new version of the database
+	 * @param manifest the manifest of the new version
+	 * @param baseManifest the manifest of the base version
+	 * @return the number of chunks written
+	 */
+	public static int writeDelta(File database, long[] manifest, long[] baseManifest, OutputStream out)
+			throws IOException {
+		DataOutputStream data= new DataOutputStream(out);
+		data.writeInt(MAGIC);
+		data.writeLong(getId(baseManifest));
+		data.writeLong(getId(manifest));
+		data.writeInt(manifest.length);
+		int count= 0;
+		byte[] chunk= new byte[Database.CHUNK_SIZE];
+		InputStream in= new FileInputStream(database);
+		try {
+			for (int i = 0; i < manifest.length; i++) {
+				int length= readChunk(in, chunk);
+				if (i >= baseManifest.length || manifest[i] != baseManifest[i]) {
+					data.writeInt(i);
+					data.write(chunk, 0, length);
+					if (length < chunk.length) {
+						data.write(new byte[chunk.length - length]);
+					}
+					count++;
+				}
+			}
+		} finally {
+			in.close();
+		}
+		data.writeInt(END_OF_CHUNKS);
+		data.flush();
+		return count;
+	}
+
+	/**
+	 * Reads the id of the base version from the beginning of a delta.
+	 */
+	public static long readBaseId(DataInputStream in) throws IOException {
+		if (in.readInt() != MAGIC)
+			throw new IOException("Not an index delta"); //$NON-NLS-1$
+		return in.readLong();
+	}
+
+	/**
+	 * Reads the id of the new version, following the id of the base version.
+	 */
+	public static long readNewId(DataInputStream in) throws IOException {
+		return in.readLong();
+	}
+
+	/**
+	 * Updates the base version of a database to the new version. The ids have to be read with
+	 * {@link #readBaseId(DataInputStream)} and {@link #readNewId(DataInputStream)} before.
+	 */
+	public static void applyDelta(DataInputStream in, File database) throws IOException {
+		final int chunkCount= in.readInt();
+		byte[] chunk= new byte[Database.CHUNK_SIZE];
+		RandomAccessFile file= new RandomAccessFile(database, "rw"); //$NON-NLS-1$
+		try {
+			int i;
+			while ((i= in.readInt()) != END_OF_CHUNKS) {
+				if (i < 0 || i >= chunkCount)
+					throw new IOException("Invalid chunk in index delta: " + i); //$NON-NLS-1$
+				in.readFully(chunk);
+				file.seek((long) i * Database.CHUNK_SIZE);
+				file.write(chunk);
+			}
+			file.setLength((long) chunkCount * Database.CHUNK_SIZE);
+		} finally {
+			file.close();
+		}
+	}
+
+	/**
+	 * Checks whether the contents of a database match a manifest. A delta can update only an
+	 * unmodified copy of its base version, the result of applying it has to be checked before
+	 * it is used.
+	 */
+	public static boolean matchesManifest(File database, long[] manifest) throws IOException {
+		long chunkCount= (database.length() + Database.CHUNK_SIZE - 1) / Database.CHUNK_SIZE;
+		if (chunkCount != manifest.length)
+			return false;
+		MessageDigest md= getDigest();
+		byte[] chunk= new byte[Database.CHUNK_SIZE];
+		InputStream in= new FileInputStream(database);
+		try {
+			for (int i = 0; i < manifest.length; i++) {
+				int length= readChunk(in, chunk);
+				md.update(chunk, 0, length);
+				if (toLong(md.digest()) != manifest[i])
+					return false;
+			}
+		} finally {
+			in.close();
+		}
+		return true;
+	}
+
+	private static int readChunk(InputStream in, byte[] chunk) throws IOException {
+		int length= 0;
+		while (length < chunk.length) {
+			int read= in.read(chunk, length, chunk.length - length);
+			if (read < 0) {
+				if (length == 0)
+					throw new EOFException();
+				break;
+			}
+			length+= read;
+		}
+		return length;
+	}
+
+	private static MessageDigest getDigest() {
+		try {
+			return MessageDigest.getInstance(ALGORITHM);
+		} catch (NoSuchAlgorithmException e) {
+			// Every Java platform supports MD5.
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static long toLong(byte[] digest) {
+		long result= 0;
+		for (int i = 0; i < 8; i++) {
+			result= (result << 8) | (digest[i] & 0xff);
+		}
+		return result;
+	}
+
+	private static void putLong(long value, byte[] bytes) {
+		for (int i = 7; i >= 0; i--) {
+			bytes[i]= (byte) value;
+			value >>>= 8;
+		}
+	}
+}
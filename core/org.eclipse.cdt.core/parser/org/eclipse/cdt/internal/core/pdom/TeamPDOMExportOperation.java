@@ -24,6 +24,7 @@ import java.util.HashSet;
 import java.util.Map;
 import java.util.zip.Deflater;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 import java.util.zip.ZipOutputStream;
 
 import org.eclipse.cdt.core.CCorePlugin;
@@ -57,6 +58,14 @@ public class TeamPDOMExportOperation implements IWorkspaceRunnable {
 	 */
 	public static int EXPORT_OPTION_RESOURCE_SNAPSHOT = 1;
 
+	/**
+	 * Option constant (value:2) to indicate that the chunks that changed since the previous
+	 * export to the same location should in addition be saved as a delta, which can be imported
+	 * much faster than the entire index. The archives are compressed for speed rather than size.
+	 * @see TeamPDOMImportOperation#getDeltaLocation(File)
+	 */
+	public static int EXPORT_OPTION_DELTA = 2;
+
 	private static final String RESOURCE_PREFIX = "res-"; //$NON-NLS-1$
 	private static final String CDT_PREFIX = "cdt-"; //$NON-NLS-1$
 	private static final String RESOURCE_SNAP_EXTENSION = "snap.zip"; //$NON-NLS-1$
@@ -125,7 +134,14 @@ public class TeamPDOMExportOperation implements IWorkspaceRunnable {
 			}
 			
 			// create archive
-			createArchive(tmpPDOM, tmpChecksums);
+			long[] manifest= null;
+			long[] baseManifest= null;
+			if ((fOptions & EXPORT_OPTION_DELTA) != 0) {
+				manifest= computeManifest(tmpPDOM);
+				baseManifest= readManifest(fTargetLocationFile);
+			}
+			createArchive(tmpPDOM, tmpChecksums, manifest);
+			createDelta(tmpPDOM, tmpChecksums, manifest, baseManifest);
 			
 			// store preferences
 			monitor.setTaskName(Messages.TeamPDOMExportOperation_taskExportIndex);
@@ -237,15 +253,50 @@ public class TeamPDOMExportOperation implements IWorkspaceRunnable {
 		}
 	} 
 
-	private void createArchive(File tmpPDOM, File tmpChecksums) throws CoreException {
+	private long[] computeManifest(File tmpPDOM) throws CoreException {
+		try {
+			return TeamPDOMDelta.computeManifest(tmpPDOM);
+		} catch (IOException e) {
+			throw new CoreException(CCorePlugin.createStatus(Messages.TeamPDOMExportOperation_errorCreateArchive, e));
+		}
+	}
+
+	/**
+	 * Reads the manifest of a previously exported index, returns <code>null</code> if there is none.
+	 */
+	private long[] readManifest(File archive) {
+		if (!archive.isFile())
+			return null;
+		try {
+			ZipFile zip= new ZipFile(archive);
+			try {
+				ZipEntry entry= zip.getEntry(TeamPDOMImportOperation.CHUNKS_NAME);
+				if (entry != null) {
+					return TeamPDOMDelta.readManifest(zip.getInputStream(entry));
+				}
+			} finally {
+				zip.close();
+			}
+		} catch (IOException e) {
+			CCorePlugin.log(e);
+		}
+		return null;
+	}
+
+	private void createArchive(File tmpPDOM, File tmpChecksums, long[] manifest) throws CoreException {
 		fTargetLocationFile.delete();
 		ZipOutputStream out= null;
 		try {
 			fTargetLocationFile.getParentFile().mkdirs();
 			out= new ZipOutputStream(new FileOutputStream(fTargetLocationFile));
-			out.setLevel(Deflater.BEST_COMPRESSION);
+			out.setLevel(manifest != null ? Deflater.BEST_SPEED : Deflater.BEST_COMPRESSION);
 			writeEntry(out, TeamPDOMImportOperation.INDEX_NAME, tmpPDOM);
 			writeEntry(out, TeamPDOMImportOperation.CHECKSUMS_NAME, tmpChecksums);
+			if (manifest != null) {
+				out.putNextEntry(new ZipEntry(TeamPDOMImportOperation.CHUNKS_NAME));
+				TeamPDOMDelta.writeManifest(manifest, out);
+				out.closeEntry();
+			}
 		}
 		catch (IOException e) {
 			throw new CoreException(CCorePlugin.createStatus(Messages.TeamPDOMExportOperation_errorCreateArchive, e));
@@ -253,9 +304,46 @@ public class TeamPDOMExportOperation implements IWorkspaceRunnable {
 		finally {
 			close(out);
 		}
-		IFile[] wsResource= ResourceLookup.findFilesForLocation(new Path(fTargetLocationFile.getAbsolutePath()));
-		for (IFile file : wsResource) {
-			file.refreshLocal(0, new NullProgressMonitor());
+		refresh(fTargetLocationFile);
+	}
+
+	/**
+	 * Writes the chunks that differ from the previous export next to the archive, or removes
+	 * an outdated delta when there is no previous export.
+	 */
+	private void createDelta(File tmpPDOM, File tmpChecksums, long[] manifest, long[] baseManifest)
+			throws CoreException {
+		File deltaFile= TeamPDOMImportOperation.getDeltaLocation(fTargetLocationFile);
+		boolean existed= deltaFile.delete();
+		if (manifest != null && baseManifest != null) {
+			ZipOutputStream out= null;
+			try {
+				out= new ZipOutputStream(new FileOutputStream(deltaFile));
+				out.setLevel(Deflater.BEST_SPEED);
+				out.putNextEntry(new ZipEntry(TeamPDOMImportOperation.DELTA_NAME));
+				TeamPDOMDelta.writeDelta(tmpPDOM, manifest, baseManifest, out);
+				out.closeEntry();
+				writeEntry(out, TeamPDOMImportOperation.CHECKSUMS_NAME, tmpChecksums);
+				out.putNextEntry(new ZipEntry(TeamPDOMImportOperation.CHUNKS_NAME));
+				TeamPDOMDelta.writeManifest(manifest, out);
+				out.closeEntry();
+			}
+			catch (IOException e) {
+				throw new CoreException(CCorePlugin.createStatus(Messages.TeamPDOMExportOperation_errorCreateArchive, e));
+			}
+			finally {
+				close(out);
+			}
+		} else if (!existed) {
+			return;
+		}
+		refresh(deltaFile);
+	}
+
+	private void refresh(File file) throws CoreException {
+		IFile[] wsResource= ResourceLookup.findFilesForLocation(new Path(file.getAbsolutePath()));
+		for (IFile wsFile : wsResource) {
+			wsFile.refreshLocal(0, new NullProgressMonitor());
 		}
 	}
 
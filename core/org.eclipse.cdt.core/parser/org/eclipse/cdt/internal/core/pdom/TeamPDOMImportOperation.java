@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2014 Wind River Systems, Inc. and others.
+ * Copyright (c) 2007, 2015 Wind River Systems, Inc. and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,10 +10,17 @@
  *******************************************************************************/ 
 package org.eclipse.cdt.internal.core.pdom;
 
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
@@ -51,9 +58,23 @@ import org.eclipse.core.variables.IStringVariableManager;
 import org.eclipse.core.variables.VariablesPlugin;
 import org.eclipse.osgi.util.NLS;
 
+/**
+ * Imports the index exported to the team shared location of a project.
+ * <p>
+ * When the exported archive supports deltas (see {@link TeamPDOMExportOperation#EXPORT_OPTION_DELTA}),
+ * an unmodified copy of the imported index is kept in the state location of the plug-in, one per
+ * project, such that the deltas of later exports can be applied to it. The copy is as large as
+ * the index of the project; it is removed when an archive without delta support is imported
+ * and when the project is deleted, see {@link #deleteBaseCopy(IProject)}.
+ */
 public class TeamPDOMImportOperation implements IWorkspaceRunnable {
 	static final String CHECKSUMS_NAME = "checksums.dat"; //$NON-NLS-1$
 	static final String INDEX_NAME = "cdt-index.pdom"; //$NON-NLS-1$
+	static final String DELTA_NAME = "cdt-index.delta"; //$NON-NLS-1$
+	static final String CHUNKS_NAME = "cdt-index.chunks"; //$NON-NLS-1$
+	private static final String DELTA_EXTENSION = ".delta"; //$NON-NLS-1$
+	private static final String BASE_EXTENSION = ".teampdom"; //$NON-NLS-1$
+	private static final String BASE_ID_EXTENSION = ".teampdom.id"; //$NON-NLS-1$
 	private static final Pattern PROJECT_VAR_PATTERN= Pattern.compile("\\$\\{(project_[a-zA-Z0-9]*)\\}"); //$NON-NLS-1$
 	private static final String PROJECT_VAR_REPLACEMENT_BEGIN = "\\${$1:"; //$NON-NLS-1$
 	private static final String PROJECT_VAR_REPLACEMENT_END = "}"; //$NON-NLS-1$
@@ -133,31 +154,173 @@ public class TeamPDOMImportOperation implements IWorkspaceRunnable {
 		return location.toFile();
 	}
 
+	/**
+	 * Returns the location of the delta written next to an exported index.
+	 * @see TeamPDOMExportOperation#EXPORT_OPTION_DELTA
+	 */
+	static File getDeltaLocation(File archive) {
+		return new File(archive.getPath() + DELTA_EXTENSION);
+	}
+
 	private void doImportIndex(File importFile, IProgressMonitor monitor) throws CoreException, InterruptedException, IOException {
-		ZipFile zip= new ZipFile(importFile);
 		Map<?, ?> checksums= null;
-		try {
-			importIndex(zip, monitor);
-			checksums= getChecksums(zip);
-		} finally {
+		File deltaFile= getDeltaLocation(importFile);
+		if (deltaFile.isFile()) {
+			checksums= importDelta(deltaFile, monitor);
+		}
+		if (checksums == null) {
+			ZipFile zip= new ZipFile(importFile);
 			try {
-				zip.close();
-			} catch (IOException e) {
-				CCorePlugin.log(e);
+				importIndex(zip, monitor);
+				checksums= getChecksums(zip);
+			} finally {
+				close(zip);
 			}
 		}
 		
 		checkIndex(checksums, monitor);
 	}
 
+	private void close(ZipFile zip) {
+		try {
+			zip.close();
+		} catch (IOException e) {
+			CCorePlugin.log(e);
+		}
+	}
+
 	private void importIndex(ZipFile zip, IProgressMonitor monitor) throws CoreException, IOException {
 		ZipEntry indexEntry= zip.getEntry(INDEX_NAME);
 		if (indexEntry == null) {
 			throw new CoreException(CCorePlugin.createStatus(
 					NLS.bind(Messages.PDOMImportTask_errorInvalidArchive, zip.getName())));
 		}
+		File base= getBaseLocation(BASE_EXTENSION);
+		File baseId= getBaseLocation(BASE_ID_EXTENSION);
+		baseId.delete();
+		ZipEntry chunksEntry= zip.getEntry(CHUNKS_NAME);
+		if (chunksEntry == null) {
+			base.delete();
+			InputStream stream= zip.getInputStream(indexEntry);
+			CCoreInternals.getPDOMManager().importProjectPDOM(fProject, stream, monitor);
+			return;
+		}
+
+		// Keep an unmodified copy of the index, deltas of later exports are applied to it.
 		InputStream stream= zip.getInputStream(indexEntry);
-		CCoreInternals.getPDOMManager().importProjectPDOM(fProject, stream, monitor);
+		try {
+			Files.copy(stream, base.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		} finally {
+			stream.close();
+		}
+		importBase(base, monitor);
+		writeBaseId(baseId, TeamPDOMDelta.getId(TeamPDOMDelta.readManifest(zip.getInputStream(chunksEntry))));
+	}
+
+	/**
+	 * Updates the copy of the previously imported index with the delta and imports it. Returns
+	 * the checksums stored with the delta, or <code>null</code> if the delta does not apply to
+	 * the previously imported index or the updated copy differs from the exported index.
+	 */
+	private Map<?, ?> importDelta(File deltaFile, IProgressMonitor monitor) throws CoreException {
+		File base= getBaseLocation(BASE_EXTENSION);
+		File baseIdFile= getBaseLocation(BASE_ID_EXTENSION);
+		if (!base.isFile() || !baseIdFile.isFile())
+			return null;
+		try {
+			long baseId= readBaseId(baseIdFile);
+			ZipFile zip= new ZipFile(deltaFile);
+			try {
+				ZipEntry entry= zip.getEntry(DELTA_NAME);
+				if (entry == null)
+					return null;
+				DataInputStream in= new DataInputStream(new BufferedInputStream(zip.getInputStream(entry)));
+				try {
+					long deltaBaseId= TeamPDOMDelta.readBaseId(in);
+					long newId= TeamPDOMDelta.readNewId(in);
+					if (newId != baseId) {
+						if (deltaBaseId != baseId)
+							return null;
+						// The copy is inconsistent while the delta is applied.
+						baseIdFile.delete();
+						TeamPDOMDelta.applyDelta(in, base);
+						writeBaseId(baseIdFile, newId);
+					}
+				} finally {
+					in.close();
+				}
+				// The copy may have been modified since it was imported, in that case the
+				// entire index is imported again.
+				ZipEntry chunksEntry= zip.getEntry(CHUNKS_NAME);
+				if (chunksEntry == null)
+					return null;
+				long[] manifest= TeamPDOMDelta.readManifest(zip.getInputStream(chunksEntry));
+				if (!TeamPDOMDelta.matchesManifest(base, manifest)) {
+					if (fShowActivity) {
+						System.out.println("Indexer: PDOMImporter cannot apply " + deltaFile.getName() //$NON-NLS-1$
+								+ " to a modified copy of the index"); //$NON-NLS-1$
+					}
+					baseIdFile.delete();
+					return null;
+				}
+				if (fShowActivity) {
+					System.out.println("Indexer: PDOMImporter applied " + deltaFile.getName()); //$NON-NLS-1$
+				}
+				importBase(base, monitor);
+				return getChecksums(zip);
+			} finally {
+				close(zip);
+			}
+		} catch (IOException e) {
+			CCorePlugin.log(e);
+			return null;
+		}
+	}
+
+	private void importBase(File base, IProgressMonitor monitor) throws CoreException, IOException {
+		InputStream stream= new BufferedInputStream(new FileInputStream(base));
+		try {
+			CCoreInternals.getPDOMManager().importProjectPDOM(fProject, stream, monitor);
+		} finally {
+			stream.close();
+		}
+	}
+
+	/**
+	 * Returns the location of the unmodified copy of the previously imported index, or of its id.
+	 */
+	private File getBaseLocation(String extension) {
+		return getBaseLocation(fProject.getElementName(), extension);
+	}
+
+	private static File getBaseLocation(String projectName, String extension) {
+		return CCorePlugin.getDefault().getStateLocation().append(projectName + extension).toFile();
+	}
+
+	/**
+	 * Deletes the copy of the index kept for applying deltas to, if there is one for the project.
+	 */
+	static void deleteBaseCopy(IProject project) {
+		getBaseLocation(project.getName(), BASE_ID_EXTENSION).delete();
+		getBaseLocation(project.getName(), BASE_EXTENSION).delete();
+	}
+
+	private static long readBaseId(File file) throws IOException {
+		DataInputStream in= new DataInputStream(new FileInputStream(file));
+		try {
+			return in.readLong();
+		} finally {
+			in.close();
+		}
+	}
+
+	private static void writeBaseId(File file, long id) throws IOException {
+		DataOutputStream out= new DataOutputStream(new FileOutputStream(file));
+		try {
+			out.writeLong(id);
+		} finally {
+			out.close();
+		}
 	}
 
 	private Map<?, ?> getChecksums(ZipFile zip) {
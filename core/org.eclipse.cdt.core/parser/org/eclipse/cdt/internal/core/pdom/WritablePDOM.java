@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2014 Wind River Systems, Inc. and others.
+ * Copyright (c) 2006, 2015 Wind River Systems, Inc. and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -147,7 +147,7 @@ public class WritablePDOM extends PDOM implements IWritableIndexFragment {
 		assert sourceFile.getIndexFragment() == this;
 
 		PDOMFile pdomFile = (PDOMFile) sourceFile;
-		pdomFile.addMacros(macros);
+		pdomFile.addMacros(macros, lock);
 		final ASTFilePathResolver origResolver= fPathResolver;
 		fPathResolver= pathResolver;
 		try {
@@ -191,6 +191,50 @@ public class WritablePDOM extends PDOM implements IWritableIndexFragment {
 		super.flush();
 	}
 
+	/**
+	 * Stops maintaining the trigram indexes until {@link #buildDeferredTrigramIndex} is called.
+	 * Used while the index is rebuilt, such that the trigram indexes can be built at once
+	 * afterwards. The state is stored in the database, a database that is opened with deferred
+	 * trigram indexes has to build them before it is used, see {@link PDOMManager}.
+	 *
+	 * <b>A write-lock must be obtained before calling this method</b>
+	 */
+	public void deferTrigramIndex() throws CoreException {
+		setTrigramIndexDeferred(true);
+	}
+
+	/**
+	 * Builds the trigram indexes if they have been deferred.
+	 *
+	 * <b>A write-lock must be obtained before calling this method</b>
+	 * @param lock the write lock, which is yielded between batches, or <code>null</code>
+	 */
+	public void buildDeferredTrigramIndex(YieldableIndexLock lock) throws CoreException, InterruptedException {
+		if (isTrigramIndexDeferred()) {
+			for (PDOMLinkage linkage : getLinkageList()) {
+				linkage.buildTrigramIndex(lock);
+			}
+			setTrigramIndexDeferred(false);
+		}
+	}
+
+	/**
+	 * Rebuilds the b-trees of the index bottom-up. Makes lookups faster after the index has been
+	 * filled from scratch.
+	 *
+	 * <b>A write-lock must be obtained before calling this method</b>
+	 * @param lock the write lock, which is yielded between the b-trees, or <code>null</code>
+	 */
+	public void compactIndexes(YieldableIndexLock lock) throws CoreException, InterruptedException {
+		getFileIndex().compact();
+		for (PDOMLinkage linkage : getLinkageList()) {
+			if (lock != null) {
+				lock.yield();
+			}
+			linkage.compactIndexes(lock);
+		}
+	}
+
 	@Override
 	public void setProperty(String propertyName, String value) throws CoreException {
 		if (IIndexFragment.PROPERTY_FRAGMENT_FORMAT_ID.equals(propertyName)
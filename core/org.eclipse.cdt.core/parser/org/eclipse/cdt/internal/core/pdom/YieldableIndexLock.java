@@ -53,8 +53,9 @@ public class YieldableIndexLock {
 	}
 
 	/**
-	 * Yields the lock temporarily if it was held for YIELD_INTERVAL or more, and somebody is waiting
-	 * for a read lock.
+	 * Yields the lock temporarily if somebody is waiting for a read lock. Readers wait for
+	 * the writer no longer than the work between two calls to this method, which is the addition
+	 * of a single name or macro while a file is written to the index.
 	 * @throws InterruptedException
 	 */
 	public void yield() throws InterruptedException {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2009 QNX Software Systems and others.
+ * Copyright (c) 2005, 2015 QNX Software Systems and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,6 +12,8 @@
  *******************************************************************************/
 package org.eclipse.cdt.internal.core.pdom.db;
 
+import java.util.Arrays;
+
 import org.eclipse.cdt.core.CCorePlugin;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IStatus;
@@ -211,6 +213,268 @@ public class BTree {
 		return db.malloc((2 * MAX_RECORDS + 1) * Database.INT_SIZE);
 	}
 
+	/**
+	 * Inserts many records at once. Unlike repeated calls to {@link #insert(long)}, the
+	 * records are sorted in memory and the b-tree is rebuilt bottom-up with completely filled
+	 * nodes that are written one after the other. The cost is linear in the size of the tree, so
+	 * this is meant for loading trees from scratch or for adding records in large batches.
+	 * <p>
+	 * As with {@link #insert(long)}, a record is not inserted if a record with the same key is
+	 * already contained in the tree or precedes it in the array. The inserted records are moved
+	 * to the beginning of the array in ascending order, the others follow them.
+	 *
+	 * @param records offsets of the records
+	 * @param length the number of records at the beginning of the array to insert
+	 * @return the number of records inserted
+	 */
+	public int bulkInsert(final long[] records, int length) throws CoreException {
+		sort(records, length);
+		int n= 0;
+		long[] duplicates= null;
+		int d= 0;
+		for (int i = 0; i < length; i++) {
+			if (n > 0 && cmp.compare(records[n - 1], records[i]) == 0) {
+				if (duplicates == null)
+					duplicates= new long[length];
+				duplicates[d++]= records[i];
+			} else {
+				records[n++]= records[i];
+			}
+		}
+
+		// Merge the records with the ones of the tree, while the tree is rebuilt.
+		final long root= getRoot();
+		final Builder builder= new Builder();
+		final int count= n;
+		final int[] position= new int[2];  // Next record to merge, number of records inserted.
+		final long[] duplicatesOfExisting= new long[count];
+		final int[] dx= new int[1];
+		accept(new IBTreeVisitor() {
+			@Override
+			public int compare(long record) throws CoreException {
+				return 0;
+			}
+
+			@Override
+			public boolean visit(long record) throws CoreException {
+				int j= position[0];
+				while (j < count && cmp.compare(records[j], record) < 0) {
+					builder.add(records[j]);
+					records[position[1]++]= records[j++];
+				}
+				if (j < count && cmp.compare(records[j], record) == 0) {
+					duplicatesOfExisting[dx[0]++]= records[j++];
+				}
+				position[0]= j;
+				builder.add(record);
+				return true;
+			}
+		});
+		for (int j= position[0]; j < count; j++) {
+			builder.add(records[j]);
+			records[position[1]++]= records[j];
+		}
+		builder.finish();
+		freeNodes(root);
+
+		final int inserted= position[1];
+		System.arraycopy(duplicatesOfExisting, 0, records, inserted, dx[0]);
+		if (d > 0)
+			System.arraycopy(duplicates, 0, records, inserted + dx[0], d);
+		return inserted;
+	}
+
+	/**
+	 * Rebuilds the b-tree bottom-up with completely filled nodes. Makes the tree as shallow as
+	 * possible, for example after it has been filled by many calls to {@link #insert(long)}.
+	 * The records are streamed from the old tree to the new one, such that the memory used
+	 * does not depend on the size of the tree.
+	 */
+	public void compact() throws CoreException {
+		final long root= getRoot();
+		if (root == 0)
+			return;
+
+		final Builder builder= new Builder();
+		accept(new IBTreeVisitor() {
+			@Override
+			public int compare(long record) throws CoreException {
+				return 0;
+			}
+
+			@Override
+			public boolean visit(long record) throws CoreException {
+				builder.add(record);
+				return true;
+			}
+		});
+		builder.finish();
+		freeNodes(root);
+	}
+
+	/**
+	 * Frees the nodes of the subtree, but not the records.
+	 */
+	private void freeNodes(long node) throws CoreException {
+		if (node == 0)
+			return;
+		for (int i = 0; i < MAX_CHILDREN; i++) {
+			long child= getChild(db.getChunk(node), node, i);
+			if (child == 0)
+				break;
+			freeNodes(child);
+		}
+		db.free(node);
+	}
+
+	/**
+	 * Builds a b-tree bottom-up from distinct records passed in ascending order. The nodes are
+	 * filled completely and written one after the other, only the node currently filled on each
+	 * level of the tree is kept track of. The tree is replaced by the new one when the builder is
+	 * finished, the nodes of the previous tree are not freed.
+	 */
+	public class Builder {
+		// The node filled on each level, starting with the leaves, and the number of its records.
+		private long[] fNodes= new long[8];
+		private int[] fSizes= new int[8];
+		private int fHeight;
+
+		/**
+		 * Adds a record that follows all records added before.
+		 */
+		public void add(long record) throws CoreException {
+			if (fHeight == 0) {
+				fNodes[0]= allocateNode();
+				fHeight= 1;
+			}
+			add(0, record);
+		}
+
+		private void add(int level, long record) throws CoreException {
+			final long node= fNodes[level];
+			if (fSizes[level] < MAX_RECORDS) {
+				putRecord(db.getChunk(node), node, fSizes[level]++, record);
+				return;
+			}
+
+			// The node is full, the record separates it from the next node on this level.
+			if (level + 1 == fHeight) {
+				if (fHeight == fNodes.length) {
+					fNodes= Arrays.copyOf(fNodes, fHeight * 2);
+					fSizes= Arrays.copyOf(fSizes, fHeight * 2);
+				}
+				final long parent= allocateNode();
+				putChild(db.getChunk(parent), parent, 0, node);
+				fNodes[fHeight]= parent;
+				fSizes[fHeight]= 0;
+				fHeight++;
+			}
+			add(level + 1, record);
+			final long next= allocateNode();
+			fNodes[level]= next;
+			fSizes[level]= 0;
+			final long parent= fNodes[level + 1];
+			putChild(db.getChunk(parent), parent, fSizes[level + 1], next);
+		}
+
+		/**
+		 * Fills up the last nodes and makes the new tree the content of the b-tree.
+		 */
+		public void finish() throws CoreException {
+			if (fHeight == 0) {
+				db.putRecPtr(rootPointer, 0);
+				return;
+			}
+			// The last node of a level may have too few records, it takes some from its left
+			// sibling. The parent is fixed first, such that it contains the separator of the two.
+			for (int level= fHeight - 2; level >= 0; level--) {
+				if (fSizes[level] < MIN_RECORDS) {
+					rebalance(level);
+				}
+			}
+			db.putRecPtr(rootPointer, fNodes[fHeight - 1]);
+		}
+
+		/**
+		 * Distributes the records of the last node on the given level and its left sibling
+		 * evenly among the two nodes. The left sibling is full.
+		 */
+		private void rebalance(int level) throws CoreException {
+			final long parent= fNodes[level + 1];
+			final Chunk pChunk= db.getChunk(parent);
+			final int s= fSizes[level + 1] - 1;
+			final long left= getChild(pChunk, parent, s);
+			final long right= fNodes[level];
+			final int k= fSizes[level];
+
+			// The records of both nodes and the separator in between, in order.
+			final long[] records= new long[MAX_RECORDS + 1 + k];
+			final long[] children= new long[MAX_RECORDS + 2 + k];
+			Chunk chunk= db.getChunk(left);
+			for (int i = 0; i < MAX_RECORDS; i++) {
+				records[i]= getRecord(chunk, left, i);
+				children[i]= getChild(chunk, left, i);
+			}
+			children[MAX_RECORDS]= getChild(chunk, left, MAX_RECORDS);
+			records[MAX_RECORDS]= getRecord(pChunk, parent, s);
+			chunk= db.getChunk(right);
+			for (int i = 0; i < k; i++) {
+				records[MAX_RECORDS + 1 + i]= getRecord(chunk, right, i);
+				children[MAX_RECORDS + 1 + i]= getChild(chunk, right, i);
+			}
+			children[MAX_RECORDS + 1 + k]= getChild(chunk, right, k);
+
+			final int leftSize= (MAX_RECORDS + k) / 2;
+			final int rightSize= MAX_RECORDS + k - leftSize;
+			chunk= db.getChunk(left);
+			for (int i = 0; i < MAX_RECORDS; i++) {
+				putRecord(chunk, left, i, i < leftSize ? records[i] : 0);
+				putChild(chunk, left, i + 1, i < leftSize ? children[i + 1] : 0);
+			}
+			putRecord(pChunk, parent, s, records[leftSize]);
+			chunk= db.getChunk(right);
+			for (int i = 0; i < rightSize; i++) {
+				putRecord(chunk, right, i, records[leftSize + 1 + i]);
+				putChild(chunk, right, i, children[leftSize + 1 + i]);
+			}
+			putChild(chunk, right, rightSize, children[leftSize + 1 + rightSize]);
+			fSizes[level]= rightSize;
+		}
+	}
+
+	/**
+	 * Sorts the records with the comparator of the tree. Records that are already in order
+	 * are detected with a single pass.
+	 */
+	private void sort(long[] records, int length) throws CoreException {
+		for (int i = 1; i < length; i++) {
+			if (cmp.compare(records[i - 1], records[i]) > 0) {
+				mergeSort(records, new long[length], 0, length);
+				return;
+			}
+		}
+	}
+
+	private void mergeSort(long[] a, long[] tmp, int from, int to) throws CoreException {
+		if (to - from < 2)
+			return;
+		int middle= (from + to) >>> 1;
+		mergeSort(a, tmp, from, middle);
+		mergeSort(a, tmp, middle, to);
+		if (cmp.compare(a[middle - 1], a[middle]) <= 0)
+			return;
+		System.arraycopy(a, from, tmp, from, to - from);
+		int i= from;
+		int j= middle;
+		for (int k = from; k < to; k++) {
+			if (j == to || (i < middle && cmp.compare(tmp[i], tmp[j]) <= 0)) {
+				a[k]= tmp[i++];
+			} else {
+				a[k]= tmp[j++];
+			}
+		}
+	}
+
 	/**
 	 * Deletes the specified record from the B-tree.
 	 * <p>
@@ -19,10 +19,12 @@ import java.nio.ByteBuffer;
 import org.eclipse.core.runtime.CoreException;
 
 /**
- * Caches the content of a piece of the database.
+ * Caches the content of a piece of the database. The content is stored in a heap or a direct
+ * buffer provided by the {@link ChunkCache}. The position of the buffer is never modified,
+ * operations that need a position work on a duplicate of the buffer.
  */
 final class Chunk {
-	final private byte[] fBuffer= new byte[Database.CHUNK_SIZE];
+	final ByteBuffer fBuffer;
 
 	final Database fDatabase;
 	final int fSequenceNumber;
@@ -30,26 +32,53 @@ final class Chunk {
 	boolean fCacheHitFlag;
 	boolean fDirty;
 	boolean fLocked;	// locked chunks must not be released from cache.
-	int fCacheIndex= -1;
+	boolean fJournaled;	// committed to the journal, but not yet written to the database file.
+	volatile int fCacheIndex= -1;  // Modified by the cache segment holding the chunk.
 		
 	Chunk(Database db, int sequenceNumber) {
+		this(db, sequenceNumber, ByteBuffer.allocate(Database.CHUNK_SIZE));
+	}
+
+	/**
+	 * Creates a chunk using the given zeroed buffer of size {@link Database#CHUNK_SIZE}.
+	 */
+	Chunk(Database db, int sequenceNumber, ByteBuffer buffer) {
 		fDatabase= db;
 		fSequenceNumber= sequenceNumber;
+		fBuffer= buffer;
 	}
 
 	void read() throws CoreException {
 		try {
-			final ByteBuffer buf= ByteBuffer.wrap(fBuffer);
-			fDatabase.read(buf, (long) fSequenceNumber * Database.CHUNK_SIZE);
+			fDatabase.read(fBuffer.duplicate(), (long) fSequenceNumber * Database.CHUNK_SIZE);
 		} catch (IOException e) {
 			throw new CoreException(new DBStatus(e));
 		}
 	}
 
+	/**
+	 * Fills the chunk with the next {@link Database#CHUNK_SIZE} bytes of the given buffer. If fewer
+	 * bytes remain, the rest of the chunk is left zeroed, as it is when reading beyond the end of
+	 * the file.
+	 */
+	void read(ByteBuffer src) {
+		final int length= Math.min(Database.CHUNK_SIZE, src.remaining());
+		final ByteBuffer part= src.slice();
+		part.limit(length);
+		fBuffer.duplicate().put(part);
+		src.position(src.position() + length);
+	}
+
+	/**
+	 * Copies the content of the chunk to the given buffer.
+	 */
+	void write(ByteBuffer dst) {
+		dst.put(fBuffer.duplicate());
+	}
+
 	void flush() throws CoreException {
 		try {
-			final ByteBuffer buf= ByteBuffer.wrap(fBuffer);
-			fDatabase.write(buf, (long) fSequenceNumber * Database.CHUNK_SIZE);
+			fDatabase.write(fBuffer.duplicate(), (long) fSequenceNumber * Database.CHUNK_SIZE);
 		} catch (IOException e) {
 			throw new CoreException(new DBStatus(e));
 		}
@@ -63,30 +92,27 @@ final class Chunk {
 	public void putByte(final long offset, final byte value) {
 		assert fLocked;
 		fDirty= true;
-		fBuffer[recPtrToIndex(offset)]= value;
+		fBuffer.put(recPtrToIndex(offset), value);
 	}
 	
 	public byte getByte(final long offset) {
-		return fBuffer[recPtrToIndex(offset)];
+		return fBuffer.get(recPtrToIndex(offset));
 	}
 	
 	public byte[] getBytes(final long offset, final int length) {
 		final byte[] bytes = new byte[length];
-		System.arraycopy(fBuffer, recPtrToIndex(offset), bytes, 0, length);
+		get(offset, bytes, 0, length);
 		return bytes;
 	}
 	
 	public void putBytes(final long offset, final byte[] bytes) {
-		assert fLocked;
-		fDirty= true;
-		System.arraycopy(bytes, 0, fBuffer, recPtrToIndex(offset), bytes.length);
+		put(offset, bytes, 0, bytes.length);
 	}
 	
 	public void putInt(final long offset, final int value) {
 		assert fLocked;
 		fDirty= true;
-		int idx= recPtrToIndex(offset);
-		putInt(value, fBuffer, idx);
+		fBuffer.putInt(recPtrToIndex(offset), value);
 	}
 
 	static final void putInt(final int value, final byte[] buffer, int idx) {
@@ -97,7 +123,7 @@ final class Chunk {
 	}
 	
 	public int getInt(final long offset) {
-		return getInt(fBuffer, recPtrToIndex(offset));
+		return fBuffer.getInt(recPtrToIndex(offset));
 	}
 
 	static final int getInt(final byte[] buffer, int idx) {
@@ -141,8 +167,8 @@ final class Chunk {
 	public void putRecPtr(final long offset, final long value) {
 		assert fLocked;
 		fDirty = true;
-		int idx = recPtrToIndex(offset);
-		Database.putRecPtr(value, fBuffer, idx);
+		final int denseValue = value == 0 ? 0 : compressFreeRecPtr(value - Database.BLOCK_HEADER_SIZE);
+		fBuffer.putInt(recPtrToIndex(offset), denseValue);
 	}
 	
 	/**
@@ -152,115 +178,81 @@ final class Chunk {
 	public void putFreeRecPtr(final long offset, final long value) {
 		assert fLocked;
 		fDirty = true;
-		int idx = recPtrToIndex(offset);
-		putInt(compressFreeRecPtr(value), fBuffer, idx);
+		fBuffer.putInt(recPtrToIndex(offset), compressFreeRecPtr(value));
 	}
 
 	public long getRecPtr(final long offset) {
-		final int idx = recPtrToIndex(offset);
-		return Database.getRecPtr(fBuffer, idx);
+		final long address = expandToFreeRecPtr(fBuffer.getInt(recPtrToIndex(offset)));
+		return address != 0 ? (address + Database.BLOCK_HEADER_SIZE) : address;
 	}
 	
 	public long getFreeRecPtr(final long offset) {
-		final int idx = recPtrToIndex(offset);
-		int value = getInt(fBuffer, idx);
-		return expandToFreeRecPtr(value);
+		return expandToFreeRecPtr(fBuffer.getInt(recPtrToIndex(offset)));
 	}
 	
 	public void put3ByteUnsignedInt(final long offset, final int value) {
 		assert fLocked;
 		fDirty= true;
 		int idx= recPtrToIndex(offset);
-		fBuffer[idx]= (byte) (value >> 16);
-		fBuffer[++idx]= (byte) (value >> 8);
-		fBuffer[++idx]= (byte) (value);
+		fBuffer.put(idx, (byte) (value >> 16));
+		fBuffer.putShort(idx + 1, (short) value);
 	}
 	
 	public int get3ByteUnsignedInt(final long offset) {
 		int idx= recPtrToIndex(offset);
-		return ((fBuffer[idx] & 0xff) << 16) |
-				((fBuffer[++idx] & 0xff) <<  8) |
-				((fBuffer[++idx] & 0xff) <<  0);
+		return ((fBuffer.get(idx) & 0xff) << 16) | (fBuffer.getShort(idx + 1) & 0xffff);
 	}
 
 	public void putShort(final long offset, final short value) {
 		assert fLocked;
 		fDirty= true;
-		int idx= recPtrToIndex(offset);
-		fBuffer[idx]= (byte) (value >> 8);
-		fBuffer[++idx]= (byte) (value);
+		fBuffer.putShort(recPtrToIndex(offset), value);
 	}
 	
 	public short getShort(final long offset) {
-		int idx= recPtrToIndex(offset);
-		return (short) (((fBuffer[idx] << 8) | (fBuffer[++idx] & 0xff)));
+		return fBuffer.getShort(recPtrToIndex(offset));
 	}
 
 	public long getLong(final long offset) {
-		int idx= recPtrToIndex(offset);
-		return ((((long) fBuffer[idx] & 0xff) << 56) |
-				(((long) fBuffer[++idx] & 0xff) << 48) |
-				(((long) fBuffer[++idx] & 0xff) << 40) |
-				(((long) fBuffer[++idx] & 0xff) << 32) |
-				(((long) fBuffer[++idx] & 0xff) << 24) |
-				(((long) fBuffer[++idx] & 0xff) << 16) |
-				(((long) fBuffer[++idx] & 0xff) <<  8) |
-				(((long) fBuffer[++idx] & 0xff) <<  0));
+		return fBuffer.getLong(recPtrToIndex(offset));
 	}
 
 	public void putLong(final long offset, final long value) {
 		assert fLocked;
 		fDirty= true;
-		int idx= recPtrToIndex(offset);
-
-		fBuffer[idx]=   (byte) (value >> 56);
-		fBuffer[++idx]= (byte) (value >> 48);
-		fBuffer[++idx]= (byte) (value >> 40);
-		fBuffer[++idx]= (byte) (value >> 32);
-		fBuffer[++idx]= (byte) (value >> 24);
-		fBuffer[++idx]= (byte) (value >> 16);
-		fBuffer[++idx]= (byte) (value >> 8);
-		fBuffer[++idx]= (byte) (value);
+		fBuffer.putLong(recPtrToIndex(offset), value);
 	}
 	
 	public void putChar(final long offset, final char value) {
 		assert fLocked;
 		fDirty= true;
-		int idx= recPtrToIndex(offset);
-		fBuffer[idx]= (byte) (value >> 8);
-		fBuffer[++idx]= (byte) (value);
+		fBuffer.putChar(recPtrToIndex(offset), value);
 	}
 	
 	public void putChars(final long offset, char[] chars, int start, int len) {
 		assert fLocked;
 		fDirty= true;
-		int idx= recPtrToIndex(offset)-1;
-		final int end= start + len;
-		for (int i = start; i < end; i++) {
-			char value= chars[i];
-			fBuffer[++idx]= (byte) (value >> 8);
-			fBuffer[++idx]= (byte) (value);
-		}
+		final ByteBuffer buf= fBuffer.duplicate();
+		buf.position(recPtrToIndex(offset));
+		buf.asCharBuffer().put(chars, start, len);
 	}
 
 	public void putCharsAsBytes(final long offset, char[] chars, int start, int len) {
 		assert fLocked;
 		fDirty= true;
-		int idx= recPtrToIndex(offset)-1;
+		int idx= recPtrToIndex(offset);
 		final int end= start + len;
 		for (int i = start; i < end; i++) {
-			char value= chars[i];
-			fBuffer[++idx]= (byte) (value);
+			fBuffer.put(idx++, (byte) chars[i]);
 		}
 	}
 
 	public char getChar(final long offset) {
-		int idx= recPtrToIndex(offset);
-		return (char) (((fBuffer[idx] << 8) | (fBuffer[++idx] & 0xff)));
+		return fBuffer.getChar(recPtrToIndex(offset));
 	}
 
 	public void getChars(final long offset, final char[] result, int start, int len) {
-		final ByteBuffer buf= ByteBuffer.wrap(fBuffer);
+		final ByteBuffer buf= fBuffer.duplicate();
 		buf.position(recPtrToIndex(offset));
 		buf.asCharBuffer().get(result, start, len);
 	}
@@ -268,7 +260,7 @@ final class Chunk {
 	public void getCharsFromBytes(final long offset, final char[] result, int start, int len) {
 		final int pos = recPtrToIndex(offset);
 		for (int i = 0; i < len; i++) {
-			result[start + i] =  (char) (fBuffer[pos + i] & 0xff);
+			result[start + i] =  (char) (fBuffer.get(pos + i) & 0xff);
 		}
 	}
 
@@ -278,7 +270,7 @@ final class Chunk {
 		int idx = recPtrToIndex(offset);
 		final int end = idx + length;
 		for (; idx < end; idx++) {
-			fBuffer[idx] = 0;
+			fBuffer.put(idx, (byte) 0);
 		}
 	}
 
@@ -289,8 +281,9 @@ final class Chunk {
 	void put(final long offset, final byte[] data, int dataPos, final int len) {
 		assert fLocked;
 		fDirty = true;
-		int idx = recPtrToIndex(offset);
-		System.arraycopy(data, dataPos, fBuffer, idx, len);
+		final ByteBuffer buf= fBuffer.duplicate();
+		buf.position(recPtrToIndex(offset));
+		buf.put(data, dataPos, len);
 	}
 	
 	public void get(final long offset, byte[] data) {
@@ -298,7 +291,8 @@ final class Chunk {
 	}
 
 	public void get(final long offset, byte[] data, int dataPos, int len) {
-		int idx = recPtrToIndex(offset);
-		System.arraycopy(fBuffer, idx, data, dataPos, len);
+		final ByteBuffer buf= fBuffer.duplicate();
+		buf.position(recPtrToIndex(offset));
+		buf.get(data, dataPos, len);
 	}
 }
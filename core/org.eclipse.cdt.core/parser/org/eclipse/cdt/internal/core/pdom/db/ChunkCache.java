@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007 Wind River Systems, Inc. and others.
+ * Copyright (c) 2007, 2015 Wind River Systems, Inc. and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -7,16 +7,44 @@
  *
  * Contributors:
  *     Markus Schorn - initial API and implementation
- *******************************************************************************/ 
+ *******************************************************************************/
 package org.eclipse.cdt.internal.core.pdom.db;
 
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of chunks shared by multiple databases. To allow for concurrent access by the readers
+ * of different databases the cache is split into segments, each of which is managed with the
+ * CLOCK algorithm and protected by its own monitor. A chunk is always stored in the same segment.
+ * <p>
+ * Lock ordering: a segment never calls back into a database while holding its monitor. Evicted
+ * chunks are handed back to their databases after the monitor of the segment has been released.
+ * <p>
+ * Optionally the content of the chunks is stored outside of the Java heap, in direct buffers that
+ * are carved out of larger slabs and recycled when the databases release their chunks. Large caches
+ * then neither count against the maximum heap size nor need to be traversed by the garbage collector.
+ * The shared instance stores chunks off-heap when the system property
+ * {@value #OFF_HEAP_PROPERTY} is set to <code>true</code>.
+ */
 public final class ChunkCache {
+	public static final String OFF_HEAP_PROPERTY= "org.eclipse.cdt.core.parser.pdom.offHeapChunkCache"; //$NON-NLS-1$
+	private static final int CHUNKS_PER_SLAB= 16;
+	private static final byte[] ZEROS= new byte[Database.CHUNK_SIZE];
+
 	private static ChunkCache sSharedInstance= new ChunkCache();
-	
-	private Chunk[] fPageTable;
-	private boolean fTableIsFull;
-	private int fPointer;
-	
+	static {
+		sSharedInstance.setOffHeap(Boolean.getBoolean(OFF_HEAP_PROPERTY));
+	}
+
+	private final Segment[] fSegments;
+	private final AtomicLong fEvictions= new AtomicLong();
+	private volatile long fMaxSize;
+	private volatile boolean fOffHeap;
+	private final ArrayDeque<ByteBuffer> fFreeBuffers= new ArrayDeque<>();  // Protected by itself.
+	private int fSlabs;  // Protected by fFreeBuffers.
+
 	public static ChunkCache getSharedInstance() {
 		return sSharedInstance;
 	}
@@ -24,116 +52,257 @@ public final class ChunkCache {
 	public ChunkCache() {
 		this(5 * 1024 * 1024);
 	}
-	
+
 	public ChunkCache(long maxSize) {
-		fPageTable= new Chunk[computeLength(maxSize)];
+		this(maxSize, Runtime.getRuntime().availableProcessors() * 2);
+	}
+
+	/**
+	 * Creates a cache that is split into (at least) the given number of segments.
+	 * @param maxSize the total size of the chunks in bytes.
+	 * @param concurrencyLevel the number of threads expected to access the cache concurrently.
+	 */
+	public ChunkCache(long maxSize, int concurrencyLevel) {
+		int nSegments= Integer.highestOneBit(Math.max(1, Math.min(concurrencyLevel, 64)) * 2 - 1);
+		fSegments= new Segment[nSegments];
+		for (int i= 0; i < nSegments; i++) {
+			fSegments[i]= new Segment();
+		}
+		setMaxSize(maxSize);
 	}
-	
-	public synchronized void add(Chunk chunk, boolean locked) {
+
+	public void add(Chunk chunk, boolean locked) {
 		if (locked) {
 			chunk.fLocked= true;
 		}
-		if (chunk.fCacheIndex >= 0) {
-			chunk.fCacheHitFlag= true;
-			return;
+		Chunk evicted= segmentFor(chunk).add(chunk);
+		if (evicted != null) {
+			release(evicted);
 		}
-		if (fTableIsFull) {
-			evictChunk();
-			chunk.fCacheIndex= fPointer;
-			fPageTable[fPointer]= chunk;
-		} else {
-			chunk.fCacheIndex= fPointer;
-			fPageTable[fPointer]= chunk;
-
-			fPointer++;
-			if (fPointer == fPageTable.length) {
-				fPointer= 0;
-				fTableIsFull= true;
+	}
+
+	public void remove(Chunk chunk) {
+		segmentFor(chunk).remove(chunk);
+	}
+
+	/**
+	 * Returns the maximum size of the chunk cache in bytes.
+	 */
+	public long getMaxSize() {
+		return fMaxSize;
+	}
+
+	/**
+	 * Clears the page table and changes it to hold chunks with
+	 * maximum total memory of <code>maxSize</code>.
+	 * @param maxSize the total size of the chunks in bytes.
+	 */
+	public void setMaxSize(long maxSize) {
+		final int nSegments= fSegments.length;
+		final long length= Math.max(nSegments, maxSize / Database.CHUNK_SIZE);
+		for (int i= 0; i < nSegments; i++) {
+			long segmentLength= length / nSegments + (i < length % nSegments ? 1 : 0);
+			for (Chunk evicted : fSegments[i].setLength((int) Math.min(segmentLength, Integer.MAX_VALUE))) {
+				release(evicted);
 			}
 		}
+		fMaxSize= length * Database.CHUNK_SIZE;
 	}
-	
-	/**                                                                   
-	 * Evicts a chunk from the page table and the chunk table.            
-	 * After this method returns, {@link #fPointer}  will contain
-	 * the index of the evicted chunk within the page table.              
-	 */                                                                   
-	private void evictChunk() {
-		/*
-		 * Use the CLOCK algorithm to determine which chunk to evict.
-		 * i.e., if the chunk in the current slot of the page table has been
-		 * recently referenced (i.e. the reference flag is set), unset the
-		 * reference flag and move to the next slot.  Otherwise, evict the
-		 * chunk in the current slot.
-		 */
-		while (true) {
-			Chunk chunk = fPageTable[fPointer];
-			if (chunk.fCacheHitFlag) {
-				chunk.fCacheHitFlag= false;
-				fPointer= (fPointer + 1) % fPageTable.length;
-			} else {
-				chunk.fDatabase.releaseChunk(chunk);
-				chunk.fCacheIndex= -1;
-				fPageTable[fPointer] = null;
-				return;
+
+	/**
+	 * Returns the number of chunks evicted from the cache since its creation.
+	 */
+	public long getEvictions() {
+		return fEvictions.get();
+	}
+
+	/**
+	 * Returns whether the content of new chunks is stored outside of the Java heap.
+	 */
+	public boolean isOffHeap() {
+		return fOffHeap;
+	}
+
+	/**
+	 * Specifies whether the content of new chunks shall be stored outside of the Java heap.
+	 * Chunks that are already in memory keep their storage.
+	 */
+	public void setOffHeap(boolean offHeap) {
+		fOffHeap= offHeap;
+		if (!offHeap) {
+			synchronized (fFreeBuffers) {
+				fFreeBuffers.clear();
+				fSlabs= 0;
 			}
 		}
 	}
 
-	public synchronized void remove(Chunk chunk) {
-		final int idx= chunk.fCacheIndex;
-		if (idx >= 0) {
-			if (fTableIsFull) {
-				fPointer= fPageTable.length-1;
-				fTableIsFull= false;
-			} else {
-				fPointer--;
+	/**
+	 * Returns a zeroed buffer for the content of a chunk.
+	 */
+	ByteBuffer allocateBuffer() {
+		if (fOffHeap) {
+			ByteBuffer buffer;
+			synchronized (fFreeBuffers) {
+				buffer= fFreeBuffers.poll();
+				if (buffer == null) {
+					// Buffers of released chunks are recycled only after the readers of their
+					// database are done, the limit for the direct memory leaves room for that.
+					if (fSlabs >= 2 * (fMaxSize / Database.CHUNK_SIZE) / CHUNKS_PER_SLAB + 1) {
+						return ByteBuffer.allocate(Database.CHUNK_SIZE);
+					}
+					try {
+						final ByteBuffer slab= ByteBuffer.allocateDirect(CHUNKS_PER_SLAB * Database.CHUNK_SIZE);
+						for (int i= 0; i < CHUNKS_PER_SLAB; i++) {
+							slab.limit((i + 1) * Database.CHUNK_SIZE);
+							slab.position(i * Database.CHUNK_SIZE);
+							fFreeBuffers.add(slab.slice());
+						}
+						fSlabs++;
+						// Slabs are zeroed on allocation.
+						return fFreeBuffers.poll();
+					} catch (OutOfMemoryError e) {
+						// The direct memory is exhausted, fall back to the heap.
+						return ByteBuffer.allocate(Database.CHUNK_SIZE);
+					}
+				}
 			}
-			chunk.fCacheIndex= -1;
-			final Chunk move= fPageTable[fPointer];
-			fPageTable[idx]= move;
-			move.fCacheIndex= idx;
-			fPageTable[fPointer]= null;
-		}	
+			buffer.duplicate().put(ZEROS);
+			return buffer;
+		}
+		return ByteBuffer.allocate(Database.CHUNK_SIZE);
 	}
 
-	/**                                                                           
-	 * Returns the maximum size of the chunk cache in bytes.
-	 */                                                                           
-	public synchronized long getMaxSize() {
-		return (long) fPageTable.length * Database.CHUNK_SIZE;
+	/**
+	 * Makes the buffer of a chunk available for reuse. The caller has to make sure that the buffer
+	 * is no longer accessed through the chunk.
+	 */
+	void recycleBuffer(ByteBuffer buffer) {
+		if (buffer.isDirect() && fOffHeap) {
+			synchronized (fFreeBuffers) {
+				fFreeBuffers.add(buffer);
+			}
+		}
 	}
 
-	/**                                                                           
-	 * Clears the page table and changes it to hold chunks with
-	 * maximum total memory of <code>maxSize</code>.       
-	 * @param maxSize the total size of the chunks in bytes.                
-	 */                                                                           
-	public synchronized void setMaxSize(long maxSize) {
-		final int newLength= computeLength(maxSize);
-		final int oldLength= fTableIsFull ? fPageTable.length : fPointer;
-		if (newLength > oldLength) {
-			Chunk[] newTable= new Chunk[newLength];
-			System.arraycopy(fPageTable, 0, newTable, 0, oldLength);
-			fTableIsFull= false;
-			fPointer= oldLength;
-			fPageTable= newTable;
-		} else {
+	private void release(Chunk evicted) {
+		fEvictions.incrementAndGet();
+		evicted.fDatabase.releaseChunk(evicted);
+	}
+
+	private Segment segmentFor(Chunk chunk) {
+		int h= chunk.fSequenceNumber * 31 + System.identityHashCode(chunk.fDatabase);
+		// Spread the bits, consecutive chunks of the same database shall land in different segments.
+		h^= (h >>> 16);
+		h*= 0x85ebca6b;
+		h^= (h >>> 13);
+		return fSegments[h & (fSegments.length - 1)];
+	}
+
+	/**
+	 * Page table for a part of the cache, managed with the CLOCK algorithm.
+	 */
+	private static final class Segment {
+		private Chunk[] fPageTable= new Chunk[1];
+		private boolean fTableIsFull;
+		private int fPointer;
+
+		/**
+		 * Adds the chunk to the page table and returns the chunk that was evicted to make room
+		 * for it, or <code>null</code>.
+		 */
+		synchronized Chunk add(Chunk chunk) {
+			if (chunk.fCacheIndex >= 0) {
+				chunk.fCacheHitFlag= true;
+				return null;
+			}
+			Chunk evicted= null;
+			if (fTableIsFull) {
+				evicted= evictChunk();
+				chunk.fCacheIndex= fPointer;
+				fPageTable[fPointer]= chunk;
+				// Advance the hand, otherwise the chunk just added would be the next victim.
+				fPointer= (fPointer + 1) % fPageTable.length;
+			} else {
+				chunk.fCacheIndex= fPointer;
+				fPageTable[fPointer]= chunk;
+
+				fPointer++;
+				if (fPointer == fPageTable.length) {
+					fPointer= 0;
+					fTableIsFull= true;
+				}
+			}
+			return evicted;
+		}
+
+		/**
+		 * Evicts a chunk from the page table. After this method returns, {@link #fPointer} will
+		 * contain the index of the evicted chunk within the page table.
+		 */
+		private Chunk evictChunk() {
+			/*
+			 * Use the CLOCK algorithm to determine which chunk to evict.
+			 * i.e., if the chunk in the current slot of the page table has been
+			 * recently referenced (i.e. the reference flag is set), unset the
+			 * reference flag and move to the next slot.  Otherwise, evict the
+			 * chunk in the current slot.
+			 */
+			while (true) {
+				Chunk chunk = fPageTable[fPointer];
+				if (chunk.fCacheHitFlag) {
+					chunk.fCacheHitFlag= false;
+					fPointer= (fPointer + 1) % fPageTable.length;
+				} else {
+					chunk.fCacheIndex= -1;
+					fPageTable[fPointer] = null;
+					return chunk;
+				}
+			}
+		}
+
+		synchronized void remove(Chunk chunk) {
+			final int idx= chunk.fCacheIndex;
+			if (idx >= 0) {
+				if (fTableIsFull) {
+					fPointer= fPageTable.length - 1;
+					fTableIsFull= false;
+				} else {
+					fPointer--;
+				}
+				chunk.fCacheIndex= -1;
+				final Chunk move= fPageTable[fPointer];
+				fPageTable[idx]= move;
+				move.fCacheIndex= idx;
+				fPageTable[fPointer]= null;
+			}
+		}
+
+		/**
+		 * Changes the length of the page table and returns the chunks that no longer fit.
+		 */
+		synchronized Chunk[] setLength(int newLength) {
+			final int oldLength= fTableIsFull ? fPageTable.length : fPointer;
+			if (newLength > oldLength) {
+				Chunk[] newTable= new Chunk[newLength];
+				System.arraycopy(fPageTable, 0, newTable, 0, oldLength);
+				fTableIsFull= false;
+				fPointer= oldLength;
+				fPageTable= newTable;
+				return new Chunk[0];
+			}
+			Chunk[] evicted= new Chunk[oldLength - newLength];
 			for (int i= newLength; i < oldLength; i++) {
 				final Chunk chunk= fPageTable[i];
-				chunk.fDatabase.releaseChunk(chunk);
 				chunk.fCacheIndex= -1;
+				evicted[i - newLength]= chunk;
 			}
 			Chunk[] newTable= new Chunk[newLength];
 			System.arraycopy(fPageTable, 0, newTable, 0, newLength);
 			fTableIsFull= true;
 			fPointer= 0;
 			fPageTable= newTable;
-		}       
-	}                                                                             
-
-	private int computeLength(long maxSize) {
-		long maxLength= Math.min(maxSize / Database.CHUNK_SIZE, Integer.MAX_VALUE);
-		return Math.max(1, (int) maxLength);
+			return evicted;
+		}
 	}
 }
@@ -18,11 +18,19 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
 import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
 import java.nio.channels.ClosedByInterruptException;
 import java.nio.channels.ClosedChannelException;
 import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
 import java.util.ArrayList;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
 
 import org.eclipse.cdt.core.CCorePlugin;
 import org.eclipse.core.runtime.CoreException;
@@ -59,20 +67,32 @@ import com.ibm.icu.text.MessageFormat;
  *
  * offset            content
  * 	                 _____________________________
- * 0                | size of block (negative indicates in use, positive unused) (2 bytes)
+ * 0                | size of block in units of BLOCK_SIZE_DELTA (negative indicates in use,
+ *                  | positive unused) (2 bytes)
  * PREV_OFFSET      | pointer to previous block (of same size) (only in free blocks)
  * NEXT_OFFSET      | pointer to next block (of same size) (only in free blocks)
  *
+ * ===== journal
+ *
+ * When journaling is enabled, the chunks modified between two complete flushes are appended to
+ * a journal file next to the database as a single record. The chunks are written to the database
+ * file later, with a checkpoint that empties the journal. A record consists of:
+ *
+ * 0                | JOURNAL_MAGIC (4 bytes)
+ * 4                | number of chunks n (4 bytes)
+ * 8                | n times: sequence number of the chunk (4 bytes), content of the chunk (CHUNK_SIZE)
+ * 8 + n * (4 + CHUNK_SIZE) | CRC32 checksum of all of the above (8 bytes)
+ *
  */
 public class Database {
 	// Public for tests only, you shouldn't need these.
 	public static final int INT_SIZE = 4;
-	public static final int CHUNK_SIZE = 1024 * 4;
+	public static final int CHUNK_SIZE = 1024 * 64;
 	public static final int OFFSET_IN_CHUNK_MASK= CHUNK_SIZE - 1;
 	public static final int BLOCK_HEADER_SIZE= 2;
-	public static final int BLOCK_SIZE_DELTA_BITS = 3;
+	public static final int BLOCK_SIZE_DELTA_BITS = 4;
 	public static final int BLOCK_SIZE_DELTA= 1 << BLOCK_SIZE_DELTA_BITS;
-	public static final int MIN_BLOCK_DELTAS = 2;	// a block must at least be 2 + 2*4 bytes to link the free blocks.
+	public static final int MIN_BLOCK_DELTAS = 1;	// a block must at least be 2 + 2*4 bytes to link the free blocks.
 	public static final int MAX_BLOCK_DELTAS = CHUNK_SIZE / BLOCK_SIZE_DELTA;
 	public static final int MAX_MALLOC_SIZE = MAX_BLOCK_DELTAS * BLOCK_SIZE_DELTA - BLOCK_HEADER_SIZE;
 	public static final int PTR_SIZE = 4;  // size of a pointer in the database in bytes
@@ -82,6 +102,8 @@ public class Database {
 	public static final int VALUE_SIZE = 1 + PTR_SIZE;  // size of a value in the database in bytes
 	public static final int EVALUATION_SIZE = TYPE_SIZE;  // size of an evaluation in the database in bytes
 	public static final int ARGUMENT_SIZE = TYPE_SIZE;  // size of a template argument in the database in bytes
+	// Record pointers are stored in PTR_SIZE bytes, in units of BLOCK_SIZE_DELTA, such that they
+	// address 2^32 blocks of 16 bytes, i.e. 64GB.
 	public static final long MAX_DB_SIZE= ((long) 1 << (Integer.SIZE + BLOCK_SIZE_DELTA_BITS));
 
 	public static final int VERSION_OFFSET = 0;
@@ -90,12 +112,38 @@ public class Database {
 	private static final int BLOCK_PREV_OFFSET = BLOCK_HEADER_SIZE;
 	private static final int BLOCK_NEXT_OFFSET = BLOCK_HEADER_SIZE + INT_SIZE;
 
+	// Maximum number of consecutive chunks read with a single operation on sequential access.
+	private static final int READ_AHEAD_CHUNKS = 4;
+	// Size of the windows used to map the file in memory mapped mode, must be a multiple of CHUNK_SIZE.
+	private static final long MAPPING_SIZE = 64L * 1024 * 1024;
+
+	private static final String JOURNAL_SUFFIX = ".journal"; //$NON-NLS-1$
+	private static final int JOURNAL_MAGIC = 0x4A524E4C;
+	private static final int JOURNAL_RECORD_OVERHEAD = 2 * INT_SIZE + 8;
+	private static final int JOURNAL_ENTRY_SIZE = INT_SIZE + CHUNK_SIZE;
+	// Commits within this interval share a single sync of the journal to the disk (group commit).
+	// A commit is synced no later than this interval after it was written to the journal.
+	private static final long JOURNAL_SYNC_INTERVAL = 1000;
+	// A checkpoint is performed when either of the limits is exceeded.
+	private static final int JOURNAL_MAX_PENDING_CHUNKS = 64;
+	private static final long JOURNAL_MAX_SIZE = 32L * 1024 * 1024;
+
 	private final File fLocation;
 	private final boolean fReadOnly;
 	private RandomAccessFile fFile;
 	private boolean fExclusiveLock;	 // Necessary for any write operation.
 	private boolean fLocked;		 // Necessary for any operation.
 	private boolean fIsMarkedIncomplete;
+	private volatile boolean fMemoryMapped;
+	private MappedByteBuffer[] fMappings;  // Protected by fMappingLock.
+	// Readers of a mapping hold the read lock, such that a mapping can be unmapped under the write lock.
+	private final ReentrantReadWriteLock fMappingLock= new ReentrantReadWriteLock();
+	private RandomAccessFile fJournal;	 // Non-null when journaling is enabled.
+	private long fJournalSize;
+	private long fLastJournalSync;
+	private TimerTask fJournalSyncTask;  // Protected by fHeaderChunk.
+	// Chunks committed to the journal but not yet to the database file, protected by fHeaderChunk.
+	private final ArrayList<Chunk> fJournaledChunks= new ArrayList<>();
 
 	private int fVersion;
 	private final Chunk fHeaderChunk;
@@ -103,11 +151,16 @@ public class Database {
 	private int fChunksUsed;
 	private int fChunksAllocated;
 	private ChunkCache fCache;
+	private final Object fChunkLock= new Object();  // Protects fChunks and the state of the chunks.
+	private int fLastMissedChunk= -2;  // Protected by fChunkLock.
+	// Off-heap buffers of released chunks that may still be accessed by readers, protected by fChunkLock.
+	private final ArrayList<ByteBuffer> fPendingBuffers= new ArrayList<>();
 
 	private long malloced;
 	private long freed;
 	private long cacheHits;
 	private long cacheMisses;
+	private long cacheEvictions;
 
 	/**
 	 * Construct a new Database object, creating a backing file if necessary.
@@ -123,11 +176,17 @@ public class Database {
 			fReadOnly= openReadOnly;
 			fCache= cache;
 			openFile();
+			if (!openReadOnly) {
+				recoverFromJournal();
+			}
 
-			int nChunksOnDisk = (int) (fFile.length() / CHUNK_SIZE);
+			final long length= fFile.length();
+			// A database of an older format may be smaller than a chunk, its version is read anyway
+			// such that it is recognized as unsupported rather than taken for an empty database.
+			int nChunksOnDisk = (int) Math.max(1, (length + CHUNK_SIZE - 1) / CHUNK_SIZE);
 			fHeaderChunk= new Chunk(this, 0);
 			fHeaderChunk.fLocked= true;		// Never makes it into the cache, needed to satisfy assertions.
-			if (nChunksOnDisk <= 0) {
+			if (length <= 0) {
 				fVersion= version;
 				fChunks= new Chunk[1];
 				fChunksUsed = fChunksAllocated = fChunks.length;
@@ -146,11 +205,120 @@ public class Database {
 		fFile = new RandomAccessFile(fLocation, fReadOnly ? "r" : "rw"); //$NON-NLS-1$ //$NON-NLS-2$
 	}
 
+	private File getJournalLocation() {
+		return new File(fLocation.getPath() + JOURNAL_SUFFIX);
+	}
+
+	/**
+	 * Applies the complete records of a journal left behind by a database that was not closed
+	 * properly. A record that was not completely written is discarded together with the ones
+	 * following it.
+	 */
+	private void recoverFromJournal() throws IOException {
+		final File journalLocation= getJournalLocation();
+		if (!journalLocation.exists())
+			return;
+
+		if (fFile.length() > 0) {
+			try (RandomAccessFile journal= new RandomAccessFile(journalLocation, "r")) { //$NON-NLS-1$
+				final FileChannel channel= journal.getChannel();
+				final long size= channel.size();
+				final ByteBuffer header= ByteBuffer.allocate(2 * INT_SIZE);
+				long position= 0;
+				boolean modified= false;
+				while (position + JOURNAL_RECORD_OVERHEAD <= size) {
+					header.clear();
+					channel.read(header, position);
+					header.flip();
+					if (header.getInt() != JOURNAL_MAGIC)
+						break;
+					final long n= header.getInt();
+					final long length= JOURNAL_RECORD_OVERHEAD + n * JOURNAL_ENTRY_SIZE;
+					if (n < 0 || position + length > size)
+						break;
+					final ByteBuffer record= ByteBuffer.allocate((int) length);
+					while (record.hasRemaining() && channel.read(record, position + record.position()) >= 0) {
+					}
+					final CRC32 crc= new CRC32();
+					crc.update(record.array(), 0, (int) length - 8);
+					record.position((int) length - 8);
+					if (record.getLong() != crc.getValue())
+						break;
+
+					record.position(2 * INT_SIZE);
+					for (int i= 0; i < n; i++) {
+						final long chunkPosition= (long) record.getInt() * CHUNK_SIZE;
+						record.limit(record.position() + CHUNK_SIZE);
+						write(record, chunkPosition);
+						record.limit((int) length);
+					}
+					modified= true;
+					position+= length;
+				}
+				if (modified) {
+					fFile.getChannel().force(false);
+				}
+			}
+		}
+		if (!journalLocation.delete()) {
+			throw new IOException("Cannot delete " + journalLocation); //$NON-NLS-1$
+		}
+	}
+
+	/**
+	 * Enables or disables journaling. With journaling, the chunks modified by a complete flush are
+	 * appended to a journal file with a single write and only later written to the database file.
+	 * Until then they are kept in memory. The journal is synchronized to the disk at most once a
+	 * second, such that a series of quick updates shares a single sync. A flush that is not synced
+	 * right away is synced by a timer within a second. Should the process terminate before
+	 * the database is closed, the journal is applied when the database is opened the next time,
+	 * such that the database reflects the state of the last synced flush rather than being marked
+	 * as incomplete.
+	 * @param value whether to use a journal.
+	 */
+	public void setJournaled(boolean value) throws CoreException {
+		assert !fReadOnly || !value;
+		synchronized (fHeaderChunk) {
+			if (value == (fJournal != null))
+				return;
+			try {
+				if (value) {
+					if (fFile.length() == 0) {
+						// The journal is only applied to an existing file, see recoverFromJournal().
+						fFile.getChannel().write(ByteBuffer.wrap(new byte[INT_SIZE]), 0);
+						fIsMarkedIncomplete= true;
+					}
+					fJournal= new RandomAccessFile(getJournalLocation(), "rw"); //$NON-NLS-1$
+					fJournal.setLength(0);
+					fJournalSize= 0;
+					fLastJournalSync= System.currentTimeMillis();
+				} else {
+					checkpoint();
+					closeJournal();
+				}
+			} catch (IOException e) {
+				throw new CoreException(new DBStatus(e));
+			}
+		}
+	}
+
+	public boolean isJournaled() {
+		return fJournal != null;
+	}
+
 	void read(ByteBuffer buf, long position) throws IOException {
+		if (fMemoryMapped && readMapped(buf, position)) {
+			return;
+		}
 		int retries= 0;
 		do {
 			try {
-				fFile.getChannel().read(buf, position);
+				// A single read may return less than requested, continue until the buffer is full
+				// or the end of the file is reached.
+				final int start= buf.position();
+				final FileChannel channel= fFile.getChannel();
+				while (buf.hasRemaining() && channel.read(buf, position + buf.position() - start) >= 0) {
+				}
 				return;
 			} catch (ClosedChannelException e) {
 				// Bug 219834 file may have be closed by interrupting a thread during an I/O operation.
@@ -172,6 +340,162 @@ public class Database {
 		}
 	}
 
+	/**
+	 * Copies the requested range from a memory mapped window of the file. Returns {@code false}
+	 * if the range is not (yet) part of the file on disk, in which case the caller has to fall back
+	 * to reading from the channel.
+	 */
+	private boolean readMapped(ByteBuffer buf, long position) throws IOException {
+		final int length= buf.remaining();
+		final int index= (int) (position / MAPPING_SIZE);
+		final int offset= (int) (position % MAPPING_SIZE);
+		if (offset + length > MAPPING_SIZE) {
+			return false;
+		}
+		while (true) {
+			fMappingLock.readLock().lock();
+			try {
+				final MappedByteBuffer mapping= findMapping(index, offset + length);
+				if (mapping != null) {
+					// The mapping is shared between threads, use a private view of it.
+					final ByteBuffer view= mapping.duplicate();
+					view.limit(offset + length);
+					view.position(offset);
+					buf.put(view);
+					return true;
+				}
+			} finally {
+				fMappingLock.readLock().unlock();
+			}
+			if (!createMapping(index, offset + length)) {
+				return false;
+			}
+		}
+	}
+
+	/**
+	 * Returns the mapped window with the given index, provided it covers at least
+	 * <code>minLength</code> bytes, or <code>null</code>.
+	 */
+	private MappedByteBuffer findMapping(int index, int minLength) {
+		if (fMappings == null || index >= fMappings.length) {
+			return null;
+		}
+		final MappedByteBuffer mapping= fMappings[index];
+		return mapping != null && mapping.capacity() >= minLength ? mapping : null;
+	}
+
+	/**
+	 * Maps the window with the given index, such that it covers at least <code>minLength</code>
+	 * bytes. Windows at the end of the file are remapped as the file grows. Returns
+	 * <code>false</code> if the file is not large enough or cannot be mapped.
+	 */
+	private boolean createMapping(int index, int minLength) throws IOException {
+		fMappingLock.writeLock().lock();
+		try {
+			if (!fMemoryMapped) {
+				return false;
+			}
+			if (findMapping(index, minLength) != null) {
+				return true;
+			}
+			final long start= index * MAPPING_SIZE;
+			final MappedByteBuffer mapping;
+			try {
+				final long size= Math.min(MAPPING_SIZE, fFile.getChannel().size() - start);
+				if (size < minLength) {
+					return false;
+				}
+				// Writes through the channel are visible in a mapping of the same file, therefore
+				// a read-only mapping can be used for writable databases, too.
+				mapping= fFile.getChannel().map(MapMode.READ_ONLY, start, size);
+			} catch (ClosedChannelException e) {
+				// Let the channel based read handle reopening of the file.
+				return false;
+			}
+			if (fMappings == null) {
+				fMappings= new MappedByteBuffer[index + 1];
+			} else if (index >= fMappings.length) {
+				MappedByteBuffer[] newMappings= new MappedByteBuffer[index + 1];
+				System.arraycopy(fMappings, 0, newMappings, 0, fMappings.length);
+				fMappings= newMappings;
+			} else if (fMappings[index] != null) {
+				unmap(fMappings[index]);
+			}
+			fMappings[index]= mapping;
+			return true;
+		} finally {
+			fMappingLock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Unmaps all windows of the file. Must be called before the file is truncated or closed,
+	 * a mapped region prevents truncating, deleting or renaming the file on Windows.
+	 */
+	private void disposeMappings() {
+		fMappingLock.writeLock().lock();
+		try {
+			if (fMappings != null) {
+				for (MappedByteBuffer mapping : fMappings) {
+					if (mapping != null) {
+						unmap(mapping);
+					}
+				}
+				fMappings= null;
+			}
+		} finally {
+			fMappingLock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Releases a mapping without waiting for the garbage collector. There is no public API for
+	 * this, if neither of the known internal APIs is available the mapping is released by the
+	 * garbage collector. The caller must make sure that the buffer is no longer accessed.
+	 */
+	private static void unmap(MappedByteBuffer mapping) {
+		try {
+			// Java 9 and later.
+			final Class<?> unsafeClass= Class.forName("sun.misc.Unsafe"); //$NON-NLS-1$
+			final Method invokeCleaner= unsafeClass.getMethod("invokeCleaner", ByteBuffer.class); //$NON-NLS-1$
+			final Field theUnsafe= unsafeClass.getDeclaredField("theUnsafe"); //$NON-NLS-1$
+			theUnsafe.setAccessible(true);
+			invokeCleaner.invoke(theUnsafe.get(null), mapping);
+			return;
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			// Fall back to the API of Java 8.
+		}
+		try {
+			final Method cleanerMethod= mapping.getClass().getMethod("cleaner"); //$NON-NLS-1$
+			cleanerMethod.setAccessible(true);
+			final Object cleaner= cleanerMethod.invoke(mapping);
+			if (cleaner != null) {
+				cleaner.getClass().getMethod("clean").invoke(cleaner); //$NON-NLS-1$
+			}
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			// The mapping is released by the garbage collector.
+		}
+	}
+
+	/**
+	 * Selects whether chunks are read from memory mapped windows of the file rather than through
+	 * explicit reads of the file channel. In memory mapped mode the operating system's page cache
+	 * takes over much of the caching of the database content, such that a cache miss in the
+	 * {@link ChunkCache} no longer costs a system call. Writing is not affected by this setting.
+	 * @param value whether to use memory mapped I/O.
+	 */
+	public void setMemoryMapped(boolean value) {
+		fMemoryMapped= value;
+		if (!value) {
+			disposeMappings();
+		}
+	}
+
+	public boolean isMemoryMapped() {
+		return fMemoryMapped;
+	}
+
 	private void reopen(ClosedChannelException e, int attempt) throws ClosedChannelException, FileNotFoundException {
 		// Only if the current thread was not interrupted we try to reopen the file.
 		if (e instanceof ClosedByInterruptException || attempt >= 20) {
@@ -182,6 +506,15 @@ public class Database {
 
 	public void transferTo(FileChannel target) throws IOException {
 		assert fLocked;
+		synchronized (fHeaderChunk) {
+			if (!fJournaledChunks.isEmpty()) {
+				try {
+					checkpoint();
+				} catch (CoreException e) {
+					throw new IOException(e);
+				}
+			}
+		}
         final FileChannel from= fFile.getChannel();
         long nRead = 0;
         long position = 0;
@@ -220,7 +553,14 @@ public class Database {
 		// Chunks have been removed from the cache, so we may just reset the array of chunks.
 		fChunks = new Chunk[] {null};
 		fChunksUsed = fChunksAllocated = fChunks.length;
+		disposeMappings();
 		try {
+			synchronized (fHeaderChunk) {
+				// The content of the journal is obsolete.
+				fHeaderChunk.fJournaled= false;
+				fJournaledChunks.clear();
+				truncateJournal();
+			}
 			fHeaderChunk.flush();	// Zero out header chunk.
 			fFile.getChannel().truncate(CHUNK_SIZE);	// Truncate database.
 		} catch (IOException e) {
@@ -232,8 +572,8 @@ public class Database {
 		 * This will set aside the specified number of chunks.
 		 * Nothing uses these chunks so subsequent allocations come after these fillers.
 		 * The special function createNewChunks allocates all of these chunks at once.
-		 * 524288 for a file starting at 2G
-		 * 8388608 for a file starting at 32G
+		 * 32768 for a file starting at 2G
+		 * 524288 for a file starting at 32G
 		 *
 		 */
 		long setasideChunks = Long.getLong("org.eclipse.cdt.core.parser.pdom.dense.recptr.setaside.chunks", 0); //$NON-NLS-1$
@@ -245,12 +585,13 @@ public class Database {
 	}
 
 	private void removeChunksFromCache() {
-		synchronized (fCache) {
+		synchronized (fChunkLock) {
 			for (int i= 1; i < fChunks.length; i++) {
 				Chunk chunk= fChunks[i];
 				if (chunk != null) {
 					fCache.remove(chunk);
 					fChunks[i]= null;
+					releaseBuffer(chunk);
 				}
 			}
 		}
@@ -267,23 +608,81 @@ public class Database {
 		long long_index = offset / CHUNK_SIZE;
 		assert long_index < Integer.MAX_VALUE;
 
-		synchronized (fCache) {
+		final Chunk chunk;
+		final boolean exclusive;
+		Chunk[] readAhead= null;
+		synchronized (fChunkLock) {
 			assert fLocked;
 			final int index = (int) long_index;
 			if (index < 0 || index >= fChunks.length) {
 				databaseCorruptionDetected();
 			}
-			Chunk chunk= fChunks[index];
-			if (chunk == null) {
+			Chunk c= fChunks[index];
+			if (c == null) {
 				cacheMisses++;
-				chunk = fChunks[index] = new Chunk(this, index);
-				chunk.read();
+				if (index == fLastMissedChunk + 1 && !fMemoryMapped) {
+					readAhead= readChunks(index);
+					c= readAhead[0];
+					fLastMissedChunk= index + readAhead.length - 1;
+				} else {
+					c = newChunk(index);
+					c.read();
+					fChunks[index]= c;
+					fLastMissedChunk= index;
+				}
 			} else {
 				cacheHits++;
 			}
-			fCache.add(chunk, fExclusiveLock);
-			return chunk;
+			exclusive= fExclusiveLock;
+			if (exclusive) {
+				// Prevents the chunk from being released before it is added to the cache.
+				c.fLocked= true;
+			}
+			chunk= c;
+		}
+		// Adding a chunk may evict chunks of other databases, which requires their locks.
+		if (readAhead != null) {
+			// Add the chunks that were read ahead first, such that they are evicted before the
+			// chunk that was actually requested.
+			for (int i= readAhead.length; --i > 0;) {
+				fCache.add(readAhead[i], false);
+			}
+		}
+		fCache.add(chunk, exclusive);
+		return chunk;
+	}
+
+	/**
+	 * Reads the chunk with the given index together with the consecutive chunks that are not
+	 * in memory, up to {@link #READ_AHEAD_CHUNKS} in total, with a single read operation.
+	 * Used for sequential access patterns, e.g. long strings or freshly imported databases.
+	 * @return the chunks that have been read, the requested one first.
+	 */
+	private Chunk[] readChunks(int index) throws CoreException {
+		assert Thread.holdsLock(fChunkLock);
+		int count= 1;
+		final int limit= Math.min(fChunksUsed, index + READ_AHEAD_CHUNKS);
+		while (index + count < limit && fChunks[index + count] == null) {
+			count++;
+		}
+		final Chunk[] chunks= new Chunk[count];
+		try {
+			final ByteBuffer buf= ByteBuffer.allocate(count * CHUNK_SIZE);
+			read(buf, (long) index * CHUNK_SIZE);
+			buf.flip();
+			for (int i= 0; i < count; i++) {
+				final Chunk chunk= newChunk(index + i);
+				chunk.read(buf);
+				chunks[i]= chunk;
+			}
+		} catch (IOException e) {
+			throw new CoreException(new DBStatus(e));
 		}
+		// Publish the chunks only after all of them have been read successfully.
+		for (Chunk chunk : chunks) {
+			fChunks[chunk.fSequenceNumber]= chunk;
+		}
+		return chunks;
 	}
 
 	private void databaseCorruptionDetected() throws CoreException {
@@ -334,7 +733,7 @@ public class Database {
 
 		// Make our size negative to show in use.
 		final int usedSize= useDeltas * BLOCK_SIZE_DELTA;
-		chunk.putShort(freeblock, (short) -usedSize);
+		chunk.putShort(freeblock, (short) -useDeltas);
 
 		// Clear out the block, lots of people are expecting this.
 		chunk.clear(freeblock + BLOCK_HEADER_SIZE, usedSize - BLOCK_HEADER_SIZE);
@@ -345,11 +744,14 @@ public class Database {
 
 	private long createNewChunk() throws CoreException {
 		assert fExclusiveLock;
-		synchronized (fCache) {
+		final Chunk chunk;
+		final long address;
+		synchronized (fChunkLock) {
 			final int newChunkIndex = fChunksUsed; // fChunks.length;
 
-			final Chunk chunk = new Chunk(this, newChunkIndex);
+			chunk = newChunk(newChunkIndex);
 			chunk.fDirty = true;
+			chunk.fLocked = true;
 
 			if (newChunkIndex >= fChunksAllocated) {
 				int increment = Math.max(1024, fChunksAllocated / 20);
@@ -361,24 +763,23 @@ public class Database {
 			}
 			fChunksUsed += 1;
 			fChunks[newChunkIndex] = chunk;
+			address = (long) newChunkIndex * CHUNK_SIZE;
+		}
+		fCache.add(chunk, true);
 
-			fCache.add(chunk, true);
-			long address = (long) newChunkIndex * CHUNK_SIZE;
-
-			/*
-			 * Non-dense pointers are at most 31 bits dense pointers are at most 35 bits Check the sizes here
-			 * and throw an exception if the address is too large. By throwing the CoreException with the
-			 * special status, the indexing operation should be stopped. This is desired since generally, once
-			 * the max size is exceeded, there are lots of errors.
-			 */
-			if (address >= MAX_DB_SIZE) {
-				Object bindings[] = { this.getLocation().getAbsolutePath(), MAX_DB_SIZE };
-				throw new CoreException(new Status(IStatus.ERROR, CCorePlugin.PLUGIN_ID,
-						CCorePlugin.STATUS_PDOM_TOO_LARGE, NLS.bind(
-								CCorePlugin.getResourceString("pdom.DatabaseTooLarge"), bindings), null)); //$NON-NLS-1$
-			}
-			return address;
+		/*
+		 * Non-dense pointers are at most 31 bits dense pointers are at most 36 bits Check the sizes here
+		 * and throw an exception if the address is too large. By throwing the CoreException with the
+		 * special status, the indexing operation should be stopped. This is desired since generally, once
+		 * the max size is exceeded, there are lots of errors.
+		 */
+		if (address >= MAX_DB_SIZE) {
+			Object bindings[] = { this.getLocation().getAbsolutePath(), MAX_DB_SIZE };
+			throw new CoreException(new Status(IStatus.ERROR, CCorePlugin.PLUGIN_ID,
+					CCorePlugin.STATUS_PDOM_TOO_LARGE, NLS.bind(
+							CCorePlugin.getResourceString("pdom.DatabaseTooLarge"), bindings), null)); //$NON-NLS-1$
 		}
+		return address;
 	}
 
 	/**
@@ -386,22 +787,24 @@ public class Database {
 	 */
 	private long createNewChunks(int numChunks) throws CoreException {
 		assert fExclusiveLock;
-		synchronized (fCache) {
+		final Chunk chunk;
+		synchronized (fChunkLock) {
 			final int oldLen= fChunks.length;
 			Chunk[] newchunks = new Chunk[oldLen + numChunks];
 			System.arraycopy(fChunks, 0, newchunks, 0, oldLen);
 			for (int i = oldLen; i < oldLen + numChunks; i++) {
 				newchunks[i]= null;
 			}
-			final Chunk chunk= new Chunk(this, oldLen + numChunks - 1);
+			chunk= newChunk(oldLen + numChunks - 1);
 			chunk.fDirty= true;
+			chunk.fLocked= true;
 			newchunks[ oldLen + numChunks - 1 ] = chunk;
 			fChunks= newchunks;
-			fCache.add(chunk, true);
 			fChunksAllocated=oldLen + numChunks;
 			fChunksUsed=oldLen + numChunks;
-			return (long) (oldLen + numChunks - 1) * CHUNK_SIZE;
 		}
+		fCache.add(chunk, true);
+		return (long) chunk.fSequenceNumber * CHUNK_SIZE;
 	}
 
 	private long getFirstBlock(int blocksize) throws CoreException {
@@ -431,7 +834,7 @@ public class Database {
 	private void addBlock(Chunk chunk, int blocksize, long block) throws CoreException {
 		assert fExclusiveLock;
 		// Mark our size
-		chunk.putShort(block, (short) blocksize);
+		chunk.putShort(block, (short) (blocksize / BLOCK_SIZE_DELTA));
 
 		// Add us to the head of the list.
 		long prevfirst = getFirstBlock(blocksize);
@@ -452,7 +855,7 @@ public class Database {
 		// TODO Look for opportunities to merge blocks
 		long block = offset - BLOCK_HEADER_SIZE;
 		Chunk chunk = getChunk(block);
-		int blocksize = - chunk.getShort(block);
+		int blocksize = - chunk.getShort(block) * BLOCK_SIZE_DELTA;
 		if (blocksize < 0) {
 			// Already freed.
 			throw new CoreException(new Status(IStatus.ERROR, CCorePlugin.PLUGIN_ID, 0,
@@ -614,6 +1017,7 @@ public class Database {
 	public void close() throws CoreException {
 		assert fExclusiveLock;
 		flush();
+		setJournaled(false);
 		removeChunksFromCache();
 
 		// Chunks have been removed from the cache, so we are fine.
@@ -621,6 +1025,7 @@ public class Database {
 		fHeaderChunk.fDirty= false;
 		fChunks= new Chunk[] { null };
 		fChunksUsed = fChunksAllocated = fChunks.length;
+		disposeMappings();
 		try {
 			fFile.close();
 		} catch (IOException e) {
@@ -636,11 +1041,49 @@ public class Database {
 	}
 
 	/**
-	 * Called from any thread via the cache, protected by {@link #fCache}.
+	 * Called from any thread via the cache after the chunk has been evicted from it.
 	 */
 	void releaseChunk(final Chunk chunk) {
-		if (!chunk.fLocked) {
-			fChunks[chunk.fSequenceNumber]= null;
+		synchronized (fChunkLock) {
+			cacheEvictions++;
+			final int index= chunk.fSequenceNumber;
+			// The chunk may have been added to the cache again, or replaced in the meantime.
+			if (!chunk.fLocked && chunk.fCacheIndex < 0 && index < fChunks.length && fChunks[index] == chunk) {
+				fChunks[index]= null;
+				releaseBuffer(chunk);
+			}
+		}
+	}
+
+	private Chunk newChunk(int index) {
+		return new Chunk(this, index, fCache.allocateBuffer());
+	}
+
+	/**
+	 * Called for a chunk that has been removed from {@link #fChunks}. While other threads may
+	 * read the database the buffer of the chunk cannot be reused, a reader may have obtained the
+	 * chunk before it was removed. Caller has to hold fChunkLock.
+	 */
+	private void releaseBuffer(Chunk chunk) {
+		if (chunk.fBuffer.isDirect()) {
+			if (fExclusiveLock || !fLocked) {
+				fCache.recycleBuffer(chunk.fBuffer);
+			} else {
+				fPendingBuffers.add(chunk.fBuffer);
+			}
+		}
+	}
+
+	/**
+	 * Recycles the buffers of released chunks, must be called when no other thread can access
+	 * the chunks of this database.
+	 */
+	private void recyclePendingBuffers() {
+		synchronized (fChunkLock) {
+			for (ByteBuffer buffer : fPendingBuffers) {
+				fCache.recycleBuffer(buffer);
+			}
+			fPendingBuffers.clear();
 		}
 	}
 
@@ -659,17 +1102,21 @@ public class Database {
 	public void setExclusiveLock() {
 		fExclusiveLock= true;
 		fLocked= true;
+		recyclePendingBuffers();
 	}
 
 	public void setLocked(boolean val) {
 		fLocked= val;
+		if (!val) {
+			recyclePendingBuffers();
+		}
 	}
 
 	public void giveUpExclusiveLock(final boolean flush) throws CoreException {
 		if (fExclusiveLock) {
 			try {
 				ArrayList<Chunk> dirtyChunks= new ArrayList<>();
-				synchronized (fCache) {
+				synchronized (fChunkLock) {
 					for (int i= 1; i < fChunksUsed; i++) {
 						Chunk chunk= fChunks[i];
 						if (chunk != null) {
@@ -677,9 +1124,10 @@ public class Database {
 								// Locked chunk that has been removed from cache.
 								if (chunk.fDirty) {
 									dirtyChunks.add(chunk); // Keep in fChunks until it is flushed.
-								} else {
+								} else if (!chunk.fJournaled) {
 									chunk.fLocked= false;
 									fChunks[i]= null;
+									releaseBuffer(chunk);
 								}
 							} else if (chunk.fLocked) {
 								// Locked chunk, still in cache.
@@ -687,7 +1135,7 @@ public class Database {
 									if (flush) {
 										dirtyChunks.add(chunk);
 									}
-								} else {
+								} else if (!chunk.fJournaled) {
 									chunk.fLocked= false;
 								}
 							} else {
@@ -717,7 +1165,7 @@ public class Database {
 
 		// Be careful as other readers may access chunks concurrently.
 		ArrayList<Chunk> dirtyChunks= new ArrayList<>();
-		synchronized (fCache) {
+		synchronized (fChunkLock) {
 			for (int i= 1; i < fChunksUsed ; i++) {
 				Chunk chunk= fChunks[i];
 				if (chunk != null && chunk.fDirty) {
@@ -731,9 +1179,18 @@ public class Database {
 	}
 
 	private void flushAndUnlockChunks(final ArrayList<Chunk> dirtyChunks, boolean isComplete) throws CoreException {
-		assert !Thread.holdsLock(fCache);
+		assert !Thread.holdsLock(fChunkLock);
 		synchronized (fHeaderChunk) {
 			final boolean haveDirtyChunks = !dirtyChunks.isEmpty();
+			if (fJournal != null) {
+				if (isComplete) {
+					commitToJournal(dirtyChunks);
+					return;
+				}
+				if (haveDirtyChunks && (fJournalSize > 0 || !fJournaledChunks.isEmpty())) {
+					discardJournal();
+				}
+			}
 			if (haveDirtyChunks || fHeaderChunk.fDirty) {
 				markFileIncomplete();
 			}
@@ -745,11 +1202,12 @@ public class Database {
 				}
 
 				// Only after the chunks are flushed we may unlock and release them.
-				synchronized (fCache) {
+				synchronized (fChunkLock) {
 					for (Chunk chunk : dirtyChunks) {
 						chunk.fLocked= false;
 						if (chunk.fCacheIndex < 0) {
 							fChunks[chunk.fSequenceNumber]= null;
+							releaseBuffer(chunk);
 						}
 					}
 				}
@@ -765,6 +1223,188 @@ public class Database {
 		}
 	}
 
+	/**
+	 * Appends the dirty chunks and the header chunk to the journal as one record. The chunks
+	 * remain locked in memory until they are written to the database file by a checkpoint.
+	 */
+	private void commitToJournal(ArrayList<Chunk> dirtyChunks) throws CoreException {
+		assert Thread.holdsLock(fHeaderChunk);
+		if (fHeaderChunk.fDirty || fIsMarkedIncomplete) {
+			fHeaderChunk.putInt(VERSION_OFFSET, fVersion);
+		}
+		final ArrayList<Chunk> chunks= new ArrayList<>(dirtyChunks.size() + 1);
+		if (fHeaderChunk.fDirty) {
+			chunks.add(fHeaderChunk);
+		}
+		for (Chunk chunk : dirtyChunks) {
+			if (chunk.fDirty) {
+				chunks.add(chunk);
+			}
+		}
+		if (chunks.isEmpty())
+			return;
+
+		final int length= JOURNAL_RECORD_OVERHEAD + chunks.size() * JOURNAL_ENTRY_SIZE;
+		final ByteBuffer record= ByteBuffer.allocate(length);
+		record.putInt(JOURNAL_MAGIC);
+		record.putInt(chunks.size());
+		for (Chunk chunk : chunks) {
+			record.putInt(chunk.fSequenceNumber);
+			chunk.write(record);
+		}
+		final CRC32 crc= new CRC32();
+		crc.update(record.array(), 0, length - 8);
+		record.putLong(crc.getValue());
+		record.flip();
+		try {
+			final FileChannel channel= fJournal.getChannel();
+			while (record.hasRemaining()) {
+				channel.write(record, fJournalSize + record.position());
+			}
+			fJournalSize+= length;
+			final long delay= fLastJournalSync + JOURNAL_SYNC_INTERVAL - System.currentTimeMillis();
+			if (delay <= 0) {
+				syncJournal();
+			} else if (fJournalSyncTask == null) {
+				// Bound the time the commit is not on the disk.
+				fJournalSyncTask= new TimerTask() {
+					@Override
+					public void run() {
+						synchronized (fHeaderChunk) {
+							if (fJournalSyncTask != this)
+								return;
+							fJournalSyncTask= null;
+							try {
+								if (fJournal != null && fJournalSize > 0) {
+									syncJournal();
+								}
+							} catch (IOException e) {
+								CCorePlugin.log(e);
+							}
+						}
+					}
+				};
+				JournalSyncTimer.INSTANCE.schedule(fJournalSyncTask, delay);
+			}
+		} catch (IOException e) {
+			throw new CoreException(new DBStatus(e));
+		}
+
+		synchronized (fChunkLock) {
+			for (Chunk chunk : chunks) {
+				chunk.fDirty= false;
+				if (!chunk.fJournaled) {
+					chunk.fJournaled= true;
+					fJournaledChunks.add(chunk);
+				}
+			}
+		}
+		fIsMarkedIncomplete= false;
+		if (fJournaledChunks.size() > JOURNAL_MAX_PENDING_CHUNKS || fJournalSize > JOURNAL_MAX_SIZE) {
+			checkpoint();
+		}
+	}
+
+	private void syncJournal() throws IOException {
+		assert Thread.holdsLock(fHeaderChunk);
+		fJournal.getChannel().force(false);
+		fLastJournalSync= System.currentTimeMillis();
+	}
+
+	private void cancelJournalSync() {
+		assert Thread.holdsLock(fHeaderChunk);
+		if (fJournalSyncTask != null) {
+			fJournalSyncTask.cancel();
+			fJournalSyncTask= null;
+		}
+	}
+
+	/**
+	 * Writes the chunks committed to the journal to the database file and empties the journal.
+	 */
+	private void checkpoint() throws CoreException {
+		assert Thread.holdsLock(fHeaderChunk);
+		try {
+			if (!fJournaledChunks.isEmpty()) {
+				// The journal has to be on the disk before the database file is modified.
+				fJournal.getChannel().force(false);
+				for (Chunk chunk : fJournaledChunks) {
+					chunk.flush();
+				}
+				fFile.getChannel().force(false);
+			}
+			truncateJournal();
+		} catch (IOException e) {
+			throw new CoreException(new DBStatus(e));
+		}
+		releaseJournaledChunks();
+	}
+
+	/**
+	 * Called before an incomplete state of the database is written to the file. The database is
+	 * marked incomplete before the journal is dropped, such that it cannot be used to restore
+	 * a seemingly complete state afterwards.
+	 */
+	private void discardJournal() throws CoreException {
+		assert Thread.holdsLock(fHeaderChunk);
+		markFileIncomplete();
+		try {
+			fFile.getChannel().force(false);
+			truncateJournal();
+		} catch (IOException e) {
+			throw new CoreException(new DBStatus(e));
+		}
+		// The content of the clean chunks is complete, the dirty ones are written later.
+		for (Chunk chunk : fJournaledChunks) {
+			if (chunk != fHeaderChunk && !chunk.fDirty) {
+				chunk.flush();
+			}
+		}
+		releaseJournaledChunks();
+	}
+
+	private void releaseJournaledChunks() {
+		synchronized (fChunkLock) {
+			for (Chunk chunk : fJournaledChunks) {
+				chunk.fJournaled= false;
+				if (chunk != fHeaderChunk && !chunk.fDirty) {
+					chunk.fLocked= false;
+					if (chunk.fCacheIndex < 0) {
+						fChunks[chunk.fSequenceNumber]= null;
+						releaseBuffer(chunk);
+					}
+				}
+			}
+		}
+		fJournaledChunks.clear();
+	}
+
+	private void truncateJournal() throws IOException {
+		cancelJournalSync();
+		if (fJournal != null && fJournalSize > 0) {
+			fJournal.getChannel().truncate(0);
+			fJournalSize= 0;
+		}
+	}
+
+	private void closeJournal() throws IOException {
+		cancelJournalSync();
+		if (fJournal != null) {
+			fJournal.close();
+			fJournal= null;
+			if (!getJournalLocation().delete()) {
+				getJournalLocation().deleteOnExit();
+			}
+		}
+	}
+
+	/**
+	 * Daemon thread shared by all databases for syncing their journals, created on first use.
+	 */
+	private static class JournalSyncTimer {
+		static final Timer INSTANCE= new Timer("Index journal sync", true); //$NON-NLS-1$
+	}
+
 	private void markFileIncomplete() throws CoreException {
 		if (!fIsMarkedIncomplete) {
 			fIsMarkedIncomplete= true;
@@ -778,7 +1418,7 @@ public class Database {
 	}
 
 	public void resetCacheCounters() {
-		cacheHits= cacheMisses= 0;
+		cacheHits= cacheMisses= cacheEvictions= 0;
 	}
 
 	public long getCacheHits() {
@@ -789,6 +1429,13 @@ public class Database {
 		return cacheMisses;
 	}
 
+	/**
+	 * Returns the number of chunks of this database that were evicted from the cache.
+	 */
+	public long getCacheEvictions() {
+		return cacheEvictions;
+	}
+
 	public long getSizeBytes() {
 		try {
 			return fFile.length();
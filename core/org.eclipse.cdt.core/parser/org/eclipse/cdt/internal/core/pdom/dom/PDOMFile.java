@@ -435,12 +435,16 @@ public class PDOMFile implements IIndexFragmentFile {
 		fLinkage.getDB().putRecPtr(record + FIRST_MACRO, rec);
 	}
 
-	public void addMacros(IASTPreprocessorStatement[] macros) throws CoreException {
+	public void addMacros(IASTPreprocessorStatement[] macros, YieldableIndexLock lock)
+			throws CoreException, InterruptedException {
 		assert getFirstMacro() == null;
 
 		PDOMMacro lastMacro= null;
 		final PDOMLinkage linkage = getLinkage();
 		for (IASTPreprocessorStatement stmt : macros) {
+			if (lock != null) {
+				lock.yield();
+			}
 			PDOMMacro pdomMacro= null;
 			if (stmt instanceof IASTPreprocessorMacroDefinition) {
 				IASTPreprocessorMacroDefinition macro= (IASTPreprocessorMacroDefinition) stmt;
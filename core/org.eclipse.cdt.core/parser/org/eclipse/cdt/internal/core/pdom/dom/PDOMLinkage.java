@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2012 QNX Software Systems and others.
+ * Copyright (c) 2005, 2015 QNX Software Systems and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -46,6 +46,7 @@ import org.eclipse.cdt.internal.core.index.IIndexBindingConstants;
 import org.eclipse.cdt.internal.core.index.IIndexScope;
 import org.eclipse.cdt.internal.core.pdom.PDOM;
 import org.eclipse.cdt.internal.core.pdom.WritablePDOM;
+import org.eclipse.cdt.internal.core.pdom.YieldableIndexLock;
 import org.eclipse.cdt.internal.core.pdom.db.BTree;
 import org.eclipse.cdt.internal.core.pdom.db.Database;
 import org.eclipse.cdt.internal.core.pdom.db.IBTreeComparator;
@@ -67,9 +68,10 @@ public abstract class PDOMLinkage extends PDOMNamedNode implements IIndexLinkage
 	private static final int INDEX_OFFSET = PDOMNamedNode.RECORD_SIZE + 8;
 	private static final int NESTED_BINDINGS_INDEX = PDOMNamedNode.RECORD_SIZE + 12;
 	private static final int MACRO_BTREE = PDOMNamedNode.RECORD_SIZE + 16;
+	private static final int TRIGRAM_INDEX = PDOMNamedNode.RECORD_SIZE + 20;
 
 	@SuppressWarnings("hiding")
-	protected static final int RECORD_SIZE = PDOMNamedNode.RECORD_SIZE + 20;
+	protected static final int RECORD_SIZE = PDOMNamedNode.RECORD_SIZE + 24;
 	protected static final long[] FILE_LOCAL_REC_DUMMY = new long[] { 0 };
 
 	private BTree fMacroIndex= null;  // No need for volatile, all fields of BTree are final.
@@ -143,6 +145,13 @@ public abstract class PDOMLinkage extends PDOMNamedNode implements IIndexLinkage
 		return new BTree(fDatabase, record + NESTED_BINDINGS_INDEX, getNestedBindingsComparator());
 	}
 
+	/**
+	 * Returns the index of the trigrams contained in the names of the bindings of this linkage.
+	 */
+	public PDOMTrigramIndex getTrigramIndex() {
+		return new PDOMTrigramIndex(fDatabase, record + TRIGRAM_INDEX);
+	}
+
 	@Override
 	public void accept(final IPDOMVisitor visitor) throws CoreException {
 		if (visitor instanceof IBTreeVisitor) {
@@ -322,6 +331,67 @@ public abstract class PDOMLinkage extends PDOMNamedNode implements IIndexLinkage
 		}
 	}
 
+	/**
+	 * Callback informing the linkage that a binding has been added. Used to index the names
+	 * of bindings for pattern based searches.
+	 */
+	protected final void insertIntoTrigramIndex(PDOMBinding pdomBinding) throws CoreException {
+		if (!fPDOM.isTrigramIndexDeferred()) {
+			getTrigramIndex().add(pdomBinding);
+		}
+	}
+
+	/**
+	 * Adds the names of all bindings of this linkage to the trigram index at once. Used when the
+	 * trigram index has been deferred while the index was rebuilt. The index is built in batches,
+	 * the write lock is yielded between them.
+	 * @param lock the write lock held, or <code>null</code>
+	 * @see PDOM#isTrigramIndexDeferred()
+	 */
+	public void buildTrigramIndex(YieldableIndexLock lock) throws CoreException, InterruptedException {
+		final PDOMTrigramIndex.BulkLoader loader= getTrigramIndex().new BulkLoader();
+		IBTreeVisitor visitor= new IBTreeVisitor() {
+			@Override
+			public int compare(long record) throws CoreException {
+				return 0;
+			}
+
+			@Override
+			public boolean visit(long record) throws CoreException {
+				PDOMBinding binding= getBinding(record);
+				if (binding != null) {
+					loader.add(binding);
+				}
+				return true;
+			}
+		};
+		// Together the two indexes contain all bindings passed to insertIntoTrigramIndex().
+		do {
+			getIndex().accept(visitor);
+			getNestedBindingsIndex().accept(visitor);
+			if (lock != null) {
+				lock.yield();
+			}
+		} while (loader.nextPass());
+	}
+
+	/**
+	 * Rebuilds the b-trees of this linkage bottom-up, such that they become as shallow as
+	 * possible. Used after the index has been rebuilt. The write lock is yielded between
+	 * the b-trees.
+	 * @param lock the write lock held, or <code>null</code>
+	 * @see BTree#compact()
+	 */
+	public void compactIndexes(YieldableIndexLock lock) throws CoreException, InterruptedException {
+		for (BTree index : new BTree[] { getIndex(), getNestedBindingsIndex(), getMacroIndex() }) {
+			index.compact();
+			if (lock != null) {
+				lock.yield();
+			}
+		}
+		getTrigramIndex().compact();
+	}
+
 	/**
 	 * Call-back informing the linkage that a binding is about to be removed. Used to index nested bindings.
 	 * @param pdomBinding
@@ -332,6 +402,7 @@ public abstract class PDOMLinkage extends PDOMNamedNode implements IIndexLinkage
 		if (pdomBinding.getParentNodeRec() != record) {
 			getNestedBindingsIndex().delete(pdomBinding.getRecord());
 		}
+		getTrigramIndex().remove(pdomBinding);
 	}
 
 	public ICPPUsingDirective[] getUsingDirectives(PDOMFile file) throws CoreException {
@@ -44,7 +44,7 @@ public final class PDOMName implements IIndexFragmentName, IASTFileLocation {
 	private static final int NODE_LENGTH_OFFSET  = 27; // short (sufficient for names <= 32k)
 	private static final int FLAGS 				 = 29;
 
-	private static final int RECORD_SIZE = 30;	// 30 yields a 32-byte block. (31 would trigger a 40-byte block)
+	private static final int RECORD_SIZE = 30;	// 30 yields a 32-byte block. (31 would trigger a 48-byte block)
 
 	public static final int IS_DECLARATION 						= 0x01;
 	public static final int IS_DEFINITION 						= 0x02;
@@ -0,0 +1,614 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Wind River Systems, Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Wind River Systems - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.core.pdom.dom;
+
+import java.util.Arrays;
+import java.util.regex.Pattern;
+
+import org.eclipse.cdt.internal.core.pdom.db.BTree;
+import org.eclipse.cdt.internal.core.pdom.db.Database;
+import org.eclipse.cdt.internal.core.pdom.db.IBTreeComparator;
+import org.eclipse.cdt.internal.core.pdom.db.IBTreeVisitor;
+import org.eclipse.core.runtime.CoreException;
+
+/**
+ * Index of the trigrams (sequences of three characters) contained in the names of the bindings
+ * of a linkage. Allows to narrow down the candidates for a regular expression search to the
+ * bindings whose names contain all the literal text of the pattern, before the pattern is
+ * evaluated.
+ * <p>
+ * Trigrams are computed from the lower case name, so that the index can be used for case
+ * sensitive and case insensitive searches. Each entry of the index is a record of the form:
+ * <pre>
+ * Offset  Content
+ * 0       int    trigram
+ * 4       recptr binding
+ * </pre>
+ * Entries are ordered by trigram and binding, such that all bindings containing a trigram
+ * are stored next to each other.
+ */
+public class PDOMTrigramIndex {
+	private static final int TRIGRAM = 0;
+	private static final int BINDING = 4;
+	private static final int RECORD_SIZE = 4 + Database.PTR_SIZE;
+
+	private static final int[] NO_TRIGRAMS = {};
+
+	// Maximum number of entries sorted in memory at once by the BulkLoader.
+	private static final int BULK_LOAD_BATCH_SIZE = 1 << 20;
+
+	private final Database fDatabase;
+	private final BTree fBTree;
+
+	public PDOMTrigramIndex(Database db, long rootPointer) {
+		fDatabase= db;
+		fBTree= new BTree(db, rootPointer, new IBTreeComparator() {
+			@Override
+			public int compare(long record1, long record2) throws CoreException {
+				int cmp= compareTrigrams(fDatabase.getInt(record1 + TRIGRAM), fDatabase.getInt(record2 + TRIGRAM));
+				if (cmp == 0) {
+					cmp= compareRecords(fDatabase.getRecPtr(record1 + BINDING), fDatabase.getRecPtr(record2 + BINDING));
+				}
+				return cmp;
+			}
+		});
+	}
+
+	/**
+	 * Adds the trigrams of the name of the given binding to the index.
+	 */
+	public void add(PDOMNamedNode binding) throws CoreException {
+		final long bindingRec= binding.getRecord();
+		long entry= 0;
+		for (int trigram : getTrigrams(binding.getNameCharArray())) {
+			if (entry == 0) {
+				entry= fDatabase.malloc(RECORD_SIZE);
+			}
+			fDatabase.putInt(entry + TRIGRAM, trigram);
+			fDatabase.putRecPtr(entry + BINDING, bindingRec);
+			if (fBTree.insert(entry) == entry) {
+				entry= 0;
+			}
+		}
+		if (entry != 0) {
+			fDatabase.free(entry);
+		}
+	}
+
+	/**
+	 * Removes the trigrams of the name of the given binding from the index.
+	 */
+	public void remove(PDOMNamedNode binding) throws CoreException {
+		final long bindingRec= binding.getRecord();
+		for (final int trigram : getTrigrams(binding.getNameCharArray())) {
+			final long[] found= { 0 };
+			fBTree.accept(new IBTreeVisitor() {
+				@Override
+				public int compare(long record) throws CoreException {
+					int cmp= compareTrigrams(fDatabase.getInt(record + TRIGRAM), trigram);
+					if (cmp == 0) {
+						cmp= compareRecords(fDatabase.getRecPtr(record + BINDING), bindingRec);
+					}
+					return cmp;
+				}
+
+				@Override
+				public boolean visit(long record) throws CoreException {
+					found[0]= record;
+					return false;
+				}
+			});
+			if (found[0] != 0) {
+				fBTree.delete(found[0]);
+				fDatabase.free(found[0]);
+			}
+		}
+	}
+
+	/**
+	 * Builds the index from the names of many bindings at once. The entries are sorted in memory,
+	 * allocated in the order of the index, and the b-tree is built bottom-up, see
+	 * {@link BTree.Builder}. The index has to be empty.
+	 * <p>
+	 * To bound the memory used, the entries are produced in batches of consecutive trigrams,
+	 * each of which requires another pass over the bindings. All bindings are passed to
+	 * {@link #add(PDOMNamedNode)} once per pass, {@link #nextPass()} tells whether another pass
+	 * is needed. The b-tree is complete after the last pass only.
+	 */
+	public class BulkLoader {
+		// Number of histogram buckets, a bucket holds the trigrams with the same upper 16 bits.
+		private static final int BUCKETS = 1 << 16;
+
+		// Counts the trigrams per bucket in the first pass.
+		private int[] fHistogram= new int[BUCKETS];
+		// The buckets of the current batch.
+		private int fFromBucket;
+		private int fToBucket;
+		// An entry is encoded as the trigram followed by the compressed record of the binding,
+		// such that the natural order of the encoded entries is the order of the index.
+		private long[] fEntries;
+		private int fCount;
+		private final BTree.Builder fBuilder= fBTree.new Builder();
+
+		public void add(PDOMNamedNode binding) throws CoreException {
+			final int[] trigrams= getTrigrams(binding.getNameCharArray());
+			if (fEntries == null) {
+				for (int trigram : trigrams) {
+					fHistogram[bucket(trigram)]++;
+				}
+				return;
+			}
+			final long compressedRec= (binding.getRecord() - Database.BLOCK_HEADER_SIZE) >>> Database.BLOCK_SIZE_DELTA_BITS;
+			for (int trigram : trigrams) {
+				final int bucket= bucket(trigram);
+				if (bucket >= fFromBucket && bucket < fToBucket) {
+					if (fCount == fEntries.length) {
+						fEntries= Arrays.copyOf(fEntries, fCount * 2);
+					}
+					fEntries[fCount++]= ((long) trigram << 32) | compressedRec;
+				}
+			}
+		}
+
+		/**
+		 * Completes the current pass over the bindings and adds the entries collected to the index.
+		 * @return whether the bindings need to be passed to {@link #add(PDOMNamedNode)} once more.
+		 */
+		public boolean nextPass() throws CoreException {
+			if (fEntries == null) {
+				fEntries= new long[0];
+			} else {
+				addEntries();
+			}
+			// Collect the next buckets, as many as fit into a batch.
+			fFromBucket= fToBucket;
+			int size= 0;
+			while (fToBucket < BUCKETS && (size == 0 || size + fHistogram[fToBucket] <= BULK_LOAD_BATCH_SIZE)) {
+				size+= fHistogram[fToBucket++];
+			}
+			if (size == 0) {
+				fBuilder.finish();
+				fHistogram= null;
+				fEntries= null;
+				return false;
+			}
+			if (fEntries.length < size) {
+				fEntries= new long[size];
+			}
+			return true;
+		}
+
+		private void addEntries() throws CoreException {
+			final long[] entries= fEntries;
+			final int count= fCount;
+			fCount= 0;
+			Arrays.sort(entries, 0, count);
+			for (int i = 0; i < count; i++) {
+				if (i > 0 && entries[i] == entries[i - 1])
+					continue;
+				final long entry= fDatabase.malloc(RECORD_SIZE);
+				fDatabase.putInt(entry + TRIGRAM, (int) (entries[i] >> 32));
+				fDatabase.putRecPtr(entry + BINDING,
+						((entries[i] & 0xffffffffL) << Database.BLOCK_SIZE_DELTA_BITS) + Database.BLOCK_HEADER_SIZE);
+				fBuilder.add(entry);
+			}
+		}
+
+		/**
+		 * Returns the bucket of the trigram, buckets are ordered like the trigrams in the index.
+		 */
+		private int bucket(int trigram) {
+			return (trigram >> 16) + (BUCKETS >> 1);
+		}
+	}
+
+	/**
+	 * Rebuilds the b-tree of the index bottom-up, see {@link BTree#compact()}.
+	 */
+	public void compact() throws CoreException {
+		fBTree.compact();
+	}
+
+	/**
+	 * Returns the records of the bindings whose names contain all of the given trigrams. The result
+	 * may contain bindings that do not contain all of the trigrams, it has to be verified by
+	 * the caller.
+	 * @param trigrams a non-empty array of trigrams as returned by {@link #getRequiredTrigrams(Pattern)}.
+	 */
+	public long[] findCandidates(int[] trigrams) throws CoreException {
+		// Use the trigram with the fewest bindings, counting stops as soon as it exceeds the
+		// smallest count found so far.
+		int best= trigrams[0];
+		int bestCount= Integer.MAX_VALUE;
+		for (int trigram : trigrams) {
+			int count= count(trigram, bestCount);
+			if (count < bestCount) {
+				best= trigram;
+				bestCount= count;
+				if (count == 0)
+					return new long[0];
+			}
+		}
+		final long[] result= new long[bestCount];
+		visit(best, new IBTreeVisitor() {
+			int fCount;
+
+			@Override
+			public int compare(long record) throws CoreException {
+				return 0;
+			}
+
+			@Override
+			public boolean visit(long record) throws CoreException {
+				result[fCount++]= fDatabase.getRecPtr(record + BINDING);
+				return fCount < result.length;
+			}
+		});
+		return result;
+	}
+
+	private int count(int trigram, final int limit) throws CoreException {
+		final int[] count= { 0 };
+		visit(trigram, new IBTreeVisitor() {
+			@Override
+			public int compare(long record) throws CoreException {
+				return 0;
+			}
+
+			@Override
+			public boolean visit(long record) throws CoreException {
+				return ++count[0] < limit;
+			}
+		});
+		return count[0];
+	}
+
+	/**
+	 * Visits the entries for the given trigram, the compare method of the visitor is not called.
+	 */
+	private void visit(final int trigram, final IBTreeVisitor visitor) throws CoreException {
+		fBTree.accept(new IBTreeVisitor() {
+			@Override
+			public int compare(long record) throws CoreException {
+				return compareTrigrams(fDatabase.getInt(record + TRIGRAM), trigram);
+			}
+
+			@Override
+			public boolean visit(long record) throws CoreException {
+				return visitor.visit(record);
+			}
+		});
+	}
+
+	static int compareTrigrams(int t1, int t2) {
+		return t1 < t2 ? -1 : (t1 == t2 ? 0 : 1);
+	}
+
+	static int compareRecords(long r1, long r2) {
+		return r1 < r2 ? -1 : (r1 == r2 ? 0 : 1);
+	}
+
+	/**
+	 * Returns the distinct trigrams contained in the given name, in ascending order.
+	 */
+	public static int[] getTrigrams(char[] name) {
+		if (name.length < 3)
+			return NO_TRIGRAMS;
+
+		int[] result= new int[name.length - 2];
+		for (int i = 0; i < result.length; i++) {
+			result[i]= trigram(name[i], name[i + 1], name[i + 2]);
+		}
+		return distinct(result, result.length);
+	}
+
+	/**
+	 * Computes the trigram of three characters. Trigrams of ASCII characters are encoded
+	 * without loss, other trigrams are hashed into the negative range.
+	 */
+	static int trigram(char c0, char c1, char c2) {
+		c0= Character.toLowerCase(c0);
+		c1= Character.toLowerCase(c1);
+		c2= Character.toLowerCase(c2);
+		if ((c0 | c1 | c2) < 0x80)
+			return (c0 << 14) | (c1 << 7) | c2;
+		return Integer.MIN_VALUE | (((c0 * 31) + c1) * 31 + c2) & Integer.MAX_VALUE;
+	}
+
+	private static int[] distinct(int[] trigrams, int length) {
+		if (length == 0)
+			return NO_TRIGRAMS;
+		Arrays.sort(trigrams, 0, length);
+		int n= 1;
+		for (int i = 1; i < length; i++) {
+			if (trigrams[i] != trigrams[n - 1]) {
+				trigrams[n++]= trigrams[i];
+			}
+		}
+		return n == trigrams.length ? trigrams : Arrays.copyOf(trigrams, n);
+	}
+
+	/**
+	 * Returns the trigrams that the name of any binding matching the given pattern has to contain,
+	 * or <code>null</code> if no such trigrams can be derived from the pattern. The analysis is
+	 * conservative, it understands literal characters, character classes that differ only in case
+	 * (as used for camel case and case insensitive patterns), quoted text and the common
+	 * quantifiers. Escape sequences other than escaped punctuation are skipped without contributing
+	 * literal text. Patterns with alternatives at the top level are not analyzed.
+	 */
+	public static int[] getRequiredTrigrams(Pattern pattern) {
+		if ((pattern.flags() & ~Pattern.CASE_INSENSITIVE) != 0)
+			return null;
+
+		final String p= pattern.pattern();
+		final int len= p.length();
+		final StringBuilder run= new StringBuilder();
+		int[] trigrams= new int[len];
+		int count= 0;
+		int i= 0;
+		while (i < len) {
+			char c= p.charAt(i);
+			int literal= -1;
+			switch (c) {
+			case '|':
+				return null;
+			case '\\':
+				if (i + 1 >= len)
+					return null;
+				c= p.charAt(i + 1);
+				if (c == 'Q') {
+					int end= p.indexOf("\\E", i + 2); //$NON-NLS-1$
+					if (end < 0) {
+						end= len;
+					}
+					// A quantifier following the quoted text applies to its last character only.
+					if (end > i + 2) {
+						run.append(p, i + 2, end - 1);
+						literal= p.charAt(end - 1);
+					}
+					i= Math.min(len, end + 2);
+				} else if (Character.isLetterOrDigit(c)) {
+					// Predefined classes, character codes, back references and the like are not
+					// analyzed, but may span several characters of the pattern.
+					i= findEndOfEscape(p, i);
+					if (i < 0)
+						return null;
+				} else {
+					literal= c;
+					i+= 2;
+				}
+				break;
+			case '[':
+				int end= findEndOfClass(p, i);
+				if (end < 0)
+					return null;
+				literal= getCaseVariantsLiteral(p, i + 1, end);
+				i= end + 1;
+				break;
+			case '(':
+				if (hasCommentsFlag(p, i))
+					return null;
+				end= findEndOfGroup(p, i);
+				if (end < 0)
+					return null;
+				i= end + 1;
+				break;
+			case '.': case '^': case '$': case ')': case ']':
+			case '*': case '+': case '?': case '{': case '}':
+				i++;
+				break;
+			default:
+				literal= c;
+				i++;
+				break;
+			}
+
+			// Check for a quantifier following the atom.
+			boolean endOfRun= literal < 0;
+			if (i < len) {
+				boolean quantified= true;
+				switch (p.charAt(i)) {
+				case '*': case '?':
+					// The atom is optional.
+					literal= -1;
+					i++;
+					break;
+				case '{':
+					// The number of repetitions is not analyzed.
+					literal= -1;
+					int close= p.indexOf('}', i);
+					i= close < 0 ? len : close + 1;
+					break;
+				case '+':
+					// The atom is required, but may be repeated.
+					i++;
+					break;
+				default:
+					quantified= false;
+					break;
+				}
+				if (quantified) {
+					endOfRun= true;
+					// Reluctant or possessive quantifier.
+					if (i < len && (p.charAt(i) == '?' || p.charAt(i) == '+')) {
+						i++;
+					}
+				}
+			}
+			if (literal >= 0) {
+				run.append((char) literal);
+			}
+			if (endOfRun) {
+				count= addTrigrams(run, trigrams, count);
+				run.setLength(0);
+			}
+		}
+		count= addTrigrams(run, trigrams, count);
+		if (count == 0)
+			return null;
+		return distinct(trigrams, count);
+	}
+
+	private static int addTrigrams(CharSequence run, int[] trigrams, int count) {
+		// Every literal character stems from at least one character of the pattern, the array
+		// is large enough.
+		for (int j = 0; j + 2 < run.length(); j++) {
+			trigrams[count++]= trigram(run.charAt(j), run.charAt(j + 1), run.charAt(j + 2));
+		}
+		return count;
+	}
+
+	/**
+	 * Returns the index following the escape sequence with a letter or digit starting at
+	 * the given index, or -1 if the length of the escape sequence cannot be determined.
+	 */
+	private static int findEndOfEscape(String p, int start) {
+		final int len= p.length();
+		int i= start + 2;
+		switch (p.charAt(start + 1)) {
+		case '0':
+			// Octal value with one to three digits, the first of three digits is at most 3.
+			int maxDigits= i < len && p.charAt(i) <= '3' ? 3 : 2;
+			for (int j= 0; j < maxDigits && i < len && p.charAt(i) >= '0' && p.charAt(i) <= '7'; j++) {
+				i++;
+			}
+			break;
+		case '1': case '2': case '3': case '4': case '5': case '6': case '7': case '8': case '9':
+			// The number of digits of a back reference depends on the number of groups.
+			return -1;
+		case 'x':
+			if (i < len && p.charAt(i) == '{') {
+				i= p.indexOf('}', i) + 1;
+				if (i == 0)
+					return -1;
+			} else {
+				i+= 2;
+			}
+			break;
+		case 'u':
+			i+= 4;
+			break;
+		case 'c':
+			i++;
+			break;
+		case 'p': case 'P': case 'N': case 'b':
+			// Property, named character or boundary, with an argument in braces or a single
+			// letter property.
+			if (i < len && p.charAt(i) == '{') {
+				i= p.indexOf('}', i) + 1;
+				if (i == 0)
+					return -1;
+			} else if (p.charAt(start + 1) == 'p' || p.charAt(start + 1) == 'P') {
+				i++;
+			}
+			break;
+		case 'k':
+			// Named back reference.
+			i= p.indexOf('>', i) + 1;
+			if (i == 0)
+				return -1;
+			break;
+		}
+		return i <= len ? i : -1;
+	}
+
+	/**
+	 * Checks whether the group starting at the given index turns on the comments mode, in which
+	 * white space in the pattern is ignored.
+	 */
+	private static boolean hasCommentsFlag(String p, int start) {
+		if (start + 1 >= p.length() || p.charAt(start + 1) != '?')
+			return false;
+		for (int i= start + 2; i < p.length(); i++) {
+			char c= p.charAt(i);
+			if (c == 'x')
+				return true;
+			if (!Character.isLetter(c) && c != '-')
+				return false;
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the index of the closing bracket of the character class starting at the given
+	 * index, or -1.
+	 */
+	private static int findEndOfClass(String p, int start) {
+		int i= start + 1;
+		if (i < p.length() && p.charAt(i) == '^')
+			i++;
+		if (i < p.length() && p.charAt(i) == ']')
+			i++;
+		for (; i < p.length(); i++) {
+			switch (p.charAt(i)) {
+			case '\\':
+				// Quoted text may contain brackets.
+				if (++i < p.length() && p.charAt(i) == 'Q')
+					return -1;
+				break;
+			case '[':
+				return -1;
+			case ']':
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns the index of the closing parenthesis of the group starting at the given index, or -1.
+	 */
+	private static int findEndOfGroup(String p, int start) {
+		int depth= 0;
+		for (int i= start; i < p.length(); i++) {
+			switch (p.charAt(i)) {
+			case '\\':
+				// Quoted text may contain parentheses.
+				if (++i < p.length() && p.charAt(i) == 'Q')
+					return -1;
+				break;
+			case '[':
+				i= findEndOfClass(p, i);
+				if (i < 0)
+					return -1;
+				break;
+			case '(':
+				depth++;
+				break;
+			case ')':
+				if (--depth == 0)
+					return i;
+				break;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns the lower case character if the character class consists of case variants of
+	 * a single letter (e.g. <code>[aA]</code>), or -1.
+	 */
+	private static int getCaseVariantsLiteral(String p, int start, int end) {
+		if (start >= end)
+			return -1;
+		int result= -1;
+		for (int i= start; i < end; i++) {
+			char c= p.charAt(i);
+			if (!Character.isLetterOrDigit(c))
+				return -1;
+			c= Character.toLowerCase(c);
+			if (result >= 0 && result != c)
+				return -1;
+			result= c;
+		}
+		return result;
+	}
+}
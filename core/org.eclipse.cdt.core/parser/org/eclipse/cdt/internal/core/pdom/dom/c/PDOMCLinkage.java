@@ -169,6 +169,7 @@ class PDOMCLinkage extends PDOMLinkage implements IIndexCBindingConstants {
 			if (parent != this && insertIntoIndex != this) {
 				insertIntoNestedBindingsIndex(pdomBinding);
 			}
+			insertIntoTrigramIndex(pdomBinding);
 		}
 		return pdomBinding;
 	}
@@ -36,7 +36,7 @@ final class PDOMCParameter extends PDOMNamedNode implements IParameter, IPDOMBin
 	@SuppressWarnings("hiding")
 	public static final int RECORD_SIZE = FLAG_OFFSET + 1;
 	static {
-		assert RECORD_SIZE <= 22; // 23 would yield a 32-byte block
+		assert RECORD_SIZE <= 30; // 31 would yield a 48-byte block
 	}
 
 	private final IType fType;
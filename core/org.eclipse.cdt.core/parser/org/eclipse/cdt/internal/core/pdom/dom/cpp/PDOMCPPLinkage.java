@@ -125,12 +125,15 @@ import org.eclipse.cdt.internal.core.dom.parser.cpp.semantics.TypeOfDependentExp
 import org.eclipse.cdt.internal.core.dom.parser.cpp.semantics.TypeOfUnknownMember;
 import org.eclipse.cdt.internal.core.index.IIndexBindingConstants;
 import org.eclipse.cdt.internal.core.index.IIndexCPPBindingConstants;
+import org.eclipse.cdt.internal.core.index.IndexCPPSignatureUtil;
 import org.eclipse.cdt.internal.core.index.composite.CompositeIndexBinding;
 import org.eclipse.cdt.internal.core.pdom.PDOM;
 import org.eclipse.cdt.internal.core.pdom.WritablePDOM;
+import org.eclipse.cdt.internal.core.pdom.YieldableIndexLock;
 import org.eclipse.cdt.internal.core.pdom.db.BTree;
 import org.eclipse.cdt.internal.core.pdom.db.Database;
 import org.eclipse.cdt.internal.core.pdom.db.IBTreeComparator;
+import org.eclipse.cdt.internal.core.pdom.db.IBTreeVisitor;
 import org.eclipse.cdt.internal.core.pdom.dom.IPDOMMemberOwner;
 import org.eclipse.cdt.internal.core.pdom.dom.PDOMASTAdapter;
 import org.eclipse.cdt.internal.core.pdom.dom.PDOMBinding;
@@ -152,9 +155,10 @@ class PDOMCPPLinkage extends PDOMLinkage implements IIndexCPPBindingConstants {
 	public final static int CACHE_INSTANCE_SCOPE= 3;
 
 	private final static int FIRST_NAMESPACE_CHILD_OFFSET= PDOMLinkage.RECORD_SIZE;
+	private final static int INSTANCE_INDEX= FIRST_NAMESPACE_CHILD_OFFSET + Database.PTR_SIZE;
 
 	@SuppressWarnings("hiding")
-	private final static int RECORD_SIZE= FIRST_NAMESPACE_CHILD_OFFSET + Database.PTR_SIZE;
+	private final static int RECORD_SIZE= INSTANCE_INDEX + Database.PTR_SIZE;
 
 	// Only used when writing to database, which is single-threaded
 	private final LinkedList<Runnable> postProcesses = new LinkedList<Runnable>();
@@ -357,6 +361,38 @@ class PDOMCPPLinkage extends PDOMLinkage implements IIndexCPPBindingConstants {
 		}
 	}
 
+	class IndexInstance implements Runnable {
+		private final PDOMBinding fInstance;
+		private final PDOMBinding fTemplate;
+
+		public IndexInstance(PDOMBinding instance, PDOMBinding template) {
+			fInstance = instance;
+			fTemplate = template;
+			postProcesses.add(this);
+		}
+
+		@Override
+		public void run() {
+			// Runs after the template arguments of the instance have been stored, such that
+			// the signature is computed from the same arguments PDOMInstanceCache sees.
+			try {
+				ICPPTemplateArgument[] args = ((ICPPTemplateInstance) fInstance).getTemplateArguments();
+				String signature = IndexCPPSignatureUtil.getTemplateArgString(args, true);
+				getInstanceIndex().add(fTemplate.getRecord(), signature, fInstance.getRecord());
+			} catch (CoreException e) {
+				CCorePlugin.log(e);
+			} catch (DOMException e) {
+			}
+		}
+	}
+
+	/**
+	 * Returns the index of the template instances stored in this linkage.
+	 */
+	public PDOMInstanceIndex getInstanceIndex() {
+		return new PDOMInstanceIndex(getDB(), record + INSTANCE_INDEX);
+	}
+
 	/**
 	 * Adds or returns existing binding for the given name.
 	 */
@@ -499,6 +535,9 @@ class PDOMCPPLinkage extends PDOMLinkage implements IIndexCPPBindingConstants {
 				return null;
 
 			pdomBinding = createSpecialization(parent, pdomSpecialized, binding);
+			if (pdomBinding instanceof ICPPTemplateInstance) {
+				new IndexInstance(pdomBinding, pdomSpecialized);
+			}
 		} else if (binding instanceof ICPPClassTemplatePartialSpecialization) {
 			ICPPClassTemplate primary = ((ICPPClassTemplatePartialSpecialization) binding).getPrimaryClassTemplate();
 			PDOMBinding pdomPrimary = addBinding(primary, null);
@@ -574,6 +613,7 @@ class PDOMCPPLinkage extends PDOMLinkage implements IIndexCPPBindingConstants {
 			if (parent != this && parent2 != this) {
 				insertIntoNestedBindingsIndex(pdomBinding);
 			}
+			insertIntoTrigramIndex(pdomBinding);
 		}
 
 		return pdomBinding;
@@ -1060,6 +1100,37 @@ class PDOMCPPLinkage extends PDOMLinkage implements IIndexCPPBindingConstants {
 		return PDOMCPPGlobalScope.INSTANCE;
 	}
 
+	@Override
+	public void compactIndexes(YieldableIndexLock lock) throws CoreException, InterruptedException {
+		// Namespaces have their own index of members.
+		final Database db= getDB();
+		final List<Long> namespaces= new ArrayList<>();
+		IBTreeVisitor visitor= new IBTreeVisitor() {
+			@Override
+			public int compare(long record) throws CoreException {
+				return 0;
+			}
+
+			@Override
+			public boolean visit(long record) throws CoreException {
+				if (PDOMNode.getNodeType(db, record) == CPPNAMESPACE) {
+					namespaces.add(record);
+				}
+				return true;
+			}
+		};
+		getIndex().accept(visitor);
+		getNestedBindingsIndex().accept(visitor);
+		for (long namespace : namespaces) {
+			new PDOMCPPNamespace(this, namespace).getIndex().compact();
+			if (lock != null) {
+				lock.yield();
+			}
+		}
+		getInstanceIndex().compact();
+		super.compactIndexes(lock);
+	}
+
 	@Override
 	public void onCreateName(PDOMFile file, IASTName name, PDOMName pdomName) throws CoreException {
 		super.onCreateName(file, name, pdomName);
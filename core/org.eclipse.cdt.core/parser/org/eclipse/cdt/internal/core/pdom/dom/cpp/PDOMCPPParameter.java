@@ -43,7 +43,7 @@ class PDOMCPPParameter extends PDOMNamedNode implements ICPPParameter, IPDOMBind
 	@SuppressWarnings("hiding")
 	protected static final int RECORD_SIZE = DEFAULT_VALUE + Database.VALUE_SIZE;
 	static {
-		assert RECORD_SIZE <= 22; // 23 would yield a 32-byte block
+		assert RECORD_SIZE <= 30; // 31 would yield a 48-byte block
 	}
 
 	private final IType fType;
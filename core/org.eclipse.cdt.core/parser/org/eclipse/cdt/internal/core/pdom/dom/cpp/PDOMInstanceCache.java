@@ -21,6 +21,7 @@ import org.eclipse.cdt.internal.core.index.IndexCPPSignatureUtil;
 import org.eclipse.cdt.internal.core.pdom.PDOM;
 import org.eclipse.cdt.internal.core.pdom.dom.NamedNodeCollector;
 import org.eclipse.cdt.internal.core.pdom.dom.PDOMBinding;
+import org.eclipse.cdt.internal.core.pdom.dom.PDOMLinkage;
 import org.eclipse.cdt.internal.core.pdom.dom.PDOMNamedNode;
 import org.eclipse.cdt.internal.core.pdom.dom.PDOMNode;
 import org.eclipse.core.runtime.CoreException;
@@ -36,21 +37,18 @@ public class PDOMInstanceCache {
 			return (PDOMInstanceCache) cache;
 		}
 		
-		PDOMInstanceCache newCache= new PDOMInstanceCache();
-		try {
-			newCache.populate(binding);
-		} catch (CoreException e) {
-			CCorePlugin.log(e);
-		}
-		
+		PDOMInstanceCache newCache= new PDOMInstanceCache(binding);
 		newCache= (PDOMInstanceCache) pdom.putCachedResult(key, newCache, false);
 		return newCache;
 	}
 	
+	private final PDOMBinding fTemplate;
 	private final HashMap<String, ICPPTemplateInstance> fMap;
+	private boolean fPopulated;
 	private ICPPDeferredClassInstance fDeferredInstance;
 
-	public PDOMInstanceCache() {
+	private PDOMInstanceCache(PDOMBinding template) {
+		fTemplate= template;
 		fMap= new HashMap<>();
 	}
 	
@@ -67,13 +65,36 @@ public class PDOMInstanceCache {
 	synchronized public final ICPPTemplateInstance getInstance(ICPPTemplateArgument[] arguments) {		
 		try {
 			String key= IndexCPPSignatureUtil.getTemplateArgString(arguments, true);
-			return fMap.get(key);
+			ICPPTemplateInstance instance= fMap.get(key);
+			if (instance == null && !fPopulated) {
+				// Look up the instances stored in the index one by one, rather than loading
+				// all instances of the template.
+				instance= findInstance(key);
+				if (instance != null) {
+					fMap.put(key, instance);
+				}
+			}
+			return instance;
 		} catch (CoreException e) {
 			CCorePlugin.log(e);
 		} catch (DOMException e) {
 		}
 		return null;
 	}
+
+	private ICPPTemplateInstance findInstance(String key) throws CoreException {
+		PDOMLinkage linkage= fTemplate.getLinkage();
+		if (linkage instanceof PDOMCPPLinkage) {
+			long rec= ((PDOMCPPLinkage) linkage).getInstanceIndex().findInstance(fTemplate.getRecord(), key);
+			if (rec != 0) {
+				PDOMBinding instance= linkage.getBinding(rec);
+				if (instance instanceof ICPPTemplateInstance) {
+					return (ICPPTemplateInstance) instance;
+				}
+			}
+		}
+		return null;
+	}
 	
 	private void populate(PDOMBinding binding) throws CoreException {
 		PDOMNode parent= binding.getParentNode();
@@ -88,13 +109,35 @@ public class PDOMInstanceCache {
 				ICPPTemplateInstance inst= (ICPPTemplateInstance) node;
 				if (binding.equals(inst.getTemplateDefinition())) {
 					ICPPTemplateArgument[] args= inst.getTemplateArguments();
-					addInstance(args, inst);
+					try {
+						String key= IndexCPPSignatureUtil.getTemplateArgString(args, true);
+						// Instances added while resolving an AST take precedence.
+						if (!fMap.containsKey(key)) {
+							fMap.put(key, inst);
+						}
+					} catch (DOMException e) {
+					}
 				}
 			}
 		}
 	}
 
+	/**
+	 * Returns whether all instances of the template have been loaded from the index.
+	 */
+	synchronized public boolean isPopulated() {
+		return fPopulated;
+	}
+
 	synchronized public ICPPTemplateInstance[] getAllInstances() {
+		if (!fPopulated) {
+			fPopulated= true;
+			try {
+				populate(fTemplate);
+			} catch (CoreException e) {
+				CCorePlugin.log(e);
+			}
+		}
 		return fMap.values().toArray(new ICPPTemplateInstance[fMap.size()]);
 	}
 
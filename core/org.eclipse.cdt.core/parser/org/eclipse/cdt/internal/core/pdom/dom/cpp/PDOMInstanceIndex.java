@@ -0,0 +1,108 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Wind River Systems, Inc. and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Wind River Systems - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.core.pdom.dom.cpp;
+
+import org.eclipse.cdt.internal.core.pdom.db.BTree;
+import org.eclipse.cdt.internal.core.pdom.db.Database;
+import org.eclipse.cdt.internal.core.pdom.db.IBTreeComparator;
+import org.eclipse.cdt.internal.core.pdom.db.IBTreeVisitor;
+import org.eclipse.cdt.internal.core.pdom.db.IString;
+import org.eclipse.core.runtime.CoreException;
+
+/**
+ * Index of the template instances stored in the database, keyed by the template and the
+ * signature of the template arguments. Allows for finding the instance of a template for
+ * given arguments without loading all instances of the template.
+ */
+public class PDOMInstanceIndex {
+	private static final int TEMPLATE = 0;
+	private static final int SIGNATURE = Database.PTR_SIZE;
+	private static final int INSTANCE = 2 * Database.PTR_SIZE;
+	private static final int RECORD_SIZE = 3 * Database.PTR_SIZE;
+
+	private final Database fDatabase;
+	private final BTree fBTree;
+
+	public PDOMInstanceIndex(Database db, long rootPointer) {
+		fDatabase= db;
+		fBTree= new BTree(db, rootPointer, new IBTreeComparator() {
+			@Override
+			public int compare(long record1, long record2) throws CoreException {
+				int cmp= compareRecords(fDatabase.getRecPtr(record1 + TEMPLATE), fDatabase.getRecPtr(record2 + TEMPLATE));
+				if (cmp == 0) {
+					IString signature1= fDatabase.getString(fDatabase.getRecPtr(record1 + SIGNATURE));
+					IString signature2= fDatabase.getString(fDatabase.getRecPtr(record2 + SIGNATURE));
+					cmp= signature1.compare(signature2, true);
+				}
+				return cmp;
+			}
+		});
+	}
+
+	/**
+	 * Adds an instance of a template to the index, unless there is already an instance for
+	 * the same template arguments.
+	 * @param templateRec the record of the template definition
+	 * @param signature the signature of the template arguments, as computed by
+	 *     {@link org.eclipse.cdt.internal.core.index.IndexCPPSignatureUtil#getTemplateArgString}
+	 * @param instanceRec the record of the instance
+	 */
+	public void add(long templateRec, String signature, long instanceRec) throws CoreException {
+		// Most instances are added again by every translation unit using them, look them up
+		// rather than allocating the entry and freeing it again.
+		if (findInstance(templateRec, signature) != 0)
+			return;
+
+		final long entry= fDatabase.malloc(RECORD_SIZE);
+		final IString sig= fDatabase.newString(signature);
+		fDatabase.putRecPtr(entry + TEMPLATE, templateRec);
+		fDatabase.putRecPtr(entry + SIGNATURE, sig.getRecord());
+		fDatabase.putRecPtr(entry + INSTANCE, instanceRec);
+		fBTree.insert(entry);
+	}
+
+	/**
+	 * Returns the record of the instance of the template for the given signature of template
+	 * arguments, or 0 if there is no such instance.
+	 */
+	public long findInstance(final long templateRec, final String signature) throws CoreException {
+		final long[] result= { 0 };
+		fBTree.accept(new IBTreeVisitor() {
+			@Override
+			public int compare(long record) throws CoreException {
+				int cmp= compareRecords(fDatabase.getRecPtr(record + TEMPLATE), templateRec);
+				if (cmp == 0) {
+					cmp= fDatabase.getString(fDatabase.getRecPtr(record + SIGNATURE)).compare(signature, true);
+				}
+				return cmp;
+			}
+
+			@Override
+			public boolean visit(long record) throws CoreException {
+				result[0]= fDatabase.getRecPtr(record + INSTANCE);
+				return false;
+			}
+		});
+		return result[0];
+	}
+
+	/**
+	 * Replaces the b-tree by a densely packed one.
+	 * @see BTree#compact()
+	 */
+	public void compact() throws CoreException {
+		fBTree.compact();
+	}
+
+	private static int compareRecords(long r1, long r2) {
+		return r1 < r2 ? -1 : (r1 == r2 ? 0 : 1);
+	}
+}
@@ -38,6 +38,9 @@ public abstract class AbstractPDOMIndexer implements IPDOMIndexer {
 		fProperties.put(IndexerPreferences.KEY_SKIP_MACRO_REFERENCES, String.valueOf(false)); 
 		fProperties.put(IndexerPreferences.KEY_INDEX_ALL_HEADER_VERSIONS, String.valueOf(false));
 		fProperties.put(IndexerPreferences.KEY_INDEX_ALL_VERSIONS_SPECIFIC_HEADERS, ""); //$NON-NLS-1$
+		fProperties.put(IndexerPreferences.KEY_INDEXER_PARSER_THREADS, String.valueOf(IndexerPreferences.DEFAULT_INDEXER_PARSER_THREADS));
+		fProperties.put(IndexerPreferences.KEY_INDEXER_PREFETCH_TRANSLATION_UNITS, String.valueOf(IndexerPreferences.DEFAULT_INDEXER_PREFETCH_TRANSLATION_UNITS));
+		fProperties.put(IndexerPreferences.KEY_INDEXER_CACHE_LEXER_TOKENS, String.valueOf(IndexerPreferences.DEFAULT_INDEXER_CACHE_LEXER_TOKENS));
 	}
 
 	@Override
@@ -60,6 +63,10 @@ public abstract class AbstractPDOMIndexer implements IPDOMIndexer {
 		for (Map.Entry<Object, Object> entry : fProperties.entrySet()) {
 			String key = (String) entry.getKey();
 			String val = (String) entry.getValue();
+			if (IndexerPreferences.KEY_INDEXER_PARSER_THREADS.equals(key)
+					|| IndexerPreferences.KEY_INDEXER_PREFETCH_TRANSLATION_UNITS.equals(key)
+					|| IndexerPreferences.KEY_INDEXER_CACHE_LEXER_TOKENS.equals(key))
+				continue; // Parser threads, prefetching and caching do not affect the content of the index.
 
 			if (val != null) { // relevant property
 				String v2= (String) props.get(key);
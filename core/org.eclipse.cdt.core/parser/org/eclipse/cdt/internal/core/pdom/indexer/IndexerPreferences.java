@@ -68,11 +68,19 @@ public class IndexerPreferences {
 	public static final String KEY_REINDEX_ON_INDEXER_CHANGE = "reindexOnIndexerChange"; //$NON-NLS-1$
 	public static final String KEY_INDEX_ALL_HEADER_VERSIONS= "indexAllHeaderVersions"; //$NON-NLS-1$
 	public static final String KEY_INDEX_ALL_VERSIONS_SPECIFIC_HEADERS= "indexAllVersionsSpecificHeaders"; //$NON-NLS-1$
+	public static final String KEY_MEMORY_MAPPED_DATABASE = "memoryMappedDatabase"; //$NON-NLS-1$
+	public static final String KEY_INDEXER_PARSER_THREADS= "indexerParserThreads"; //$NON-NLS-1$
+	public static final String KEY_INDEXER_PREFETCH_TRANSLATION_UNITS= "indexerPrefetchTranslationUnits"; //$NON-NLS-1$
+	public static final String KEY_INDEXER_CACHE_LEXER_TOKENS= "indexerCacheLexerTokens"; //$NON-NLS-1$
+	public static final String KEY_DATABASE_JOURNAL = "databaseJournal"; //$NON-NLS-1$
 
 	private static final String DEFAULT_INDEX_IMPORT_LOCATION = ".settings/cdt-index.zip"; //$NON-NLS-1$
 	private static final int DEFAULT_UPDATE_POLICY= 0;
 	public static final int DEFAULT_FILE_SIZE_LIMIT_MB = 8;
 	public static final int DEFAULT_INCLUDED_FILE_SIZE_LIMIT_MB = 16;
+	public static final int DEFAULT_INDEXER_PARSER_THREADS = 1;
+	public static final int DEFAULT_INDEXER_PREFETCH_TRANSLATION_UNITS = 0;
+	public static final boolean DEFAULT_INDEXER_CACHE_LEXER_TOKENS = true;
 
 	private static final String QUALIFIER = CCorePlugin.PLUGIN_ID;
 	private static final String INDEXER_NODE = "indexer"; //$NON-NLS-1$
@@ -336,6 +344,9 @@ public class IndexerPreferences {
 		prefs.putBoolean(KEY_SKIP_MACRO_REFERENCES, false);
 		prefs.put(KEY_INDEX_IMPORT_LOCATION, DEFAULT_INDEX_IMPORT_LOCATION);
 		prefs.putBoolean(KEY_INDEX_ALL_HEADER_VERSIONS, false);
+		prefs.putInt(KEY_INDEXER_PARSER_THREADS, DEFAULT_INDEXER_PARSER_THREADS);
+		prefs.putInt(KEY_INDEXER_PREFETCH_TRANSLATION_UNITS, DEFAULT_INDEXER_PREFETCH_TRANSLATION_UNITS);
+		prefs.putBoolean(KEY_INDEXER_CACHE_LEXER_TOKENS, DEFAULT_INDEXER_CACHE_LEXER_TOKENS);
 	}
 
 	public static void setDefaultIndexerId(String defaultId) {
@@ -463,4 +474,31 @@ public class IndexerPreferences {
 	public static boolean getReindexOnIndexerChange(IProject project) {
 		return getProjectPreferences(project).getBoolean(KEY_REINDEX_ON_INDEXER_CHANGE, true);
 	}
+
+	public static void setMemoryMappedDatabase(IProject project, boolean useMemoryMapping) {
+		if (useMemoryMapping != getMemoryMappedDatabase(project)) {
+			getProjectPreferences(project).putBoolean(KEY_MEMORY_MAPPED_DATABASE, useMemoryMapping);
+		}
+	}
+
+	/**
+	 * Returns whether the index database of the project shall be read via memory mapped I/O.
+	 */
+	public static boolean getMemoryMappedDatabase(IProject project) {
+		return getProjectPreferences(project).getBoolean(KEY_MEMORY_MAPPED_DATABASE, false);
+	}
+
+	public static void setDatabaseJournal(IProject project, boolean useJournal) {
+		if (useJournal != getDatabaseJournal(project)) {
+			getProjectPreferences(project).putBoolean(KEY_DATABASE_JOURNAL, useJournal);
+		}
+	}
+
+	/**
+	 * Returns whether updates of the index database of the project shall be committed via
+	 * a journal.
+	 */
+	public static boolean getDatabaseJournal(IProject project) {
+		return getProjectPreferences(project).getBoolean(KEY_DATABASE_JOURNAL, false);
+	}
 }
@@ -25,6 +25,7 @@ class Messages extends NLS {
 	public static String PDOMImportTask_updatingFileListJob_Name;
 	public static String PDOMImportTask_importIndexJob_Name;
 	public static String PDOMRebuildTask_0;
+	public static String PDOMRebuildTask_trigramIndexDeferred;
 
 	static {
 		// Initialize resource bundle.
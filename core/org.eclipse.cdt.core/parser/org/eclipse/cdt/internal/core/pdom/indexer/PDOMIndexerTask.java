@@ -70,6 +70,11 @@ public abstract class PDOMIndexerTask extends AbstractIndexerTask implements IPD
 		setFileSizeLimits(fileLimit * 1024 * 1024, includedFileLimit * 1024 * 1024);
 		setIndexAllHeaderVersions(checkProperty(IndexerPreferences.KEY_INDEX_ALL_HEADER_VERSIONS));
 		setHeadersToIndexAllVersions(getStringSet(IndexerPreferences.KEY_INDEX_ALL_VERSIONS_SPECIFIC_HEADERS));
+		setParserThreads(getIntProperty(IndexerPreferences.KEY_INDEXER_PARSER_THREADS,
+				IndexerPreferences.DEFAULT_INDEXER_PARSER_THREADS));
+		setPrefetchTranslationUnits(getIntProperty(IndexerPreferences.KEY_INDEXER_PREFETCH_TRANSLATION_UNITS,
+				IndexerPreferences.DEFAULT_INDEXER_PREFETCH_TRANSLATION_UNITS));
+		setCacheLexerTokens(checkProperty(IndexerPreferences.KEY_INDEXER_CACHE_LEXER_TOKENS));
 		if (checkProperty(IndexerPreferences.KEY_SKIP_ALL_REFERENCES)) {
 			setSkipReferences(SKIP_ALL_REFERENCES);
 		} else {
@@ -302,6 +307,9 @@ public abstract class PDOMIndexerTask extends AbstractIndexerTask implements IPD
 			if (fStatistics.fTooManyTokensCount > 0)
 				System.out.println(indent + " Tokens: " //$NON-NLS-1$
 					+ fStatistics.fTooManyTokensCount + " TUs with too many tokens."); //$NON-NLS-1$
+			if (fStatistics.fPrefetchedFileCount > 0)
+				System.out.println(indent + " Prefetch: " //$NON-NLS-1$
+					+ fStatistics.fPrefetchedFileCount + " files read ahead of parsing."); //$NON-NLS-1$
 
 			NumberFormat nfPercent= NumberFormat.getPercentInstance();
 			nfPercent.setMaximumFractionDigits(2);
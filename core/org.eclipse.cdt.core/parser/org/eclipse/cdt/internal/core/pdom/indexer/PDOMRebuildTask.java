@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2014 Wind River Systems, Inc. and others.
+ * Copyright (c) 2007, 2015 Wind River Systems, Inc. and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -27,9 +27,11 @@ import org.eclipse.cdt.internal.core.index.IWritableIndexManager;
 import org.eclipse.cdt.internal.core.pdom.IndexerProgress;
 import org.eclipse.cdt.internal.core.pdom.PDOMManager;
 import org.eclipse.cdt.internal.core.pdom.WritablePDOM;
+import org.eclipse.cdt.internal.core.pdom.YieldableIndexLock;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
 import org.eclipse.osgi.util.NLS;
 
 /**
@@ -63,6 +65,7 @@ public class PDOMRebuildTask implements IPDOMIndexerTask {
 	@Override
 	public void run(IProgressMonitor monitor) throws InterruptedException {
 		fProgressMonitor = monitor;
+		IWritableIndex index= null;
 		try {
 			monitor.subTask(NLS.bind(Messages.PDOMIndexerTask_collectingFilesTask, 
 					fIndexer.getProject().getElementName()));
@@ -71,7 +74,7 @@ public class PDOMRebuildTask implements IPDOMIndexerTask {
 			IProject project= cproject.getProject();
 			if (project.isOpen() && project.exists()) {
 				try {
-					IWritableIndex index= ((IWritableIndexManager) CCorePlugin.getIndexManager()).getWritableIndex(cproject);
+					index= ((IWritableIndexManager) CCorePlugin.getIndexManager()).getWritableIndex(cproject);
 					if (index != null) {
 						clearIndex(cproject, index);
 						if (!IPDOMManager.ID_NO_INDEXER.equals(fIndexer.getID())) {
@@ -90,6 +93,11 @@ public class PDOMRebuildTask implements IPDOMIndexerTask {
 				fDelegate.run(monitor);
 			}
 		} finally {
+			// Also when the rebuild is cancelled or fails, the deferred trigram index is not
+			// maintained otherwise.
+			if (index != null) {
+				finishIndex(index, fDelegate != null && !monitor.isCanceled());
+			}
 			fProgressMonitor = null;
 		}
 	}
@@ -102,12 +110,45 @@ public class PDOMRebuildTask implements IPDOMIndexerTask {
 			IWritableIndexFragment wf= index.getWritableFragment();
 			if (wf instanceof WritablePDOM) {
 				PDOMManager.writeProjectPDOMProperties((WritablePDOM) wf, project.getProject());
+				// The trigram index is not needed for indexing, it is built after the rebuild.
+				((WritablePDOM) wf).deferTrigramIndex();
 			}
 		} finally {
 			index.releaseWriteLock();
 		}
 	}
 
+	/**
+	 * Builds the deferred trigram index and, after a complete rebuild, replaces the b-trees that
+	 * were filled one record at a time during the rebuild by densely packed ones. The write lock
+	 * is yielded in between, it cannot be cancelled since the trigram index has to be built.
+	 */
+	private void finishIndex(IWritableIndex index, boolean complete) {
+		try {
+			YieldableIndexLock lock= new YieldableIndexLock(index, true, null);
+			lock.acquire();
+			try {
+				IWritableIndexFragment wf= index.getWritableFragment();
+				if (wf instanceof WritablePDOM) {
+					if (complete) {
+						((WritablePDOM) wf).compactIndexes(lock);
+					}
+					((WritablePDOM) wf).buildDeferredTrigramIndex(lock);
+				}
+			} finally {
+				lock.release();
+			}
+		} catch (CoreException e) {
+			CCorePlugin.log(e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			// The deferred state is stored in the database, the PDOMManager builds the trigram
+			// index when the database is opened the next time.
+			CCorePlugin.log(IStatus.INFO, NLS.bind(Messages.PDOMRebuildTask_trigramIndexDeferred,
+					fIndexer.getProject().getElementName()));
+		}
+	}
+
 	private void createDelegate(ICProject project, IProgressMonitor monitor) throws CoreException {
 		boolean allFiles = 
 			TRUE.equals(fIndexer.getProperty(IndexerPreferences.KEY_INDEX_UNUSED_HEADERS_WITH_DEFAULT_LANG)) || 
@@ -19,6 +19,7 @@ import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.jface.text.IDocument;
 import org.eclipse.jface.text.IDocumentExtension4;
+import org.eclipse.jface.text.IRegion;
 import org.eclipse.ui.IEditorInput;
 import org.eclipse.ui.IEditorPart;
 import org.eclipse.ui.IPartListener2;
@@ -371,6 +372,22 @@ public final class ASTProvider {
 		fCache.releaseSharedAST(ast);
 	}
 
+	/**
+	 * Creates an AST for the given translation unit, for which only the bodies of the functions
+	 * overlapping with the region of interest are parsed. The AST is not shared with other clients.
+	 *
+	 * @param tu The translation unit to create the AST for.
+	 * @param index index with read lock held.
+	 * @param regionOfInterest the region for which function bodies are parsed, or {@code null}
+	 * 		to parse all function bodies.
+	 * @param monitor a progress monitor, may be {@code null}.
+	 * @return the AST, or {@code null} if the operation was cancelled.
+	 */
+	public IASTTranslationUnit createAST(ITranslationUnit tu, IIndex index, IRegion regionOfInterest,
+			IProgressMonitor monitor) {
+		return fCache.createAST(tu, index, regionOfInterest, monitor);
+	}
+
 	/**
 	 * Prepares the AST cache to be used for the given translation unit.
 	 *
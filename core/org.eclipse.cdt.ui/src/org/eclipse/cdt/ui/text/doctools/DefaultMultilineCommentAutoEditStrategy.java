@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2010 Symbian Software Systems and others.
+ * Copyright (c) 2008, 2015 Symbian Software Systems and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -46,6 +46,8 @@ import org.eclipse.cdt.ui.CUIPlugin;
 import org.eclipse.cdt.ui.IWorkingCopyManager;
 import org.eclipse.cdt.ui.text.ICPartitions;
 
+import org.eclipse.cdt.internal.ui.editor.ASTProvider;
+
 /**
  * This class provides default behaviors for multi-line comment auto-editing.
  * 
@@ -161,7 +163,8 @@ public class DefaultMultilineCommentAutoEditStrategy implements IAutoEditStrateg
 						}
 					}
 					try {
-						IASTTranslationUnit ast = getAST(unit, index);
+						// Only the declaration following the comment is needed, other function bodies can be skipped.
+						IASTTranslationUnit ast = getASTForDeclarationAt(unit, index, offset);
 						
 						if (ast != null) {
 							dec= findFollowingDeclaration(ast, offset);
@@ -286,6 +289,19 @@ public class DefaultMultilineCommentAutoEditStrategy implements IAutoEditStrateg
 		return null;
 	}
 
+	/**
+	 * Returns an AST for which only the body of the function at the given offset is parsed.
+	 */
+	private IASTTranslationUnit getASTForDeclarationAt(ITranslationUnit unit, IIndex index, int offset) {
+		if (unit != null && index != null) {
+			IASTTranslationUnit ast= ASTProvider.getASTProvider().createAST(unit, index,
+					new Region(offset, 0), null);
+			if (ast != null)
+				return ast;
+		}
+		return getAST(unit, index);
+	}
+
 	/**
 	 * Assuming the offset is within a multi-line comment, returns a guess as to
 	 * whether the enclosing multi-line comment is a new comment. The result is undefined if
@@ -10,8 +10,13 @@
  *******************************************************************************/
 package org.eclipse.cdt.dsf.gdb.tests;
 
+import org.eclipse.cdt.dsf.mi.service.MIMemoryBlockTests;
+import org.eclipse.cdt.dsf.mi.service.MIMemoryCacheTests;
+import org.eclipse.cdt.dsf.mi.service.command.AbstractMIControlTests;
 import org.eclipse.cdt.dsf.mi.service.command.commands.TestMIBreakInsertCommand;
 import org.eclipse.cdt.dsf.mi.service.command.commands.TestMICommandConstructCommand;
+import org.eclipse.cdt.dsf.mi.service.command.output.MIDataReadMemoryBytesInfoTests;
+import org.eclipse.cdt.dsf.mi.service.command.output.MIParserTests;
 import org.eclipse.cdt.dsf.mi.service.command.output.MIStringHandlerTests;
 import org.eclipse.cdt.dsf.mi.service.command.output.MIThreadTests;
 import org.junit.runner.RunWith;
@@ -26,7 +31,12 @@ import org.junit.runners.Suite.SuiteClasses;
     TestMICommandConstructCommand.class,
     LaunchUtilsTest.class,
     MIStringHandlerTests.class,
+    MIParserTests.class,
     ProcStatParserTest.class,
+    AbstractMIControlTests.class,
+    MIMemoryBlockTests.class,
+    MIMemoryCacheTests.class,
+    MIDataReadMemoryBytesInfoTests.class,
 })	
 public class AllTests {
 	// Often overriding BeforeClass method here
@@ -0,0 +1,181 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Ericsson and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Ericsson - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.dsf.mi.service;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.BitSet;
+import java.util.List;
+
+import org.eclipse.cdt.dsf.mi.service.MIMemory.MemoryBlock;
+import org.eclipse.cdt.dsf.mi.service.MIMemory.MemoryBlockMap;
+import org.eclipse.cdt.utils.Addr64;
+import org.junit.Test;
+
+/**
+ * Tests the handling of the blocks of memory cached by {@link MIMemory}.
+ */
+public class MIMemoryBlockTests {
+
+	private static BitSet bits(String pattern) {
+		BitSet bits = new BitSet(pattern.length());
+		for (int i = 0; i < pattern.length(); i++) {
+			if (pattern.charAt(i) == '1') {
+				bits.set(i);
+			}
+		}
+		return bits;
+	}
+
+	private static byte[] bytes(int length, int first) {
+		byte[] bytes = new byte[length];
+		for (int i = 0; i < length; i++) {
+			bytes[i] = (byte) (first + i);
+		}
+		return bytes;
+	}
+
+	private static MemoryBlock block(long address, int length, int first) {
+		BitSet readable = new BitSet(length);
+		readable.set(0, length);
+		return new MemoryBlock(new Addr64(address), length, length, bytes(length, first), readable);
+	}
+
+	private static List<MemoryBlock> allBlocks(MemoryBlockMap map) {
+		return map.getBlocks(Addr64.ZERO, Addr64.MAX);
+	}
+
+	private static void assertBlock(long address, int length, MemoryBlock block) {
+		assertEquals(new Addr64(address), block.fAddress);
+		assertEquals(length, block.fLengthInAddressableUnits);
+		assertEquals(length, block.fLengthInOctets);
+		assertEquals(length, block.fBytes.length);
+	}
+
+	@Test
+	public void testCopyPartiallyReadable() {
+		byte[] src = bytes(10, 1);
+		BitSet srcReadable = bits("1101110011");
+		byte[] dest = new byte[8];
+		BitSet destReadable = bits("11111111");
+
+		MIMemory.copy(src, srcReadable, 2, dest, destReadable, 1, 6);
+
+		assertArrayEquals(new byte[] { 0, 3, 4, 5, 6, 7, 8, 0 }, dest);
+		// The bits of the copied range are replaced, the others are kept.
+		assertEquals(bits("10111001"), destReadable);
+	}
+
+	@Test
+	public void testCopyUnreadable() {
+		byte[] dest = new byte[4];
+		BitSet destReadable = bits("1111");
+
+		MIMemory.copy(new byte[4], new BitSet(), 0, dest, destReadable, 1, 2);
+
+		assertEquals(bits("1001"), destReadable);
+	}
+
+	@Test
+	public void testCopyMerge() {
+		// Blocks are merged by copying them next to each other, the readable
+		// ranges of both are joined across the boundary.
+		byte[] first = bytes(4, 1);
+		byte[] second = bytes(3, 5);
+		byte[] merged = new byte[7];
+		BitSet mergedReadable = new BitSet(7);
+
+		MIMemory.copy(first, bits("0011"), 0, merged, mergedReadable, 0, 4);
+		MIMemory.copy(second, bits("110"), 0, merged, mergedReadable, 4, 3);
+
+		assertArrayEquals(bytes(7, 1), merged);
+		assertEquals(bits("0011110"), mergedReadable);
+		assertEquals(2, mergedReadable.nextSetBit(0));
+		assertEquals(6, mergedReadable.nextClearBit(2));
+	}
+
+	@Test
+	public void testAddOverlapping() {
+		MemoryBlockMap map = new MemoryBlockMap();
+		map.add(block(0, 8, 1));
+		// Only the part that is not cached yet is added, and merged with its neighbor.
+		map.add(block(4, 8, 101));
+		map.add(block(16, 4, 201));
+		map.add(block(10, 14, 51));
+
+		List<MemoryBlock> blocks = allBlocks(map);
+		assertEquals(1, blocks.size());
+		assertBlock(0, 24, blocks.get(0));
+		byte[] expected = new byte[24];
+		System.arraycopy(bytes(8, 1), 0, expected, 0, 8);
+		System.arraycopy(bytes(4, 105), 0, expected, 8, 4);
+		System.arraycopy(bytes(4, 53), 0, expected, 12, 4);
+		System.arraycopy(bytes(4, 201), 0, expected, 16, 4);
+		System.arraycopy(bytes(4, 61), 0, expected, 20, 4);
+		assertArrayEquals(expected, blocks.get(0).fBytes);
+		assertEquals(24, blocks.get(0).fReadable.cardinality());
+	}
+
+	@Test
+	public void testAddCached() {
+		MemoryBlockMap map = new MemoryBlockMap();
+		MemoryBlock cached = block(0, 16, 1);
+		map.add(cached);
+		map.add(block(4, 8, 101));
+
+		List<MemoryBlock> blocks = allBlocks(map);
+		assertEquals(1, blocks.size());
+		assertSame(cached, blocks.get(0));
+	}
+
+	@Test
+	public void testMergeLimit() {
+		final int maxMergedBlockOctets = 1024 * 1024;
+		MemoryBlockMap map = new MemoryBlockMap();
+		map.add(block(0, maxMergedBlockOctets / 2, 0));
+		map.add(block(maxMergedBlockOctets / 2, maxMergedBlockOctets / 2, 0));
+		map.add(block(maxMergedBlockOctets, 16, 0));
+
+		// Contiguous blocks are merged up to 1 MB, the rest is kept apart.
+		List<MemoryBlock> blocks = allBlocks(map);
+		assertEquals(2, blocks.size());
+		assertBlock(0, maxMergedBlockOctets, blocks.get(0));
+		assertBlock(maxMergedBlockOctets, 16, blocks.get(1));
+	}
+
+	@Test
+	public void testTrimLeastRecentlyUsed() {
+		MemoryBlockMap map = new MemoryBlockMap();
+		map.add(block(0, 4, 0));
+		map.add(block(8, 4, 0));
+		map.add(block(16, 4, 0));
+		// Use the first block, the second one becomes the least recently used.
+		map.getBlocks(new Addr64(0), new Addr64(4));
+
+		map.trim(12);
+		map.trim(8);
+		List<MemoryBlock> blocks = allBlocks(map);
+		assertEquals(2, blocks.size());
+		assertBlock(0, 4, blocks.get(0));
+		assertBlock(16, 4, blocks.get(1));
+
+		// Listing the blocks has used them in address order.
+		map.trim(4);
+		blocks = allBlocks(map);
+		assertEquals(1, blocks.size());
+		assertBlock(16, 4, blocks.get(0));
+
+		map.trim(0);
+		assertEquals(0, allBlocks(map).size());
+	}
+}
@@ -0,0 +1,298 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Ericsson and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Ericsson - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.dsf.mi.service;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.cdt.core.IAddress;
+import org.eclipse.cdt.dsf.concurrent.DataRequestMonitor;
+import org.eclipse.cdt.dsf.concurrent.DefaultDsfExecutor;
+import org.eclipse.cdt.dsf.concurrent.Query;
+import org.eclipse.cdt.dsf.datamodel.AbstractDMContext;
+import org.eclipse.cdt.dsf.datamodel.IDMContext;
+import org.eclipse.cdt.dsf.debug.service.IMemory.IMemoryDMContext;
+import org.eclipse.cdt.dsf.debug.service.MemoryBuffer;
+import org.eclipse.cdt.dsf.gdb.internal.GdbPlugin;
+import org.eclipse.cdt.dsf.mi.service.MIMemory.MIMemoryCache;
+import org.eclipse.cdt.dsf.service.DsfSession;
+import org.eclipse.cdt.utils.Addr64;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the size limit and the reading ahead of the memory cache of {@link MIMemory}.
+ * The target is played by the test, which answers the reads issued by the cache.
+ */
+public class MIMemoryCacheTests {
+	private static final int TIMEOUT = 5000;
+
+	private DsfSession fSession;
+	private TestMemory fMemory;
+	private MIMemoryCache fCache;
+	private IMemoryDMContext fContext;
+
+	/**
+	 * Memory service that hands the reads to the test instead of GDB.
+	 */
+	private static class TestMemory extends MIMemory {
+		final List<Read> fReads = new ArrayList<Read>();
+		long fCacheSize = Long.MAX_VALUE;
+		int fPrefetchSize;
+
+		TestMemory(DsfSession session) {
+			super(session);
+			fDataReadMemoryBytes = true;
+		}
+
+		@Override
+		protected void readMemoryBuffer(IDMContext dmc, IAddress address, long offset,
+				int wordSize, int wordCount, DataRequestMonitor<MemoryBuffer> drm) {
+			fReads.add(new Read(address.add(offset), wordCount, drm));
+		}
+
+		@Override
+		protected long getMemoryCacheSize() {
+			return fCacheSize;
+		}
+
+		@Override
+		protected int getMemoryCachePrefetchSize(IMemoryDMContext memoryDMC) {
+			return fPrefetchSize;
+		}
+	}
+
+	/**
+	 * A read issued to the target.
+	 */
+	private static class Read {
+		final IAddress fAddress;
+		final int fCount;
+		final DataRequestMonitor<MemoryBuffer> fRm;
+
+		Read(IAddress address, int count, DataRequestMonitor<MemoryBuffer> rm) {
+			fAddress = address;
+			fCount = count;
+			fRm = rm;
+		}
+	}
+
+	private static class MemoryContext extends AbstractDMContext implements IMemoryDMContext {
+		MemoryContext(String sessionId) {
+			super(sessionId, new IDMContext[0]);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return baseEquals(obj);
+		}
+
+		@Override
+		public int hashCode() {
+			return baseHashCode();
+		}
+	}
+
+	@Before
+	public void startSession() throws Exception {
+		fSession = DsfSession.startSession(new DefaultDsfExecutor(GdbPlugin.PLUGIN_ID), GdbPlugin.PLUGIN_ID);
+		fContext = new MemoryContext(fSession.getId());
+		runOnExecutor(new Query<Object>() {
+			@Override
+			protected void execute(DataRequestMonitor<Object> rm) {
+				fMemory = new TestMemory(fSession);
+				fCache = fMemory.new MIMemoryCache();
+				rm.done();
+			}
+		});
+	}
+
+	@After
+	public void endSession() throws Exception {
+		runOnExecutor(new Query<Object>() {
+			@Override
+			protected void execute(DataRequestMonitor<Object> rm) {
+				DsfSession.endSession(fSession);
+				rm.done();
+			}
+		});
+		fSession.getExecutor().shutdown();
+	}
+
+	private <V> V runOnExecutor(Query<V> query) throws Exception {
+		fSession.getExecutor().execute(query);
+		return query.get(TIMEOUT, TimeUnit.MILLISECONDS);
+	}
+
+	private static byte[] bytes(long address, int count) {
+		byte[] bytes = new byte[count];
+		for (int i = 0; i < count; i++) {
+			bytes[i] = (byte) (address + i);
+		}
+		return bytes;
+	}
+
+	/**
+	 * Starts reading memory from the cache, the read completes once the cache
+	 * has received the missing memory from the target.
+	 */
+	private Query<MemoryBuffer> read(final long address, final int count) {
+		Query<MemoryBuffer> query = new Query<MemoryBuffer>() {
+			@Override
+			protected void execute(DataRequestMonitor<MemoryBuffer> rm) {
+				fCache.getMemoryBuffer(fContext, new Addr64(address), 1, count, rm);
+			}
+		};
+		fSession.getExecutor().execute(query);
+		return query;
+	}
+
+	/**
+	 * Returns the reads issued to the target since the last call.
+	 */
+	private List<Read> takeReads() throws Exception {
+		return runOnExecutor(new Query<List<Read>>() {
+			@Override
+			protected void execute(DataRequestMonitor<List<Read>> rm) {
+				List<Read> reads = new ArrayList<Read>(fMemory.fReads);
+				fMemory.fReads.clear();
+				rm.setData(reads);
+				rm.done();
+			}
+		});
+	}
+
+	private Read takeRead(long address, int count) throws Exception {
+		List<Read> reads = takeReads();
+		assertEquals(1, reads.size());
+		assertEquals(new Addr64(address), reads.get(0).fAddress);
+		assertEquals(count, reads.get(0).fCount);
+		return reads.get(0);
+	}
+
+	/**
+	 * Answers the read the way the target would, and waits until the cache has handled it.
+	 */
+	private void complete(final Read read) throws Exception {
+		runOnExecutor(new Query<Object>() {
+			@Override
+			protected void execute(DataRequestMonitor<Object> rm) {
+				BitSet readable = new BitSet(read.fCount);
+				readable.set(0, read.fCount);
+				read.fRm.setData(new MemoryBuffer(bytes(read.fAddress.getValue().longValue(), read.fCount), readable));
+				read.fRm.done();
+				rm.done();
+			}
+		});
+		// The cache handles the result in the following dispatch cycles.
+		runOnExecutor(new Query<Object>() {
+			@Override
+			protected void execute(DataRequestMonitor<Object> rm) {
+				rm.done();
+			}
+		});
+	}
+
+	private void assertRead(Query<MemoryBuffer> read, long address, int count) throws Exception {
+		assertArrayEquals(bytes(address, count), read.get(TIMEOUT, TimeUnit.MILLISECONDS).getBytes());
+	}
+
+	private void assertCached(long address, int count) throws Exception {
+		Query<MemoryBuffer> read = read(address, count);
+		assertEquals(0, takeReads().size());
+		assertRead(read, address, count);
+	}
+
+	@Test
+	public void trimDeferredWhileReadsPending() throws Exception {
+		fMemory.fCacheSize = 16;
+
+		Query<MemoryBuffer> pendingQuery = read(32, 16);
+		Read pendingRead = takeRead(32, 16);
+
+		Query<MemoryBuffer> query = read(0, 16);
+		complete(takeRead(0, 16));
+		assertRead(query, 0, 16);
+		query = read(64, 16);
+		complete(takeRead(64, 16));
+		assertRead(query, 64, 16);
+
+		// The cache exceeds its size but nothing is evicted while a read is pending.
+		assertCached(0, 16);
+		assertCached(64, 16);
+
+		complete(pendingRead);
+		assertRead(pendingQuery, 32, 16);
+
+		// The least recently used memory has been evicted.
+		assertCached(32, 16);
+		read(0, 16);
+		takeRead(0, 16);
+		read(64, 16);
+		takeRead(64, 16);
+	}
+
+	@Test
+	public void prefetch() throws Exception {
+		fMemory.fPrefetchSize = 16;
+
+		Query<MemoryBuffer> query = read(20, 8);
+		complete(takeRead(20, 8));
+		assertRead(query, 20, 8);
+
+		// The pages before, around and after the read memory are read ahead,
+		// except for the memory that is cached already.
+		List<Read> reads = takeReads();
+		assertEquals(2, reads.size());
+		assertEquals(new Addr64(0), reads.get(0).fAddress);
+		assertEquals(20, reads.get(0).fCount);
+		assertEquals(new Addr64(28), reads.get(1).fAddress);
+		assertEquals(20, reads.get(1).fCount);
+		for (Read read : reads) {
+			complete(read);
+		}
+		// Stop reading ahead, such that reading from the cache issues no read
+		fMemory.fPrefetchSize = 0;
+		assertCached(0, 48);
+	}
+
+	@Test
+	public void resetDuringPrefetch() throws Exception {
+		fMemory.fPrefetchSize = 16;
+
+		Query<MemoryBuffer> query = read(16, 16);
+		complete(takeRead(16, 16));
+		assertRead(query, 16, 16);
+		List<Read> reads = takeReads();
+		assertEquals(2, reads.size());
+
+		runOnExecutor(new Query<Object>() {
+			@Override
+			protected void execute(DataRequestMonitor<Object> rm) {
+				fCache.reset();
+				rm.done();
+			}
+		});
+
+		// The memory read ahead before the reset is dropped.
+		for (Read read : reads) {
+			complete(read);
+		}
+		read(0, 48);
+		takeRead(0, 48);
+	}
+}
@@ -0,0 +1,270 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Ericsson and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Ericsson - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.dsf.mi.service.command;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.cdt.dsf.concurrent.DataRequestMonitor;
+import org.eclipse.cdt.dsf.concurrent.DefaultDsfExecutor;
+import org.eclipse.cdt.dsf.concurrent.IDsfStatusConstants;
+import org.eclipse.cdt.dsf.concurrent.Query;
+import org.eclipse.cdt.dsf.debug.service.command.ICommandControlService.ICommandControlDMContext;
+import org.eclipse.cdt.dsf.debug.service.command.ICommandToken;
+import org.eclipse.cdt.dsf.gdb.internal.GdbPlugin;
+import org.eclipse.cdt.dsf.mi.service.command.commands.MICommand;
+import org.eclipse.cdt.dsf.mi.service.command.output.MIInfo;
+import org.eclipse.cdt.dsf.service.DsfSession;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.osgi.framework.BundleContext;
+
+/**
+ * Tests that {@link AbstractMIControl} limits the number of commands that are
+ * sent to the backend before their results are received.  The backend is
+ * played by the test, which reads the commands and writes the results.
+ */
+public class AbstractMIControlTests {
+	private static final int MAX_COMMANDS_IN_FLIGHT = 2;
+	private static final int TIMEOUT = 5000;
+	// Time to wait for a command that should not be sent.
+	private static final int QUIET_PERIOD = 200;
+
+	private DsfSession fSession;
+	private TestControl fControl;
+	private PipedOutputStream fBackendOutput;
+	private final BlockingQueue<String> fSentCommands = new LinkedBlockingQueue<String>();
+	private final List<DataRequestMonitor<MIInfo>> fRequestMonitors = new ArrayList<DataRequestMonitor<MIInfo>>();
+	private CountDownLatch fDone;
+
+	/**
+	 * Command control that talks to the test instead of GDB.
+	 */
+	private static class TestControl extends AbstractMIControl {
+		private final MIControlDMContext fControlDmc;
+
+		TestControl(DsfSession session) {
+			super(session, true, new CommandFactory());
+			fControlDmc = new MIControlDMContext(session.getId(), "test"); //$NON-NLS-1$
+		}
+
+		@Override
+		protected BundleContext getBundleContext() {
+			return GdbPlugin.getBundleContext();
+		}
+
+		@Override
+		public MIControlDMContext getControlDMContext() {
+			return fControlDmc;
+		}
+
+		@Override
+		public ICommandControlDMContext getContext() {
+			return fControlDmc;
+		}
+
+		@Override
+		public String getId() {
+			return "test"; //$NON-NLS-1$
+		}
+	}
+
+	/**
+	 * Stream that hands each line written by the TX thread to the test.
+	 */
+	private class CommandStream extends OutputStream {
+		private final ByteArrayOutputStream fLine = new ByteArrayOutputStream();
+
+		@Override
+		public void write(int b) throws IOException {
+			if (b == '\n') {
+				fSentCommands.add(fLine.toString());
+				fLine.reset();
+			} else {
+				fLine.write(b);
+			}
+		}
+	}
+
+	@Before
+	public void startControl() throws Exception {
+		fSession = DsfSession.startSession(new DefaultDsfExecutor(GdbPlugin.PLUGIN_ID), GdbPlugin.PLUGIN_ID);
+		final PipedInputStream inputStream = new PipedInputStream();
+		fBackendOutput = new PipedOutputStream(inputStream);
+		runOnExecutor(new Query<Object>() {
+			@Override
+			protected void execute(DataRequestMonitor<Object> rm) {
+				fControl = new TestControl(fSession);
+				fControl.startCommandProcessing(inputStream, new CommandStream());
+				fControl.setMaxCommandsInFlight(MAX_COMMANDS_IN_FLIGHT);
+				rm.done();
+			}
+		});
+	}
+
+	@After
+	public void stopControl() throws Exception {
+		runOnExecutor(new Query<Object>() {
+			@Override
+			protected void execute(DataRequestMonitor<Object> rm) {
+				fControl.stopCommandProcessing();
+				DsfSession.endSession(fSession);
+				rm.done();
+			}
+		});
+		fBackendOutput.close();
+		fSession.getExecutor().shutdown();
+	}
+
+	private <V> V runOnExecutor(Query<V> query) throws Exception {
+		fSession.getExecutor().execute(query);
+		return query.get(TIMEOUT, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Queues the given number of commands in one dispatch cycle.
+	 */
+	private List<ICommandToken> queueCommands(final int count) throws Exception {
+		fDone = new CountDownLatch(count);
+		return runOnExecutor(new Query<List<ICommandToken>>() {
+			@Override
+			protected void execute(DataRequestMonitor<List<ICommandToken>> rm) {
+				List<ICommandToken> tokens = new ArrayList<ICommandToken>();
+				for (int i = 0; i < count; i++) {
+					DataRequestMonitor<MIInfo> commandRm = new DataRequestMonitor<MIInfo>(fSession.getExecutor(), null) {
+						@Override
+						protected void handleCompleted() {
+							fDone.countDown();
+						}
+					};
+					fRequestMonitors.add(commandRm);
+					tokens.add(fControl.queueCommand(new MICommand<MIInfo>(fControl.getContext(), "-test-command-" + i), commandRm)); //$NON-NLS-1$
+				}
+				rm.setData(tokens);
+				rm.done();
+			}
+		});
+	}
+
+	/**
+	 * Returns the next command written to the backend.
+	 */
+	private String receiveCommand() throws InterruptedException {
+		String command = fSentCommands.poll(TIMEOUT, TimeUnit.MILLISECONDS);
+		assertNotNull("Command was not sent", command); //$NON-NLS-1$
+		return command;
+	}
+
+	private void assertNoCommandSent() throws InterruptedException {
+		assertNull("Too many commands in flight", fSentCommands.poll(QUIET_PERIOD, TimeUnit.MILLISECONDS)); //$NON-NLS-1$
+	}
+
+	/**
+	 * Answers the given command the way GDB would.
+	 */
+	private void sendResult(String command) throws IOException {
+		String token = command.substring(0, command.indexOf('-'));
+		fBackendOutput.write((token + "^done\n").getBytes()); //$NON-NLS-1$
+		fBackendOutput.flush();
+	}
+
+	private void failCommand(final ICommandToken token) throws Exception {
+		runOnExecutor(new Query<Object>() {
+			@Override
+			protected void execute(DataRequestMonitor<Object> rm) {
+				fControl.commandFailed(token, IDsfStatusConstants.REQUEST_FAILED, "Timed out"); //$NON-NLS-1$
+				rm.done();
+			}
+		});
+	}
+
+	@Test
+	public void commandsInFlightAreLimited() throws Exception {
+		final int count = 6;
+		queueCommands(count);
+
+		List<String> sent = new ArrayList<String>();
+		for (int i = 0; i < MAX_COMMANDS_IN_FLIGHT; i++) {
+			sent.add(receiveCommand());
+		}
+		assertNoCommandSent();
+
+		// Each result lets exactly one more command through.
+		for (int i = MAX_COMMANDS_IN_FLIGHT; i < count; i++) {
+			sendResult(sent.get(i - MAX_COMMANDS_IN_FLIGHT));
+			sent.add(receiveCommand());
+			assertNoCommandSent();
+		}
+		for (int i = count - MAX_COMMANDS_IN_FLIGHT; i < count; i++) {
+			sendResult(sent.get(i));
+		}
+
+		assertTrue("Commands did not complete", fDone.await(TIMEOUT, TimeUnit.MILLISECONDS)); //$NON-NLS-1$
+		for (int i = 0; i < count; i++) {
+			assertTrue(sent.get(i).endsWith("-test-command-" + i)); //$NON-NLS-1$
+			assertTrue(fRequestMonitors.get(i).isSuccess());
+		}
+	}
+
+	@Test
+	public void queueDrainsAfterCommandFailed() throws Exception {
+		final int count = 5;
+		List<ICommandToken> tokens = queueCommands(count);
+
+		String first = receiveCommand();
+		String second = receiveCommand();
+		assertNoCommandSent();
+
+		// A command that timed out no longer counts as being in flight.
+		failCommand(tokens.get(0));
+		String third = receiveCommand();
+		assertNoCommandSent();
+
+		// Its late result must not let another command through.
+		sendResult(first);
+		assertNoCommandSent();
+
+		failCommand(tokens.get(1));
+		String fourth = receiveCommand();
+		assertNoCommandSent();
+		sendResult(second);
+		assertNoCommandSent();
+
+		sendResult(third);
+		String fifth = receiveCommand();
+		assertNoCommandSent();
+		sendResult(fourth);
+		sendResult(fifth);
+
+		assertTrue("Commands did not complete", fDone.await(TIMEOUT, TimeUnit.MILLISECONDS)); //$NON-NLS-1$
+		assertTrue(fifth.endsWith("-test-command-4")); //$NON-NLS-1$
+		assertFalse(fRequestMonitors.get(0).isSuccess());
+		assertFalse(fRequestMonitors.get(1).isSuccess());
+		for (int i = 2; i < count; i++) {
+			assertTrue(fRequestMonitors.get(i).isSuccess());
+		}
+	}
+}
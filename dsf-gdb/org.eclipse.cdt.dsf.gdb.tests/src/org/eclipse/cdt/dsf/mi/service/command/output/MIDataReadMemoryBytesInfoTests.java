@@ -0,0 +1,92 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Ericsson and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Ericsson - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.dsf.mi.service.command.output;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.eclipse.cdt.dsf.debug.service.MemoryBuffer;
+import org.eclipse.debug.core.model.MemoryByte;
+import org.junit.Test;
+
+public class MIDataReadMemoryBytesInfoTests {
+	private final MIParser fParser = new MIParser();
+
+	private MIDataReadMemoryBytesInfo parse(String line, int count, int wordSize) {
+		MIResultRecord rr = fParser.parseMIResultRecord(line);
+		return new MIDataReadMemoryBytesInfo(new MIOutput(rr, new MIOOBRecord[0]), count, wordSize);
+	}
+
+	@Test
+	public void testContents() {
+		MIDataReadMemoryBytesInfo info = parse("^done,memory=[{begin=\"0x1000\",offset=\"0x00000000\"," //$NON-NLS-1$
+				+ "end=\"0x1006\",contents=\"00017f80aBFf\"}]", 6, 1); //$NON-NLS-1$
+		MemoryBuffer buffer = info.getMemoryBuffer();
+		assertArrayEquals(new byte[] { 0x00, 0x01, 0x7f, (byte) 0x80, (byte) 0xab, (byte) 0xff }, buffer.getBytes());
+		assertTrue(buffer.isReadable());
+	}
+
+	@Test
+	public void testPartiallyReadable() {
+		// GDB only returns the ranges that could be read.
+		MIDataReadMemoryBytesInfo info = parse("^done,memory=[" //$NON-NLS-1$
+				+ "{begin=\"0x1001\",offset=\"0x00000001\",end=\"0x1003\",contents=\"1122\"}," //$NON-NLS-1$
+				+ "{begin=\"0x1005\",offset=\"0x00000005\",end=\"0x1006\",contents=\"33\"}]", 8, 1); //$NON-NLS-1$
+		MemoryBuffer buffer = info.getMemoryBuffer();
+		assertEquals(8, buffer.getLength());
+		assertFalse(buffer.isReadable());
+		boolean[] readable = { false, true, true, false, false, true, false, false };
+		for (int i = 0; i < readable.length; i++) {
+			assertEquals("octet " + i, readable[i], buffer.isReadable(i)); //$NON-NLS-1$
+		}
+		assertEquals(0x11, buffer.getBytes()[1]);
+		assertEquals(0x22, buffer.getBytes()[2]);
+		assertEquals(0x33, buffer.getBytes()[5]);
+
+		MemoryByte[] block = info.getMIMemoryBlock();
+		assertEquals(8, block.length);
+		for (int i = 0; i < readable.length; i++) {
+			assertEquals("octet " + i, readable[i], block[i].isReadable()); //$NON-NLS-1$
+		}
+		assertEquals(0x22, block[2].getValue());
+	}
+
+	@Test
+	public void testWordSize() {
+		// The offset is in addressable units, the contents are in octets.
+		MIDataReadMemoryBytesInfo info = parse("^done,memory=[{begin=\"0x1001\",offset=\"0x00000001\"," //$NON-NLS-1$
+				+ "end=\"0x1002\",contents=\"0a0b\"}]", 2, 2); //$NON-NLS-1$
+		MemoryBuffer buffer = info.getMemoryBuffer();
+		assertEquals(4, buffer.getLength());
+		assertFalse(buffer.isReadable(0));
+		assertFalse(buffer.isReadable(1));
+		assertTrue(buffer.isReadable(2));
+		assertTrue(buffer.isReadable(3));
+		assertEquals(0x0a, buffer.getBytes()[2]);
+		assertEquals(0x0b, buffer.getBytes()[3]);
+	}
+
+	@Test
+	public void testInvalidContents() {
+		// A range that does not fit is ignored, an invalid digit ends the range.
+		MIDataReadMemoryBytesInfo info = parse("^done,memory=[" //$NON-NLS-1$
+				+ "{begin=\"0x1002\",offset=\"0x00000002\",end=\"0x1006\",contents=\"01020304\"}," //$NON-NLS-1$
+				+ "{begin=\"0x1000\",offset=\"0x00000000\",end=\"0x1003\",contents=\"05zz06\"}]", 4, 1); //$NON-NLS-1$
+		MemoryBuffer buffer = info.getMemoryBuffer();
+		assertTrue(buffer.isReadable(0));
+		assertEquals(0x05, buffer.getBytes()[0]);
+		assertFalse(buffer.isReadable(1));
+		assertFalse(buffer.isReadable(2));
+		assertFalse(buffer.isReadable(3));
+	}
+}
@@ -0,0 +1,77 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Ericsson and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Ericsson - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.dsf.mi.service.command.output;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class MIParserTests {
+	private final MIParser fParser = new MIParser();
+
+	@Test
+	public void testResultRecord() {
+		String line = "12^done,stack=[frame={level=\"0\",func=\"main\"},frame={level=\"1\",func=\"f\"}],x=[\"a\",\"b\"]"; //$NON-NLS-1$
+		assertEquals(MIParser.RecordType.ResultRecord, fParser.getRecordType(line));
+		MIResultRecord rr = fParser.parseMIResultRecord(line);
+		assertEquals(12, rr.getToken());
+		assertEquals(MIResultRecord.DONE, rr.getResultClass());
+
+		MIResult[] results = rr.getMIResults();
+		assertEquals(2, results.length);
+		assertEquals("stack", results[0].getVariable()); //$NON-NLS-1$
+		MIList stack = (MIList) results[0].getMIValue();
+		assertEquals(2, stack.getMIResults().length);
+		MITuple frame = (MITuple) stack.getMIResults()[1].getMIValue();
+		assertEquals("func", frame.getMIResults()[1].getVariable()); //$NON-NLS-1$
+		assertEquals("f", ((MIConst) frame.getMIResults()[1].getMIValue()).getCString()); //$NON-NLS-1$
+
+		MIList x = (MIList) results[1].getMIValue();
+		assertEquals(2, x.getMIValues().length);
+		assertEquals("b", ((MIConst) x.getMIValues()[1]).getCString()); //$NON-NLS-1$
+	}
+
+	@Test
+	public void testEscapes() {
+		MIResultRecord rr = fParser.parseMIResultRecord("^error,msg=\"a \\\"b\\\" c\\\\d\\n\",y=\"\""); //$NON-NLS-1$
+		assertEquals(MIResultRecord.ERROR, rr.getResultClass());
+		assertEquals("a \"b\" c\\d\\n", ((MIConst) rr.getMIResults()[0].getMIValue()).getCString()); //$NON-NLS-1$
+		assertEquals("", ((MIConst) rr.getMIResults()[1].getMIValue()).getCString()); //$NON-NLS-1$
+
+		// Backslashes within stream records are not escaped.
+		MIOOBRecord oob = fParser.parseMIOOBRecord("~\"c:\\\\dir\\n\""); //$NON-NLS-1$
+		assertTrue(oob instanceof MIConsoleStreamOutput);
+		assertEquals("c:\\\\dir\\n", ((MIStreamRecord) oob).getCString()); //$NON-NLS-1$
+	}
+
+	@Test
+	public void testAsyncRecord() {
+		MIOOBRecord oob = fParser.parseMIOOBRecord("*stopped,reason=\"breakpoint-hit\",thread-id=\"1\""); //$NON-NLS-1$
+		assertTrue(oob instanceof MIExecAsyncOutput);
+		MIAsyncRecord async = (MIAsyncRecord) oob;
+		assertEquals("stopped", async.getAsyncClass()); //$NON-NLS-1$
+		assertEquals(2, async.getMIResults().length);
+		assertEquals("thread-id", async.getMIResults()[1].getVariable()); //$NON-NLS-1$
+
+		oob = fParser.parseMIOOBRecord("5=thread-group-added "); //$NON-NLS-1$
+		async = (MIAsyncRecord) oob;
+		assertEquals(5, async.getToken());
+		assertEquals("thread-group-added", async.getAsyncClass()); //$NON-NLS-1$
+	}
+
+	@Test
+	public void testBadlyFormattedLine() {
+		MIOOBRecord oob = fParser.parseMIOOBRecord("no mi output"); //$NON-NLS-1$
+		assertTrue(oob instanceof MITargetStreamOutput);
+		assertEquals("no mi output\n", ((MIStreamRecord) oob).getCString()); //$NON-NLS-1$
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2013, 2014 Mentor Graphics and others.
+ * Copyright (c) 2013, 2015 Mentor Graphics and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -26,12 +26,13 @@ import org.eclipse.cdt.dsf.concurrent.ImmediateRequestMonitor;
 import org.eclipse.cdt.dsf.concurrent.RequestMonitor;
 import org.eclipse.cdt.dsf.concurrent.Sequence;
 import org.eclipse.cdt.dsf.datamodel.DMContexts;
-import org.eclipse.cdt.dsf.datamodel.IDMContext;
 import org.eclipse.cdt.dsf.debug.service.IExpressions;
 import org.eclipse.cdt.dsf.debug.service.IExpressions.IExpressionDMContext;
 import org.eclipse.cdt.dsf.debug.service.IMemory;
+import org.eclipse.cdt.dsf.debug.service.IMemory2;
 import org.eclipse.cdt.dsf.debug.service.IRunControl.IContainerDMContext;
 import org.eclipse.cdt.dsf.debug.service.IRunControl.IExitedDMEvent;
+import org.eclipse.cdt.dsf.debug.service.MemoryBuffer;
 import org.eclipse.cdt.dsf.gdb.internal.GdbPlugin;
 import org.eclipse.cdt.dsf.gdb.service.command.IGDBControl;
 import org.eclipse.cdt.dsf.mi.service.MIMemory;
@@ -45,7 +46,6 @@ import org.eclipse.cdt.dsf.service.DsfServiceEventHandler;
 import org.eclipse.cdt.dsf.service.DsfSession;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
-import org.eclipse.debug.core.model.MemoryByte;
 
 /**
  * @since 4.2
@@ -89,6 +89,7 @@ public class GDBMemory extends MIMemory implements IGDBMemory2 {
 		register(
 			new String[] { 
 				IMemory.class.getName(),
+				IMemory2.class.getName(),
 				MIMemory.class.getName(),
 				IGDBMemory.class.getName(),
 				IGDBMemory2.class.getName(),
@@ -107,27 +108,22 @@ public class GDBMemory extends MIMemory implements IGDBMemory2 {
 		super.shutdown(requestMonitor);
 	}
 
+	/**
+	 * @since 5.0
+	 */
 	@Override
-	protected void readMemoryBlock(final IDMContext dmc, IAddress address, 
-		long offset, int word_size, int word_count, final DataRequestMonitor<MemoryByte[]> drm) {
-		super.readMemoryBlock(
-			dmc, 
+	public void getMemoryBuffer(final IMemoryDMContext memoryDMC, IAddress address, long offset,
+			int wordSize, int wordCount, final DataRequestMonitor<MemoryBuffer> drm) {
+		super.getMemoryBuffer(
+			memoryDMC, 
 			address, 
 			offset, 
-			word_size, 
-			word_count, 
-			new DataRequestMonitor<MemoryByte[]>(ImmediateExecutor.getInstance(), drm) {
+			wordSize, 
+			wordCount, 
+			new ImmediateDataRequestMonitor<MemoryBuffer>(drm) {
 				@Override
 				protected void handleSuccess() {
-					IMemoryDMContext memDmc = DMContexts.getAncestorOfType(dmc, IMemoryDMContext.class);
-					if (memDmc != null) {
-						boolean bigEndian = isBigEndian(memDmc);
-						for (MemoryByte b : getData()) {
-							b.setBigEndian(bigEndian);
-							b.setEndianessKnown(true);
-						}
-					}
-					drm.setData(getData());
+					drm.setData(getData().withEndianness(isBigEndian(memoryDMC)));
 					drm.done();
 				}
 			});
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2014 Ericsson and others.
+ * Copyright (c) 2008, 2015 Ericsson and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -20,14 +20,15 @@ import org.eclipse.cdt.dsf.concurrent.RequestMonitor;
 import org.eclipse.cdt.dsf.datamodel.DMContexts;
 import org.eclipse.cdt.dsf.datamodel.IDMContext;
 import org.eclipse.cdt.dsf.debug.service.IMemory;
+import org.eclipse.cdt.dsf.debug.service.IMemory2;
 import org.eclipse.cdt.dsf.debug.service.IMemorySpaces.IMemorySpaceDMContext;
 import org.eclipse.cdt.dsf.debug.service.IRunControl;
+import org.eclipse.cdt.dsf.debug.service.MemoryBuffer;
 import org.eclipse.cdt.dsf.gdb.internal.memory.GdbMemoryBlock.MemorySpaceDMContext;
 import org.eclipse.cdt.dsf.mi.service.IMIContainerDMContext;
 import org.eclipse.cdt.dsf.mi.service.IMIExecutionDMContext;
 import org.eclipse.cdt.dsf.mi.service.MIMemory;
 import org.eclipse.cdt.dsf.service.DsfSession;
-import org.eclipse.debug.core.model.MemoryByte;
 
 public class GDBMemory_7_0 extends GDBMemory {
 
@@ -50,6 +51,7 @@ public class GDBMemory_7_0 extends GDBMemory {
 			new String[] { 
 				MIMemory.class.getName(), 
 				IMemory.class.getName(),
+				IMemory2.class.getName(),
 				IGDBMemory.class.getName(),
 				IGDBMemory2.class.getName(),
 				GDBMemory.class.getName(),
@@ -67,8 +69,8 @@ public class GDBMemory_7_0 extends GDBMemory {
 	}
 
 	@Override
-	protected void readMemoryBlock(IDMContext dmc, IAddress address, long offset,
-			int word_size, int word_count, DataRequestMonitor<MemoryByte[]> drm)
+	protected void readMemoryBuffer(IDMContext dmc, IAddress address, long offset,
+			int word_size, int word_count, DataRequestMonitor<MemoryBuffer> drm)
 	{
 		IDMContext threadOrMemoryDmc = dmc;
 
@@ -105,7 +107,7 @@ public class GDBMemory_7_0 extends GDBMemory {
 			}
 		}
 
-		super.readMemoryBlock(threadOrMemoryDmc, address, offset, word_size, word_count, drm);
+		super.readMemoryBuffer(threadOrMemoryDmc, address, offset, word_size, word_count, drm);
 	}
 
 	@Override
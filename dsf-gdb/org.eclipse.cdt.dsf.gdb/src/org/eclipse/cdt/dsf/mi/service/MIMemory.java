@@ -18,18 +18,25 @@
  *******************************************************************************/
 package org.eclipse.cdt.dsf.mi.service;
 
+import java.math.BigInteger;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Hashtable;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.ListIterator;
 import java.util.Map;
+import java.util.TreeMap;
 
 import org.eclipse.cdt.core.IAddress;
 import org.eclipse.cdt.dsf.concurrent.CountingRequestMonitor;
 import org.eclipse.cdt.dsf.concurrent.DataRequestMonitor;
 import org.eclipse.cdt.dsf.concurrent.IDsfStatusConstants;
+import org.eclipse.cdt.dsf.concurrent.ImmediateDataRequestMonitor;
 import org.eclipse.cdt.dsf.concurrent.ImmediateRequestMonitor;
 import org.eclipse.cdt.dsf.concurrent.RequestMonitor;
 import org.eclipse.cdt.dsf.datamodel.AbstractDMEvent;
@@ -41,11 +48,13 @@ import org.eclipse.cdt.dsf.debug.service.IExpressions.IExpressionChangedDMEvent;
 import org.eclipse.cdt.dsf.debug.service.IExpressions.IExpressionDMAddress;
 import org.eclipse.cdt.dsf.debug.service.IExpressions.IExpressionDMContext;
 import org.eclipse.cdt.dsf.debug.service.IMemory;
+import org.eclipse.cdt.dsf.debug.service.IMemory2;
 import org.eclipse.cdt.dsf.debug.service.IRunControl.IContainerResumedDMEvent;
 import org.eclipse.cdt.dsf.debug.service.IRunControl.IContainerSuspendedDMEvent;
 import org.eclipse.cdt.dsf.debug.service.IRunControl.IResumedDMEvent;
 import org.eclipse.cdt.dsf.debug.service.IRunControl.ISuspendedDMEvent;
 import org.eclipse.cdt.dsf.debug.service.IRunControl.StateChangeReason;
+import org.eclipse.cdt.dsf.debug.service.MemoryBuffer;
 import org.eclipse.cdt.dsf.debug.service.command.BufferedCommandControl;
 import org.eclipse.cdt.dsf.debug.service.command.CommandCache;
 import org.eclipse.cdt.dsf.gdb.internal.GdbPlugin;
@@ -67,12 +76,24 @@ import org.osgi.framework.BundleContext;
 
 /**
  * Memory service implementation
+ * <p>
+ * The memory read from the target is cached per memory context.  Each cache holds
+ * at most 64 MB by default, the least recently used memory is dropped beyond that.
+ * Subclasses change this limit by overriding {@link #getMemoryCacheSize()}, and can
+ * have the memory around each read fetched in advance by overriding
+ * {@link #getMemoryCachePrefetchSize(IMemoryDMContext)}.
  */
-public class MIMemory extends AbstractDsfService implements IMemory, ICachingService {
+public class MIMemory extends AbstractDsfService implements IMemory2, ICachingService {
 
 	private static final String READ_MEMORY_BYTES_FEATURE = "data-read-memory-bytes"; //$NON-NLS-1$
 	//data-read-memory write is deprecated, its description could be ambiguous for e.g. 16 bit addressable systems
 	private static final String DATA_WRITE_MEMORY_16_NOT_SUPPORTED = "data-write-memory with word-size != 1 not supported"; //$NON-NLS-1$
+
+	// The default size limit of the memory cache of a memory context, in octets
+	private static final long DEFAULT_MEMORY_CACHE_SIZE = 64 * 1024 * 1024;
+	// The default size of the pages read ahead of the requested memory, in addressable units.
+	// Nothing is read ahead by default, reading memory can have side effects on some targets.
+	private static final int DEFAULT_MEMORY_CACHE_PREFETCH_SIZE = 0;
 	
     public class MemoryChangedEvent extends AbstractDMEvent<IMemoryDMContext> 
         implements IMemoryChangedEvent 
@@ -109,7 +130,8 @@ public class MIMemory extends AbstractDsfService implements IMemory, ICachingSer
     
     // Whether the -data-read-memory-bytes should be used
     // instead of -data-read-memory
-    private boolean fDataReadMemoryBytes;
+    // Package visible for the tests.
+    boolean fDataReadMemoryBytes;
     
 	/**
 	 *  Constructor 
@@ -154,7 +176,7 @@ public class MIMemory extends AbstractDsfService implements IMemory, ICachingSer
     	fCommandCache = new CommandCache(getSession(), bufferedCommandControl);
     	fCommandCache.setContextAvailable(commandControl.getContext(), true);
 
-    	register(new String[] { MIMemory.class.getName(), IMemory.class.getName() }, new Hashtable<String, String>());
+    	register(new String[] { MIMemory.class.getName(), IMemory.class.getName(), IMemory2.class.getName() }, new Hashtable<String, String>());
 
     	fMemoryCaches = new HashMap<IMemoryDMContext, MIMemoryCache>();
 
@@ -193,7 +215,24 @@ public class MIMemory extends AbstractDsfService implements IMemory, ICachingSer
      */
 	@Override
     public void getMemory(IMemoryDMContext memoryDMC, IAddress address, long offset,
-    		int wordSize, int wordCount, DataRequestMonitor<MemoryByte[]> drm)
+    		int wordSize, int wordCount, final DataRequestMonitor<MemoryByte[]> drm)
+	{
+		getMemoryBuffer(memoryDMC, address, offset, wordSize, wordCount,
+			new ImmediateDataRequestMonitor<MemoryBuffer>(drm) {
+				@Override
+				protected void handleSuccess() {
+					drm.setData(getData().toMemoryBytes());
+					drm.done();
+				}
+			});
+	}
+
+    /**
+     * @since 5.0
+     */
+	@Override
+    public void getMemoryBuffer(IMemoryDMContext memoryDMC, IAddress address, long offset,
+    		int wordSize, int wordCount, DataRequestMonitor<MemoryBuffer> drm)
 	{
         if (memoryDMC == null) {
             drm.setStatus(new Status(IStatus.ERROR, GdbPlugin.PLUGIN_ID, INTERNAL_ERROR, "Unknown context type", null)); //$NON-NLS-1$);
@@ -213,7 +252,7 @@ public class MIMemory extends AbstractDsfService implements IMemory, ICachingSer
     		return;
     	}
 
-    	getMemoryCache(memoryDMC).getMemory(memoryDMC, address.add(offset), wordSize, wordCount, drm);
+    	getMemoryCache(memoryDMC).getMemoryBuffer(memoryDMC, address.add(offset), wordSize, wordCount, drm);
 	}
 
     /* (non-Javadoc)
@@ -302,17 +341,22 @@ public class MIMemory extends AbstractDsfService implements IMemory, ICachingSer
     ///////////////////////////////////////////////////////////////////////
 
     /**
-     * @param memoryDMC
+     * Reads a block of memory from the back end, the octets that cannot be read
+     * are marked as such in the returned buffer.
+     * This method replaces <code>readMemoryBlock()</code>, which returned
+     * a <code>MemoryByte[]</code>.
+     * 
+     * @param dmc
      * @param address
      * @param offset
      * @param wordSize
      * @param wordCount in addressable units
      * @param drm
      * 
-     * @since 1.1
+     * @since 5.0
      */
-    protected void readMemoryBlock(IDMContext dmc, IAddress address, final long offset,
-    		final int wordSize, final int wordCount, final DataRequestMonitor<MemoryByte[]> drm)
+    protected void readMemoryBuffer(IDMContext dmc, IAddress address, final long offset,
+    		final int wordSize, final int wordCount, final DataRequestMonitor<MemoryBuffer> drm)
     {
     	if (fDataReadMemoryBytes) {
     		fCommandCache.execute(
@@ -321,7 +365,7 @@ public class MIMemory extends AbstractDsfService implements IMemory, ICachingSer
     				@Override
     				protected void handleSuccess() {
     					// Retrieve the memory block
-    					drm.setData(getData().getMIMemoryBlock());
+    					drm.setData(getData().getMemoryBuffer());
     					drm.done();
     				}
     				@Override
@@ -355,7 +399,7 @@ public class MIMemory extends AbstractDsfService implements IMemory, ICachingSer
     				@Override
     				protected void handleSuccess() {
     					// Retrieve the memory block
-    					drm.setData(getData().getMIMemoryBlock());
+    					drm.setData(getData().getMemoryBuffer());
     					drm.done();
     				}
     				@Override
@@ -368,13 +412,33 @@ public class MIMemory extends AbstractDsfService implements IMemory, ICachingSer
     	}
     }
     
-	private MemoryByte[] createInvalidBlock(int size) {
+    /**
+     * Returns the maximum number of octets kept in the memory cache of a memory context.
+     * The least recently used memory is dropped when the cache grows beyond this size,
+     * once no read from the cache is pending.  The default is 64 MB.
+     * 
+     * @since 5.0
+     */
+    protected long getMemoryCacheSize() {
+    	return DEFAULT_MEMORY_CACHE_SIZE;
+    }
+
+    /**
+     * Returns the size, in addressable units, of the pages that are read in advance
+     * before and after the memory requested from the cache of the given memory context.
+     * The default is 0, i.e. nothing is read ahead.  Subclasses return a positive size
+     * for targets where reading memory has no side effects.  Reading ahead requires
+     * support for -data-read-memory-bytes.
+     * 
+     * @since 5.0
+     */
+    protected int getMemoryCachePrefetchSize(IMemoryDMContext memoryDMC) {
+    	return DEFAULT_MEMORY_CACHE_PREFETCH_SIZE;
+    }
+
+	private MemoryBuffer createInvalidBlock(int size) {
 		// Bug234289: If memory read fails, return a block marked as invalid
-		MemoryByte[] block = new MemoryByte[size];
-		for (int i = 0; i < block.length; i++) {
-			block[i] = new MemoryByte((byte) 0, (byte) 0);
-		}
-		return block;
+		return new MemoryBuffer(new byte[size], new BitSet());
 	}
 
     /**
@@ -522,109 +586,167 @@ public class MIMemory extends AbstractDsfService implements IMemory, ICachingSer
 	}
    	
 	///////////////////////////////////////////////////////////////////////////
-	// SortedLinkedlist
+	// MemoryBlockMap
 	///////////////////////////////////////////////////////////////////////////
 
 	// This class is really the equivalent of a C struct (old habits die hard...)
    	// For simplicity, everything is public.
-   	private static class MemoryBlock {
+   	// Package visible for the tests.
+   	static class MemoryBlock {
 		public IAddress fAddress;
 		public long fLengthInAddressableUnits;
 		public long fLengthInOctets;
-		public MemoryByte[] fBlock;
-		public MemoryBlock(IAddress address, long lengthInOctets, long lengthInAddressableUnits, MemoryByte[] block) {
+		public byte[] fBytes;
+		public BitSet fReadable;
+		public MemoryBlock(IAddress address, long lengthInOctets, long lengthInAddressableUnits, byte[] bytes, BitSet readable) {
 			// A memory block is expected to be populated with the contents of a defined range of addresses
 			// therefore the number of octets shall be divisible by the number of addresses
 			assert (lengthInOctets % lengthInAddressableUnits == 0);
 			fAddress = address;
 			fLengthInAddressableUnits = lengthInAddressableUnits;
 			fLengthInOctets = lengthInOctets;
-			fBlock = block;
+			fBytes = bytes;
+			fReadable = readable;
 		}
 	}
 
-   	// Address-ordered data structure to cache the memory blocks.
-   	// Contiguous blocks are merged if possible.
-	@SuppressWarnings("serial")
-	private static class SortedMemoryBlockList extends LinkedList<MemoryBlock> {
-
-		public SortedMemoryBlockList() {
-			super();
+	// Copies octets together with the bits telling whether they are readable.
+	// Package visible for the tests.
+	static void copy(byte[] srcBytes, BitSet srcReadable, int srcPos,
+			byte[] destBytes, BitSet destReadable, int destPos, int length) {
+		System.arraycopy(srcBytes, srcPos, destBytes, destPos, length);
+		destReadable.clear(destPos, destPos + length);
+		final int srcEnd = srcPos + length;
+		int runStart = srcReadable.nextSetBit(srcPos);
+		while (runStart >= 0 && runStart < srcEnd) {
+			int runEnd = Math.min(srcReadable.nextClearBit(runStart), srcEnd);
+			destReadable.set(destPos + runStart - srcPos, destPos + runEnd - srcPos);
+			runStart = srcReadable.nextSetBit(runEnd);
 		}
+	}
 
-		// Insert the block in the sorted linked list and merge contiguous
-		// blocks if necessary
-		@Override
-		public boolean add(MemoryBlock block) {
+   	// Address-ordered map of the cached memory blocks. The blocks do not overlap, such
+   	// that the blocks overlapping a range of addresses are found in logarithmic time.
+   	// Contiguous blocks are merged up to a limited size, the least recently used blocks
+   	// can be evicted when the cache grows too large.
+   	// Package visible for the tests.
+	static class MemoryBlockMap {
+		// Contiguous blocks are not merged beyond this size, to keep the eviction granular
+		private static final long MAX_MERGED_BLOCK_OCTETS = 1024 * 1024;
+
+		private final TreeMap<IAddress, MemoryBlock> fBlocks = new TreeMap<IAddress, MemoryBlock>();
+		// The blocks in the order of their use, the least recently used first
+		private final Map<MemoryBlock, Boolean> fUsage = new LinkedHashMap<MemoryBlock, Boolean>(16, 0.75f, true);
+		private long fLengthInOctets;
+
+		public void clear() {
+			fBlocks.clear();
+			fUsage.clear();
+			fLengthInOctets = 0;
+		}
 
-			// If the list is empty, just store the block
-			if (isEmpty()) {
-				addFirst(block);
-				return true;
+		// Returns the blocks overlapping the given range of addresses in address order,
+		// possibly preceded by a block ending before the range. The blocks are marked as used.
+		public List<MemoryBlock> getBlocks(IAddress start, IAddress end) {
+			IAddress first = fBlocks.floorKey(start);
+			if (first == null) {
+				first = start;
+			}
+			Collection<MemoryBlock> range = end.compareTo(first) >= 0 ?
+					fBlocks.subMap(first, true, end, false).values() : fBlocks.tailMap(first, true).values();
+			List<MemoryBlock> blocks = new ArrayList<MemoryBlock>(range);
+			for (MemoryBlock block : blocks) {
+				fUsage.get(block);
 			}
+			return blocks;
+		}
 
-			// Insert the block at the correct location and then
-			// merge the blocks if possible
-			ListIterator<MemoryBlock> it = listIterator();
-			while (it.hasNext()) {
-				int index = it.nextIndex();
-				MemoryBlock item = it.next();
-				if (block.fAddress.compareTo(item.fAddress) < 0) {
-					add(index, block);
-					compact(index);
-					return true;
+		// Adds a block read from the target. The parts of the block that are cached
+		// already are dropped, such that the blocks stay disjoint.
+		public void add(MemoryBlock block) {
+			if (block.fLengthInAddressableUnits == 0) {
+				return;
+			}
+			IAddress end = block.fAddress.add(block.fLengthInAddressableUnits);
+			IAddress pos = block.fAddress;
+			for (MemoryBlock cachedBlock : getBlocks(block.fAddress, end)) {
+				IAddress cachedBlockEnd = cachedBlock.fAddress.add(cachedBlock.fLengthInAddressableUnits);
+				if (pos.compareTo(cachedBlock.fAddress) < 0) {
+					put(slice(block, pos, cachedBlock.fAddress));
 				}
+				if (cachedBlockEnd.compareTo(pos) > 0) {
+					pos = cachedBlockEnd;
+				}
+			}
+			if (pos.compareTo(end) < 0) {
+				put(slice(block, pos, end));
 			}
+		}
 
-			// Put at the end of the list and merge if necessary 
-			addLast(block);
-			compact(size() - 1);
-			return true;
+		// Evicts the least recently used blocks until the cache does not exceed the given size
+		public void trim(long maxLengthInOctets) {
+			Iterator<MemoryBlock> it = fUsage.keySet().iterator();
+			while (fLengthInOctets > maxLengthInOctets && it.hasNext()) {
+				MemoryBlock block = it.next();
+				it.remove();
+				fBlocks.remove(block.fAddress);
+				fLengthInOctets -= block.fLengthInOctets;
+			}
 		}
 
-		// Merge this block with its contiguous neighbors (if any)
-		// Note: Merge is not performed if resulting block size would exceed MAXINT
-		private void compact(int index) {
-
-			MemoryBlock newBlock = get(index); 
-
-			// Case where the block is to be merged with the previous block
-			if (index > 0) {
-				MemoryBlock prevBlock = get(index - 1);
-				IAddress endOfPreviousBlock = prevBlock.fAddress.add(prevBlock.fLengthInAddressableUnits);
-				if (endOfPreviousBlock.distanceTo(newBlock.fAddress).longValue() == 0) {
-					long newLengthInOctets = prevBlock.fLengthInOctets + newBlock.fLengthInOctets;
-					long newLengthInAddressableUnits = prevBlock.fLengthInAddressableUnits + newBlock.fLengthInAddressableUnits;
-					if (newLengthInOctets <= Integer.MAX_VALUE) {
-						MemoryByte[] block = new MemoryByte[(int) newLengthInOctets] ;
-						System.arraycopy(prevBlock.fBlock, 0, block, 0, (int) prevBlock.fLengthInOctets);
-						System.arraycopy(newBlock.fBlock, 0, block, (int) prevBlock.fLengthInOctets, (int) newBlock.fLengthInOctets);
-						newBlock = new MemoryBlock(prevBlock.fAddress, newLengthInOctets, newLengthInAddressableUnits, block);
-						remove(index);
-						index -= 1;
-						set(index, newBlock);
-					}
-				}
+		// Inserts the block and merges it with its contiguous neighbors (if any)
+		private void put(MemoryBlock block) {
+			Map.Entry<IAddress, MemoryBlock> prevEntry = fBlocks.lowerEntry(block.fAddress);
+			if (prevEntry != null && canMerge(prevEntry.getValue(), block)) {
+				MemoryBlock prevBlock = prevEntry.getValue();
+				remove(prevBlock);
+				block = merge(prevBlock, block);
 			}
+			MemoryBlock nextBlock = fBlocks.get(block.fAddress.add(block.fLengthInAddressableUnits));
+			if (nextBlock != null && canMerge(block, nextBlock)) {
+				remove(nextBlock);
+				block = merge(block, nextBlock);
+			}
+			fBlocks.put(block.fAddress, block);
+			fUsage.put(block, Boolean.TRUE);
+			fLengthInOctets += block.fLengthInOctets;
+		}
 
-			// Case where the block is to be merged with the following block
-			int lastIndex = size() - 1;
-			if (index < lastIndex) {
-				MemoryBlock nextBlock = get(index + 1);
-				IAddress endOfNewBlock = newBlock.fAddress.add(newBlock.fLengthInAddressableUnits);
-				if (endOfNewBlock.distanceTo(nextBlock.fAddress).longValue() == 0) {
-					long newLength = newBlock.fLengthInOctets + nextBlock.fLengthInOctets;
-					long newAddressesLength = newBlock.fLengthInAddressableUnits + nextBlock.fLengthInAddressableUnits;
-					if (newLength <= Integer.MAX_VALUE) {
-						MemoryByte[] block = new MemoryByte[(int) newLength] ;
-						System.arraycopy(newBlock.fBlock, 0, block, 0, (int) newBlock.fLengthInOctets);
-						System.arraycopy(nextBlock.fBlock, 0, block, (int) newBlock.fLengthInOctets, (int) nextBlock.fLengthInOctets);
-						newBlock = new MemoryBlock(newBlock.fAddress, newLength, newAddressesLength, block);
-						set(index, newBlock);
-						remove(index + 1);
-					}
-				}
+		private void remove(MemoryBlock block) {
+			fBlocks.remove(block.fAddress);
+			fUsage.remove(block);
+			fLengthInOctets -= block.fLengthInOctets;
+		}
+
+		private static boolean canMerge(MemoryBlock first, MemoryBlock second) {
+			IAddress endOfFirstBlock = first.fAddress.add(first.fLengthInAddressableUnits);
+			return endOfFirstBlock.distanceTo(second.fAddress).longValue() == 0
+					&& first.fLengthInOctets + second.fLengthInOctets <= MAX_MERGED_BLOCK_OCTETS;
+		}
+
+		private static MemoryBlock merge(MemoryBlock first, MemoryBlock second) {
+			int lengthInOctets = (int) (first.fLengthInOctets + second.fLengthInOctets);
+			byte[] bytes = new byte[lengthInOctets];
+			BitSet readable = new BitSet(lengthInOctets);
+			copy(first.fBytes, first.fReadable, 0, bytes, readable, 0, (int) first.fLengthInOctets);
+			copy(second.fBytes, second.fReadable, 0, bytes, readable, (int) first.fLengthInOctets, (int) second.fLengthInOctets);
+			return new MemoryBlock(first.fAddress, lengthInOctets,
+					first.fLengthInAddressableUnits + second.fLengthInAddressableUnits, bytes, readable);
+		}
+
+		// Returns the part of the block between the given addresses
+		private static MemoryBlock slice(MemoryBlock block, IAddress start, IAddress end) {
+			long lengthInAddressableUnits = start.distanceTo(end).longValue();
+			if (lengthInAddressableUnits == block.fLengthInAddressableUnits) {
+				return block;
 			}
+			int wordSize = (int) (block.fLengthInOctets / block.fLengthInAddressableUnits);
+			int pos = (int) block.fAddress.distanceTo(start).longValue() * wordSize;
+			int lengthInOctets = (int) lengthInAddressableUnits * wordSize;
+			byte[] bytes = new byte[lengthInOctets];
+			BitSet readable = new BitSet(lengthInOctets);
+			copy(block.fBytes, block.fReadable, pos, bytes, readable, 0, lengthInOctets);
+			return new MemoryBlock(start, lengthInOctets, lengthInAddressableUnits, bytes, readable);
 		}
 	}
 
@@ -635,18 +757,73 @@ public class MIMemory extends AbstractDsfService implements IMemory, ICachingSer
 	/** @since 4.2 */
 	protected class MIMemoryCache {
 		// The memory cache data structure
-		private SortedMemoryBlockList fMemoryBlockList;
+		private MemoryBlockMap fMemoryBlocks;
+		// The number of reads that have not yet taken their result from the cache
+		private int fPendingReads;
+		// Incremented whenever the cache is cleared
+		private int fGeneration;
 
 		public MIMemoryCache() {
 	    	// Create the memory block cache
-	    	fMemoryBlockList = new SortedMemoryBlockList();
+	    	fMemoryBlocks = new MemoryBlockMap();
 		}
 
 		public void reset() {
 	    	// Clear the memory cache
-	    	fMemoryBlockList.clear();
+	    	fMemoryBlocks.clear();
+	    	fGeneration++;
+		}
+
+		private void addToCache(IAddress address, MemoryBuffer block, int wordSize) {
+			int lenghtInaddressableUnits = block.getLength() / wordSize;
+			fMemoryBlocks.add(new MemoryBlock(address, block.getLength(), lenghtInaddressableUnits, block.getBytes(), block.getReadable()));
+		}
+
+		// Evicts memory from the cache if it exceeds its size limit. Nothing is evicted
+		// while reads are pending, they could lose the memory they have fetched.
+		private void trim() {
+			if (fPendingReads == 0) {
+				fMemoryBlocks.trim(getMemoryCacheSize());
+			}
 		}
 
+	    /**
+	     * Reads the pages before and after the given memory block in the background,
+	     * such that scrolling through memory is served by the cache.
+	     */
+	    private void prefetch(IMemoryDMContext memoryDMC, IAddress address, final int wordSize, int wordCount) {
+	    	// Reading around the requested memory requires that the readable parts of
+	    	// a partially readable block are returned
+	    	int pageSize = getMemoryCachePrefetchSize(memoryDMC);
+	    	if (pageSize <= 0 || !fDataReadMemoryBytes) {
+	    		return;
+	    	}
+
+	    	BigInteger page = BigInteger.valueOf(pageSize);
+	    	BigInteger start = address.getValue();
+	    	BigInteger last = start.add(BigInteger.valueOf(Math.max(wordCount, 1) - 1));
+	    	BigInteger prefetchStart = start.subtract(start.mod(page)).subtract(page).max(BigInteger.ZERO);
+	    	BigInteger prefetchEnd = last.subtract(last.mod(page)).add(page.shiftLeft(1)).min(address.getMaxOffset().add(BigInteger.ONE));
+
+	    	final int generation = fGeneration;
+	    	IAddress prefetchAddress = address.add(prefetchStart.subtract(start));
+	    	int prefetchCount = prefetchEnd.subtract(prefetchStart).intValue();
+	    	for (MemoryBlock block : getListOfMissingBlocks(prefetchAddress, prefetchCount, wordSize)) {
+	    		final IAddress startAddress = block.fAddress;
+	    		readMemoryBuffer(memoryDMC, startAddress, 0, wordSize, (int) block.fLengthInAddressableUnits,
+	    			new DataRequestMonitor<MemoryBuffer>(getExecutor(), null) {
+	    				@Override
+	    				protected void handleCompleted() {
+	    					// Drop the memory if the cache has been reset in the meantime
+	    					if (isSuccess() && generation == fGeneration) {
+	    						addToCache(startAddress, getData(), wordSize);
+	    						trim();
+	    					}
+	    				}
+	    			});
+	    	}
+	    }
+
 	    /**
  	     *  This function walks the address-sorted memory block list to identify
 	     *  the 'missing' blocks (i.e. the holes) that need to be fetched on the target.
@@ -708,7 +885,7 @@ public class MIMemory extends AbstractDsfService implements IMemory, ICachingSer
 	    	int octetCount = wordCount * wordSize;
 
 			LinkedList<MemoryBlock> list = new LinkedList<MemoryBlock>();
-			ListIterator<MemoryBlock> it = fMemoryBlockList.listIterator();
+			Iterator<MemoryBlock> it = fMemoryBlocks.getBlocks(reqBlockStart, reqBlockStart.add(wordCount)).iterator();
 
 			// Look for holes in the list of memory blocks
 			while (it.hasNext() && octetCount > 0) {
@@ -722,7 +899,7 @@ public class MIMemory extends AbstractDsfService implements IMemory, ICachingSer
 					// If both blocks start at the same location, no need to create a new cached block
 					if (lengthInOctets > 0) {
 						int lengthInAddressableUnits = lengthInOctets / wordSize;
-						MemoryBlock newBlock = new MemoryBlock(reqBlockStart, lengthInOctets, lengthInAddressableUnits, new MemoryByte[0]);
+						MemoryBlock newBlock = new MemoryBlock(reqBlockStart, lengthInOctets, lengthInAddressableUnits, new byte[0], new BitSet());
 						list.add(newBlock);
 					}
 					// Adjust request block start and length for the next iteration
@@ -744,7 +921,7 @@ public class MIMemory extends AbstractDsfService implements IMemory, ICachingSer
 			// Case where we miss a block at the end of the cache
 			if (octetCount > 0) {
 				int addressesLength = octetCount / wordSize;
-				MemoryBlock newBlock = new MemoryBlock(reqBlockStart, octetCount, addressesLength, new MemoryByte[0]);
+				MemoryBlock newBlock = new MemoryBlock(reqBlockStart, octetCount, addressesLength, new byte[0], new BitSet());
 				list.add(newBlock);
 			}
 			
@@ -777,12 +954,13 @@ public class MIMemory extends AbstractDsfService implements IMemory, ICachingSer
 	     * @param count Its length
 	     * @return The cached memory content
 	     */
-	    private MemoryByte[] getMemoryBlockFromCache(IAddress reqBlockStart, int wordCount, int wordSize) {
+	    private MemoryBuffer getMemoryBlockFromCache(IAddress reqBlockStart, int wordCount, int wordSize) {
 	    	int count = wordCount * wordSize;
 	    	
 			IAddress reqBlockEnd = reqBlockStart.add(wordCount);
-			MemoryByte[] resultBlock = new MemoryByte[count];
-			ListIterator<MemoryBlock> iter = fMemoryBlockList.listIterator();
+			byte[] resultBytes = new byte[count];
+			BitSet resultReadable = new BitSet(count);
+			Iterator<MemoryBlock> iter = fMemoryBlocks.getBlocks(reqBlockStart, reqBlockEnd).iterator();
 
 			while (iter.hasNext()) {
 				MemoryBlock cachedBlock = iter.next();
@@ -794,7 +972,7 @@ public class MIMemory extends AbstractDsfService implements IMemory, ICachingSer
 					&& reqBlockEnd.distanceTo(cachedBlockEnd).longValue() >= 0)
 				{
 					int pos = (int) cachedBlockStart.distanceTo(reqBlockStart).longValue() * wordSize;
-					System.arraycopy(cachedBlock.fBlock, pos, resultBlock, 0, count);
+					copy(cachedBlock.fBytes, cachedBlock.fReadable, pos, resultBytes, resultReadable, 0, count);
 				}
 				
 				// Case where the beginning of the cached block is within the requested memory block  
@@ -803,7 +981,7 @@ public class MIMemory extends AbstractDsfService implements IMemory, ICachingSer
 				{
 					int pos = (int) reqBlockStart.distanceTo(cachedBlockStart).longValue() * wordSize;
 					int length = (int) Math.min(cachedBlock.fLengthInOctets, count - pos);
-					System.arraycopy(cachedBlock.fBlock, 0, resultBlock, pos, length);
+					copy(cachedBlock.fBytes, cachedBlock.fReadable, 0, resultBytes, resultReadable, pos, length);
 				}
 				
 				// Case where the end of the cached block is within the requested memory block  
@@ -812,10 +990,10 @@ public class MIMemory extends AbstractDsfService implements IMemory, ICachingSer
 				{
 					int pos = (int) cachedBlockStart.distanceTo(reqBlockStart).longValue() * wordSize;
 					int length = (int) Math.min(cachedBlock.fLengthInOctets - pos, count);
-					System.arraycopy(cachedBlock.fBlock, pos, resultBlock, 0, length);
+					copy(cachedBlock.fBytes, cachedBlock.fReadable, pos, resultBytes, resultReadable, 0, length);
 				}
  			}
-			return resultBlock;
+			return new MemoryBuffer(resultBytes, resultReadable);
 		}
 
 		/**
@@ -827,10 +1005,12 @@ public class MIMemory extends AbstractDsfService implements IMemory, ICachingSer
 		 * @param modBlock
 		 * @param wordSize - Number of octets per addressable unit
 		 */
-		private void updateMemoryCache(IAddress modBlockStart, int wordCount, MemoryByte[] modBlock, int wordSize) {
+		private void updateMemoryCache(IAddress modBlockStart, int wordCount, MemoryBuffer modBlock, int wordSize) {
 			IAddress modBlockEnd = modBlockStart.add(wordCount);
-			ListIterator<MemoryBlock> iter = fMemoryBlockList.listIterator();
+			Iterator<MemoryBlock> iter = fMemoryBlocks.getBlocks(modBlockStart, modBlockEnd).iterator();
 			int count = wordCount * wordSize;
+			byte[] modBytes = modBlock.getBytes();
+			BitSet modReadable = modBlock.getReadable();
 
 			while (iter.hasNext()) {
 				MemoryBlock cachedBlock = iter.next();
@@ -848,7 +1028,7 @@ public class MIMemory extends AbstractDsfService implements IMemory, ICachingSer
 					&& modBlockEnd.distanceTo(cachedBlockEnd).longValue() >= 0)
 				{
 					int pos = (int) cachedBlockStart.distanceTo(modBlockStart).longValue() * wordSize;
-					System.arraycopy(modBlock, 0, cachedBlock.fBlock, pos, count);
+					copy(modBytes, modReadable, 0, cachedBlock.fBytes, cachedBlock.fReadable, pos, count);
 				}
 				
 				// Case where the cached block is completely included in the modified block
@@ -856,7 +1036,7 @@ public class MIMemory extends AbstractDsfService implements IMemory, ICachingSer
 					&& cachedBlockEnd.distanceTo(modBlockEnd).longValue() >= 0)
 				{
 					int pos = (int) modBlockStart.distanceTo(cachedBlockStart).longValue() * wordSize;
-					System.arraycopy(modBlock, pos, cachedBlock.fBlock, 0, (int) cachedBlock.fLengthInOctets);
+					copy(modBytes, modReadable, pos, cachedBlock.fBytes, cachedBlock.fReadable, 0, (int) cachedBlock.fLengthInOctets);
 				}
 
 				// Case where the beginning of the modified block is within the cached block  
@@ -865,7 +1045,7 @@ public class MIMemory extends AbstractDsfService implements IMemory, ICachingSer
 				{
 					int pos = (int) cachedBlockStart.distanceTo(modBlockStart).longValue() * wordSize;
 					int length = (int) modBlockStart.distanceTo(cachedBlockEnd).longValue() * wordSize;
-					System.arraycopy(modBlock, 0, cachedBlock.fBlock, pos, length);
+					copy(modBytes, modReadable, 0, cachedBlock.fBytes, cachedBlock.fReadable, pos, length);
 				}
 				
 				// Case where the end of the modified block is within the cached block  
@@ -874,7 +1054,7 @@ public class MIMemory extends AbstractDsfService implements IMemory, ICachingSer
 				{
 					int pos = (int) modBlockStart.distanceTo(cachedBlockStart).longValue() * wordSize;
 					int length = (int) cachedBlockStart.distanceTo(modBlockEnd).longValue() * wordSize;
-					System.arraycopy(modBlock, pos, cachedBlock.fBlock, 0, length);
+					copy(modBytes, modReadable, pos, cachedBlock.fBytes, cachedBlock.fReadable, 0, length);
 				}
  			}
 			return;
@@ -889,6 +1069,27 @@ public class MIMemory extends AbstractDsfService implements IMemory, ICachingSer
 	     */
 	    public void getMemory(IMemoryDMContext memoryDMC, final IAddress address, final int wordSize, 
 	    		final int wordCount, final DataRequestMonitor<MemoryByte[]> drm)
+	    {
+	    	getMemoryBuffer(memoryDMC, address, wordSize, wordCount,
+	    		new ImmediateDataRequestMonitor<MemoryBuffer>(drm) {
+	    			@Override
+	    			protected void handleSuccess() {
+	    				drm.setData(getData().toMemoryBytes());
+	    				drm.done();
+	    			}
+	    		});
+	    }
+
+	    /**
+		 * @param memoryDMC
+	     * @param address	the memory block address (on the target)
+	     * @param wordSize	the size, in bytes, of an addressable item
+	     * @param wordCount the number of addressable units to read
+	     * @param drm		the asynchronous data request monitor
+	     * @since 5.0
+	     */
+	    public void getMemoryBuffer(final IMemoryDMContext memoryDMC, final IAddress address, final int wordSize, 
+	    		final int wordCount, final DataRequestMonitor<MemoryBuffer> drm)
 	    {
 	    	// Determine the number of read requests to issue 
 	    	List<MemoryBlock> missingBlocks = getListOfMissingBlocks(address, wordCount, wordSize);
@@ -896,13 +1097,22 @@ public class MIMemory extends AbstractDsfService implements IMemory, ICachingSer
 
 	    	// A read request will be issued for each block needed
 	    	// so we need to keep track of the count
+	        fPendingReads++;
 	        final CountingRequestMonitor countingRM =
 	        	new CountingRequestMonitor(getExecutor(), drm) { 
+	        		@Override
+	        		protected void handleCompleted() {
+	        			fPendingReads--;
+	        			super.handleCompleted();
+	        		}
 	                @Override
 	                protected void handleSuccess() {
 	                	// We received everything so read the result from the memory cache
 	                	drm.setData(getMemoryBlockFromCache(address, wordCount, wordSize));
 	                    drm.done();
+
+	                    prefetch(memoryDMC, address, wordSize, wordCount);
+	                    trim();
 	                }
 	            };
 	       	countingRM.setDoneCount(numberOfRequests);
@@ -912,14 +1122,11 @@ public class MIMemory extends AbstractDsfService implements IMemory, ICachingSer
 	        	MemoryBlock block = missingBlocks.get(i);
 	        	final IAddress startAddress = block.fAddress;
 	        	final int length = (int) block.fLengthInAddressableUnits;
-		        readMemoryBlock(memoryDMC, startAddress, 0, wordSize, length,
-					    new DataRequestMonitor<MemoryByte[]>(getSession().getExecutor(), drm) {
+		        readMemoryBuffer(memoryDMC, startAddress, 0, wordSize, length,
+					    new DataRequestMonitor<MemoryBuffer>(getSession().getExecutor(), drm) {
 					    	@Override
 					    	protected void handleSuccess() {
-					    		MemoryByte[] block = getData();
-					    		int lenghtInaddressableUnits = block.length / wordSize;
-					    		MemoryBlock memoryBlock = new MemoryBlock(startAddress, block.length, lenghtInaddressableUnits, block);
-					    		fMemoryBlockList.add(memoryBlock);
+					    		addToCache(startAddress, getData(), wordSize);
 					    		countingRM.done();
 					    	}
 					    });
@@ -949,8 +1156,8 @@ public class MIMemory extends AbstractDsfService implements IMemory, ICachingSer
 						fCommandCache.reset();
 
 				    	// Re-read the modified memory block to asynchronously update of the memory cache
-				        readMemoryBlock(memoryDMC, address, offset, wordSize, wordCount,
-					        new DataRequestMonitor<MemoryByte[]>(getExecutor(), rm) { 
+				        readMemoryBuffer(memoryDMC, address, offset, wordSize, wordCount,
+					        new DataRequestMonitor<MemoryBuffer>(getExecutor(), rm) { 
 					        	@Override
 	                            protected void handleSuccess() {
 									updateMemoryCache(address.add(offset), wordCount, getData(), wordSize);
@@ -996,19 +1203,13 @@ public class MIMemory extends AbstractDsfService implements IMemory, ICachingSer
 
 		   // Read the corresponding memory block
 		   fCommandCache.reset();
-		   readMemoryBlock(memoryDMC, address, offset, wordSize, wordCount,
-				   new DataRequestMonitor<MemoryByte[]>(getExecutor(), rm) {
+		   readMemoryBuffer(memoryDMC, address, offset, wordSize, wordCount,
+				   new DataRequestMonitor<MemoryBuffer>(getExecutor(), rm) {
 					   @Override
 					   protected void handleSuccess() {
-						   MemoryByte[] oldBlock = getMemoryBlockFromCache(address, wordCount, wordSize);
-						   MemoryByte[] newBlock = getData();
-						   boolean blocksDiffer = false;
-						   for (int i = 0; i < oldBlock.length; i++) {
-						       if (oldBlock[i].getValue() != newBlock[i].getValue()) {
-						          blocksDiffer = true;
-						          break;
-						       }
-						   }
+						   MemoryBuffer oldBlock = getMemoryBlockFromCache(address, wordCount, wordSize);
+						   MemoryBuffer newBlock = getData();
+						   boolean blocksDiffer = !Arrays.equals(oldBlock.getBytes(), newBlock.getBytes());
 						   if (blocksDiffer) {
 							   updateMemoryCache(address.add(offset), wordCount, newBlock, wordSize);
 							   if (sendMemoryEvent) {
@@ -31,6 +31,7 @@ import java.util.Map;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.eclipse.cdt.dsf.concurrent.ConfinedToDsfExecutor;
 import org.eclipse.cdt.dsf.concurrent.DataRequestMonitor;
@@ -80,6 +81,7 @@ public abstract class AbstractMIControl extends AbstractDsfService
 {
 	private static final String MI_TRACE_IDENTIFIER = "[MI]"; //$NON-NLS-1$
 	private static final int NUMBER_CONCURRENT_COMMANDS = 3;
+	private static final String MAX_COMMANDS_IN_FLIGHT_PROPERTY = "org.eclipse.cdt.dsf.gdb.maxCommandsInFlight"; //$NON-NLS-1$
 	private static final int DEVELOPMENT_TRACE_LIMIT_CHARS = 5000;
 	
     /*
@@ -125,6 +127,24 @@ public abstract class AbstractMIControl extends AbstractDsfService
     
     private final List<CommandHandle> fCommandQueue = new ArrayList<CommandHandle>();
 
+    /**
+     * Maximum number of commands that are handed to the backend without having been answered.
+     */
+    private int fMaxCommandsInFlight = Integer.getInteger(MAX_COMMANDS_IN_FLIGHT_PROPERTY, NUMBER_CONCURRENT_COMMANDS);
+
+    /**
+     * Flag indicating that a dispatch of the queued commands has been submitted to the executor.
+     */
+    private boolean fQueueDispatchPending = false;
+
+    /**
+     * Number of commands that have been handed to the TX thread and whose result
+     * has not been received yet.  The commands move from the TX queue to the RX map
+     * on the TX thread, so the sizes of the two cannot be added up consistently.
+     * RawCommands are not counted since they don't get an answer.
+     */
+    private final AtomicInteger fCommandsInFlight = new AtomicInteger();
+
     /**
      * Flag indicating that the command control has stopped processing commands.
      */
@@ -297,6 +317,7 @@ public abstract class AbstractMIControl extends AbstractDsfService
          */
         List<CommandHandle> txCommands = new ArrayList<CommandHandle>();
         fTxCommands.drainTo(txCommands);
+        fCommandsInFlight.set(0);
         for (CommandHandle commandHandle : txCommands) {
             if (commandHandle.getRequestMonitor() == null) continue;
             commandHandle.getRequestMonitor().setStatus(genStatus("Connection is shut down")); //$NON-NLS-1$
@@ -339,21 +360,25 @@ public abstract class AbstractMIControl extends AbstractDsfService
             rm.done();
         } else {
         	/*
-        	 *  We only allow three outstanding commands to be on the wire to the backend
-        	 *  at any one time. This allows for coalescing as well as canceling
-        	 *  existing commands on a state change. So we add it to the waiting list and let
-        	 *  the user know they can now work with this item if need be.
+        	 *  We only allow a limited number of outstanding commands to be on the wire to
+        	 *  the backend at any one time (see setMaxCommandsInFlight()). This allows for
+        	 *  coalescing as well as canceling existing commands on a state change. So we add
+        	 *  it to the waiting list and let the user know they can now work with this item
+        	 *  if need be.
         	 */
         	fCommandQueue.add(handle);
             processCommandQueued(handle);
             
-            if (fRxCommands.size() < NUMBER_CONCURRENT_COMMANDS) {
+            if (!fQueueDispatchPending && getCommandsInFlight() < fMaxCommandsInFlight) {
                 // In a separate dispatch cycle.  This allows command listeners 
-            	// to respond to the command queued event.  
+            	// to respond to the command queued event.  All the commands queued
+            	// until then are handed to the TX thread together.
+            	fQueueDispatchPending = true;
                 getExecutor().execute(new DsfRunnable() {
                 	@Override
                     public void run() {
-                        processNextQueuedCommand();
+                		fQueueDispatchPending = false;
+                        processQueuedCommands();
                     }
                 });
             }
@@ -362,6 +387,60 @@ public abstract class AbstractMIControl extends AbstractDsfService
         return handle;
     }
 
+    /**
+     * Sets the maximum number of commands that are sent to the backend before
+     * their results have been received.  Sending commands without waiting for
+     * the results of the previous ones avoids a round trip per command when
+     * services issue many requests at once.  The default can be overridden
+     * with the system property <code>org.eclipse.cdt.dsf.gdb.maxCommandsInFlight</code>.
+     * 
+     * @param max the number of commands, at least one.
+     * @since 5.0
+     */
+    @ConfinedToDsfExecutor("this.getExecutor()")
+    protected void setMaxCommandsInFlight(int max) {
+    	assert max > 0;
+    	fMaxCommandsInFlight = Math.max(1, max);
+    	processQueuedCommands();
+    }
+
+    /**
+     * @return the maximum number of commands that are sent to the backend before
+     * their results have been received.
+     * @since 5.0
+     */
+    protected int getMaxCommandsInFlight() {
+    	return fMaxCommandsInFlight;
+    }
+
+    /**
+     * Returns the number of commands that have been handed to the TX thread
+     * and whose result has not been received yet.
+     */
+    private int getCommandsInFlight() {
+    	return fCommandsInFlight.get();
+    }
+
+    /**
+     * Hands the given command to the TX thread.
+     */
+    private void sendCommand(CommandHandle handle) {
+    	if (!(handle.getCommand() instanceof RawCommand)) {
+    		fCommandsInFlight.incrementAndGet();
+    	}
+    	fTxCommands.add(handle);
+    }
+
+    /**
+     * Hands queued commands to the TX thread until the queue is empty or
+     * the maximum number of commands in flight has been reached.
+     */
+    private void processQueuedCommands() {
+    	while (!fCommandQueue.isEmpty() && getCommandsInFlight() < fMaxCommandsInFlight) {
+    		processNextQueuedCommand();
+    	}
+    }
+
     private void processNextQueuedCommand() {
 		if (!fCommandQueue.isEmpty()) {
 			final CommandHandle handle = fCommandQueue.remove(0);
@@ -391,7 +470,7 @@ public abstract class AbstractMIControl extends AbstractDsfService
 							CommandHandle cmdHandle = new CommandHandle(
 									(MICommand<MIInfo>)getCommandFactory().createMIThreadSelect(targetContext, targetThread), null);
 							cmdHandle.generateTokenId();
-							fTxCommands.add(cmdHandle);
+							sendCommand(cmdHandle);
 						}
 
 						// Before the command is sent, Check the Stack level and send it to 
@@ -401,7 +480,7 @@ public abstract class AbstractMIControl extends AbstractDsfService
 							CommandHandle cmdHandle = new CommandHandle(
 									(MICommand<MIInfo>)getCommandFactory().createMIStackSelectFrame(targetContext, targetFrame), null);
 							cmdHandle.generateTokenId();
-							fTxCommands.add(cmdHandle);
+							sendCommand(cmdHandle);
 						}
 					}
 				}
@@ -412,7 +491,7 @@ public abstract class AbstractMIControl extends AbstractDsfService
 					// need a token id.  In fact, GDB will fail if we send one in this case.
 					handle.generateTokenId();
 				}
-		    	fTxCommands.add(handle);
+		    	sendCommand(handle);
 			}
 		}
     }
@@ -556,6 +635,7 @@ public abstract class AbstractMIControl extends AbstractDsfService
         private MICommand<MIInfo> fCommand;
         private DataRequestMonitor<MIInfo> fRequestMonitor;
         private int fTokenId ;
+        private long fSentTime;
         
         CommandHandle(MICommand<MIInfo> c, DataRequestMonitor<MIInfo> d) {
             fCommand = c; 
@@ -571,6 +651,9 @@ public abstract class AbstractMIControl extends AbstractDsfService
         // be sent
         public void generateTokenId() { fTokenId = getNewTokenId(); }
         public Integer getTokenId() { return fTokenId; }
+        // Time at which the command was written to the backend, in nanoseconds.
+        public void setSentTime(long time) { fSentTime = time; }
+        public long getSentTime() { return fSentTime; }
         
         public int getStackFrameId() {
         	IFrameDMContext frameCtx = DMContexts.getAncestorOfType(fCommand.getContext(), IFrameDMContext.class);
@@ -618,77 +701,73 @@ public abstract class AbstractMIControl extends AbstractDsfService
 
         @Override
         public void run () {
-            while (true) {
-                CommandHandle commandHandle = null;
+            final List<CommandHandle> commandHandles = new ArrayList<CommandHandle>();
+            boolean shutdown = false;
+            while (!shutdown) {
+                commandHandles.clear();
                 
                 /*
                  *   Note: Acquiring locks for both fRxCommands and fTxCommands collections. 
                  */
                 synchronized(fTxCommands) {
                     try {
-                        commandHandle = fTxCommands.take();
+                        commandHandles.add(fTxCommands.take());
                     } catch (InterruptedException e) {
                         break;  // Shutting down.
                     }
-        
-                    if (commandHandle == fTerminatorHandle) {
-                        
-                        break; // Null command is an indicator that we're shutting down. 
+                    // Commands handed over together are written together and flushed once.
+                    fTxCommands.drainTo(commandHandles);
+                    
+                    int terminatorIndex = commandHandles.indexOf(fTerminatorHandle);
+                    if (terminatorIndex >= 0) {
+                        // Null command is an indicator that we're shutting down. 
+                        commandHandles.subList(terminatorIndex, commandHandles.size()).clear();
+                        shutdown = true;
                     }
                     
                     /*
-                     *  We note that this is an outstanding request at this point.
+                     *  We note that these are outstanding requests at this point.
                      */
-                    if (!(commandHandle.getCommand() instanceof RawCommand)) {
-                    	// RawCommands will not get an answer, so we cannot put them in the receive queue.
-                    	fRxCommands.put(commandHandle.getTokenId(), commandHandle);
+                    final long sentTime = System.nanoTime();
+                    for (CommandHandle commandHandle : commandHandles) {
+                        commandHandle.setSentTime(sentTime);
+                        if (!(commandHandle.getCommand() instanceof RawCommand)) {
+                            // RawCommands will not get an answer, so we cannot put them in the receive queue.
+                            fRxCommands.put(commandHandle.getTokenId(), commandHandle);
+                        }
                     }
                 }
                 
-                /*
-                 *   Construct the new command and push this command out the pipeline.
-                 */
-
-                final String str;
-                if (commandHandle.getCommand() instanceof RawCommand) {
-                	// RawCommands CANNOT have a token id: GDB would read it as part of the RawCommand!
-                	str = commandHandle.getCommand().constructCommand();
-                } else if (fUseThreadGroupOption) {
-                	// Implies that fUseThreadAndFrameOptions == true
-                	str = commandHandle.getTokenId() + commandHandle.getCommand().constructCommand(commandHandle.getGroupId(),
-							   																	   commandHandle.getThreadId(),
-							   																	   commandHandle.getStackFrameId());                	
-                } else if (fUseThreadAndFrameOptions) {
-                	str = commandHandle.getTokenId() + commandHandle.getCommand().constructCommand(commandHandle.getThreadId(),
-							   																	   commandHandle.getStackFrameId());
-                } else {
-                	str = commandHandle.getTokenId() + commandHandle.getCommand().constructCommand();
-                }
-                
                 try {
                     if (fOutputStream != null) {
-                        fOutputStream.write(str.getBytes());
-                        fOutputStream.flush();
-                        
-                        if (GdbDebugOptions.DEBUG) {
-                        	GdbDebugOptions.trace(String.format( "%s %s  %s", GdbPlugin.getDebugTime(), MI_TRACE_IDENTIFIER, str)); //$NON-NLS-1$
-                        }
-                        if (getMITracingStream() != null) {
-                        	try {
-                        		String message = GdbPlugin.getDebugTime() + " " + str; //$NON-NLS-1$
-                        		while (message.length() > 100) {
-                        			String partial = message.substring(0, 100) + "\\\n"; //$NON-NLS-1$
-                        			message = message.substring(100);
-                        			getMITracingStream().write(partial.getBytes());
-                        		}
-                        		getMITracingStream().write(message.getBytes());
-                        	} catch (IOException e) {
-                        		// The tracing stream could be closed at any time
-                        		// since the user can set a preference to turn off
-                        		// this tracing.
-                        		setMITracingStream(null);
-                        	}
+                        for (CommandHandle commandHandle : commandHandles) {
+                            /*
+                             *   Construct the new command and push this command out the pipeline.
+                             */
+                            final String str = constructCommand(commandHandle);
+                            fOutputStream.write(str.getBytes());
+                            
+                            if (GdbDebugOptions.DEBUG) {
+                                GdbDebugOptions.trace(String.format( "%s %s  %s", GdbPlugin.getDebugTime(), MI_TRACE_IDENTIFIER, str)); //$NON-NLS-1$
+                            }
+                            if (getMITracingStream() != null) {
+                                try {
+                                    String message = GdbPlugin.getDebugTime() + " " + str; //$NON-NLS-1$
+                                    while (message.length() > 100) {
+                                        String partial = message.substring(0, 100) + "\\\n"; //$NON-NLS-1$
+                                        message = message.substring(100);
+                                        getMITracingStream().write(partial.getBytes());
+                                    }
+                                    getMITracingStream().write(message.getBytes());
+                                } catch (IOException e) {
+                                    // The tracing stream could be closed at any time
+                                    // since the user can set a preference to turn off
+                                    // this tracing.
+                                    setMITracingStream(null);
+                                }
+                            }
                         }
+                        fOutputStream.flush();
                     }
                 } catch (IOException e) {
                     // Shutdown thread in case of IO error.
@@ -702,6 +781,23 @@ public abstract class AbstractMIControl extends AbstractDsfService
 			} catch (IOException e) {
 			}
         }
+
+        private String constructCommand(CommandHandle commandHandle) {
+            if (commandHandle.getCommand() instanceof RawCommand) {
+            	// RawCommands CANNOT have a token id: GDB would read it as part of the RawCommand!
+            	return commandHandle.getCommand().constructCommand();
+            } else if (fUseThreadGroupOption) {
+            	// Implies that fUseThreadAndFrameOptions == true
+            	return commandHandle.getTokenId() + commandHandle.getCommand().constructCommand(commandHandle.getGroupId(),
+						   																	   commandHandle.getThreadId(),
+						   																	   commandHandle.getStackFrameId());                	
+            } else if (fUseThreadAndFrameOptions) {
+            	return commandHandle.getTokenId() + commandHandle.getCommand().constructCommand(commandHandle.getThreadId(),
+						   																	   commandHandle.getStackFrameId());
+            } else {
+            	return commandHandle.getTokenId() + commandHandle.getCommand().constructCommand();
+            }
+        }
     }
 
     private class RxThread extends Thread {
@@ -914,6 +1010,12 @@ public abstract class AbstractMIControl extends AbstractDsfService
                 final CommandHandle commandHandle = fRxCommands.remove(id);
 
                 if (commandHandle != null) {
+                	fCommandsInFlight.decrementAndGet();
+                	if (GdbDebugOptions.DEBUG_COMMAND_LATENCY) {
+                		long latency = (System.nanoTime() - commandHandle.getSentTime()) / 1000000;
+                		GdbDebugOptions.trace(String.format("%s %s  %s: %d ms\n", GdbPlugin.getDebugTime(), MI_TRACE_IDENTIFIER, //$NON-NLS-1$
+                				commandHandle.getCommand().getOperation(), latency));
+                	}
                     final MIOutput response = new MIOutput(
                         rr, fAccumulatedOOBRecords.toArray(new MIOOBRecord[fAccumulatedOOBRecords.size()]) );
                     fAccumulatedOOBRecords.clear();
@@ -1051,7 +1153,7 @@ public abstract class AbstractMIControl extends AbstractDsfService
             getExecutor().execute(new DsfRunnable() {
             	@Override
             	public void run() {
-        			processNextQueuedCommand();
+        			processQueuedCommands();
             	}
             });
         }
@@ -1140,7 +1242,11 @@ public abstract class AbstractMIControl extends AbstractDsfService
 		if (h == null)
 			// Command has already been processed by RxThread.
 			return;
+		fCommandsInFlight.decrementAndGet();
 		
+		// The command no longer occupies the backend.
+		processQueuedCommands();
+
 		MIConst value = new MIConst();
 		value.setCString(errorMessage);
 		MIResult result = new MIResult();
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2010, 2014 CodeSourcery and others.
+ * Copyright (c) 2010, 2015 CodeSourcery and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,6 +12,9 @@
 
 package org.eclipse.cdt.dsf.mi.service.command.output;
 
+import java.util.BitSet;
+
+import org.eclipse.cdt.dsf.debug.service.MemoryBuffer;
 import org.eclipse.debug.core.model.MemoryByte;
 
 /** 
@@ -30,7 +33,10 @@ public class MIDataReadMemoryBytesInfo extends MIInfo {
 	 * Default Addressable size in octets
 	 */
 	private static final int DEFAULT_WORD_SIZE = 1;
-	/* The cached memory block.  */
+	/* The octets read and the bitmap of the readable ones.  */
+	private byte[] fBytes;
+	private BitSet fReadable;
+	/* The memory block, created on demand.  */
 	private MemoryByte[] fBlock = null;
 
 	public MIDataReadMemoryBytesInfo(MIOutput output, int size) {
@@ -51,15 +57,25 @@ public class MIDataReadMemoryBytesInfo extends MIInfo {
 	 * Return the memory block
 	 */
 	public MemoryByte[] getMIMemoryBlock() {		
+		if (fBlock == null) {
+			fBlock = getMemoryBuffer().toMemoryBytes();
+		}
 		return fBlock;		
 	}
+
+	/**
+	 * Return the memory block as octets and a bitmap of the readable ones
+	 * @since 5.0
+	 */
+	public MemoryBuffer getMemoryBuffer() {
+		return new MemoryBuffer(fBytes, fReadable);
+	}
 	
 	private void parse(int count, int word_size)
 	{		
-		fBlock = new MemoryByte[count*word_size];
-		// Fill the block with invalid bytes, initially.
-		for (int i = 0; i < fBlock.length; i++)
-			fBlock[i] = new MemoryByte((byte) 0, (byte) 0);
+		// All bytes are invalid, initially.
+		fBytes = new byte[count*word_size];
+		fReadable = new BitSet(fBytes.length);
 
 		MIResult[] results = getMIOutput().getMIResultRecord().getMIResults();
 
@@ -86,13 +102,19 @@ public class MIDataReadMemoryBytesInfo extends MIInfo {
 							}
 						}
 
-						if (offset*word_size + contents.length()/2 <= count*word_size)
-							for (int k = 0; k < contents.length() / 2; ++k) {
-								fBlock[offset*word_size + k] = new MemoryByte(
-										(byte) Integer.parseInt(
-												contents.substring(k * 2, k * 2 + 2),
-												16));
+						int start = offset*word_size;
+						int length = contents.length() / 2;
+						if (start + length <= count*word_size) {
+							for (int k = 0; k < length; ++k) {
+								int high = Character.digit(contents.charAt(k * 2), 16);
+								int low = Character.digit(contents.charAt(k * 2 + 1), 16);
+								if (high < 0 || low < 0) {
+									throw new NumberFormatException(contents);
+								}
+								fBytes[start + k] = (byte) ((high << 4) | low);
+								fReadable.set(start + k);
 							}
+						}
 					}
 				}
 				catch(NumberFormatException e)
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2012 QNX Software Systems and others.
+ * Copyright (c) 2000, 2015 QNX Software Systems and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -16,6 +16,7 @@ package org.eclipse.cdt.dsf.mi.service.command.output;
 
 import java.math.BigInteger;
 
+import org.eclipse.cdt.dsf.debug.service.MemoryBuffer;
 import org.eclipse.debug.core.model.MemoryByte;
 
 /**
@@ -246,4 +247,12 @@ public class MIDataReadMemoryInfo extends MIInfo {
 		return fMemoryBlock;
 	}
 
+	/**
+	 * Return the memory block as octets and a bitmap of the readable ones
+	 * @since 5.0
+	 */
+	public MemoryBuffer getMemoryBuffer() {
+		return MemoryBuffer.fromMemoryBytes(fMemoryBlock);
+	}
+
 }
@@ -120,37 +120,37 @@ public class MIParser {
      * 
      */
     public MIResultRecord parseMIResultRecord(String line) {
-        StringBuffer buffer = new StringBuffer(line);
+        Input input = new Input(line);
         // Fetch the Token/Id
-        int id = parseToken(buffer);
+        int id = parseToken(input);
         // Consume the '^'
-        buffer.deleteCharAt(0);
+        input.pos++;
         
         MIResultRecord rr = new MIResultRecord();
         rr.setToken(id);
-        if (buffer.toString().startsWith(MIResultRecord.DONE)) {
+        if (input.startsWith(MIResultRecord.DONE)) {
             rr.setResultClass(MIResultRecord.DONE);
-            buffer.delete(0, MIResultRecord.DONE.length());
-        } else if (buffer.toString().startsWith(MIResultRecord.ERROR)) {
+            input.pos += MIResultRecord.DONE.length();
+        } else if (input.startsWith(MIResultRecord.ERROR)) {
             rr.setResultClass(MIResultRecord.ERROR);
-            buffer.delete(0, MIResultRecord.ERROR.length());
-        } else if (buffer.toString().startsWith(MIResultRecord.EXIT)) {
+            input.pos += MIResultRecord.ERROR.length();
+        } else if (input.startsWith(MIResultRecord.EXIT)) {
             rr.setResultClass(MIResultRecord.EXIT);
-            buffer.delete(0, MIResultRecord.EXIT.length());
-        } else if (buffer.toString().startsWith(MIResultRecord.RUNNING)) {
+            input.pos += MIResultRecord.EXIT.length();
+        } else if (input.startsWith(MIResultRecord.RUNNING)) {
             rr.setResultClass(MIResultRecord.RUNNING);
-            buffer.delete(0, MIResultRecord.RUNNING.length());
-        } else if (buffer.toString().startsWith(MIResultRecord.CONNECTED)) {
+            input.pos += MIResultRecord.RUNNING.length();
+        } else if (input.startsWith(MIResultRecord.CONNECTED)) {
             rr.setResultClass(MIResultRecord.CONNECTED);
-            buffer.delete(0, MIResultRecord.CONNECTED.length());
+            input.pos += MIResultRecord.CONNECTED.length();
         } else {
             // Error throw an exception?
         }
 
         // Results are separated by commas.
-        if (buffer.length() > 0 && buffer.charAt(0) == ',') {
-            buffer.deleteCharAt(0);
-            MIResult[] res = processMIResults(new FSB(buffer));
+        if (input.current() == ',') {
+            input.pos++;
+            MIResult[] res = processMIResults(input);
             rr.setMIResults(res);
         }
         return rr;
@@ -160,13 +160,13 @@ public class MIParser {
      * Find OutOfBand Records depending on the starting token.
      */
     public MIOOBRecord parseMIOOBRecord(String line) {
-        StringBuffer buffer = new StringBuffer(line);
-        int id = parseToken(buffer);
+        Input input = new Input(line);
+        int id = parseToken(input);
         MIOOBRecord oob = null;
-        char c = buffer.length() != 0 ? buffer.charAt(0) : 0;
+        char c = input.current();
         if (c == '*' || c == '+' || c == '=') {
             // Consume the first char
-            buffer.deleteCharAt(0);
+            input.pos++;
             MIAsyncRecord async = null;
             switch (c) {
                 case '*' :
@@ -186,22 +186,22 @@ public class MIParser {
             }
             async.setToken(id);
             // Extract the Async-Class
-            int i = buffer.toString().indexOf(',');
+            int i = line.indexOf(',', input.pos);
             if (i != -1) {
-                String asyncClass = buffer.substring(0, i);
+                String asyncClass = line.substring(input.pos, i);
                 async.setAsyncClass(asyncClass);
                 // Consume the async-class and the comma
-                buffer.delete(0, i + 1);
+                input.pos = i + 1;
             } else {
-                async.setAsyncClass(buffer.toString().trim());
-                buffer.setLength(0);
+                async.setAsyncClass(input.rest().trim());
+                input.pos = input.end;
             }
-            MIResult[] res = processMIResults(new FSB(buffer));
+            MIResult[] res = processMIResults(input);
             async.setMIResults(res);
             oob = async;
         } else if (c == '~' || c == '@' || c == '&') {
             // Consume the first char
-            buffer.deleteCharAt(0);
+            input.pos++;
             MIStreamRecord stream = null;
             switch (c) {
                 case '~' :
@@ -219,13 +219,13 @@ public class MIParser {
                 	assert false;
                 	stream = new MIConsoleStreamOutput();
             }
-            // translateCString() assumes that the leading " is deleted
-            if (buffer.length() > 0 && buffer.charAt(0) == '"') {
-                buffer.deleteCharAt(0);
+            // translateCString() assumes that the leading " is consumed
+            if (input.current() == '"') {
+                input.pos++;
             }
             // Don't parse any backslashes - backslashes within stream records
             // aren't escaped.
-            stream.setCString(translateCString(new FSB(buffer), false));
+            stream.setCString(translateCString(input, false));
             oob = stream;
         } else {
             // Badly format MI line, just pass it to the user as target stream
@@ -236,21 +236,21 @@ public class MIParser {
         return oob;
     }
     
-    private int parseToken(StringBuffer buffer) {
+    private int parseToken(Input input) {
         int id = -1;
         // Fetch the Token/Id
-        if (Character.isDigit(buffer.charAt(0))) {
-            int i = 1;
-            while (i < buffer.length() && Character.isDigit(buffer.charAt(i))) {
+        if (Character.isDigit(input.current())) {
+            int i = input.pos + 1;
+            while (i < input.end && Character.isDigit(input.line.charAt(i))) {
                 i++;
             }
-            String numbers = buffer.substring(0, i);
+            String numbers = input.line.substring(input.pos, i);
             try {
                 id = Integer.parseInt(numbers);
             } catch (NumberFormatException e) {
             }
             // Consume the token.
-            buffer.delete(0, i);
+            input.pos = i;
         }
         return id;
     }
@@ -259,15 +259,15 @@ public class MIParser {
      * Assuming that the usual leading comma was consumed.
      * Extract the MI Result comma seperated responses.
      */
-    private MIResult[] processMIResults(FSB buffer) {
+    private MIResult[] processMIResults(Input input) {
         List<MIResult> aList = new ArrayList<MIResult>();
-        MIResult result = processMIResult(buffer);
+        MIResult result = processMIResult(input);
         if (result != null) {
             aList.add(result);
         }
-        while (buffer.length() > 0 && buffer.charAt(0) == ',') {
-            buffer.deleteCharAt(0);
-            result = processMIResult(buffer);
+        while (input.current() == ',') {
+            input.pos++;
+            result = processMIResult(input);
             if (result != null) {
                 aList.add(result);
             }
@@ -276,26 +276,26 @@ public class MIParser {
     }
 
     /**
-     * Construct the DsfMIResult.  Characters will be consume/delete
+     * Construct the DsfMIResult.  Characters will be consumed
      * moving forward constructing the AST.
      */
-    private MIResult processMIResult(FSB buffer) {
+    private MIResult processMIResult(Input input) {
         MIResult result = new MIResult();
         int equal;
-        if (buffer.length() > 0 && Character.isLetter(buffer.charAt(0)) && (equal = buffer.indexOf('=')) != -1) {
-            String variable = buffer.substring(0, equal);
+        if (input.pos < input.end && Character.isLetter(input.current()) && (equal = input.line.indexOf('=', input.pos)) != -1) {
+            String variable = input.line.substring(input.pos, equal);
             result.setVariable(variable);
-            buffer.delete(0, equal + 1);
-            MIValue value = processMIValue(buffer);
+            input.pos = equal + 1;
+            MIValue value = processMIValue(input);
             result.setMIValue(value);
-        } else if(buffer.length()>0 && buffer.charAt(0)=='"') {
+        } else if (input.current() == '"') {
             // This an error but we just swallow it and move on.
-            MIValue value = processMIValue(buffer);
+            MIValue value = processMIValue(input);
             result.setMIValue(value);
         } else {
-            result.setVariable(buffer.toString());
+            result.setVariable(input.rest());
             result.setMIValue(new MIConst()); // Empty string:???
-            buffer.setLength(0);
+            input.pos = input.end;
         }
         return result;
     }
@@ -303,54 +303,58 @@ public class MIParser {
     /**
      * Find a DsfMIValue implementation or return null.
      */
-    private MIValue processMIValue(FSB buffer) {
+    private MIValue processMIValue(Input input) {
         MIValue value = null;
-        if (buffer.length() > 0) {
-            if (buffer.charAt(0) == '{') {
-                buffer.deleteCharAt(0);
-                value = processMITuple(buffer);
-            } else if (buffer.charAt(0) == '[') {
-                buffer.deleteCharAt(0);
-                value = processMIList(buffer);
-            } else if (buffer.charAt(0) == '"') {
-                buffer.deleteCharAt(0);
+        switch (input.current()) {
+            case '{' :
+                input.pos++;
+                value = processMITuple(input);
+                break;
+
+            case '[' :
+                input.pos++;
+                value = processMIList(input);
+                break;
+
+            case '"' :
+                input.pos++;
                 MIConst cnst = new MIConst();
                 // Parse backslashes - backslashes within result
                 // and out of band records are escaped.
-                cnst.setCString(translateCString(buffer, true));
+                cnst.setCString(translateCString(input, true));
                 value = cnst;
-            }
+                break;
         }
         return value;
     }
 
     /**
-     * Assuming the starting '{' was deleted form the StringBuffer,
-     * go to the closing '}' consuming/deleting all the characters.
+     * Assuming the starting '{' was consumed, go to the closing '}'
+     * consuming all the characters.
      * This is usually call by processMIvalue();
      */
-    private MIValue processMITuple(FSB buffer) {
+    private MIValue processMITuple(Input input) {
         MITuple tuple = new MITuple();
         List<MIValue> valueList = new ArrayList<MIValue>();
         List<MIResult> resultList = new ArrayList<MIResult>();
         // Catch closing '}'
-        while (buffer.length() > 0 && buffer.charAt(0) != '}') {
+        while (input.pos < input.end && input.current() != '}') {
             // Try for the DsfMIValue first
-            MIValue value = processMIValue(buffer);
+            MIValue value = processMIValue(input);
             if (value != null) {
                 valueList.add(value);
             } else {
-                MIResult result = processMIResult(buffer);
+                MIResult result = processMIResult(input);
                 if (result != null) {
                     resultList.add(result);
                 }
             }
-            if (buffer.length() > 0 && buffer.charAt(0) == ',') {
-                buffer.deleteCharAt(0);
+            if (input.current() == ',') {
+                input.pos++;
             }
         }
-        if (buffer.length() > 0 && buffer.charAt(0) == '}') {
-            buffer.deleteCharAt(0);
+        if (input.current() == '}') {
+            input.pos++;
         }
         MIValue[] values = valueList.toArray(new MIValue[valueList.size()]);
         MIResult[] res = resultList.toArray(new MIResult[resultList.size()]);
@@ -360,31 +364,31 @@ public class MIParser {
     }
 
     /**
-     * Assuming the leading '[' was deleted, find the closing
-     * ']' consuming/delete chars from the StringBuffer.
+     * Assuming the leading '[' was consumed, find the closing
+     * ']' consuming all the characters.
      */
-    private MIValue processMIList(FSB buffer) {
+    private MIValue processMIList(Input input) {
         MIList list = new MIList();
         List<MIValue> valueList = new ArrayList<MIValue>();
         List<MIResult> resultList = new ArrayList<MIResult>();
         // catch closing ']'
-        while (buffer.length() > 0 && buffer.charAt(0) != ']') {
+        while (input.pos < input.end && input.current() != ']') {
             // Try for the DsfMIValue first
-            MIValue value = processMIValue(buffer);
+            MIValue value = processMIValue(input);
             if (value != null) {
                 valueList.add(value);
             } else {
-                MIResult result = processMIResult(buffer);
+                MIResult result = processMIResult(input);
                 if (result != null) {
                     resultList.add(result);
                 }
             }
-            if (buffer.length() > 0 && buffer.charAt(0) == ',') {
-                buffer.deleteCharAt(0);
+            if (input.current() == ',') {
+                input.pos++;
             }
         }
-        if (buffer.length() > 0 && buffer.charAt(0) == ']') {
-            buffer.deleteCharAt(0);
+        if (input.current() == ']') {
+            input.pos++;
         }
         MIValue[] values = valueList.toArray(new MIValue[valueList.size()]);
         MIResult[] res = resultList.toArray(new MIResult[resultList.size()]);
@@ -396,25 +400,46 @@ public class MIParser {
     /**
      * MI C-String rather MIConst values are enclosed in double quotes
      * and any double quotes or backslashes in the string are escaped.
-     * Assuming the starting double quote was removed. This method will
+     * Assuming the starting double quote was consumed. This method will
      * stop at the closing double quote, remove the extra backslash escaping
      * and return the string __without__ the enclosing double quotes. The
-     * original string buffer will move forward.
-     * @param buffer The string buffer to read from.
+     * input will move forward.
+     * @param input The input to read from.
      * @param parseBackslashes Defines whether backslashes should be parsed.
      * This parameter is necessary to differentiate between records which
      * contain escaped backslashes and records which do not.
      * @return The translated C string.
      */
-    private String translateCString(FSB buffer, boolean parseBackslashes) {
+    private String translateCString(Input input, boolean parseBackslashes) {
+        final String line = input.line;
+        final int start = input.pos;
+
+        // Most strings do not contain any backslashes, they can be extracted without copying
+        // them character by character.
+        int index = start;
+        for (; index < input.end; index++) {
+            char c = line.charAt(index);
+            if (c == '"') {
+                input.pos = index + 1;
+                return line.substring(start, index);
+            }
+            if (c == '\\') {
+                break;
+            }
+        }
+        if (index == input.end) {
+            input.pos = index;
+            return line.substring(start, index);
+        }
+
         boolean escape = false;
         boolean closingQuotes = false;
 
-        StringBuffer sb = new StringBuffer();
+        StringBuilder sb = new StringBuilder(index - start + 16);
+        sb.append(line, start, index);
 
-        int index = 0;
-        for (; index < buffer.length() && !closingQuotes; index++) {
-            char c = buffer.charAt(index);
+        for (; index < input.end && !closingQuotes; index++) {
+            char c = line.charAt(index);
             if (c == '\\') {
                 if (escape) {
                     sb.append(c);
@@ -441,10 +466,41 @@ public class MIParser {
                 escape = false;
             }
         }
-        buffer.delete(0, index);
+        input.pos = index;
         return sb.toString();
     }
 
+    /**
+     * A line of MI output together with the position up to which it has been parsed. The
+     * parser moves forward without copying the line, such that it takes linear time even for
+     * the large records that GDB produces for stack traces, variables or disassembly.
+     */
+    private static final class Input {
+        final String line;
+        final int end;
+        int pos;
+
+        Input(String line) {
+            this.line = line;
+            end = line.length();
+        }
+
+        /**
+         * Returns the character at the current position, or 0 at the end of the line.
+         */
+        char current() {
+            return pos < end ? line.charAt(pos) : 0;
+        }
+
+        boolean startsWith(String prefix) {
+            return line.startsWith(prefix, pos);
+        }
+
+        String rest() {
+            return pos < end ? line.substring(pos) : ""; //$NON-NLS-1$
+        }
+    }
+
     /**
      * Tests if this string starts with the specified prefix beginning
      * a specified index.
@@ -476,7 +532,9 @@ public class MIParser {
      * with this for large arrays. Use of FSB rather than String
      * Buffer makes MIParser N rather than N^2 because FSB can 
      * delete from the front in constant time.
+     * @deprecated The parser moves forward on the line without copying it.
      */
+    @Deprecated
     public class FSB {
         StringBuffer buf;
         int pos;
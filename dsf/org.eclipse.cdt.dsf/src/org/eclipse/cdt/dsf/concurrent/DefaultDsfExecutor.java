@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2011 Wind River Systems and others.
+ * Copyright (c) 2006, 2015 Wind River Systems and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -17,6 +17,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.Delayed;
 import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
@@ -103,6 +104,44 @@ public class DefaultDsfExecutor extends ScheduledThreadPoolExecutor
     protected String getName() { 
         return fName;
     }
+
+    /**
+     * Returns the current queue depth of the executor and the latency and run
+     * time of the tasks executed so far. Can be called on any thread, the values
+     * are updated by the executor thread after each task.
+     * 
+     * @since 2.6
+     */
+    @ThreadSafe
+    public DsfExecutorStatistics getStatistics() {
+        return new DsfExecutorStatistics(
+            ((DsfThreadFactory)getThreadFactory()).fThreadName, getQueue().size(), fTaskCount,
+            fTotalLatency, fMaxLatency, fTotalRunTime, fMaxRunTime);
+    }
+
+    @Override
+    protected void beforeExecute(Thread t, Runnable r) {
+        super.beforeExecute(t, r);
+        // The tasks of a scheduled executor are delayed, the negative delay is
+        // the time the task has been waiting since it became due.
+        fTaskStartTime = System.nanoTime();
+        fTaskLatency = r instanceof Delayed ? Math.max(0, -((Delayed)r).getDelay(TimeUnit.NANOSECONDS)) : 0;
+    }
+
+    @Override
+    protected void afterExecute(Runnable r, Throwable t) {
+        long runTime = System.nanoTime() - fTaskStartTime;
+        fTotalLatency += fTaskLatency;
+        fMaxLatency = Math.max(fMaxLatency, fTaskLatency);
+        fTotalRunTime += runTime;
+        fMaxRunTime = Math.max(fMaxRunTime, runTime);
+        fTaskCount++;
+
+        if (DEBUG_EXECUTOR_STATISTICS && fTaskCount % STATISTICS_TRACE_INTERVAL == 0) {
+            DsfPlugin.debug(DsfPlugin.getDebugTime() + " " + getStatistics()); //$NON-NLS-1$
+        }
+        super.afterExecute(r, t);
+    }
     
     static void logException(Throwable t) {
         DsfPlugin plugin = DsfPlugin.getDefault();
@@ -131,11 +170,16 @@ public class DefaultDsfExecutor extends ScheduledThreadPoolExecutor
     protected static boolean DEBUG_EXECUTOR = false;
     protected static String DEBUG_EXECUTOR_NAME = ""; //$NON-NLS-1$
     protected static boolean ASSERTIONS_ENABLED = false;
+    private static boolean DEBUG_EXECUTOR_STATISTICS = false;
+    /** Number of tasks between two traces of the executor statistics */
+    private static final int STATISTICS_TRACE_INTERVAL = 1000;
     static {
         DEBUG_EXECUTOR = DsfPlugin.DEBUG && "true".equals( //$NON-NLS-1$
             Platform.getDebugOption("org.eclipse.cdt.dsf/debug/executor")); //$NON-NLS-1$
         DEBUG_EXECUTOR_NAME = DsfPlugin.DEBUG 
             ? Platform.getDebugOption("org.eclipse.cdt.dsf/debug/executorName") : ""; //$NON-NLS-1$ //$NON-NLS-2$
+        DEBUG_EXECUTOR_STATISTICS = DsfPlugin.DEBUG && "true".equals( //$NON-NLS-1$
+            Platform.getDebugOption("org.eclipse.cdt.dsf/debug/executorStatistics")); //$NON-NLS-1$
         assert (ASSERTIONS_ENABLED = true) == true;
     }  
 
@@ -146,6 +190,18 @@ public class DefaultDsfExecutor extends ScheduledThreadPoolExecutor
      */
     static Map<Thread, DefaultDsfExecutor> fThreadToExecutorMap = new HashMap<Thread, DefaultDsfExecutor>();
     
+    /*
+     * Statistics of the executed tasks, written by the executor thread only.
+     * The values are volatile so that they can be read on any thread.
+     */
+    private volatile long fTaskCount;
+    private volatile long fTotalLatency;
+    private volatile long fMaxLatency;
+    private volatile long fTotalRunTime;
+    private volatile long fMaxRunTime;
+    private long fTaskStartTime;
+    private long fTaskLatency;
+
     /** 
      * Currently executing runnable/callable.
      * <br>Note: Only used when tracing. 
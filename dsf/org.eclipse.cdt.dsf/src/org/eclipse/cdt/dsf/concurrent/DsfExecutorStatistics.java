@@ -0,0 +1,87 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Wind River Systems and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Wind River Systems - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.dsf.concurrent;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Snapshot of the load of a DSF executor, see {@link DefaultDsfExecutor#getStatistics()}.
+ * The latency of a task is the time it waited in the queue after it became due,
+ * the run time is the time spent executing it.
+ *
+ * @since 2.6
+ */
+@Immutable
+public final class DsfExecutorStatistics {
+
+    private final String fName;
+    private final int fQueueDepth;
+    private final long fTaskCount;
+    private final long fTotalLatency;
+    private final long fMaxLatency;
+    private final long fTotalRunTime;
+    private final long fMaxRunTime;
+
+    /**
+     * @param name name of the executor
+     * @param queueDepth number of tasks waiting in the queue, including the scheduled ones
+     * @param taskCount number of tasks executed so far
+     * @param totalLatency sum of the latencies of the executed tasks, in nanoseconds
+     * @param maxLatency highest latency of an executed task, in nanoseconds
+     * @param totalRunTime sum of the run times of the executed tasks, in nanoseconds
+     * @param maxRunTime highest run time of an executed task, in nanoseconds
+     */
+    public DsfExecutorStatistics(String name, int queueDepth, long taskCount,
+    		long totalLatency, long maxLatency, long totalRunTime, long maxRunTime) {
+        fName = name;
+        fQueueDepth = queueDepth;
+        fTaskCount = taskCount;
+        fTotalLatency = totalLatency;
+        fMaxLatency = maxLatency;
+        fTotalRunTime = totalRunTime;
+        fMaxRunTime = maxRunTime;
+    }
+
+    public String getName() { return fName; }
+
+    public int getQueueDepth() { return fQueueDepth; }
+
+    public long getTaskCount() { return fTaskCount; }
+
+    /** Returns the average latency of the executed tasks in the given unit */
+    public long getAverageLatency(TimeUnit unit) {
+        return fTaskCount == 0 ? 0 : unit.convert(fTotalLatency / fTaskCount, TimeUnit.NANOSECONDS);
+    }
+
+    /** Returns the highest latency of an executed task in the given unit */
+    public long getMaxLatency(TimeUnit unit) {
+        return unit.convert(fMaxLatency, TimeUnit.NANOSECONDS);
+    }
+
+    /** Returns the average run time of the executed tasks in the given unit */
+    public long getAverageRunTime(TimeUnit unit) {
+        return fTaskCount == 0 ? 0 : unit.convert(fTotalRunTime / fTaskCount, TimeUnit.NANOSECONDS);
+    }
+
+    /** Returns the highest run time of an executed task in the given unit */
+    public long getMaxRunTime(TimeUnit unit) {
+        return unit.convert(fMaxRunTime, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public String toString() {
+        return fName + ": queue depth = " + fQueueDepth + ", tasks = " + fTaskCount //$NON-NLS-1$ //$NON-NLS-2$
+            + ", latency avg/max = " + getAverageLatency(TimeUnit.MICROSECONDS) //$NON-NLS-1$
+            + "/" + getMaxLatency(TimeUnit.MICROSECONDS) + " us" //$NON-NLS-1$ //$NON-NLS-2$
+            + ", run time avg/max = " + getAverageRunTime(TimeUnit.MICROSECONDS) //$NON-NLS-1$
+            + "/" + getMaxRunTime(TimeUnit.MICROSECONDS) + " us"; //$NON-NLS-1$ //$NON-NLS-2$
+    }
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2014 Wind River Systems and others.
+ * Copyright (c) 2007, 2015 Wind River Systems and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -26,6 +26,8 @@ import org.eclipse.cdt.dsf.concurrent.Query;
 import org.eclipse.cdt.dsf.concurrent.RequestMonitor;
 import org.eclipse.cdt.dsf.debug.internal.provisional.model.IMemoryBlockUpdatePolicyProvider;
 import org.eclipse.cdt.dsf.debug.service.IMemory;
+import org.eclipse.cdt.dsf.debug.service.IMemory2;
+import org.eclipse.cdt.dsf.debug.service.MemoryBuffer;
 import org.eclipse.cdt.dsf.debug.service.IRunControl;
 import org.eclipse.cdt.dsf.debug.service.IMemory.IMemoryChangedEvent;
 import org.eclipse.cdt.dsf.debug.service.IMemory.IMemoryDMContext;
@@ -622,7 +624,19 @@ public class DsfMemoryBlock extends PlatformObject implements IMemoryBlockExtens
 			@Override
 			protected void execute(final DataRequestMonitor<MemoryByte[]> drm) {
 			    IMemory memoryService = fRetrieval.getServiceTracker().getService();
-			    if (memoryService != null) {
+			    if (memoryService instanceof IMemory2) {
+			        // Read the block in bulk and create the memory bytes in one go
+			        ((IMemory2) memoryService).getMemoryBuffer(
+			            fContext, address, 0, addressableSize, (int) count,
+			            new DataRequestMonitor<MemoryBuffer>(fRetrieval.getExecutor(), drm) {
+			                @Override
+			                protected void handleSuccess() {
+			                    drm.setData(getData().toMemoryBytes());
+			                    drm.done();
+			                }
+			            });
+			    }
+			    else if (memoryService != null) {
 			        // Go for it
 			        memoryService.getMemory( 
 			            fContext, address, 0, addressableSize, (int) count,
@@ -0,0 +1,40 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Wind River Systems and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Wind River Systems - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.dsf.debug.service;
+
+import org.eclipse.cdt.core.IAddress;
+import org.eclipse.cdt.dsf.concurrent.DataRequestMonitor;
+
+/**
+ * Extension of {@link IMemory} for reading large blocks of memory without
+ * creating a {@link org.eclipse.debug.core.model.MemoryByte} per octet.
+ * Memory is written in bulk with {@link IMemory#setMemory}.
+ *
+ * @since 2.6
+ */
+public interface IMemory2 extends IMemory {
+
+    /**
+     * Reads a memory block from the target.
+     *
+     * Same as {@link IMemory#getMemory}, except that the result is returned
+     * as a byte array with a bitmap of the readable octets.
+     *
+     * @param context	the context of the target memory block
+     * @param address	the memory block address (on the target)
+     * @param offset	the offset from the start address
+     * @param word_size	the size, in bytes, of an addressable item
+     * @param count		the number of data elements to read
+     * @param drm		the asynchronous data request monitor
+     */
+    public void getMemoryBuffer(IMemoryDMContext context, IAddress address, long offset,
+    		int word_size, int count, DataRequestMonitor<MemoryBuffer> drm);
+}
@@ -0,0 +1,164 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Wind River Systems and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Wind River Systems - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.dsf.debug.service;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.BitSet;
+
+import org.eclipse.debug.core.model.MemoryByte;
+
+/**
+ * A block of target memory as returned by {@link IMemory2#getMemoryBuffer}.
+ * The content is kept in a byte array together with a bitmap telling which
+ * octets could be read, rather than in one {@link MemoryByte} per octet.
+ * <p>
+ * Instances are immutable, the arrays passed to the constructor must not be
+ * modified afterwards.
+ *
+ * @since 2.6
+ */
+public final class MemoryBuffer {
+
+	private final byte[] fBytes;
+	private final BitSet fReadable;
+	private final boolean fEndianessKnown;
+	private final boolean fBigEndian;
+
+	/**
+	 * Creates a buffer of unknown endianness.
+	 *
+	 * @param bytes the octets read from the target
+	 * @param readable bit <code>i</code> is set if octet <code>i</code> could be read
+	 */
+	public MemoryBuffer(byte[] bytes, BitSet readable) {
+		this(bytes, readable, false, false);
+	}
+
+	/**
+	 * @param bytes the octets read from the target
+	 * @param readable bit <code>i</code> is set if octet <code>i</code> could be read
+	 * @param endianessKnown whether the endianness of the target is known
+	 * @param bigEndian whether the target is big endian
+	 */
+	public MemoryBuffer(byte[] bytes, BitSet readable, boolean endianessKnown, boolean bigEndian) {
+		fBytes = bytes;
+		fReadable = readable;
+		fEndianessKnown = endianessKnown;
+		fBigEndian = bigEndian;
+	}
+
+	/**
+	 * Creates a buffer from memory bytes as returned by {@link IMemory#getMemory}.
+	 * The endianness is taken from the first byte.
+	 */
+	public static MemoryBuffer fromMemoryBytes(MemoryByte[] block) {
+		byte[] bytes = new byte[block.length];
+		BitSet readable = new BitSet(block.length);
+		for (int i = 0; i < block.length; i++) {
+			bytes[i] = block[i].getValue();
+			if (block[i].isReadable()) {
+				readable.set(i);
+			}
+		}
+		if (block.length > 0 && block[0].isEndianessKnown()) {
+			return new MemoryBuffer(bytes, readable, true, block[0].isBigEndian());
+		}
+		return new MemoryBuffer(bytes, readable);
+	}
+
+	/**
+	 * Returns the number of octets in the buffer.
+	 */
+	public int getLength() {
+		return fBytes.length;
+	}
+
+	/**
+	 * Returns the octets of the buffer. The values of octets that could not
+	 * be read are undefined. The array must not be modified.
+	 */
+	public byte[] getBytes() {
+		return fBytes;
+	}
+
+	/**
+	 * Returns a read-only view of the octets, ordered according to the
+	 * endianness of the target if known.
+	 */
+	public ByteBuffer asByteBuffer() {
+		ByteBuffer buffer = ByteBuffer.wrap(fBytes).asReadOnlyBuffer();
+		if (fEndianessKnown) {
+			buffer.order(fBigEndian ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN);
+		}
+		return buffer;
+	}
+
+	/**
+	 * Returns whether the octet at the given index could be read.
+	 */
+	public boolean isReadable(int index) {
+		return fReadable.get(index);
+	}
+
+	/**
+	 * Returns whether all octets of the buffer could be read.
+	 */
+	public boolean isReadable() {
+		return fReadable.nextClearBit(0) >= fBytes.length;
+	}
+
+	/**
+	 * Returns the bitmap of the readable octets. The bitmap must not be modified.
+	 */
+	public BitSet getReadable() {
+		return fReadable;
+	}
+
+	public boolean isEndianessKnown() {
+		return fEndianessKnown;
+	}
+
+	public boolean isBigEndian() {
+		return fBigEndian;
+	}
+
+	/**
+	 * Returns a buffer with the same content and the given endianness.
+	 */
+	public MemoryBuffer withEndianness(boolean bigEndian) {
+		if (fEndianessKnown && fBigEndian == bigEndian) {
+			return this;
+		}
+		return new MemoryBuffer(fBytes, fReadable, true, bigEndian);
+	}
+
+	/**
+	 * Converts the buffer to memory bytes as returned by {@link IMemory#getMemory}.
+	 * The octets that could be read are flagged as readable and writable.
+	 */
+	public MemoryByte[] toMemoryBytes() {
+		byte unreadableFlags = 0;
+		if (fEndianessKnown) {
+			unreadableFlags |= MemoryByte.ENDIANESS_KNOWN;
+			if (fBigEndian) {
+				unreadableFlags |= MemoryByte.BIG_ENDIAN;
+			}
+		}
+		byte readableFlags = (byte) (unreadableFlags | MemoryByte.READABLE | MemoryByte.WRITABLE);
+
+		MemoryByte[] block = new MemoryByte[fBytes.length];
+		for (int i = 0; i < block.length; i++) {
+			block[i] = new MemoryByte(fBytes[i], fReadable.get(i) ? readableFlags : unreadableFlags);
+		}
+		return block;
+	}
+}
@@ -16,10 +16,15 @@ import java.util.Dictionary;
 import java.util.Enumeration;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.eclipse.cdt.dsf.concurrent.DsfExecutor;
+import org.eclipse.cdt.dsf.concurrent.DsfRunnable;
 import org.eclipse.cdt.dsf.concurrent.IDsfStatusConstants;
 import org.eclipse.cdt.dsf.concurrent.RequestMonitor;
+import org.eclipse.cdt.dsf.internal.DsfPlugin;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.Constants;
 import org.osgi.framework.ServiceRegistration;
@@ -63,8 +68,30 @@ abstract public class AbstractDsfService
         fSession = session;
     }
 
+    /**
+     * Returns the executor of the service's affinity group, which is the
+     * session's executor unless executor lanes are enabled.
+     * @see DsfSession#getExecutor(String)
+     */
     @Override
-    public DsfExecutor getExecutor() { return fSession.getExecutor(); }
+    public DsfExecutor getExecutor() { return fSession.getExecutor(getExecutorAffinity()); }
+
+    /**
+     * Returns the name of the affinity group of this service, or <code>null</code>
+     * if the service runs on the session's executor.  Services of the same group
+     * share an executor.  A service declaring an affinity group must only be 
+     * called on its own executor, and must in turn call other services on theirs.
+     * <p>
+     * The exceptions are {@link #initialize(RequestMonitor)} and 
+     * {@link #shutdown(RequestMonitor)}, which are usually called on the 
+     * session's executor.  They hand off to the service's executor before completing
+     * their request monitor, hence sub-classes continue their initialization
+     * and shutdown in the request monitor they pass to these methods, and 
+     * call {@link #register(String[], Dictionary)} from there.
+     * 
+     * @since 2.6
+     */
+    protected String getExecutorAffinity() { return null; }
 
 	/**
 	 * The the returned collection is a superset of the properties specified in
@@ -86,18 +113,56 @@ abstract public class AbstractDsfService
     @Override
     public int getStartupNumber() { return fStartupNumber; }
     
+    /**
+     * Called on the session's executor or on the executor of the service.
+     * Completes the given request monitor on the executor of the service, see
+     * {@link #getExecutorAffinity()}.
+     */
     @Override
-    public void initialize(RequestMonitor rm) {
-        fTracker = new DsfServicesTracker(getBundleContext(), fSession.getId());
+    public void initialize(final RequestMonitor rm) {
         fStartupNumber = fSession.getAndIncrementServiceStartupCounter();
-        rm.done();
+        executeOnServiceExecutor(new DsfRunnable() {
+            @Override
+            public void run() {
+                fTracker = new DsfServicesTracker(getBundleContext(), fSession.getId());
+                rm.done();
+            }
+        }, rm);
     }
         
+    /**
+     * Called on the session's executor or on the executor of the service.
+     * Completes the given request monitor on the executor of the service.
+     */
     @Override
-    public void shutdown(RequestMonitor rm) {
-        fTracker.dispose();
-        fTracker = null;
-        rm.done();
+    public void shutdown(final RequestMonitor rm) {
+        executeOnServiceExecutor(new DsfRunnable() {
+            @Override
+            public void run() {
+                fTracker.dispose();
+                fTracker = null;
+                rm.done();
+            }
+        }, rm);
+    }
+
+    /**
+     * Runs the given runnable on the executor of the service, right away if
+     * called on that executor already.
+     */
+    private void executeOnServiceExecutor(DsfRunnable runnable, RequestMonitor rm) {
+        try {
+            DsfExecutor executor = getExecutor();
+            if (executor == fSession.getExecutor() || executor.isInExecutorThread()) {
+                runnable.run();
+            } else {
+                assert fSession.getExecutor().isInExecutorThread();
+                executor.execute(runnable);
+            }
+        } catch (RejectedExecutionException e) {
+            rm.setStatus(new Status(IStatus.ERROR, DsfPlugin.PLUGIN_ID, INVALID_STATE, "Executor of the service is shut down", e)); //$NON-NLS-1$
+            rm.done();
+        }
     }
     
     /**
@@ -24,8 +24,10 @@ import java.util.Map;
 import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.eclipse.cdt.dsf.concurrent.ConfinedToDsfExecutor;
+import org.eclipse.cdt.dsf.concurrent.DefaultDsfExecutor;
 import org.eclipse.cdt.dsf.concurrent.DsfExecutor;
 import org.eclipse.cdt.dsf.concurrent.DsfRunnable;
 import org.eclipse.cdt.dsf.concurrent.ThreadSafe;
@@ -49,6 +51,13 @@ import org.osgi.framework.Filter;
  * <br>3. Each session has its set of service event listeners.
  * <br>4. Start and end of each session is announced by events, which are always
  * sent on that session's executor dispatch thread.      
+ * <p>
+ * Services can declare an affinity group, see {@link #getExecutor(String)}. If
+ * executor lanes are enabled with {@link #setExecutorLanesEnabled(boolean)} or, 
+ * for all sessions, with the system property 
+ * <code>org.eclipse.cdt.dsf.executorLanes</code>, each affinity group runs on an
+ * executor of its own, such that the services of different groups can run in
+ * parallel. The services of a group are still confined to a single thread.
  * 
  * @see org.eclipse.cdt.dsf.concurrent.DsfExecutor
  * 
@@ -89,6 +98,12 @@ public class DsfSession
 	 */
     private static final boolean DEBUG_SESSION_MODELADAPTERS;
 
+    /**
+     * Whether services with an affinity group run on executors of their own,
+     * unless the session says otherwise.
+     */
+    private static final boolean DEFAULT_EXECUTOR_LANES = Boolean.getBoolean("org.eclipse.cdt.dsf.executorLanes"); //$NON-NLS-1$
+
     static {
     	DEBUG_SESSION = DsfPlugin.DEBUG && "true".equals( //$NON-NLS-1$
                 Platform.getDebugOption("org.eclipse.cdt.dsf/debug/session")); //$NON-NLS-1$
@@ -240,6 +255,9 @@ public class DsfSession
                 for (int i = 0; i < listeners.length; i++) {
                     listeners[i].sessionEnded(session);
                 }
+                // The session's executor belongs to the creator of the session, 
+                // the executors of the affinity groups are owned by the session.
+                session.shutdownLanes();
             }});
         }
     }
@@ -270,11 +288,20 @@ public class DsfSession
     
     /** Dispatch-thread executor for this session */
     private final DsfExecutor fExecutor;
+
+    /** Executors of the affinity groups, created on demand if executor lanes are enabled */
+    private final Map<String,DefaultDsfExecutor> fLanes = new HashMap<String,DefaultDsfExecutor>();
+
+    /** Whether executor lanes are enabled for this session, guarded by fLanes */
+    private boolean fExecutorLanes = DEFAULT_EXECUTOR_LANES;
     
     /** Service start-up counter for this session */ 
     private int fServiceInstanceCounter;
     
-    /** Map of registered event listeners. */
+    /** 
+     * Map of registered event listeners.  Services running on executor lanes
+     * register themselves on their lane's thread, hence access is synchronized.
+     */
     private Map<ListenerEntry,Method[]> fListeners = new HashMap<ListenerEntry,Method[]>();
     
     /** 
@@ -298,6 +325,113 @@ public class DsfSession
     @ThreadSafe
     public DsfExecutor getExecutor() { return fExecutor; }
 
+    /**
+     * Returns the executor for the services of the given affinity group.  If
+     * executor lanes are enabled, each group gets a single-threaded executor
+     * of its own, otherwise all groups share the executor of the session.
+     * <p>
+     * Methods of a service running on a lane must be called on the lane's 
+     * executor, as returned by {@link IDsfService#getExecutor()}, rather than
+     * on the session's executor.
+     * 
+     * @param affinity name of the affinity group, <code>null</code> for the 
+     * session's executor
+     * @throws RejectedExecutionException if the lane of the group does not exist
+     * yet and the session has ended, the lanes are shut down with the session
+     * @since 2.6
+     */
+    @ThreadSafe
+    public DsfExecutor getExecutor(String affinity) {
+        if (affinity == null) {
+            return fExecutor;
+        }
+        synchronized (fLanes) {
+            if (!fExecutorLanes) {
+                return fExecutor;
+            }
+            DefaultDsfExecutor lane = fLanes.get(affinity);
+            if (lane == null) {
+                if (!isActive()) {
+                    throw new RejectedExecutionException("Session " + fId + " has ended"); //$NON-NLS-1$ //$NON-NLS-2$
+                }
+                lane = new DefaultDsfExecutor("DSF Executor [" + affinity + "]"); //$NON-NLS-1$ //$NON-NLS-2$
+                fLanes.put(affinity, lane);
+            }
+            return lane;
+        }
+    }
+
+    /**
+     * Enables or disables the executor lanes of this session, overriding the
+     * system property <code>org.eclipse.cdt.dsf.executorLanes</code>.  This 
+     * must be called before the executor of an affinity group is requested.
+     * 
+     * @throws IllegalStateException if lanes have been created already 
+     * @since 2.6
+     */
+    @ThreadSafe
+    public void setExecutorLanesEnabled(boolean enabled) {
+        synchronized (fLanes) {
+            if (!fLanes.isEmpty()) {
+                throw new IllegalStateException("Executor lanes are in use"); //$NON-NLS-1$
+            }
+            fExecutorLanes = enabled;
+        }
+    }
+
+    /**
+     * Returns whether the services of an affinity group run on an executor of
+     * their own in this session.
+     * 
+     * @since 2.6
+     */
+    @ThreadSafe
+    public boolean isExecutorLanesEnabled() {
+        synchronized (fLanes) {
+            return fExecutorLanes;
+        }
+    }
+
+    /**
+     * Returns the executors of the affinity groups created so far, for 
+     * instrumentation.  The session's own executor is not included.
+     * 
+     * @since 2.6
+     */
+    @ThreadSafe
+    public DefaultDsfExecutor[] getLaneExecutors() {
+        synchronized (fLanes) {
+            return fLanes.values().toArray(new DefaultDsfExecutor[fLanes.size()]);
+        }
+    }
+
+    @ThreadSafe
+    private void shutdownLanes() {
+        synchronized (fLanes) {
+            for (DefaultDsfExecutor lane : fLanes.values()) {
+                lane.shutdown();
+            }
+            fLanes.clear();
+        }
+    }
+
+    /**
+     * Checks whether the calling thread is the thread of the session's executor
+     * or of one of its lanes.
+     */
+    @ThreadSafe
+    private boolean isInSessionThread() {
+        if (fExecutor.isInExecutorThread()) {
+            return true;
+        }
+        for (DefaultDsfExecutor lane : getLaneExecutors()) {
+            if (lane.isInExecutorThread()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
 	/**
 	 * Adds a new listener for service events in this session.  If the given 
 	 * object is already registered as a listener, then this call does nothing.
@@ -316,7 +450,7 @@ public class DsfSession
 	 *            will receive events from
 	 */
     public void addServiceEventListener(Object listener, Filter filter) {
-        assert getExecutor().isInExecutorThread();
+        assert isInSessionThread();
         
         ListenerEntry entry = new ListenerEntry(listener, filter);
         if (DEBUG_SESSION_LISTENERS) {
@@ -332,7 +466,10 @@ public class DsfSession
 
         	DsfPlugin.debug(msg);
         }
-        fListeners.put(entry, getEventHandlerMethods(listener));
+        Method[] methods = getEventHandlerMethods(listener);
+        synchronized (fListeners) {
+            fListeners.put(entry, methods);
+        }
     }
     
     /**
@@ -342,7 +479,7 @@ public class DsfSession
      * @param listener listener to remove
      */
     public void removeServiceEventListener(Object listener) {
-        assert getExecutor().isInExecutorThread();
+        assert isInSessionThread();
 
         ListenerEntry entry = new ListenerEntry(listener, null);
         if (DEBUG_SESSION_LISTENERS) {
@@ -358,7 +495,9 @@ public class DsfSession
 
         	DsfPlugin.debug(msg);
         }
-        fListeners.remove(entry);
+        synchronized (fListeners) {
+            fListeners.remove(entry);
+        }
     }
 
     /**
@@ -472,7 +611,7 @@ public class DsfSession
     @ThreadSafe
     public int hashCode() { return fId.hashCode(); }
 
-    private void doDispatchEvent(Object event, Dictionary<?,?> _serviceProperties) {
+    private void doDispatchEvent(final Object event, Dictionary<?,?> _serviceProperties) {
         // Need to cast to dictionary with String keys to satisfy OSGI in platform 3.7.
         // Bug 326233
         @SuppressWarnings("unchecked") 
@@ -502,7 +641,11 @@ public class DsfSession
 
         // Build a list of listeners and methods that are registered for this event class.
         Class<?> eventClass = event.getClass();
-        for (Map.Entry<ListenerEntry,Method[]> entry : fListeners.entrySet()) {
+        List<Map.Entry<ListenerEntry,Method[]>> registeredListeners;
+        synchronized (fListeners) {
+            registeredListeners = new ArrayList<Map.Entry<ListenerEntry,Method[]>>(fListeners.entrySet());
+        }
+        for (Map.Entry<ListenerEntry,Method[]> entry : registeredListeners) {
             if (entry.getKey().fFilter != null && !entry.getKey().fFilter.match(serviceProperties)) {
                 // Dispatching service doesn't match the listener's filter, skip it.
                 continue;
@@ -521,25 +664,44 @@ public class DsfSession
             }
         }
         
-        // Call the listeners
+        // Call the listeners, the services running on a lane are called on 
+        // their lane's executor
         for (Map.Entry<ListenerEntry,List<Method>> entry : listeners.entrySet()) {
-            for (Method method : entry.getValue()) {
-                try {
-                    if (DEBUG_SESSION_DISPATCHES) {
-                    	DsfPlugin.debug(DsfPlugin.getDebugTime() + " Listener " + LoggingUtils.toString(entry.getKey().fListener) + " invoked with event " + LoggingUtils.toString(event));  //$NON-NLS-1$ //$NON-NLS-2$
-                    }
-                    method.invoke(entry.getKey().fListener, new Object[] { event } );
-                }
-                catch (IllegalAccessException e) {
-                    DsfPlugin.getDefault().getLog().log(new Status(
-                        IStatus.ERROR, DsfPlugin.PLUGIN_ID, -1, "Security exception when calling a service event handler method", e)); //$NON-NLS-1$
-                    assert false : "IServiceEventListener.ServiceHandlerMethod method not accessible, is listener declared public?"; //$NON-NLS-1$
+            final Object listener = entry.getKey().fListener;
+            final List<Method> methods = entry.getValue();
+            try {
+                DsfExecutor executor = listener instanceof IDsfService ? ((IDsfService)listener).getExecutor() : fExecutor;
+                if (executor == fExecutor) {
+                    invokeEventHandlers(listener, methods, event);
+                } else {
+                    executor.execute(new DsfRunnable() {
+                        @Override
+                        public void run() { invokeEventHandlers(listener, methods, event); }
+                    });
                 }
-                catch (InvocationTargetException e) {
-                    DsfPlugin.getDefault().getLog().log(new Status(
-                        IStatus.ERROR, DsfPlugin.PLUGIN_ID, -1, "Invocation exception when calling a service event handler method", e)); //$NON-NLS-1$
-                    assert false : "Exception thrown by a IServiceEventListener.ServiceHandlerMethod method"; //$NON-NLS-1$
+            } catch (RejectedExecutionException e) {
+                // The lanes are shut down when the session ends, drop the event.
+            }
+        }
+    }
+
+    private void invokeEventHandlers(Object listener, List<Method> methods, Object event) {
+        for (Method method : methods) {
+            try {
+                if (DEBUG_SESSION_DISPATCHES) {
+                	DsfPlugin.debug(DsfPlugin.getDebugTime() + " Listener " + LoggingUtils.toString(listener) + " invoked with event " + LoggingUtils.toString(event));  //$NON-NLS-1$ //$NON-NLS-2$
                 }
+                method.invoke(listener, new Object[] { event } );
+            }
+            catch (IllegalAccessException e) {
+                DsfPlugin.getDefault().getLog().log(new Status(
+                    IStatus.ERROR, DsfPlugin.PLUGIN_ID, -1, "Security exception when calling a service event handler method", e)); //$NON-NLS-1$
+                assert false : "IServiceEventListener.ServiceHandlerMethod method not accessible, is listener declared public?"; //$NON-NLS-1$
+            }
+            catch (InvocationTargetException e) {
+                DsfPlugin.getDefault().getLog().log(new Status(
+                    IStatus.ERROR, DsfPlugin.PLUGIN_ID, -1, "Invocation exception when calling a service event handler method", e)); //$NON-NLS-1$
+                assert false : "Exception thrown by a IServiceEventListener.ServiceHandlerMethod method"; //$NON-NLS-1$
             }
         }
     }
@@ -53,7 +53,9 @@ public interface IDsfService {
     
     /**
      * Returns the executor that should be used to call methods of this service.
-     * This method is equivalent to calling getSession().getExecutor()
+     * This method is equivalent to calling getSession().getExecutor(), unless
+     * the service runs on an executor lane of the session, see 
+     * {@link DsfSession#getExecutor(String)}.
      */
     public DsfExecutor getExecutor();
     
@@ -0,0 +1,101 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Wind River Systems and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Wind River Systems - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.tests.dsf.concurrent;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.cdt.dsf.concurrent.DsfExecutorStatistics;
+import org.eclipse.cdt.dsf.concurrent.DsfRunnable;
+import org.eclipse.cdt.tests.dsf.TestDsfExecutor;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the statistics collected by the DSF executor.
+ */
+public class DsfExecutorStatisticsTests {
+    TestDsfExecutor fExecutor;
+
+    @Before
+    public void startExecutor() {
+        fExecutor = new TestDsfExecutor();
+    }
+
+    @After
+    public void shutdownExecutor() throws ExecutionException, InterruptedException {
+        fExecutor.submit(new DsfRunnable() { @Override
+	public void run() {
+            fExecutor.shutdown();
+        }}).get();
+        if (fExecutor.exceptionsCaught()) {
+            Throwable[] exceptions = fExecutor.getExceptions();
+            throw new ExecutionException(exceptions[0]);
+        }
+        fExecutor = null;
+    }
+
+    /**
+     * Waits until the statistics of all previously submitted tasks are recorded,
+     * which happens after their futures are done.
+     */
+    private DsfExecutorStatistics getStatistics() throws ExecutionException, InterruptedException {
+        fExecutor.submit(new DsfRunnable() { @Override
+	public void run() {
+        }}).get();
+        return fExecutor.getStatistics();
+    }
+
+    @Test
+    public void taskCountTest() throws ExecutionException, InterruptedException {
+        long initialCount = getStatistics().getTaskCount();
+        for (int i = 0; i < 10; i++) {
+            fExecutor.execute(new DsfRunnable() { @Override
+	public void run() {
+            }});
+        }
+        DsfExecutorStatistics statistics = getStatistics();
+        assertTrue(statistics.getTaskCount() >= initialCount + 10);
+        assertEquals(0, statistics.getQueueDepth());
+    }
+
+    @Test
+    public void latencyTest() throws ExecutionException, InterruptedException {
+        // Block the executor, such that the next task waits in the queue
+        fExecutor.execute(new DsfRunnable() { @Override
+	public void run() {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+            }
+        }});
+        fExecutor.execute(new DsfRunnable() { @Override
+	public void run() {
+        }});
+        DsfExecutorStatistics statistics = getStatistics();
+        assertTrue(statistics.getMaxLatency(TimeUnit.MILLISECONDS) >= 50);
+        assertTrue(statistics.getMaxRunTime(TimeUnit.MILLISECONDS) >= 50);
+        assertTrue(statistics.getAverageLatency(TimeUnit.NANOSECONDS) <= statistics.getMaxLatency(TimeUnit.NANOSECONDS));
+    }
+
+    @Test
+    public void queueDepthTest() throws ExecutionException, InterruptedException {
+        ScheduledFuture<?> future = fExecutor.schedule(new DsfRunnable() { @Override
+	public void run() {
+        }}, 1, TimeUnit.HOURS);
+        assertEquals(1, getStatistics().getQueueDepth());
+        future.cancel(false);
+    }
+}
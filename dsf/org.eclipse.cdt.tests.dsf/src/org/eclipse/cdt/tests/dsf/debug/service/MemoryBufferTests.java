@@ -0,0 +1,120 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Wind River Systems and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Wind River Systems - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.tests.dsf.debug.service;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.BitSet;
+
+import org.eclipse.cdt.dsf.debug.service.MemoryBuffer;
+import org.eclipse.debug.core.model.MemoryByte;
+import org.junit.Test;
+
+/**
+ * Tests the conversions of {@link MemoryBuffer}.
+ */
+public class MemoryBufferTests {
+
+	private static final byte[] BYTES = { 0x10, 0x20, 0x30, 0x40 };
+
+	private static BitSet readable(int... indices) {
+		BitSet readable = new BitSet();
+		for (int i : indices) {
+			readable.set(i);
+		}
+		return readable;
+	}
+
+	@Test
+	public void readableTest() {
+		assertTrue(new MemoryBuffer(BYTES, readable(0, 1, 2, 3)).isReadable());
+		assertTrue(new MemoryBuffer(new byte[0], new BitSet()).isReadable());
+
+		MemoryBuffer buffer = new MemoryBuffer(BYTES, readable(0, 2));
+		assertFalse(buffer.isReadable());
+		assertTrue(buffer.isReadable(0));
+		assertFalse(buffer.isReadable(1));
+		assertTrue(buffer.isReadable(2));
+		assertFalse(buffer.isReadable(3));
+	}
+
+	@Test
+	public void toMemoryBytesFlagsTest() {
+		MemoryByte[] block = new MemoryBuffer(BYTES, readable(1, 2)).toMemoryBytes();
+		assertEquals(BYTES.length, block.length);
+		for (int i = 0; i < block.length; i++) {
+			assertEquals(BYTES[i], block[i].getValue());
+		}
+		assertEquals(0, block[0].getFlags());
+		assertEquals(MemoryByte.READABLE | MemoryByte.WRITABLE, block[1].getFlags());
+		assertEquals(MemoryByte.READABLE | MemoryByte.WRITABLE, block[2].getFlags());
+		assertEquals(0, block[3].getFlags());
+	}
+
+	@Test
+	public void toMemoryBytesEndiannessTest() {
+		MemoryByte[] block = new MemoryBuffer(BYTES, readable(0), true, true).toMemoryBytes();
+		// The endianness is known for all octets, readable or not.
+		assertEquals(MemoryByte.READABLE | MemoryByte.WRITABLE | MemoryByte.ENDIANESS_KNOWN | MemoryByte.BIG_ENDIAN,
+				block[0].getFlags());
+		assertEquals(MemoryByte.ENDIANESS_KNOWN | MemoryByte.BIG_ENDIAN, block[1].getFlags());
+
+		block = new MemoryBuffer(BYTES, readable(0), true, false).toMemoryBytes();
+		assertTrue(block[0].isEndianessKnown());
+		assertFalse(block[0].isBigEndian());
+		assertTrue(block[1].isEndianessKnown());
+		assertFalse(block[1].isReadable());
+	}
+
+	@Test
+	public void fromMemoryBytesTest() {
+		MemoryBuffer original = new MemoryBuffer(BYTES, readable(0, 3), true, false);
+		MemoryBuffer buffer = MemoryBuffer.fromMemoryBytes(original.toMemoryBytes());
+		assertArrayEquals(BYTES, buffer.getBytes());
+		assertEquals(readable(0, 3), buffer.getReadable());
+		assertTrue(buffer.isEndianessKnown());
+		assertFalse(buffer.isBigEndian());
+
+		buffer = MemoryBuffer.fromMemoryBytes(new MemoryByte[] { new MemoryByte((byte) 1) });
+		assertTrue(buffer.isReadable());
+		assertFalse(buffer.isEndianessKnown());
+	}
+
+	@Test
+	public void byteBufferTest() {
+		MemoryBuffer buffer = new MemoryBuffer(BYTES, readable(0, 1, 2, 3));
+		assertTrue(buffer.asByteBuffer().isReadOnly());
+
+		ByteBuffer bigEndian = buffer.withEndianness(true).asByteBuffer();
+		assertEquals(ByteOrder.BIG_ENDIAN, bigEndian.order());
+		assertEquals(0x10203040, bigEndian.getInt(0));
+
+		ByteBuffer littleEndian = buffer.withEndianness(false).asByteBuffer();
+		assertEquals(ByteOrder.LITTLE_ENDIAN, littleEndian.order());
+		assertEquals(0x40302010, littleEndian.getInt(0));
+	}
+
+	@Test
+	public void withEndiannessTest() {
+		MemoryBuffer buffer = new MemoryBuffer(BYTES, readable(0), true, true);
+		assertSame(buffer, buffer.withEndianness(true));
+		MemoryBuffer littleEndian = buffer.withEndianness(false);
+		assertFalse(littleEndian.isBigEndian());
+		assertSame(buffer.getBytes(), littleEndian.getBytes());
+		assertSame(buffer.getReadable(), littleEndian.getReadable());
+	}
+}
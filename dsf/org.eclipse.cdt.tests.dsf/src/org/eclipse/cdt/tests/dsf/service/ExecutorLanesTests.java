@@ -0,0 +1,291 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Wind River Systems and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Wind River Systems - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.tests.dsf.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Hashtable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.cdt.dsf.concurrent.CountingRequestMonitor;
+import org.eclipse.cdt.dsf.concurrent.DataRequestMonitor;
+import org.eclipse.cdt.dsf.concurrent.DsfExecutor;
+import org.eclipse.cdt.dsf.concurrent.DsfRunnable;
+import org.eclipse.cdt.dsf.concurrent.ImmediateRequestMonitor;
+import org.eclipse.cdt.dsf.concurrent.Query;
+import org.eclipse.cdt.dsf.concurrent.RequestMonitor;
+import org.eclipse.cdt.dsf.service.AbstractDsfService;
+import org.eclipse.cdt.dsf.service.DsfServiceEventHandler;
+import org.eclipse.cdt.dsf.service.DsfSession;
+import org.eclipse.cdt.tests.dsf.DsfTestPlugin;
+import org.eclipse.cdt.tests.dsf.TestDsfExecutor;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.osgi.framework.BundleContext;
+
+/**
+ * Tests the executors of the affinity groups of a session, and the services
+ * running on them.
+ */
+public class ExecutorLanesTests {
+    private static final int TIMEOUT = 5000;
+
+    TestDsfExecutor fExecutor;
+    DsfSession fSession;
+
+    /** Simple event, dispatched to all services */
+    public static class TestEvent {}
+
+    /**
+     * Service of an affinity group, which records where it runs.
+     */
+    public static class LaneService extends AbstractDsfService {
+        private final String fAffinity;
+        volatile Thread fInitializeThread;
+        volatile Thread fEventThread;
+        volatile int fEventCount;
+
+        public LaneService(DsfSession session, String affinity) {
+            super(session);
+            fAffinity = affinity;
+        }
+
+        @Override
+        protected String getExecutorAffinity() {
+            return fAffinity;
+        }
+
+        @Override
+        protected BundleContext getBundleContext() {
+            return DsfTestPlugin.getBundleContext();
+        }
+
+        @Override
+        public void initialize(final RequestMonitor requestMonitor) {
+            // The base class completes the request monitor on the lane
+            super.initialize(
+                new ImmediateRequestMonitor(requestMonitor) {
+                    @Override
+                    public void handleSuccess() {
+                        doInitialize(requestMonitor);
+                    }
+                });
+        }
+
+        private void doInitialize(RequestMonitor requestMonitor) {
+            fInitializeThread = Thread.currentThread();
+            getSession().addServiceEventListener(this, null);
+            requestMonitor.done();
+        }
+
+        @Override
+        public void shutdown(RequestMonitor requestMonitor) {
+            getSession().removeServiceEventListener(this);
+            super.shutdown(requestMonitor);
+        }
+
+        @DsfServiceEventHandler
+        public void eventDispatched(TestEvent e) {
+            fEventThread = Thread.currentThread();
+            fEventCount++;
+        }
+    }
+
+    /** Listener that is not a service, it receives events on the session's executor */
+    public class SessionListener {
+        volatile boolean fEventInSessionThread;
+
+        @DsfServiceEventHandler
+        public void eventDispatched(TestEvent e) {
+            fEventInSessionThread = fExecutor.isInExecutorThread();
+        }
+    }
+
+    @Before
+    public void startSession() {
+        fExecutor = new TestDsfExecutor();
+        fSession = DsfSession.startSession(fExecutor, "org.eclipse.cdt.dsf.tests"); //$NON-NLS-1$
+        fSession.setExecutorLanesEnabled(true);
+    }
+
+    @After
+    public void endSession() throws ExecutionException, InterruptedException {
+        if (fSession.isActive()) {
+            DsfSession.endSession(fSession);
+        }
+        fExecutor.submit(new DsfRunnable() {
+            @Override
+            public void run() {
+                fExecutor.shutdown();
+            }
+        }).get();
+        if (fExecutor.exceptionsCaught()) {
+            Throwable[] exceptions = fExecutor.getExceptions();
+            throw new ExecutionException(exceptions[0]);
+        }
+        fExecutor = null;
+    }
+
+    private void runOnExecutor(final DsfRunnable runnable) throws Exception {
+        Query<Object> query = new Query<Object>() {
+            @Override
+            protected void execute(DataRequestMonitor<Object> rm) {
+                runnable.run();
+                rm.done();
+            }
+        };
+        fExecutor.execute(query);
+        query.get(TIMEOUT, TimeUnit.MILLISECONDS);
+    }
+
+    private Thread threadOf(DsfExecutor executor) throws Exception {
+        Query<Thread> query = new Query<Thread>() {
+            @Override
+            protected void execute(DataRequestMonitor<Thread> rm) {
+                rm.setData(Thread.currentThread());
+                rm.done();
+            }
+        };
+        executor.execute(query);
+        return query.get(TIMEOUT, TimeUnit.MILLISECONDS);
+    }
+
+    private void initialize(final LaneService... services) throws Exception {
+        Query<Object> query = new Query<Object>() {
+            @Override
+            protected void execute(DataRequestMonitor<Object> rm) {
+                CountingRequestMonitor crm = new CountingRequestMonitor(fExecutor, rm);
+                crm.setDoneCount(services.length);
+                for (LaneService service : services) {
+                    service.initialize(crm);
+                }
+            }
+        };
+        fExecutor.execute(query);
+        query.get(TIMEOUT, TimeUnit.MILLISECONDS);
+    }
+
+    private void shutdown(final LaneService service) throws Exception {
+        Query<Object> query = new Query<Object>() {
+            @Override
+            protected void execute(DataRequestMonitor<Object> rm) {
+                service.shutdown(rm);
+            }
+        };
+        fExecutor.execute(query);
+        query.get(TIMEOUT, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Dispatches an event and waits until the lanes of the given services have handled it.
+     */
+    private void dispatchEvent(LaneService... services) throws Exception {
+        fSession.dispatchEvent(new TestEvent(), new Hashtable<String,String>());
+        // The event is dispatched on the session's executor, which then hands it to the lanes.
+        runOnExecutor(new DsfRunnable() {
+            @Override
+            public void run() {}
+        });
+        for (LaneService service : services) {
+            service.getExecutor().submit(new DsfRunnable() {
+                @Override
+                public void run() {}
+            }).get(TIMEOUT, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Test
+    public void laneOfEachAffinityGroup() {
+        DsfExecutor laneA = fSession.getExecutor("a"); //$NON-NLS-1$
+        DsfExecutor laneB = fSession.getExecutor("b"); //$NON-NLS-1$
+        assertSame(fExecutor, fSession.getExecutor(null));
+        assertNotSame(fExecutor, laneA);
+        assertNotSame(laneA, laneB);
+        assertSame(laneA, fSession.getExecutor("a")); //$NON-NLS-1$
+        assertEquals(2, fSession.getLaneExecutors().length);
+    }
+
+    @Test
+    public void lanesDisabled() {
+        fSession.setExecutorLanesEnabled(false);
+        assertFalse(fSession.isExecutorLanesEnabled());
+        assertSame(fExecutor, fSession.getExecutor("a")); //$NON-NLS-1$
+        assertEquals(0, fSession.getLaneExecutors().length);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void lanesInUse() {
+        fSession.getExecutor("a"); //$NON-NLS-1$
+        fSession.setExecutorLanesEnabled(false);
+    }
+
+    @Test
+    public void noLaneAfterSessionEnded() throws Exception {
+        DsfExecutor laneA = fSession.getExecutor("a"); //$NON-NLS-1$
+        DsfSession.endSession(fSession);
+        runOnExecutor(new DsfRunnable() {
+            @Override
+            public void run() {}
+        });
+        assertTrue(laneA.isShutdown());
+        assertEquals(0, fSession.getLaneExecutors().length);
+        try {
+            fSession.getExecutor("b"); //$NON-NLS-1$
+            fail("Lane created after the session ended"); //$NON-NLS-1$
+        } catch (RejectedExecutionException e) {
+        }
+    }
+
+    @Test
+    public void servicesRunOnTheirLane() throws Exception {
+        LaneService serviceA = new LaneService(fSession, "a"); //$NON-NLS-1$
+        LaneService serviceB = new LaneService(fSession, "b"); //$NON-NLS-1$
+        final SessionListener listener = new SessionListener();
+        initialize(serviceA, serviceB);
+        runOnExecutor(new DsfRunnable() {
+            @Override
+            public void run() {
+                fSession.addServiceEventListener(listener, null);
+            }
+        });
+
+        // The services are initialized on their lanes, which have threads of their own.
+        Thread laneA = threadOf(serviceA.getExecutor());
+        Thread laneB = threadOf(serviceB.getExecutor());
+        assertNotSame(laneA, laneB);
+        assertNotSame(threadOf(fExecutor), laneA);
+        assertSame(laneA, serviceA.fInitializeThread);
+        assertSame(laneB, serviceB.fInitializeThread);
+
+        dispatchEvent(serviceA, serviceB);
+        assertEquals(1, serviceA.fEventCount);
+        assertEquals(1, serviceB.fEventCount);
+        assertSame(laneA, serviceA.fEventThread);
+        assertSame(laneB, serviceB.fEventThread);
+        assertTrue(listener.fEventInSessionThread);
+
+        // A service that is shut down no longer receives events.
+        shutdown(serviceA);
+        dispatchEvent(serviceA, serviceB);
+        assertEquals(1, serviceA.fEventCount);
+        assertEquals(2, serviceB.fEventCount);
+
+        shutdown(serviceB);
+    }
+}